@@ -0,0 +1,401 @@
+package store;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Asynchronous alert dispatch, so hot paths (a sale draining a SKU, a reorder
+// scan) never print or do I/O themselves.
+// raise() puts the alert on a bounded lock-free ring and returns. It never blocks:
+// past half full only every `sampleEvery`-th alert is accepted, and when the ring
+// is full the alert is dropped. Both are counted.
+// One daemon thread drains the ring and coalesces by key. The first alert for a
+// key goes out in the next batch. Repeats within `windowMillis` of that are only
+// counted, then delivered as one alert carrying the repeat count once the window
+// has passed. Batches go to every sink every `batchMillis`; a failing sink is
+// counted and skipped, never retried inline.
+public final class AlertPipeline implements AutoCloseable {
+
+    public static final class Alert {
+        public final String key;      // what is being alerted about, e.g. "low-stock:P001"
+        public final String message;
+        public final long timeMillis; // of the latest occurrence
+        public final int occurrences; // > 1 when duplicates were coalesced
+
+        Alert(String key, String message, long timeMillis, int occurrences) {
+            this.key = key;
+            this.message = message;
+            this.timeMillis = timeMillis;
+            this.occurrences = occurrences;
+        }
+
+        @Override
+        public String toString() {
+            return occurrences > 1 ? message + " (x" + occurrences + ")" : message;
+        }
+    }
+
+    public interface Sink extends AutoCloseable {
+        void deliver(List<Alert> batch) throws IOException;
+
+        @Override
+        default void close() throws IOException {
+        }
+    }
+
+    private final Ring ring;
+    private final List<Sink> sinks = new CopyOnWriteArrayList<>();
+    private final long windowMillis;
+    private final long batchNanos;
+    private final int sampleEvery;
+    private final AtomicLong sampleTick = new AtomicLong();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final AtomicLong delivered = new AtomicLong();
+    private final LongAdder sinkFailures = new LongAdder();
+    private final Thread dispatcher;
+    private volatile boolean closed;
+
+    // Per key, touched only by the dispatcher
+    private static final class KeyState {
+        long deliveredAt;
+        Alert latest;
+        int pending; // occurrences not delivered yet
+    }
+
+    private final Map<String, KeyState> keys = new LinkedHashMap<>();
+
+    public AlertPipeline(int capacity, long windowMillis, long batchMillis, int sampleEvery) {
+        this.ring = new Ring(capacity);
+        this.windowMillis = windowMillis;
+        this.batchNanos = batchMillis * 1_000_000L;
+        this.sampleEvery = Math.max(1, sampleEvery);
+        this.dispatcher = new Thread(this::dispatchLoop, "store-alerts");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+    }
+
+    public AlertPipeline addSink(Sink sink) {
+        sinks.add(sink);
+        return this;
+    }
+
+    // Hand an alert to the dispatcher; false if it was dropped or sampled out
+    public boolean raise(String key, String message) {
+        if (closed) return false;
+        if (ring.size() > ring.capacity() / 2 && sampleTick.incrementAndGet() % sampleEvery != 0) {
+            sampledOut.increment();
+            return false;
+        }
+        if (!ring.offer(new Alert(key, message, System.currentTimeMillis(), 1))) {
+            dropped.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    public long sampledOut() {
+        return sampledOut.sum();
+    }
+
+    public long coalesced() {
+        return coalesced.sum();
+    }
+
+    public long delivered() {
+        return delivered.get();
+    }
+
+    public long sinkFailures() {
+        return sinkFailures.sum();
+    }
+
+    // ===== Dispatcher =====
+
+    private void dispatchLoop() {
+        List<Alert> batch = new ArrayList<>();
+        while (true) {
+            boolean stopping = closed;
+            long now = System.currentTimeMillis();
+            Alert a;
+            while ((a = ring.poll()) != null) absorb(a, now, batch);
+            collectDue(now, batch, stopping);
+            if (!batch.isEmpty()) {
+                deliver(batch);
+                batch.clear();
+            }
+            if (stopping) return;
+            LockSupport.parkNanos(this, batchNanos);
+        }
+    }
+
+    private void absorb(Alert a, long now, List<Alert> batch) {
+        KeyState k = keys.get(a.key);
+        if (k == null || now - k.deliveredAt >= windowMillis && k.pending == 0) {
+            if (k == null) {
+                k = new KeyState();
+                keys.put(a.key, k);
+            }
+            k.deliveredAt = now;
+            batch.add(a);
+            return;
+        }
+        k.latest = a;
+        k.pending++;
+        coalesced.increment();
+    }
+
+    // Repeat summaries whose window has passed; forget keys idle for a window
+    private void collectDue(long now, List<Alert> batch, boolean flushAll) {
+        for (Iterator<KeyState> it = keys.values().iterator(); it.hasNext(); ) {
+            KeyState k = it.next();
+            if (!flushAll && now - k.deliveredAt < windowMillis) continue;
+            if (k.pending > 0) {
+                Alert l = k.latest;
+                batch.add(new Alert(l.key, l.message, l.timeMillis, k.pending));
+                k.pending = 0;
+                k.latest = null;
+                k.deliveredAt = now;
+            } else {
+                it.remove();
+            }
+        }
+    }
+
+    private void deliver(List<Alert> batch) {
+        List<Alert> view = Collections.unmodifiableList(batch);
+        for (Sink s : sinks) {
+            try {
+                s.deliver(view);
+            } catch (Exception e) {
+                sinkFailures.increment();
+            }
+        }
+        delivered.addAndGet(batch.size());
+    }
+
+    // Deliver what is queued, then stop the dispatcher and close the sinks
+    @Override
+    public void close() {
+        closed = true;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (Sink s : sinks) {
+            try {
+                s.close();
+            } catch (Exception e) {
+                sinkFailures.increment();
+            }
+        }
+    }
+
+    // ===== Ring =====
+
+    // Bounded multi-producer, single-consumer array queue (Vyukov's sequence-per-slot
+    // design). A producer claims a slot with one CAS on the tail; the slot's sequence
+    // number tells the consumer when it has been filled and the producers when it is
+    // free again.
+    static final class Ring {
+        private final AtomicReferenceArray<Alert> slots;
+        private final AtomicLongArray sequence;
+        private final int mask;
+        private final AtomicLong tail = new AtomicLong();
+        private final AtomicLong head = new AtomicLong(); // written by the consumer only
+
+        Ring(int capacity) {
+            int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+            slots = new AtomicReferenceArray<>(size);
+            sequence = new AtomicLongArray(size);
+            for (int i = 0; i < size; i++) sequence.set(i, i);
+            mask = size - 1;
+        }
+
+        int capacity() {
+            return mask + 1;
+        }
+
+        int size() {
+            return (int) Math.max(0, tail.get() - head.get());
+        }
+
+        boolean offer(Alert a) {
+            long t = tail.get();
+            while (true) {
+                int i = (int) t & mask;
+                long diff = sequence.get(i) - t;
+                if (diff == 0) {
+                    if (tail.compareAndSet(t, t + 1)) {
+                        slots.lazySet(i, a);
+                        sequence.set(i, t + 1);
+                        return true;
+                    }
+                    t = tail.get();
+                } else if (diff < 0) {
+                    return false; // the consumer has not freed this slot: full
+                } else {
+                    t = tail.get();
+                }
+            }
+        }
+
+        Alert poll() {
+            long h = head.get();
+            int i = (int) h & mask;
+            if (sequence.get(i) != h + 1) return null;
+            Alert a = slots.get(i);
+            slots.lazySet(i, null);
+            sequence.set(i, h + mask + 1);
+            head.lazySet(h + 1);
+            return a;
+        }
+    }
+
+    // ===== Sinks =====
+
+    public static final class ConsoleSink implements Sink {
+        @Override
+        public void deliver(List<Alert> batch) {
+            StringBuilder sb = new StringBuilder();
+            for (Alert a : batch) sb.append(a).append('\n');
+            System.out.print(sb);
+        }
+    }
+
+    // Appends one line per alert: time, key, occurrences, message
+    public static final class FileSink implements Sink {
+        private final Writer out;
+
+        public FileSink(Path file) throws IOException {
+            out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+
+        @Override
+        public void deliver(List<Alert> batch) throws IOException {
+            for (Alert a : batch) writeLine(out, a);
+            out.flush();
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+
+    // Same lines as FileSink, over TCP to a local collector. Reconnects on the next
+    // batch after a failure; alerts in the failed batch are lost.
+    public static final class SocketSink implements Sink {
+        private final int port;
+        private Socket socket;
+        private Writer out;
+
+        public SocketSink(int port) {
+            this.port = port;
+        }
+
+        @Override
+        public void deliver(List<Alert> batch) throws IOException {
+            try {
+                if (out == null) {
+                    socket = new Socket(InetAddress.getLoopbackAddress(), port);
+                    out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+                }
+                for (Alert a : batch) writeLine(out, a);
+                out.flush();
+            } catch (IOException e) {
+                close();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (socket != null) socket.close();
+            } catch (IOException ignored) {
+                // already broken
+            }
+            socket = null;
+            out = null;
+        }
+    }
+
+    private static void writeLine(Writer out, Alert a) throws IOException {
+        out.write(Instant.ofEpochMilli(a.timeMillis).toString());
+        out.write('\t');
+        out.write(a.key);
+        out.write('\t');
+        out.write(Integer.toString(a.occurrences));
+        out.write('\t');
+        out.write(a.message);
+        out.write('\n');
+    }
+
+    // ===== Shared pipeline =====
+
+    private static volatile AlertPipeline shared;
+
+    // The process-wide pipeline, started on first use. Always prints to the console;
+    // -Dstore.alerts.file=<path> and -Dstore.alerts.port=<n> add file and socket sinks.
+    // Tuning: -Dstore.alerts.capacity (8192), .windowMs (60000), .batchMs (200), .sampleEvery (10)
+    public static AlertPipeline shared() {
+        AlertPipeline p = shared;
+        if (p != null) return p;
+        synchronized (AlertPipeline.class) {
+            if (shared == null) {
+                p = new AlertPipeline(Integer.getInteger("store.alerts.capacity", 8192),
+                        Long.getLong("store.alerts.windowMs", 60_000), Long.getLong("store.alerts.batchMs", 200),
+                        Integer.getInteger("store.alerts.sampleEvery", 10));
+                p.addSink(new ConsoleSink());
+                String file = System.getProperty("store.alerts.file");
+                if (file != null) {
+                    try {
+                        p.addSink(new FileSink(Path.of(file)));
+                    } catch (IOException e) {
+                        System.out.println("Could not open alert file " + file + ": " + e.getMessage());
+                    }
+                }
+                Integer port = Integer.getInteger("store.alerts.port");
+                if (port != null) p.addSink(new SocketSink(port));
+                AlertPipeline started = p;
+                Runtime.getRuntime().addShutdownHook(new Thread(started::close, "store-alerts-shutdown"));
+                shared = p;
+            }
+            return shared;
+        }
+    }
+
+    // The shared pipeline if something has used it, else null
+    static AlertPipeline sharedIfStarted() {
+        return shared;
+    }
+}
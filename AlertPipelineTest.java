@@ -0,0 +1,93 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+public class AlertPipelineTest {
+    static final class Capture implements AlertPipeline.Sink {
+        final List<AlertPipeline.Alert> alerts = new ArrayList<>();
+
+        @Override
+        public synchronized void deliver(List<AlertPipeline.Alert> batch) {
+            alerts.addAll(batch);
+        }
+
+        synchronized Map<String, Integer> occurrencesByKey() {
+            Map<String, Integer> m = new HashMap<>();
+            for (AlertPipeline.Alert a : alerts) m.merge(a.key, a.occurrences, Integer::sum);
+            return m;
+        }
+    }
+
+    @Test
+    public void burstsForOneKeyAreCoalesced() throws Exception {
+        Capture sink = new Capture();
+        AlertPipeline pipeline = new AlertPipeline(1 << 16, 60_000, 5, 10).addSink(sink);
+        Thread[] producers = new Thread[4];
+        for (int t = 0; t < producers.length; t++) {
+            final int id = t;
+            producers[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) pipeline.raise("low-stock:P1", "Low stock: P1 now " + i);
+                pipeline.raise("low-stock:Q" + id, "Low stock: Q" + id);
+            });
+            producers[t].start();
+        }
+        for (Thread t : producers) t.join();
+        pipeline.close();
+
+        Map<String, Integer> byKey = sink.occurrencesByKey();
+        assertEquals(20_000, (int) byKey.get("low-stock:P1"));
+        for (int t = 0; t < producers.length; t++) assertEquals(1, (int) byKey.get("low-stock:Q" + t));
+        // One immediate alert plus one repeat summary, instead of 20,000 lines
+        assertTrue(sink.alerts.size() <= 2 + producers.length);
+        assertEquals(20_000 - 1, pipeline.coalesced());
+    }
+
+    @Test
+    public void fullQueueDropsInsteadOfBlocking() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch entered = new CountDownLatch(1);
+        AlertPipeline pipeline = new AlertPipeline(16, 0, 1, 4).addSink(batch -> {
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertTrue(pipeline.raise("k0", "first"));
+        entered.await(); // dispatcher is stuck in the sink
+        int accepted = 0;
+        for (int i = 0; i < 1000; i++) if (pipeline.raise("k" + i, "alert " + i)) accepted++;
+        assertEquals(16, accepted);
+        assertEquals(1000 - accepted, pipeline.dropped() + pipeline.sampledOut());
+        assertTrue(pipeline.sampledOut() > 0);
+        release.countDown();
+        pipeline.close();
+        assertFalse(pipeline.raise("late", "after close"));
+        assertEquals(17, pipeline.delivered());
+    }
+
+    @Test
+    public void lowStockWarningsGoThroughThePipeline() throws Exception {
+        Capture sink = new Capture();
+        AlertPipeline.shared().addSink(sink);
+        String pid = "AL-" + System.nanoTime();
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Alert Item", "Test", 1.0, 10));
+        TransactionModule.enableLowStockWarnings(3);
+        TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 8);
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!sink.occurrencesByKey().containsKey("low-stock:" + pid) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(1, (int) sink.occurrencesByKey().get("low-stock:" + pid));
+    }
+}
@@ -1,6 +1,21 @@
+import store.AlertPipeline;
+
 // Alert System (simplified)
+// Alerts go through AlertPipeline: callers only enqueue, and repeats for the
+// same item within the pipeline's window are folded into one alert.
 class AlertSystem {
+    private final AlertPipeline pipeline;
+
+    public AlertSystem() {
+        this(AlertPipeline.shared());
+    }
+
+    public AlertSystem(AlertPipeline pipeline) {
+        this.pipeline = pipeline;
+    }
+
     public void displayReorderAlert(Item item) {
-        System.out.println("ALERT: Item " + item.getItemName() + " (Code: " + item.getItemCode() + ") needs to be reordered.");
+        pipeline.raise("reorder:" + item.getItemCode(),
+                "ALERT: Item " + item.getItemName() + " (Code: " + item.getItemCode() + ") needs to be reordered.");
     }
 }
@@ -0,0 +1,51 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Parallel store orders against a shared set of warehouses.
+// Each thread plays a group of stores placing small multi-line orders for random
+// items; stock is topped up so most orders allocate in full.
+// Usage: java AllocationBenchmark [threads] [ordersPerThread] [warehouses] [items]
+public class AllocationBenchmark {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int orders = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int warehouseCount = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        int itemCount = args.length > 3 ? Integer.parseInt(args[3]) : 5_000;
+
+        Item[] items = new Item[itemCount];
+        for (int i = 0; i < itemCount; i++) items[i] = new Item("Item " + i, "I" + i, 1000, 50, 2);
+        List<Warehouse> warehouses = new ArrayList<>();
+        for (int w = 0; w < warehouseCount; w++) {
+            Warehouse wh = new Warehouse("WH" + w, "Warehouse " + w, w * 13 % 100, w * 29 % 100);
+            for (Item item : items) wh.addItem(item, 1_000_000);
+            warehouses.add(wh);
+        }
+        for (OrderAllocator.Policy policy : OrderAllocator.Policy.values()) {
+            OrderAllocator allocator = new OrderAllocator(warehouses, policy);
+            AtomicLong allocated = new AtomicLong();
+            Thread[] ts = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                final int id = t;
+                ts[t] = new Thread(() -> {
+                    java.util.concurrent.ThreadLocalRandom rnd = java.util.concurrent.ThreadLocalRandom.current();
+                    Store[] stores = new Store[100];
+                    for (int s = 0; s < stores.length; s++) {
+                        stores[s] = new Store("ST" + id + "-" + s, "Store", rnd.nextInt(100), rnd.nextInt(100));
+                    }
+                    for (int i = 0; i < orders; i++) {
+                        Order o = new Order(Integer.toString(i), stores[i % stores.length]);
+                        for (int l = 0; l < 5; l++) o.addItem(items[rnd.nextInt(itemCount)], 1 + rnd.nextInt(20));
+                        if (allocator.allocate(o) == Order.Status.ALLOCATED) allocated.incrementAndGet();
+                    }
+                });
+                ts[t].start();
+            }
+            for (Thread t : ts) t.join();
+            double secs = (System.nanoTime() - start) / 1e9;
+            System.out.printf("%-12s %,.0f orders/sec (%d threads, %d warehouses, %,d allocated)%n", policy,
+                    (double) threads * orders / secs, threads, warehouseCount, allocated.get());
+        }
+    }
+}
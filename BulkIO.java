@@ -0,0 +1,783 @@
+package store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.IntPredicate;
+
+// Streaming bulk import/export of products, customers, sellers and sales.
+// Imports read the file through a FileChannel in CHUNK_SIZE pieces. Each piece is
+// cut after its last complete row and parsed on a worker thread; buffers come from
+// a fixed pool, so memory stays at (parallelism + 2) chunks whatever the file size.
+// Parsed rows reach StoreDB.importX() in batches, which fill the maps, columns and
+// indexes directly and journal without a per-row fsync.
+// CSV has a header line; fields may be quoted, with "" for a literal quote.
+// The binary sales format is [int magic] then [int length][fields] per sale.
+public class BulkIO {
+    public enum Kind {
+        PRODUCTS("id,name,category,price,stock"),
+        CUSTOMERS("id,name,phone"),
+        SELLERS("id,name"),
+        SALES("saleId,productId,customerId,sellerId,quantity,unitPrice,timestamp");
+
+        final String header;
+
+        Kind(String header) {
+            this.header = header;
+        }
+    }
+
+    static final int CHUNK_SIZE = 4 << 20;
+    static final int BATCH = 4096;
+    static final int BINARY_MAGIC = 0x53414C31; // "SAL1"
+
+    public static final class Stats {
+        public final long rows;
+        public final long rejected;
+        public final long bytes;
+        public final long nanos;
+        public final String firstError; // null when nothing was rejected
+
+        Stats(long rows, long rejected, long bytes, long nanos, String firstError) {
+            this.rows = rows;
+            this.rejected = rejected;
+            this.bytes = bytes;
+            this.nanos = nanos;
+            this.firstError = firstError;
+        }
+
+        public double rowsPerSecond() {
+            return nanos == 0 ? 0 : rows * 1e9 / nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rows (%,d rejected), %,d bytes in %.2f s: %,.0f rows/sec",
+                    rows, rejected, bytes, nanos / 1e9, rowsPerSecond());
+        }
+    }
+
+    // ===== Import =====
+
+    public static Stats importCsv(Kind kind, Path file) throws IOException {
+        return importCsv(kind, file, Runtime.getRuntime().availableProcessors());
+    }
+
+    public static Stats importCsv(Kind kind, Path file, int parallelism) throws IOException {
+        return read(file, parallelism, false, (buf, from, to, tally) -> parseCsv(kind, buf, from, to, tally));
+    }
+
+    public static Stats importSalesBinary(Path file, int parallelism) throws IOException {
+        return read(file, parallelism, true, BulkIO::parseBinarySales);
+    }
+
+    interface ChunkParser {
+        void parse(byte[] buf, int from, int to, Tally tally);
+    }
+
+    // Row counts shared by the workers of one import
+    static final class Tally {
+        final AtomicLong rows = new AtomicLong();
+        final AtomicLong rejected = new AtomicLong();
+        final AtomicReference<String> firstError = new AtomicReference<>();
+
+        void reject(String row, Exception e) {
+            rejected.incrementAndGet();
+            firstError.compareAndSet(null, e.getClass().getSimpleName() + ": " + e.getMessage() + " in [" + row + "]");
+        }
+    }
+
+    private static Stats read(Path file, int parallelism, boolean binary, ChunkParser parser) throws IOException {
+        long start = System.nanoTime();
+        int workers = Math.max(1, parallelism);
+        BlockingQueue<byte[]> free = new ArrayBlockingQueue<>(workers + 2);
+        for (int i = 0; i < workers + 2; i++) free.add(new byte[CHUNK_SIZE]);
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "store-bulk-" + threadNo.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        Tally tally = new Tally();
+        List<Future<?>> pending = new ArrayList<>();
+        long bytes;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            bytes = ch.size();
+            byte[] buf = take(free);
+            int len = 0;
+            boolean first = true;
+            boolean eof = false;
+            while (!eof) {
+                ByteBuffer target = ByteBuffer.wrap(buf, len, buf.length - len);
+                while (target.hasRemaining()) {
+                    if (ch.read(target) < 0) {
+                        eof = true;
+                        break;
+                    }
+                }
+                len = target.position();
+                int from = 0;
+                if (first) {
+                    from = binary ? checkMagic(buf, len) : headerEnd(buf, len);
+                    if (from < 0) {
+                        if (eof) break;
+                        buf = Arrays.copyOf(buf, buf.length * 2);
+                        continue;
+                    }
+                    first = false;
+                }
+                int cut = eof ? len : binary ? lastRecordEnd(buf, from, len) : lastLineEnd(buf, from, len);
+                if (cut <= from && !eof) {
+                    // A single row longer than the buffer: grow it and keep reading
+                    buf = Arrays.copyOf(buf, buf.length * 2);
+                    continue;
+                }
+                // Move the partial last row into the next buffer before handing this one off
+                byte[] next = take(free);
+                if (next.length < len - cut) next = new byte[Math.max(CHUNK_SIZE, 2 * (len - cut))];
+                System.arraycopy(buf, cut, next, 0, len - cut);
+                byte[] chunk = buf;
+                int lo = from;
+                int hi = cut;
+                pending.add(pool.submit(() -> {
+                    try {
+                        parser.parse(chunk, lo, hi, tally);
+                    } finally {
+                        if (chunk.length == CHUNK_SIZE) free.add(chunk);
+                        else free.add(new byte[CHUNK_SIZE]);
+                    }
+                }));
+                buf = next;
+                len -= cut;
+                for (Iterator<Future<?>> it = pending.iterator(); it.hasNext(); ) {
+                    Future<?> f = it.next();
+                    if (f.isDone()) {
+                        f.get();
+                        it.remove();
+                    }
+                }
+            }
+            for (Future<?> f : pending) f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Import failed: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+        SalesJournal j = TransactionModule.StoreDB.journal;
+        if (j != null) j.sync();
+        return new Stats(tally.rows.get(), tally.rejected.get(), bytes, System.nanoTime() - start,
+                tally.firstError.get());
+    }
+
+    private static byte[] take(BlockingQueue<byte[]> free) throws IOException {
+        try {
+            return free.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Import interrupted", e);
+        }
+    }
+
+    // Offset just past the header line, or -1 if it is not complete yet
+    private static int headerEnd(byte[] b, int len) {
+        for (int i = 0; i < len; i++) if (b[i] == '\n') return i + 1;
+        return -1;
+    }
+
+    private static int checkMagic(byte[] b, int len) throws IOException {
+        if (len < 4) return len == 0 ? 0 : -1;
+        if (getInt(b, 0) != BINARY_MAGIC) throw new IOException("Not a binary sales file");
+        return 4;
+    }
+
+    // Offset just past the last '\n' in [from, len), or `from` if there is none.
+    // Quoted fields may contain newlines, so quotes are tracked from the chunk
+    // start (which is always a row start).
+    private static int lastLineEnd(byte[] b, int from, int len) {
+        int cut = from;
+        boolean quoted = false;
+        for (int i = from; i < len; i++) {
+            byte c = b[i];
+            if (c == '"') quoted = !quoted;
+            else if (c == '\n' && !quoted) cut = i + 1;
+        }
+        return cut;
+    }
+
+    private static int lastRecordEnd(byte[] b, int from, int len) {
+        int pos = from;
+        while (pos + 4 <= len) {
+            int body = getInt(b, pos);
+            if (body < 0 || pos + 4L + body > len) break;
+            pos += 4 + body;
+        }
+        return pos;
+    }
+
+    private static int getInt(byte[] b, int i) {
+        return (b[i] << 24) | ((b[i + 1] & 0xFF) << 16) | ((b[i + 2] & 0xFF) << 8) | (b[i + 3] & 0xFF);
+    }
+
+    // ===== CSV parsing =====
+
+    private static void parseCsv(Kind kind, byte[] buf, int from, int to, Tally tally) {
+        CsvRow row = new CsvRow(buf);
+        List<Object> batch = new ArrayList<>(BATCH);
+        int pos = from;
+        while (pos < to) {
+            pos = row.parse(pos, to);
+            if (row.blank()) continue;
+            try {
+                batch.add(toRow(kind, row));
+            } catch (RuntimeException e) {
+                tally.reject(row.text(), e);
+                continue;
+            }
+            if (batch.size() == BATCH) {
+                flush(kind, batch);
+                tally.rows.addAndGet(batch.size());
+                batch.clear();
+            }
+        }
+        flush(kind, batch);
+        tally.rows.addAndGet(batch.size());
+    }
+
+    private static Object toRow(Kind kind, CsvRow r) {
+        switch (kind) {
+            case PRODUCTS:
+                r.expect(5);
+                return new TransactionModule.Product(r.str(0), r.str(1), r.str(2), r.dbl(3), r.integer(4));
+            case CUSTOMERS:
+                r.expect(3);
+                return new TransactionModule.Customer(r.str(0), r.str(1), r.str(2));
+            case SELLERS:
+                r.expect(2);
+                return new TransactionModule.Seller(r.str(0), r.str(1));
+            default:
+                r.expect(7);
+                return new TransactionModule.Sale(r.str(0), r.str(1), r.str(2), r.str(3),
+                        r.integer(4), r.dbl(5), r.timestamp(6));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void flush(Kind kind, List<?> batch) {
+        if (batch.isEmpty()) return;
+        switch (kind) {
+            case PRODUCTS: TransactionModule.StoreDB.importProducts((List<TransactionModule.Product>) batch); break;
+            case CUSTOMERS: TransactionModule.StoreDB.importCustomers((List<TransactionModule.Customer>) batch); break;
+            case SELLERS: TransactionModule.StoreDB.importSellers((List<TransactionModule.Seller>) batch); break;
+            default: TransactionModule.StoreDB.importSales((List<TransactionModule.Sale>) batch); break;
+        }
+    }
+
+    // Field offsets of one CSV line, decoded on demand straight from the chunk
+    static final class CsvRow {
+        private final byte[] b;
+        private int[] start = new int[8];
+        private int[] end = new int[8];
+        private boolean[] quoted = new boolean[8];
+        private int fields;
+        private int lineStart;
+        private int lineEnd;
+
+        CsvRow(byte[] b) {
+            this.b = b;
+        }
+
+        // Split the line starting at `pos`; returns the start of the next line
+        int parse(int pos, int to) {
+            lineStart = pos;
+            fields = 0;
+            while (true) {
+                if (fields == start.length) {
+                    start = Arrays.copyOf(start, fields * 2);
+                    end = Arrays.copyOf(end, fields * 2);
+                    quoted = Arrays.copyOf(quoted, fields * 2);
+                }
+                int f = fields++;
+                if (pos < to && b[pos] == '"') {
+                    quoted[f] = true;
+                    start[f] = ++pos;
+                    while (pos < to && !(b[pos] == '"' && (pos + 1 >= to || b[pos + 1] != '"'))) {
+                        pos += b[pos] == '"' ? 2 : 1;
+                    }
+                    end[f] = pos;
+                    if (pos < to) pos++; // closing quote
+                    while (pos < to && b[pos] != ',' && b[pos] != '\n') pos++;
+                } else {
+                    quoted[f] = false;
+                    start[f] = pos;
+                    while (pos < to && b[pos] != ',' && b[pos] != '\n') pos++;
+                    end[f] = pos > start[f] && b[pos - 1] == '\r' && (pos == to || b[pos] == '\n') ? pos - 1 : pos;
+                }
+                if (pos >= to || b[pos] == '\n') {
+                    lineEnd = pos;
+                    return pos + 1;
+                }
+                pos++; // comma
+            }
+        }
+
+        boolean blank() {
+            return fields == 1 && end[0] == start[0] && !quoted[0];
+        }
+
+        void expect(int n) {
+            if (fields < n) throw new IllegalArgumentException("expected " + n + " fields, got " + fields);
+        }
+
+        String text() {
+            int e = lineEnd > lineStart && b[lineEnd - 1] == '\r' ? lineEnd - 1 : lineEnd;
+            return new String(b, lineStart, e - lineStart, StandardCharsets.UTF_8);
+        }
+
+        String str(int i) {
+            String s = new String(b, start[i], end[i] - start[i], StandardCharsets.UTF_8);
+            return quoted[i] && s.indexOf('"') >= 0 ? s.replace("\"\"", "\"") : s;
+        }
+
+        int integer(int i) {
+            int p = start[i];
+            int e = end[i];
+            boolean neg = p < e && b[p] == '-';
+            if (neg) p++;
+            if (p == e || e - p > 10) return Integer.parseInt(str(i).trim());
+            long v = 0;
+            for (; p < e; p++) {
+                int d = b[p] - '0';
+                if (d < 0 || d > 9) return Integer.parseInt(str(i).trim());
+                v = v * 10 + d;
+            }
+            return Math.toIntExact(neg ? -v : v);
+        }
+
+        double dbl(int i) {
+            return Double.parseDouble(str(i).trim());
+        }
+
+        // ISO local date-time; the fixed "yyyy-MM-ddTHH:mm:ss[.f]" layout skips the formatter
+        LocalDateTime timestamp(int i) {
+            int p = start[i];
+            int n = end[i] - p;
+            if (n < 19 || b[p + 4] != '-' || b[p + 7] != '-' || b[p + 10] != 'T'
+                    || b[p + 13] != ':' || b[p + 16] != ':' || (n > 19 && b[p + 19] != '.') || n == 20 || n > 29) {
+                return LocalDateTime.parse(str(i).trim());
+            }
+            int nano = 0;
+            for (int k = 20; k < 29; k++) nano = nano * 10 + (k < n ? digits(p + k, 1) : 0);
+            return LocalDateTime.of(digits(p, 4), digits(p + 5, 2), digits(p + 8, 2),
+                    digits(p + 11, 2), digits(p + 14, 2), digits(p + 17, 2), nano);
+        }
+
+        private int digits(int p, int count) {
+            int v = 0;
+            for (int k = 0; k < count; k++) {
+                int d = b[p + k] - '0';
+                if (d < 0 || d > 9) throw new IllegalArgumentException("bad timestamp digit");
+                v = v * 10 + d;
+            }
+            return v;
+        }
+    }
+
+    // ===== Binary parsing =====
+
+    private static void parseBinarySales(byte[] buf, int from, int to, Tally tally) {
+        ByteBuffer b = ByteBuffer.wrap(buf, 0, to);
+        List<TransactionModule.Sale> batch = new ArrayList<>(BATCH);
+        int pos = from;
+        while (pos < to) {
+            int next = pos + 4 > to ? -1 : pos + 4 + b.getInt(pos);
+            if (next < pos + 4 || next > to) {
+                tally.reject("record at chunk offset " + pos, new IllegalArgumentException("truncated record"));
+                break;
+            }
+            b.position(pos + 4);
+            try {
+                String saleId = SalesJournal.getString(b);
+                String productId = SalesJournal.getString(b);
+                String customerId = SalesJournal.getString(b);
+                String sellerId = SalesJournal.getString(b);
+                int qty = b.getInt();
+                double unitPrice = b.getDouble();
+                LocalDateTime ts = LocalDateTime.ofEpochSecond(b.getLong(), b.getInt(), ZoneOffset.UTC);
+                batch.add(new TransactionModule.Sale(saleId, productId, customerId, sellerId, qty, unitPrice, ts));
+            } catch (RuntimeException e) {
+                tally.reject("record at chunk offset " + pos, e);
+            }
+            pos = next;
+            if (batch.size() == BATCH) {
+                TransactionModule.StoreDB.importSales(batch);
+                tally.rows.addAndGet(batch.size());
+                batch = new ArrayList<>(BATCH);
+            }
+        }
+        if (!batch.isEmpty()) TransactionModule.StoreDB.importSales(batch);
+        tally.rows.addAndGet(batch.size());
+    }
+
+    // ===== Export =====
+    // Single-threaded: encoding is cheap next to the write, and rows come out in map order.
+
+    public static Stats exportCsv(Kind kind, Path file) throws IOException {
+        long start = System.nanoTime();
+        long rows = 0;
+        try (CsvWriter w = new CsvWriter(file)) {
+            w.raw(kind.header);
+            w.endRow();
+            switch (kind) {
+                case PRODUCTS:
+                    for (TransactionModule.Product p : TransactionModule.StoreDB.products.values()) {
+                        w.field(p.id).field(p.name).field(p.category).money(p.price).number(p.stock).endRow();
+                        rows++;
+                    }
+                    break;
+                case CUSTOMERS:
+                    for (TransactionModule.Customer c : TransactionModule.StoreDB.customers.values()) {
+                        w.field(c.id).field(c.name).field(c.phone).endRow();
+                        rows++;
+                    }
+                    break;
+                case SELLERS:
+                    for (TransactionModule.Seller s : TransactionModule.StoreDB.sellers.values()) {
+                        w.field(s.id).field(s.name).endRow();
+                        rows++;
+                    }
+                    break;
+                default:
+                    rows = writeSales(w, null);
+                    break;
+            }
+        }
+        return new Stats(rows, 0, Files.size(file), System.nanoTime() - start, null);
+    }
+
+    // Sales matching `filter` (null for all) as CSV to `out`, which stays open: pass
+    // Channels.newChannel(System.out) to pipe the history into another process
+    public static Stats exportSales(Listings.SaleFilter filter, WritableByteChannel out) throws IOException {
+        long start = System.nanoTime();
+        long rows;
+        CsvWriter w = new CsvWriter(out);
+        w.raw(Kind.SALES.header);
+        w.endRow();
+        rows = writeSales(w, filter);
+        w.flush();
+        return new Stats(rows, 0, w.bytes(), System.nanoTime() - start, null);
+    }
+
+    public static Stats exportSales(Listings.SaleFilter filter, Path file) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            return exportSales(filter, ch);
+        }
+    }
+
+    private static long writeSales(CsvWriter w, Listings.SaleFilter filter) throws IOException {
+        long rows = 0;
+        SalesTable table = TransactionModule.StoreDB.sales;
+        IntPredicate matches = filter == null ? row -> true : filter.rows(table.columns());
+        for (int row = 0, end = table.columns().size(); row < end; row++) {
+            if (!table.live(row) || !matches.test(row)) continue;
+            TransactionModule.Sale s = table.sale(row);
+            w.field(s.saleId).field(s.productId).field(s.customerId).field(s.sellerId)
+                    .number(s.quantity).money(s.unitPrice).timestamp(s.timestamp).endRow();
+            rows++;
+        }
+        return rows;
+    }
+
+    public static Stats exportSalesBinary(Path file) throws IOException {
+        long start = System.nanoTime();
+        long rows = 0;
+        ByteBuffer b = ByteBuffer.allocate(1 << 20);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            b.putInt(BINARY_MAGIC);
+            for (TransactionModule.Sale s : TransactionModule.StoreDB.sales) {
+                int need = 4 + SalesJournal.stringSize(s.saleId) + SalesJournal.stringSize(s.productId)
+                        + SalesJournal.stringSize(s.customerId) + SalesJournal.stringSize(s.sellerId) + 24;
+                if (b.remaining() < need) {
+                    drain(ch, b);
+                    if (b.capacity() < need) b = ByteBuffer.allocate(need);
+                }
+                int at = b.position();
+                b.position(at + 4);
+                SalesJournal.putString(b, s.saleId);
+                SalesJournal.putString(b, s.productId);
+                SalesJournal.putString(b, s.customerId);
+                SalesJournal.putString(b, s.sellerId);
+                b.putInt(s.quantity);
+                b.putDouble(s.unitPrice);
+                b.putLong(s.timestamp.toEpochSecond(ZoneOffset.UTC));
+                b.putInt(s.timestamp.getNano());
+                b.putInt(at, b.position() - at - 4);
+                rows++;
+            }
+            drain(ch, b);
+        }
+        return new Stats(rows, 0, Files.size(file), System.nanoTime() - start, null);
+    }
+
+    private static void drain(WritableByteChannel ch, ByteBuffer b) throws IOException {
+        b.flip();
+        while (b.hasRemaining()) ch.write(b);
+        b.clear();
+    }
+
+    // Buffered CSV encoder writing straight to a channel (no String.format, no per-row Strings)
+    static final class CsvWriter implements AutoCloseable {
+        private final WritableByteChannel ch;
+        private final boolean ownsChannel;
+        private final ByteBuffer b = ByteBuffer.allocate(1 << 20);
+        private boolean rowStart = true;
+        private long bytes;
+
+        CsvWriter(Path file) throws IOException {
+            ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+            ownsChannel = true;
+        }
+
+        // Writes to `ch` without closing it
+        CsvWriter(WritableByteChannel ch) {
+            this.ch = ch;
+            ownsChannel = false;
+        }
+
+        long bytes() {
+            return bytes + b.position();
+        }
+
+        CsvWriter raw(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            room(bytes.length);
+            b.put(bytes);
+            return this;
+        }
+
+        CsvWriter field(String s) throws IOException {
+            separator();
+            if (s == null) return this;
+            boolean quote = false;
+            boolean ascii = true;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == ',' || c == '"' || c == '\n' || c == '\r') quote = true;
+                if (c >= 0x80) ascii = false;
+            }
+            if (quote) return raw("\"" + s.replace("\"", "\"\"") + "\"");
+            if (!ascii) return raw(s);
+            room(s.length());
+            for (int i = 0; i < s.length(); i++) b.put((byte) s.charAt(i));
+            return this;
+        }
+
+        CsvWriter number(long v) throws IOException {
+            separator();
+            putLong(v);
+            return this;
+        }
+
+        // Two decimal places, from minor units
+        CsvWriter money(double amount) throws IOException {
+            separator();
+            long minor = SalesColumns.toMinor(amount);
+            if (minor < 0) {
+                room(1);
+                b.put((byte) '-');
+                minor = -minor;
+            }
+            putLong(minor / 100);
+            room(3);
+            b.put((byte) '.');
+            b.put((byte) ('0' + minor % 100 / 10));
+            b.put((byte) ('0' + minor % 10));
+            return this;
+        }
+
+        CsvWriter timestamp(LocalDateTime t) throws IOException {
+            separator();
+            room(29);
+            pad(t.getYear(), 4);
+            b.put((byte) '-');
+            pad(t.getMonthValue(), 2);
+            b.put((byte) '-');
+            pad(t.getDayOfMonth(), 2);
+            b.put((byte) 'T');
+            pad(t.getHour(), 2);
+            b.put((byte) ':');
+            pad(t.getMinute(), 2);
+            b.put((byte) ':');
+            pad(t.getSecond(), 2);
+            if (t.getNano() != 0) {
+                b.put((byte) '.');
+                pad(t.getNano(), 9);
+            }
+            return this;
+        }
+
+        CsvWriter endRow() throws IOException {
+            room(1);
+            b.put((byte) '\n');
+            rowStart = true;
+            return this;
+        }
+
+        private void separator() throws IOException {
+            if (rowStart) {
+                rowStart = false;
+                return;
+            }
+            room(1);
+            b.put((byte) ',');
+        }
+
+        private void putLong(long v) throws IOException {
+            room(20);
+            if (v < 0) {
+                b.put((byte) '-');
+                v = -v;
+            }
+            int digits = 1;
+            for (long t = v; t >= 10; t /= 10) digits++;
+            int at = b.position();
+            for (int i = digits - 1; i >= 0; i--) {
+                b.put(at + i, (byte) ('0' + v % 10));
+                v /= 10;
+            }
+            b.position(at + digits);
+        }
+
+        private void pad(int v, int width) {
+            int at = b.position();
+            for (int i = width - 1; i >= 0; i--) {
+                b.put(at + i, (byte) ('0' + v % 10));
+                v /= 10;
+            }
+            b.position(at + width);
+        }
+
+        private void room(int n) throws IOException {
+            if (b.remaining() < n) flush();
+            if (b.remaining() < n) throw new IOException("CSV field too long: " + n + " bytes");
+        }
+
+        void flush() throws IOException {
+            bytes += b.position();
+            drain(ch, b);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                flush();
+            } finally {
+                if (ownsChannel) ch.close();
+            }
+        }
+    }
+
+    // ===== Command line =====
+
+    // Usage: java store.BulkIO import|export products|customers|sellers|sales <file>
+    //   (a .bin sales file uses the binary format; -Dstore.journal=... makes imports durable)
+    //        java store.BulkIO export sales <file>|- [seller=.. customer=.. product=.. from=.. to=..]
+    //   (filtered CSV; "-" streams to stdout, with the summary on stderr)
+    // With no arguments: a synthetic round trip reporting rows/sec.
+    public static void main(String[] args) throws Exception {
+        if (args.length == 0) {
+            benchmark(2_000_000);
+            return;
+        }
+        boolean salesExport = args.length >= 3 && args[0].equalsIgnoreCase("export")
+                && args[1].equalsIgnoreCase("sales") && !args[2].endsWith(".bin");
+        if (args.length != 3 && !salesExport) {
+            System.out.println("Usage: BulkIO import|export products|customers|sellers|sales <file>");
+            System.out.println("       BulkIO export sales <file>|- [seller=ID customer=ID product=ID from=DATE to=DATE]");
+            return;
+        }
+        TransactionModule.StoreDB.openPersistenceFromConfig();
+        TransactionModule.StoreDB.openJournalFromConfig();
+        Kind kind = Kind.valueOf(args[1].toUpperCase());
+        Stats stats;
+        if (salesExport) {
+            Listings.SaleFilter filter = Listings.SaleFilter.parse(
+                    String.join(" ", Arrays.asList(args).subList(3, args.length)));
+            if (args[2].equals("-")) {
+                stats = exportSales(filter, Channels.newChannel(System.out));
+                System.out.flush();
+                System.err.println("export " + kind + ": " + stats);
+                TransactionModule.StoreDB.closeJournal();
+                return;
+            }
+            stats = exportSales(filter, Paths.get(args[2]));
+        } else {
+            Path file = Paths.get(args[2]);
+            boolean binary = kind == Kind.SALES && file.toString().endsWith(".bin");
+            if (args[0].equalsIgnoreCase("import")) {
+                stats = binary ? importSalesBinary(file, Runtime.getRuntime().availableProcessors())
+                        : importCsv(kind, file);
+            } else {
+                stats = binary ? exportSalesBinary(file) : exportCsv(kind, file);
+            }
+        }
+        System.out.println(args[0] + " " + kind + ": " + stats);
+        if (stats.firstError != null) System.out.println("First rejected row: " + stats.firstError);
+        TransactionModule.StoreDB.closeJournal();
+    }
+
+    private static void benchmark(int n) throws IOException {
+        Path csv = Files.createTempFile("store-sales", ".csv");
+        Path bin = Files.createTempFile("store-sales", ".bin");
+        try {
+            // Synthetic history written with the exporter's own encoder
+            try (CsvWriter w = new CsvWriter(csv)) {
+                w.raw(Kind.SALES.header).endRow();
+                LocalDateTime t = LocalDateTime.of(2024, 1, 1, 9, 0);
+                for (int i = 1; i <= n; i++) {
+                    w.field("T" + i).field("P" + (i % 5000)).field("C" + (i % 20000)).field("S" + (i % 40))
+                            .number(1 + i % 5).money(10 + i % 500).timestamp(t.plusSeconds(i * 7L)).endRow();
+                }
+            }
+            Stats in = importCsv(Kind.SALES, csv);
+            System.out.println("import csv:  " + in);
+            Stats outCsv = exportCsv(Kind.SALES, csv);
+            System.out.println("export csv:  " + outCsv);
+            Stats outBin = exportSalesBinary(bin);
+            System.out.println("export bin:  " + outBin);
+            // Everything is already loaded, so this measures parsing plus duplicate checks
+            Stats inBin = importSalesBinary(bin, Runtime.getRuntime().availableProcessors());
+            System.out.println("reimport bin: " + inBin);
+        } finally {
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(bin);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class BulkIOTest {
+
+    private static Path csv(String... lines) throws Exception {
+        Path file = Files.createTempFile("bulk", ".csv");
+        Files.write(file, Arrays.asList(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    @Test
+    public void importsQuotedCsvAndIndexesProducts() throws Exception {
+        String tag = "BK" + System.nanoTime();
+        Path file = csv(BulkIO.Kind.PRODUCTS.header,
+                tag + "-1,\"Rice, \"\"Premium\"\" 5kg\",Grocery,549.50,20",
+                tag + "-2,Zyxwv Soap,Personal Care,35,3\r",
+                "",
+                tag + "-3,Broken row,Grocery,not-a-price,1");
+        try {
+            BulkIO.Stats stats = BulkIO.importCsv(BulkIO.Kind.PRODUCTS, file, 2);
+            assertEquals(2, stats.rows);
+            assertEquals(1, stats.rejected);
+            assertTrue(stats.firstError, stats.firstError.contains(tag + "-3"));
+
+            TransactionModule.Product p = TransactionModule.StoreDB.products.get(tag + "-1");
+            assertEquals("Rice, \"Premium\" 5kg", p.name);
+            assertEquals(549.5, p.price, 0.0);
+            assertEquals("Personal Care", TransactionModule.StoreDB.products.get(tag + "-2").category);
+            assertNull(TransactionModule.StoreDB.products.get(tag + "-3"));
+            assertTrue(TransactionModule.StoreDB.searchIndex.search("zyxwv", null).contains(tag + "-2"));
+            assertTrue(TransactionModule.StoreDB.stockIndex.atOrBelow(3).contains(tag + "-2"));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    @Test
+    public void salesRoundTripAcrossChunks() throws Exception {
+        String pid = "BKS" + System.nanoTime();
+        int n = 120_000; // several CHUNK_SIZE pieces
+        List<String> lines = new ArrayList<>(n + 1);
+        lines.add(BulkIO.Kind.SALES.header);
+        LocalDateTime t = LocalDateTime.of(2020, 3, 1, 8, 30, 15, 250_000_000);
+        String prefix = pid + "-";
+        for (int i = 0; i < n; i++) {
+            lines.add("X" + prefix + i + "," + pid + ",C001,S001,2,12.25," + t.plusMinutes(i));
+        }
+        Path file = csv(lines.toArray(new String[0]));
+        Path out = Files.createTempFile("bulk", ".csv");
+        Path bin = Files.createTempFile("bulk", ".bin");
+        try {
+            int productId = TransactionModule.StoreDB.salesColumns.productIds.idOf(pid);
+            BulkIO.Stats stats = BulkIO.importCsv(BulkIO.Kind.SALES, file, 4);
+            assertEquals(n, stats.rows);
+            assertEquals(0, stats.rejected);
+            assertTrue(stats.bytes > 2 * BulkIO.CHUNK_SIZE);
+            assertEquals(2L * n, TransactionModule.StoreDB.aggregates.quantityOfProduct(productId));
+
+            TransactionModule.Sale s = TransactionModule.StoreDB.sales.get("X" + prefix + 7);
+            assertNotNull(s);
+            assertEquals(t.plusMinutes(7), s.timestamp);
+            assertEquals(12.25, s.unitPrice, 0.0);
+
+            // Re-importing the same history adds nothing
+            BulkIO.importCsv(BulkIO.Kind.SALES, file, 4);
+            assertEquals(2L * n, TransactionModule.StoreDB.aggregates.quantityOfProduct(productId));
+
+            BulkIO.exportCsv(BulkIO.Kind.SALES, out);
+            String exported = new String(Files.readAllBytes(out), StandardCharsets.UTF_8);
+            assertTrue(exported.startsWith(BulkIO.Kind.SALES.header + "\n"));
+            assertTrue(exported.contains("X" + prefix + 7 + "," + pid + ",C001,S001,2,12.25,2020-03-01T08:37:15.250000000\n"));
+
+            BulkIO.Stats written = BulkIO.exportSalesBinary(bin);
+            assertEquals(TransactionModule.StoreDB.sales.size(), written.rows);
+            TransactionModule.StoreDB.sales.remove("X" + prefix + 7);
+            BulkIO.Stats reread = BulkIO.importSalesBinary(bin, 3);
+            assertEquals(written.rows, reread.rows);
+            assertEquals(s.timestamp, TransactionModule.StoreDB.sales.get("X" + prefix + 7).timestamp);
+        } finally {
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(out);
+            Files.deleteIfExists(bin);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package store;
+
+import java.io.PrintStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Capacity test for StoreDB: load a Workload (catalogue plus sales history), then
+// replay baskets from N simulated terminals at a target total rate and report the
+// rate achieved, latency percentiles and heap use.
+// Terminals run open loop: basket k of a terminal is due at a fixed time on its
+// schedule, and its latency is measured from that time, not from when the terminal
+// got round to it. A store that falls behind therefore shows its queueing delay in
+// the percentiles instead of quietly lowering the offered load. A target rate of 0
+// runs closed loop, each terminal as fast as it can.
+// One-line baskets go through recordSale, larger ones through checkout.
+// Usage: java store.CapacityHarness [terminals] [basketsPerSec[,basketsPerSec...]] [seconds]
+//                                   [seed] [products] [customers] [historySales]
+// Several rates run one after another as a step test on the same store.
+public class CapacityHarness {
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    public static final class Result {
+        public final int terminals;
+        public final double targetRate;  // baskets/sec over all terminals; 0 = closed loop
+        public final double seconds;
+        public final long baskets;
+        public final long lines;         // lines sold
+        public final long failed;        // baskets (or single sales) refused
+        public final LatencyHistogram sale;
+        public final LatencyHistogram checkout;
+        public final long heapUsedBytes; // after GC, once the run is over
+        public final long heapPeakBytes; // peak during the run
+        public final long gcCount;
+        public final long gcMillis;
+
+        Result(int terminals, double targetRate, double seconds, long baskets, long lines, long failed,
+               LatencyHistogram sale, LatencyHistogram checkout, long heapUsedBytes, long heapPeakBytes,
+               long gcCount, long gcMillis) {
+            this.terminals = terminals;
+            this.targetRate = targetRate;
+            this.seconds = seconds;
+            this.baskets = baskets;
+            this.lines = lines;
+            this.failed = failed;
+            this.sale = sale;
+            this.checkout = checkout;
+            this.heapUsedBytes = heapUsedBytes;
+            this.heapPeakBytes = heapPeakBytes;
+            this.gcCount = gcCount;
+            this.gcMillis = gcMillis;
+        }
+
+        public double basketsPerSecond() {
+            return baskets / seconds;
+        }
+
+        public double linesPerSecond() {
+            return lines / seconds;
+        }
+
+        public void print(PrintStream out) {
+            out.printf("%d terminals, target %s: %,.0f baskets/s, %,.0f lines/s, %,d failed%n", terminals,
+                    targetRate > 0 ? String.format("%,.0f baskets/s", targetRate) : "closed loop",
+                    basketsPerSecond(), linesPerSecond(), failed);
+            out.printf("  %-9s %10s %9s %9s %9s %9s %9s%n",
+                    "", "count", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+            latency(out, "sale", sale);
+            latency(out, "checkout", checkout);
+            out.printf("  heap %,.1f MB after GC, %,.1f MB peak; %d GCs, %,d ms%n",
+                    heapUsedBytes / 1e6, heapPeakBytes / 1e6, gcCount, gcMillis);
+        }
+
+        private static void latency(PrintStream out, String label, LatencyHistogram h) {
+            long[] p = h.percentiles(QUANTILES);
+            out.printf("  %-9s %,10d %9.3f %9.3f %9.3f %9.3f %9.3f%n", label, h.count(),
+                    p[0] / 1e6, p[1] / 1e6, p[2] / 1e6, p[3] / 1e6, h.maxNanos() / 1e6);
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int terminals = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors() * 4;
+        String[] rates = (args.length > 1 ? args[1] : "1000").split(",");
+        double seconds = args.length > 2 ? Double.parseDouble(args[2]) : 30;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+        int products = args.length > 4 ? Integer.parseInt(args[4]) : 20_000;
+        int customers = args.length > 5 ? Integer.parseInt(args[5]) : 500_000;
+        int history = args.length > 6 ? Integer.parseInt(args[6]) : 1_000_000;
+
+        Workload workload = new Workload(seed, products, customers, Math.max(1, terminals / 2));
+        long t0 = System.nanoTime();
+        workload.load(history);
+        double loadSecs = (System.nanoTime() - t0) / 1e9;
+        System.out.printf("seed %d: %,d products, %,d customers, %,d history sales loaded in %.1f s (%,.0f sales/s)%n",
+                seed, products, customers, history, loadSecs, history / loadSecs);
+        System.out.printf("heap after load: %,.1f MB%n", heapUsed() / 1e6);
+        for (String rate : rates) {
+            run(workload, terminals, Double.parseDouble(rate.trim()), seconds).print(System.out);
+        }
+    }
+
+    // Replay `workload` baskets against StoreDB for `seconds`; the catalogue must be loaded
+    public static Result run(Workload workload, int terminals, double basketsPerSec, double seconds)
+            throws InterruptedException {
+        LatencyHistogram sale = new LatencyHistogram();
+        LatencyHistogram checkout = new LatencyHistogram();
+        AtomicLong baskets = new AtomicLong();
+        AtomicLong lines = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        Workload.Terminal[] tills = new Workload.Terminal[terminals];
+        for (int t = 0; t < terminals; t++) tills[t] = workload.terminal(t);
+        long interval = basketsPerSec > 0 ? (long) (terminals * 1e9 / basketsPerSec) : 0;
+
+        long gcCount0 = gcCount();
+        long gcMillis0 = gcMillis();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) pool.resetPeakUsage();
+        long start = System.nanoTime();
+        long deadline = start + (long) (seconds * 1e9);
+        double secs = CheckoutBenchmark.run(terminals, t -> {
+            Workload.Terminal till = tills[t];
+            long due = start + interval * t / terminals; // stagger the terminals over one interval
+            long done = 0;
+            long sold = 0;
+            long refused = 0;
+            while (true) {
+                if (interval > 0) {
+                    if (due >= deadline) break;
+                    for (long wait; (wait = due - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+                } else {
+                    due = System.nanoTime();
+                    if (due >= deadline) break;
+                }
+                List<TransactionModule.SaleRequest> basket = till.nextBasket();
+                if (basket.size() == 1) {
+                    TransactionModule.SaleRequest r = basket.get(0);
+                    boolean ok = TransactionModule.StoreDB.recordSale(
+                            r.productId, r.customerId, r.sellerId, r.quantity) != null;
+                    sale.record(System.nanoTime() - due);
+                    if (ok) sold++;
+                    else refused++;
+                } else {
+                    TransactionModule.CheckoutResult result = TransactionModule.StoreDB.checkout(basket);
+                    checkout.record(System.nanoTime() - due);
+                    if (result.success) sold += basket.size();
+                    else refused++;
+                }
+                done++;
+                due += interval;
+            }
+            baskets.addAndGet(done);
+            lines.addAndGet(sold);
+            failed.addAndGet(refused);
+        });
+        long gcs = gcCount() - gcCount0;
+        long gcTime = gcMillis() - gcMillis0;
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        }
+        return new Result(terminals, basketsPerSec, secs, baskets.get(), lines.get(), failed.get(), sale, checkout,
+                heapUsed(), peak, gcs, gcTime);
+    }
+
+    private static long heapUsed() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcCount() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += Math.max(0, gc.getCollectionCount());
+        }
+        return n;
+    }
+
+    private static long gcMillis() {
+        long n = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            n += Math.max(0, gc.getCollectionTime());
+        }
+        return n;
+    }
+}
@@ -0,0 +1,65 @@
+package store;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Single-line recordSale calls vs. checkout() of whole baskets, with a journal in
+// BATCH mode so the cost of one journal append per line vs. per basket shows up.
+// Usage: java store.CheckoutBenchmark [threads] [basketsPerThread] [linesPerBasket]
+public class CheckoutBenchmark {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : 8;
+        int baskets = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+        int lines = args.length > 2 ? Integer.parseInt(args[2]) : 30;
+        int products = 500;
+
+        java.nio.file.Path file = java.nio.file.Files.createTempFile("checkout-bench", ".log");
+        TransactionModule.StoreDB.openJournal(file, SalesJournal.Durability.BATCH, 10);
+        for (int i = 0; i < products; i++) {
+            TransactionModule.StoreDB.addProduct(new TransactionModule.Product(
+                    "CB" + i, "Bench " + i, "Bench", 10.0, Integer.MAX_VALUE / 2));
+        }
+        try {
+            long total = (long) threads * baskets * lines;
+            double single = run(threads, t -> {
+                for (int b = 0; b < baskets; b++) {
+                    for (int l = 0; l < lines; l++) {
+                        TransactionModule.StoreDB.recordSale("CB" + ((b * lines + l + t) % products), "C001", "S001", 1);
+                    }
+                }
+            });
+            System.out.printf("single-line: %,.0f lines/sec%n", total / single);
+            double batched = run(threads, t -> {
+                for (int b = 0; b < baskets; b++) {
+                    List<TransactionModule.SaleRequest> basket = new ArrayList<>(lines);
+                    for (int l = 0; l < lines; l++) {
+                        basket.add(new TransactionModule.SaleRequest(
+                                "CB" + ((b * lines + l + t) % products), "C001", "S001", 1));
+                    }
+                    TransactionModule.StoreDB.checkout(basket);
+                }
+            });
+            System.out.printf("checkout:    %,.0f lines/sec (%.1fx)%n", total / batched, single / batched);
+        } finally {
+            TransactionModule.StoreDB.closeJournal();
+            java.nio.file.Files.delete(file);
+        }
+    }
+
+    interface Worker {
+        void run(int thread);
+    }
+
+    // Seconds taken for `threads` workers to finish
+    static double run(int threads, Worker w) throws InterruptedException {
+        Thread[] ts = new Thread[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            ts[t] = new Thread(() -> w.run(id));
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        return (System.nanoTime() - start) / 1e9;
+    }
+}
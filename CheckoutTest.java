@@ -0,0 +1,75 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+public class CheckoutTest {
+
+    private static String product(int stock) {
+        String pid = "CO-" + System.nanoTime();
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Checkout Item", "Test", 2.0, stock));
+        return pid;
+    }
+
+    private static TransactionModule.SaleRequest line(String pid, int qty) {
+        return new TransactionModule.SaleRequest(pid, "C001", "S001", qty);
+    }
+
+    @Test
+    public void basketIsAllOrNothing() {
+        String a = product(10);
+        String b = product(1);
+        int salesBefore = TransactionModule.StoreDB.sales.size();
+
+        TransactionModule.CheckoutResult failed = TransactionModule.StoreDB.checkout(
+                Arrays.asList(line(a, 3), line(b, 1), line(b, 1)));
+        assertFalse(failed.success);
+        assertTrue(failed.error, failed.error.contains(b));
+        assertEquals(10, TransactionModule.StoreDB.products.get(a).stock);
+        assertEquals(1, TransactionModule.StoreDB.products.get(b).stock);
+        assertEquals(salesBefore, TransactionModule.StoreDB.sales.size());
+
+        TransactionModule.CheckoutResult ok = TransactionModule.StoreDB.checkout(
+                Arrays.asList(line(a, 3), line(b, 1), line(a, 2)));
+        assertTrue(ok.success);
+        assertEquals(3, ok.sales.size());
+        assertEquals(5, TransactionModule.StoreDB.products.get(a).stock);
+        assertEquals(0, TransactionModule.StoreDB.products.get(b).stock);
+        // One contiguous block of sale IDs
+        long first = Long.parseLong(ok.sales.get(0).saleId.substring(1));
+        for (int i = 0; i < ok.sales.size(); i++) {
+            assertEquals("T" + (first + i), ok.sales.get(i).saleId);
+        }
+    }
+
+    @Test
+    public void batchLinesSucceedIndependently() {
+        String a = product(4);
+        List<TransactionModule.Sale> sold = TransactionModule.StoreDB.sellBatch(
+                Arrays.asList(line(a, 3), line(a, 3), line("NO-SUCH-PRODUCT", 1), line(a, 1)));
+        assertEquals(4, sold.size());
+        assertEquals(3, sold.get(0).quantity);
+        assertNull(sold.get(1));
+        assertNull(sold.get(2));
+        assertEquals(1, sold.get(3).quantity);
+        assertEquals(0, TransactionModule.StoreDB.products.get(a).stock);
+    }
+
+    @Test
+    public void concurrentBasketsNeverOversellOrDeadlock() throws Exception {
+        String a = product(3000);
+        String b = product(3000);
+        // Opposite line order in alternate threads would deadlock without ordered locking
+        StoreDBConcurrencyTest.runConcurrently(8, 500, t -> TransactionModule.StoreDB.checkout(
+                t % 2 == 0 ? Arrays.asList(line(a, 1), line(b, 1)) : Arrays.asList(line(b, 1), line(a, 1))));
+        assertEquals(0, TransactionModule.StoreDB.products.get(a).stock);
+        assertEquals(0, TransactionModule.StoreDB.products.get(b).stock);
+        assertTrue(TransactionModule.StoreDB.aggregates.verify().isEmpty());
+    }
+}
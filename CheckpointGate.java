@@ -0,0 +1,57 @@
+package store;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Lets a snapshot pick a journal LSN such that every record before it has
+// been applied to StoreDB. Sales are journaled under the product lock but
+// indexed after it, so without this a checkpoint could land between the two
+// and miss a sale in both the snapshot and the replayed tail.
+//
+// Writers bracket "journal, then index" with enter()/exit(); they count
+// themselves in one of two epochs, striped by thread so they don't share a
+// cache line. awaitApplied() reads the LSN, flips the epoch and waits for the
+// old epoch to drain. Any record below that LSN was appended by a writer that
+// had already entered the old epoch, so once it drains the record is applied.
+// A writer re-reads the epoch after counting itself and moves if it flipped
+// meanwhile: otherwise it could sit in an epoch that an earlier checkpoint has
+// already drained and the next one will not scan. Writers never wait.
+final class CheckpointGate {
+    private static final int STRIPES = 64;
+    private static final int PAD = 16; // longs per stripe: one 128-byte slot each
+
+    private final AtomicLongArray[] inFlight = {
+            new AtomicLongArray(STRIPES * PAD), new AtomicLongArray(STRIPES * PAD)};
+    private volatile int epoch;
+
+    // Returns the ticket to pass to exit()
+    int enter() {
+        int slot = (int) (Thread.currentThread().getId() & (STRIPES - 1)) * PAD;
+        while (true) {
+            int e = epoch;
+            inFlight[e].incrementAndGet(slot);
+            if (epoch == e) return e << 16 | slot;
+            inFlight[e].decrementAndGet(slot);
+        }
+    }
+
+    void exit(int ticket) {
+        inFlight[ticket >>> 16].decrementAndGet(ticket & 0xFFFF);
+    }
+
+    // LSN of `journal` below which every record is reflected in StoreDB
+    synchronized long awaitApplied(SalesJournal journal) {
+        long lsn = journal.position();
+        int old = epoch;
+        epoch = old ^ 1;
+        AtomicLongArray counts = inFlight[old];
+        // Each writer increments and decrements the same stripe, so a stripe never
+        // reads below its own in-flight writers and a zero sum means none are left
+        for (int spins = 0; ; spins++) {
+            long sum = 0;
+            for (int i = 0; i < STRIPES; i++) sum += counts.get(i * PAD);
+            if (sum == 0) return lsn;
+            if (spins < 100) Thread.onSpinWait();
+            else Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package store;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Small fixed-size JDBC connection pool. Connections are opened lazily up to
+// `size` and handed back through an idle queue; a borrower waits at most
+// `borrowTimeoutMillis` when all are busy. A connection that sat idle longer
+// than VALIDATE_AFTER_MS is checked with isValid() before reuse, and one that
+// threw an SQLException is closed instead of being returned.
+// The idle queue and the open count share one lock. A waiting borrower is
+// woken both when a connection comes back and when one is discarded, in which
+// case it opens a replacement itself. Connecting, validating and closing
+// happen outside the lock.
+public final class ConnectionPool implements AutoCloseable {
+    static final long VALIDATE_AFTER_MS = 30_000;
+
+    // Work done with a borrowed connection
+    public interface SqlWork<T> {
+        T run(Connection c) throws SQLException;
+    }
+
+    private static final class Idle {
+        final Connection connection;
+        final long since;
+
+        Idle(Connection connection, long since) {
+            this.connection = connection;
+            this.since = since;
+        }
+    }
+
+    private final String url;
+    private final String user;
+    private final String password;
+    private final int size;
+    private final long borrowTimeoutMillis;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition(); // idle connection or free slot
+    private final ArrayDeque<Idle> idle;
+    private int open;
+    private boolean closed;
+
+    public ConnectionPool(String url, String user, String password, int size, long borrowTimeoutMillis) {
+        if (size <= 0) throw new IllegalArgumentException("Pool size must be positive: " + size);
+        this.url = url;
+        this.user = user;
+        this.password = password;
+        this.size = size;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.idle = new ArrayDeque<>(size);
+    }
+
+    // Borrow a connection, run `work`, and give the connection back.
+    // A connection left inside a transaction is rolled back first.
+    public <T> T withConnection(SqlWork<T> work) throws SQLException {
+        Connection c = borrow();
+        boolean broken = true;
+        try {
+            T result = work.run(c);
+            if (!c.getAutoCommit()) {
+                c.rollback();
+                c.setAutoCommit(true);
+            }
+            broken = false;
+            return result;
+        } finally {
+            release(c, broken);
+        }
+    }
+
+    public Connection borrow() throws SQLException {
+        long nanos = TimeUnit.MILLISECONDS.toNanos(borrowTimeoutMillis);
+        while (true) {
+            Idle i;
+            lock.lock();
+            try {
+                while (true) {
+                    if (closed) throw new SQLException("Connection pool is closed");
+                    i = idle.pollFirst();
+                    if (i != null) break;
+                    if (open < size) {
+                        open++; // a slot for the connection opened below
+                        break;
+                    }
+                    if (nanos <= 0) {
+                        throw new SQLException("No connection available within " + borrowTimeoutMillis + " ms");
+                    }
+                    try {
+                        nanos = available.awaitNanos(nanos);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new SQLException("Interrupted waiting for a connection", e);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (i == null) return connect();
+            if (System.currentTimeMillis() - i.since < VALIDATE_AFTER_MS || valid(i.connection)) {
+                return i.connection;
+            }
+            discard(i.connection);
+        }
+    }
+
+    // Return a borrowed connection; `broken` ones are closed and replaced on demand
+    public void release(Connection c, boolean broken) {
+        if (!broken) {
+            lock.lock();
+            try {
+                if (!closed) {
+                    idle.addLast(new Idle(c, System.currentTimeMillis()));
+                    available.signal();
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+        discard(c);
+    }
+
+    public int openConnections() {
+        lock.lock();
+        try {
+            return open;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() {
+        List<Idle> left;
+        lock.lock();
+        try {
+            closed = true;
+            left = new ArrayList<>(idle);
+            idle.clear();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Idle i : left) discard(i.connection);
+    }
+
+    private Connection connect() throws SQLException {
+        try {
+            return DriverManager.getConnection(url, user, password);
+        } catch (SQLException | RuntimeException e) {
+            freeSlot();
+            throw e;
+        }
+    }
+
+    private static boolean valid(Connection c) {
+        try {
+            return c.isValid(2);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private void discard(Connection c) {
+        try {
+            c.close();
+        } catch (SQLException ignored) {
+            // Already unusable
+        }
+        freeSlot();
+    }
+
+    // One fewer open connection: a waiting borrower may open a new one
+    private void freeSlot() {
+        lock.lock();
+        try {
+            open--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+}
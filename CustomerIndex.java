@@ -0,0 +1,214 @@
+package store;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+// Per-customer purchase history, kept current as sales are indexed.
+// For each SalesColumns customer ID it holds the rows of that customer's sales,
+// ascending, in an int array grown by doubling, plus running totals: sale count,
+// units, revenue, first and last purchase time. A history lookup walks only the
+// customer's own rows, and lifetime value, recency and frequency are O(1) reads.
+// Per-customer state lives in chunks of parallel primitive arrays indexed by
+// customer ID. Writers for one customer serialize on one of STRIPES locks chosen
+// by ID; readers take the same stripe, so a customer's rows and totals agree.
+public class CustomerIndex implements SaleListener {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK = 1 << CHUNK_BITS; // customers per chunk
+    private static final int MASK = CHUNK - 1;
+    private static final int STRIPES = 64;
+    private static final int[] NO_ROWS = new int[0];
+
+    private final SalesColumns cols;
+    private final Object[] stripes = new Object[STRIPES];
+    private volatile Chunk[] chunks = new Chunk[0];
+
+    private static final class Chunk {
+        final int[][] rows = new int[CHUNK][];
+        final int[] count = new int[CHUNK];
+        final long[] units = new long[CHUNK];
+        final long[] revenue = new long[CHUNK]; // minor units
+        final long[] firstMillis = new long[CHUNK];
+        final long[] lastMillis = new long[CHUNK];
+    }
+
+    // One customer's totals; times on the SalesColumns.epochMillis clock
+    public static final class Summary {
+        public final String customerId;
+        public final int sales;
+        public final long units;
+        public final long revenueMinor;
+        public final long firstMillis;
+        public final long lastMillis;
+
+        Summary(String customerId, int sales, long units, long revenueMinor, long firstMillis, long lastMillis) {
+            this.customerId = customerId;
+            this.sales = sales;
+            this.units = units;
+            this.revenueMinor = revenueMinor;
+            this.firstMillis = firstMillis;
+            this.lastMillis = lastMillis;
+        }
+
+        // Lifetime value: everything the customer has spent
+        public double revenue() {
+            return revenueMinor / 100.0;
+        }
+
+        public LocalDateTime firstPurchase() {
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(firstMillis, 1000), 0, ZoneOffset.UTC);
+        }
+
+        public LocalDateTime lastPurchase() {
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(lastMillis, 1000), 0, ZoneOffset.UTC);
+        }
+
+        // Mean days between consecutive purchases; NaN with fewer than two
+        public double daysBetweenPurchases() {
+            return sales < 2 ? Double.NaN : (lastMillis - firstMillis) / 86_400_000.0 / (sales - 1);
+        }
+    }
+
+    // One past sale, read back from the columns
+    public static final class Purchase {
+        public final String productId;
+        public final String sellerId;
+        public final int quantity;
+        public final long priceMinor;
+        public final long epochMillis;
+
+        Purchase(String productId, String sellerId, int quantity, long priceMinor, long epochMillis) {
+            this.productId = productId;
+            this.sellerId = sellerId;
+            this.quantity = quantity;
+            this.priceMinor = priceMinor;
+            this.epochMillis = epochMillis;
+        }
+
+        public LocalDateTime time() {
+            return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMillis, 1000),
+                    Math.floorMod(epochMillis, 1000) * 1_000_000, ZoneOffset.UTC);
+        }
+    }
+
+    public CustomerIndex(SalesColumns cols) {
+        this.cols = cols;
+        for (int i = 0; i < STRIPES; i++) stripes[i] = new Object();
+    }
+
+    @Override
+    public void onSale(TransactionModule.Sale sale, int row) {
+        add(row);
+    }
+
+    @Override
+    public void onSales(List<TransactionModule.Sale> sales, int firstRow) {
+        for (int row = firstRow; row < firstRow + sales.size(); row++) add(row);
+    }
+
+    private void add(int row) {
+        int id = cols.customer(row);
+        if (id < 0) return; // no customer on the sale
+        Chunk c = chunk(id >>> CHUNK_BITS);
+        int i = id & MASK;
+        int qty = cols.quantity(row);
+        long millis = cols.epochMillis(row);
+        synchronized (stripes[id & (STRIPES - 1)]) {
+            int n = c.count[i];
+            int[] rows = c.rows[i];
+            if (rows == null) rows = c.rows[i] = new int[4];
+            else if (n == rows.length) rows = c.rows[i] = Arrays.copyOf(rows, n * 2);
+            // Concurrent sales can be indexed out of row order; keep the rows sorted
+            int at = n;
+            while (at > 0 && rows[at - 1] > row) at--;
+            System.arraycopy(rows, at, rows, at + 1, n - at);
+            rows[at] = row;
+            c.count[i] = n + 1;
+            c.units[i] += qty;
+            c.revenue[i] += cols.priceMinor(row) * qty;
+            if (n == 0 || millis < c.firstMillis[i]) c.firstMillis[i] = millis;
+            if (n == 0 || millis > c.lastMillis[i]) c.lastMillis[i] = millis;
+        }
+    }
+
+    // ===== Queries =====
+
+    // Totals for `customerId`; null if they have bought nothing
+    public Summary summary(String customerId) {
+        int id = cols.customerIds.find(customerId);
+        return id < 0 ? null : summary(id);
+    }
+
+    private Summary summary(int id) {
+        Chunk[] cs = chunks;
+        if ((id >>> CHUNK_BITS) >= cs.length) return null;
+        Chunk c = cs[id >>> CHUNK_BITS];
+        int i = id & MASK;
+        synchronized (stripes[id & (STRIPES - 1)]) {
+            if (c.count[i] == 0) return null;
+            return new Summary(cols.customerIds.name(id), c.count[i], c.units[i], c.revenue[i],
+                    c.firstMillis[i], c.lastMillis[i]);
+        }
+    }
+
+    // SalesColumns rows of the customer's sales, oldest first
+    public int[] rows(String customerId) {
+        int id = cols.customerIds.find(customerId);
+        Chunk[] cs = chunks;
+        if (id < 0 || (id >>> CHUNK_BITS) >= cs.length) return NO_ROWS;
+        Chunk c = cs[id >>> CHUNK_BITS];
+        int i = id & MASK;
+        synchronized (stripes[id & (STRIPES - 1)]) {
+            return c.count[i] == 0 ? NO_ROWS : Arrays.copyOf(c.rows[i], c.count[i]);
+        }
+    }
+
+    // The customer's latest `limit` purchases, newest first
+    public Purchase[] history(String customerId, int limit) {
+        int[] rows = rows(customerId);
+        int n = Math.min(Math.max(0, limit), rows.length);
+        Purchase[] out = new Purchase[n];
+        for (int k = 0; k < n; k++) {
+            int row = rows[rows.length - 1 - k];
+            int seller = cols.seller(row);
+            out[k] = new Purchase(cols.productIds.name(cols.product(row)), seller < 0 ? null : cols.sellerIds.name(seller),
+                    cols.quantity(row), cols.priceMinor(row), cols.epochMillis(row));
+        }
+        return out;
+    }
+
+    // Top `n` customers by lifetime revenue. Reads one total per customer, never the sales.
+    public Summary[] top(int n) {
+        TopProducts.Ranking ranking = new TopProducts.Ranking(n); // ranks any dense ID
+        int customers = cols.customerIds.size();
+        Chunk[] cs = chunks;
+        for (int id = 0; id < customers && (id >>> CHUNK_BITS) < cs.length; id++) {
+            long revenue;
+            synchronized (stripes[id & (STRIPES - 1)]) {
+                revenue = cs[id >>> CHUNK_BITS].revenue[id & MASK];
+            }
+            if (revenue > 0) ranking.offer(id, revenue, 0);
+        }
+        TopProducts.Entry[] ranked = ranking.result();
+        Summary[] out = new Summary[ranked.length];
+        for (int k = 0; k < ranked.length; k++) out[k] = summary(ranked[k].productId);
+        return out;
+    }
+
+    private Chunk chunk(int c) {
+        Chunk[] cs = chunks;
+        return c < cs.length ? cs[c] : grow(c);
+    }
+
+    private synchronized Chunk grow(int c) {
+        Chunk[] cs = chunks;
+        if (c >= cs.length) {
+            int old = cs.length;
+            cs = Arrays.copyOf(cs, c + 1);
+            for (int i = old; i <= c; i++) cs[i] = new Chunk();
+            chunks = cs;
+        }
+        return cs[c];
+    }
+}
@@ -0,0 +1,115 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class CustomerIndexTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 2, 1, 10, 0);
+
+    private static TransactionModule.Sale sale(String customer, String product, int qty, double price, int day) {
+        return new TransactionModule.Sale("CI-" + System.nanoTime(), product, customer, "S001", qty, price, START.plusDays(day));
+    }
+
+    private static void record(SalesColumns cols, CustomerIndex index, TransactionModule.Sale s) {
+        index.onSale(s, cols.append(s));
+    }
+
+    @Test
+    public void totalsAndHistoryPerCustomer() {
+        SalesColumns cols = new SalesColumns();
+        CustomerIndex index = new CustomerIndex(cols);
+        record(cols, index, sale("C1", "P1", 2, 10.0, 0));
+        record(cols, index, sale("C2", "P1", 1, 10.0, 1));
+        record(cols, index, sale("C1", "P2", 1, 4.5, 4));
+        record(cols, index, sale("C1", "P3", 3, 1.0, 10));
+
+        CustomerIndex.Summary c1 = index.summary("C1");
+        assertEquals(3, c1.sales);
+        assertEquals(6, c1.units);
+        assertEquals(2000 + 450 + 300, c1.revenueMinor);
+        assertEquals(START, c1.firstPurchase());
+        assertEquals(START.plusDays(10), c1.lastPurchase());
+        assertEquals(5.0, c1.daysBetweenPurchases(), 1e-9);
+        assertArrayEquals(new int[]{0, 2, 3}, index.rows("C1"));
+
+        CustomerIndex.Purchase[] latest = index.history("C1", 2);
+        assertEquals(2, latest.length);
+        assertEquals("P3", latest[0].productId);
+        assertEquals(START.plusDays(10), latest[0].time());
+        assertEquals("P2", latest[1].productId);
+        assertEquals(450, latest[1].priceMinor);
+
+        assertEquals(1, index.summary("C2").sales);
+        assertNull(index.summary("C3"));
+        assertEquals(0, index.rows("C3").length);
+    }
+
+    @Test
+    public void rowsStaySortedWhenIndexedOutOfOrder() {
+        SalesColumns cols = new SalesColumns();
+        CustomerIndex index = new CustomerIndex(cols);
+        List<TransactionModule.Sale> batch = new ArrayList<>();
+        for (int i = 0; i < 10; i++) batch.add(sale("C1", "P1", 1, 1.0, i));
+        int first = cols.appendAll(batch);
+        for (int i = batch.size() - 1; i >= 0; i--) index.onSale(batch.get(i), first + i);
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}, index.rows("C1"));
+        assertEquals(START.plusDays(9), index.summary("C1").lastPurchase());
+    }
+
+    @Test
+    public void topCustomersRankByLifetimeRevenue() {
+        SalesColumns cols = new SalesColumns();
+        CustomerIndex index = new CustomerIndex(cols);
+        for (int c = 0; c < 5000; c++) record(cols, index, sale("C" + c, "P1", 1, 1.0 + c % 100, c % 30));
+        record(cols, index, sale("C7", "P9", 50, 100.0, 40));
+        CustomerIndex.Summary[] top = index.top(3);
+        assertEquals(3, top.length);
+        assertEquals("C7", top[0].customerId);
+        assertEquals(500_000 + 800, top[0].revenueMinor);
+        assertEquals(2, top[0].sales);
+        assertEquals(10000, top[1].revenueMinor);
+        assertEquals(10000, top[2].revenueMinor);
+    }
+
+    @Test
+    public void concurrentSalesAreAllIndexed() throws Exception {
+        SalesColumns cols = new SalesColumns();
+        CustomerIndex index = new CustomerIndex(cols);
+        Thread[] ts = new Thread[8];
+        for (int t = 0; t < ts.length; t++) {
+            ts[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++) record(cols, index, sale("C" + (i % 40), "P1", 1, 2.0, i % 7));
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        long sales = 0;
+        for (CustomerIndex.Summary s : index.top(100)) {
+            sales += s.sales;
+            int[] rows = index.rows(s.customerId);
+            assertEquals(s.sales, rows.length);
+            for (int k = 1; k < rows.length; k++) assertEquals(true, rows[k - 1] < rows[k]);
+        }
+        assertEquals(8 * 5000, sales);
+    }
+
+    @Test
+    public void storeSalesReachTheSharedIndex() {
+        String pid = "CI-P" + System.nanoTime();
+        String cid = "CI-C" + System.nanoTime();
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Index item", "Index", 3.0, 10));
+        assertNotNull(TransactionModule.StoreDB.recordSale(pid, cid, "S001", 2));
+        assertNotNull(TransactionModule.StoreDB.recordSale(pid, cid, "S001", 1));
+        CustomerIndex.Summary s = TransactionModule.StoreDB.customerIndex.summary(cid);
+        assertEquals(2, s.sales);
+        assertEquals(900, s.revenueMinor);
+        assertEquals(pid, TransactionModule.StoreDB.customerIndex.history(cid, 1)[0].productId);
+    }
+}
@@ -0,0 +1,293 @@
+package store;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Per-product daily demand over a sliding window of `windowDays` days, kept
+// current as sales are indexed, for EOQ / safety stock / reorder point inputs.
+// Each product has a ring of daily unit counts, slot = epochDay mod windowDays,
+// in fixed-size chunks of atomic ints indexed by SalesColumns product ID.
+// Sales add under the shared read lock. The first sale of a new day takes the
+// write lock once to zero that day's slot for every product. rebuild() recomputes
+// the window from the columnar history in one fork-join pass over row ranges.
+// Statistics (mean, max, variance, least-squares trend) come from the ring at
+// query time, O(windowDays) per product.
+// Product IDs come from a SymbolTable that may also hold catalogue products that
+// never sold, so a per-product `sold` bit tells "no demand yet" (null) apart from
+// "sold, but not within the window" (zeros).
+public class DemandStats implements SaleListener {
+    private static final int CHUNK_BITS = 10;
+    private static final int CHUNK = 1 << CHUNK_BITS; // products per chunk
+    private static final int MASK = CHUNK - 1;
+    static final int SCAN_ROWS = 1 << 16; // history rows per rebuild task
+
+    private final SalesColumns cols;
+    private final int windowDays;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile AtomicIntegerArray[] chunks = new AtomicIntegerArray[0];
+    private volatile AtomicLongArray[] sold = new AtomicLongArray[0]; // one bit per product, chunked alike
+    // Newest day counted; slots hold days (latestDay - windowDays, latestDay]
+    private volatile int latestDay = Integer.MIN_VALUE;
+    // Rows below this were counted by rebuild() and must not be counted again
+    private volatile int rebuiltUpTo;
+
+    // Demand of one product over the window ending at some day
+    public static final class Demand {
+        public final int days;
+        public final long units;
+        public final double avgDaily;
+        public final int maxDaily;
+        public final double variance; // of daily units
+        public final double trend;    // change in daily units per day (least squares)
+
+        Demand(int days, long units, double avgDaily, int maxDaily, double variance, double trend) {
+            this.days = days;
+            this.units = units;
+            this.avgDaily = avgDaily;
+            this.maxDaily = maxDaily;
+            this.variance = variance;
+            this.trend = trend;
+        }
+
+        public double stdDev() {
+            return Math.sqrt(variance);
+        }
+
+        public double annualDemand() {
+            return avgDaily * 365;
+        }
+    }
+
+    public DemandStats(SalesColumns cols, int windowDays) {
+        if (windowDays < 2) throw new IllegalArgumentException("windowDays must be at least 2");
+        this.cols = cols;
+        this.windowDays = windowDays;
+    }
+
+    public int windowDays() {
+        return windowDays;
+    }
+
+    // Maps product IDs to the indexes of all()
+    public SymbolTable productIds() {
+        return cols.productIds;
+    }
+
+    @Override
+    public void onSale(TransactionModule.Sale sale, int row) {
+        int day = cols.epochDay(row);
+        if (day > latestDay) advanceTo(day);
+        lock.readLock().lock();
+        try {
+            if (row >= rebuiltUpTo) add(cols.product(row), day, cols.quantity(row));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSales(List<TransactionModule.Sale> sales, int firstRow) {
+        int end = firstRow + sales.size();
+        int newest = Integer.MIN_VALUE;
+        for (int row = firstRow; row < end; row++) newest = Math.max(newest, cols.epochDay(row));
+        if (newest > latestDay) advanceTo(newest);
+        lock.readLock().lock();
+        try {
+            for (int row = Math.max(firstRow, rebuiltUpTo); row < end; row++) {
+                add(cols.product(row), cols.epochDay(row), cols.quantity(row));
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void add(int product, int day, int qty) {
+        AtomicIntegerArray c = chunk(product >>> CHUNK_BITS);
+        markSold(product);
+        if (day <= latestDay - windowDays) return; // older than the window
+        c.addAndGet((product & MASK) * windowDays + Math.floorMod(day, windowDays), qty);
+    }
+
+    // After chunk() has grown the arrays for `product`
+    private void markSold(int product) {
+        AtomicLongArray bits = sold[product >>> CHUNK_BITS];
+        int i = (product & MASK) >>> 6;
+        long bit = 1L << product;
+        if ((bits.get(i) & bit) == 0) bits.accumulateAndGet(i, bit, (a, b) -> a | b);
+    }
+
+    private boolean hasSold(int product) {
+        AtomicLongArray[] s = sold;
+        if (product < 0 || (product >>> CHUNK_BITS) >= s.length) return false;
+        return (s[product >>> CHUNK_BITS].get((product & MASK) >>> 6) & (1L << product)) != 0;
+    }
+
+    // Move the window forward, zeroing the slots of the days it enters
+    private void advanceTo(int day) {
+        lock.writeLock().lock();
+        try {
+            int from = latestDay;
+            if (day <= from) return;
+            latestDay = day;
+            if (from == Integer.MIN_VALUE || day - from >= windowDays) {
+                clearAll();
+                return;
+            }
+            for (AtomicIntegerArray c : chunks) {
+                for (int d = from + 1; d <= day; d++) {
+                    int slot = Math.floorMod(d, windowDays);
+                    for (int p = 0; p < CHUNK; p++) c.set(p * windowDays + slot, 0);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void clearAll() {
+        for (AtomicIntegerArray c : chunks) {
+            for (int i = 0; i < c.length(); i++) c.set(i, 0);
+        }
+    }
+
+    // ===== Queries =====
+
+    // Demand of `productId` over the window ending today; null if it never sold
+    public Demand demand(String productId) {
+        return demand(productId, (int) LocalDate.now().toEpochDay());
+    }
+
+    public Demand demand(String productId, int asOfDay) {
+        int id = cols.productIds.find(productId);
+        return id < 0 ? null : demand(id, asOfDay);
+    }
+
+    // Demand of product dictionary ID `id` over the window ending at `asOfDay`;
+    // null if it never sold
+    public Demand demand(int id, int asOfDay) {
+        if (!hasSold(id)) return null;
+        lock.readLock().lock();
+        try {
+            return compute(id, asOfDay, new int[windowDays]);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Demand of every product ID so far, in one parallel pass; null where it never sold
+    public Demand[] all(int asOfDay) {
+        int n = cols.productIds.size();
+        Demand[] out = new Demand[n];
+        lock.readLock().lock();
+        try {
+            ForkJoinPool.commonPool().invoke(new Split((from, to) -> {
+                int[] daily = new int[windowDays];
+                for (int id = from; id < to; id++) out[id] = hasSold(id) ? compute(id, asOfDay, daily) : null;
+            }, 0, n, CHUNK));
+        } finally {
+            lock.readLock().unlock();
+        }
+        return out;
+    }
+
+    private Demand compute(int id, int asOfDay, int[] daily) {
+        int w = windowDays;
+        int latest = latestDay;
+        AtomicIntegerArray[] cs = chunks;
+        AtomicIntegerArray c = (id >>> CHUNK_BITS) < cs.length ? cs[id >>> CHUNK_BITS] : null;
+        long units = 0;
+        int max = 0;
+        for (int k = 0; k < w; k++) {
+            int day = asOfDay - w + 1 + k;
+            boolean held = c != null && day <= latest && day > latest - w;
+            int v = held ? c.get((id & MASK) * w + Math.floorMod(day, w)) : 0;
+            daily[k] = v;
+            units += v;
+            if (v > max) max = v;
+        }
+        double mean = (double) units / w;
+        double sq = 0;
+        double cov = 0;
+        double xMean = (w - 1) / 2.0;
+        for (int k = 0; k < w; k++) {
+            double dy = daily[k] - mean;
+            sq += dy * dy;
+            cov += (k - xMean) * dy;
+        }
+        double sxx = w * ((double) w * w - 1) / 12; // sum of (k - xMean)^2
+        return new Demand(w, units, mean, max, sq / w, cov / sxx);
+    }
+
+    // ===== Maintenance =====
+
+    // Discard the window and recount it from the full sales history
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            int n = cols.size();
+            clearAll();
+            latestDay = cols.maxDay();
+            ForkJoinPool.commonPool().invoke(new Split((from, to) -> {
+                for (int row = from; row < to; row++) add(cols.product(row), cols.epochDay(row), cols.quantity(row));
+            }, 0, n, SCAN_ROWS));
+            rebuiltUpTo = n;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private AtomicIntegerArray chunk(int c) {
+        AtomicIntegerArray[] cs = chunks;
+        return c < cs.length ? cs[c] : grow(c);
+    }
+
+    private synchronized AtomicIntegerArray grow(int c) {
+        AtomicIntegerArray[] cs = chunks;
+        if (c >= cs.length) {
+            int old = cs.length;
+            cs = Arrays.copyOf(cs, c + 1);
+            AtomicLongArray[] bits = Arrays.copyOf(sold, c + 1);
+            for (int i = old; i <= c; i++) {
+                cs[i] = new AtomicIntegerArray(CHUNK * windowDays);
+                bits[i] = new AtomicLongArray(CHUNK / 64);
+            }
+            sold = bits; // before `chunks`: whoever sees a chunk sees its bits
+            chunks = cs;
+        }
+        return cs[c];
+    }
+
+    interface RangeTask {
+        void run(int from, int to);
+    }
+
+    // Splits [from, to) in halves down to `leaf` elements
+    private static final class Split extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final RangeTask task;
+        private final int from, to, leaf;
+
+        Split(RangeTask task, int from, int to, int leaf) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.leaf = leaf;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= leaf) {
+                task.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Split(task, from, mid, leaf), new Split(task, mid, to, leaf));
+        }
+    }
+}
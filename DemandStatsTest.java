@@ -0,0 +1,77 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+public class DemandStatsTest {
+    private static TransactionModule.Sale sale(String pid, int day, int qty) {
+        return new TransactionModule.Sale("DS-" + pid + "-" + day + "-" + qty, pid, "C001", "S001", qty, 1.0,
+                LocalDate.ofEpochDay(day).atTime(12, 0));
+    }
+
+    private static void feed(SalesColumns cols, DemandStats stats, List<TransactionModule.Sale> sales) {
+        int first = cols.appendAll(sales);
+        stats.onSales(sales, first);
+    }
+
+    @Test
+    public void windowStatisticsFollowDailySales() {
+        SalesColumns cols = new SalesColumns();
+        DemandStats stats = new DemandStats(cols, 7);
+        int d0 = 20_000;
+        // Rising demand 1..7 units/day for P1, two sales a day
+        for (int d = 0; d < 7; d++) {
+            List<TransactionModule.Sale> day = new ArrayList<>();
+            day.add(sale("P1", d0 + d, d));
+            day.add(sale("P1", d0 + d, 1));
+            feed(cols, stats, day);
+        }
+        DemandStats.Demand p1 = stats.demand("P1", d0 + 6);
+        assertEquals(28, p1.units);
+        assertEquals(4.0, p1.avgDaily, 1e-9);
+        assertEquals(7, p1.maxDaily);
+        assertEquals(4.0, p1.variance, 1e-9); // daily units 1..7
+        assertEquals(1.0, p1.trend, 1e-9);
+        assertNull(stats.demand("NOPE", d0 + 6));
+
+        // Three days later the first three days have left the window
+        feed(cols, stats, List.of(sale("P2", d0 + 9, 5)));
+        DemandStats.Demand later = stats.demand("P1", d0 + 9);
+        assertEquals(4 + 5 + 6 + 7, later.units);
+        assertEquals(5, stats.demand("P2", d0 + 9).units);
+
+        // A full rescan of the history agrees with the incremental counts
+        DemandStats rebuilt = new DemandStats(cols, 7);
+        rebuilt.rebuild();
+        DemandStats.Demand[] all = rebuilt.all(d0 + 9);
+        assertEquals(later.units, all[cols.productIds.find("P1")].units);
+        assertEquals(later.variance, all[cols.productIds.find("P1")].variance, 1e-9);
+        assertEquals(5, all[cols.productIds.find("P2")].units);
+    }
+
+    @Test
+    public void storeDbFeedsDemandAsSalesArrive() {
+        String pid = "DS-" + System.nanoTime();
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Demand Item", "Test", 1.0, 100));
+        for (int i = 0; i < 3; i++) TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 4);
+        DemandStats.Demand d = TransactionModule.StoreDB.demand.demand(pid);
+        assertEquals(12, d.units);
+        assertEquals(12, d.maxDaily);
+        assertEquals(12.0 / TransactionModule.StoreDB.demand.windowDays(), d.avgDaily, 1e-9);
+        // Only today sold, so the least-squares trend is positive
+        assertEquals(true, d.trend > 0);
+
+        // Catalogued but never sold: no demand, even though the product has an ID
+        String idle = pid + "-IDLE";
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(idle, "Idle Item", "Test", 1.0, 100));
+        assertNull(TransactionModule.StoreDB.demand.demand(idle));
+        int id = TransactionModule.StoreDB.demand.productIds().find(idle);
+        assertNull(TransactionModule.StoreDB.demand.all((int) LocalDate.now().toEpochDay())[id]);
+    }
+}
@@ -0,0 +1,133 @@
+package store;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Heap held per sale, before and after interning IDs through the SymbolTables.
+// "strings" is the old Sale layout: each sale holds its own copies of the product,
+// customer and seller IDs, as parsed from the CSV, the API or the journal. "interned"
+// is TransactionModule.Sale built from the same fresh strings. "columns" is the
+// SalesColumns row alone. The ID index compares a ConcurrentHashMap<String, Integer>
+// (the old dictionary) with SymbolTable over the customer IDs.
+// "storedb" instead imports the sales into TransactionModule.StoreDB and measures it
+// end to end: the sales themselves plus every SaleListener's totals and indexes.
+// It runs on its own, since StoreDB cannot be emptied again.
+// Usage: java -Xmx8g store.FootprintBenchmark [storedb] [sales] [products] [customers] [sellers]
+public class FootprintBenchmark {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    // TransactionModule.Sale as it was before interning
+    private static final class StringSale {
+        final String saleId;
+        final String productId;
+        final String customerId;
+        final String sellerId;
+        final int quantity;
+        final double unitPrice;
+        final LocalDateTime timestamp;
+
+        StringSale(String saleId, String productId, String customerId, String sellerId,
+                   int quantity, double unitPrice, LocalDateTime timestamp) {
+            this.saleId = saleId;
+            this.productId = productId;
+            this.customerId = customerId;
+            this.sellerId = sellerId;
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+            this.timestamp = timestamp;
+        }
+    }
+
+    private interface Build {
+        Object build(int sales, int products, int customers, int sellers);
+    }
+
+    public static void main(String[] args) throws Exception {
+        boolean storeDb = args.length > 0 && args[0].equals("storedb");
+        if (storeDb) args = Arrays.copyOfRange(args, 1, args.length);
+        int sales = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        int products = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        int customers = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        int sellers = args.length > 3 ? Integer.parseInt(args[3]) : 50;
+        System.out.printf("%,d sales over %,d products, %,d customers, %,d sellers%n",
+                sales, products, customers, sellers);
+
+        if (storeDb) {
+            measure("storedb", sales, sales, products, customers, sellers, (n, p, c, s) -> {
+                List<TransactionModule.Sale> batch = new ArrayList<>(BulkIO.BATCH);
+                for (int i = 0; i < n; i++) {
+                    batch.add(new TransactionModule.Sale("T" + (i + 1), "P" + i % p, "C" + (i * 7919L) % c,
+                            "S" + i % s, 1 + i % 5, 10.0 + i % 100, START.plusSeconds(i)));
+                    if (batch.size() == BulkIO.BATCH) {
+                        TransactionModule.StoreDB.importSales(batch);
+                        batch.clear();
+                    }
+                }
+                TransactionModule.StoreDB.importSales(batch);
+                return TransactionModule.StoreDB.sales;
+            });
+            return;
+        }
+        long before = measure("strings", sales, sales, products, customers, sellers, (n, p, c, s) -> {
+            Object[] out = new Object[n];
+            for (int i = 0; i < n; i++) {
+                out[i] = new StringSale("T" + (i + 1), "P" + i % p, "C" + (i * 7919L) % c, "S" + i % s,
+                        1 + i % 5, 10.0 + i % 100, START.plusSeconds(i));
+            }
+            return out;
+        });
+        long after = measure("interned", sales, sales, products, customers, sellers, (n, p, c, s) -> {
+            Object[] out = new Object[n];
+            for (int i = 0; i < n; i++) {
+                out[i] = new TransactionModule.Sale("T" + (i + 1), "P" + i % p, "C" + (i * 7919L) % c, "S" + i % s,
+                        1 + i % 5, 10.0 + i % 100, START.plusSeconds(i));
+            }
+            return out;
+        });
+        measure("columns", sales, sales, products, customers, sellers, (n, p, c, s) -> {
+            SalesColumns cols = new SalesColumns(SymbolTable.PRODUCTS, SymbolTable.SELLERS, SymbolTable.CUSTOMERS);
+            for (int i = 0; i < n; i++) {
+                cols.append(new TransactionModule.Sale("T" + (i + 1), "P" + i % p, "C" + (i * 7919L) % c, "S" + i % s,
+                        1 + i % 5, 10.0 + i % 100, START.plusSeconds(i)));
+            }
+            return cols;
+        });
+        System.out.printf("interned/strings: %.2f%n", (double) after / before);
+
+        measure("id map", customers, sales, products, customers, sellers, (n, p, c, s) -> {
+            ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+            for (int i = 0; i < c; i++) ids.put("X" + i, i);
+            return ids;
+        });
+        measure("id symbols", customers, sales, products, customers, sellers, (n, p, c, s) -> {
+            SymbolTable ids = new SymbolTable();
+            for (int i = 0; i < c; i++) ids.idOf("X" + i);
+            return ids;
+        });
+    }
+
+    // Heap retained by what `b` builds, per `per` entries; returns the total bytes
+    private static long measure(String label, long per, int sales, int products, int customers, int sellers,
+                                Build b) throws InterruptedException {
+        long base = used();
+        Object kept = b.build(sales, products, customers, sellers);
+        long bytes = used() - base;
+        System.out.printf("%-11s %,9.1f MB  %,6.1f bytes each%n", label, bytes / 1e6, (double) bytes / per);
+        if (kept.hashCode() == 42) System.out.print(""); // keep `kept` reachable until measured
+        return bytes;
+    }
+
+    private static long used() throws InterruptedException {
+        MemoryMXBean mem = ManagementFactory.getMemoryMXBean();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return mem.getHeapMemoryUsage().getUsed();
+    }
+}
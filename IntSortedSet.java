@@ -0,0 +1,83 @@
+package store;
+
+import java.util.Arrays;
+
+// Sorted set of ints backed by a growable primitive array.
+// Appending ascending values (the common case for ordinals) is O(1).
+// Not thread-safe; owners guard it with their own lock.
+public class IntSortedSet {
+    private int[] values;
+    private int size;
+
+    public IntSortedSet() {
+        this(4);
+    }
+
+    public IntSortedSet(int capacity) {
+        values = new int[Math.max(1, capacity)];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int get(int i) {
+        return values[i];
+    }
+
+    public boolean contains(int v) {
+        return Arrays.binarySearch(values, 0, size, v) >= 0;
+    }
+
+    public boolean add(int v) {
+        if (size > 0 && values[size - 1] < v) {
+            append(v);
+            return true;
+        }
+        int pos = Arrays.binarySearch(values, 0, size, v);
+        if (pos >= 0) return false;
+        pos = -pos - 1;
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        System.arraycopy(values, pos, values, pos + 1, size - pos);
+        values[pos] = v;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int v) {
+        int pos = Arrays.binarySearch(values, 0, size, v);
+        if (pos < 0) return false;
+        System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+        size--;
+        return true;
+    }
+
+    private void append(int v) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = v;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+
+    // Keep only the first `n` entries of `candidates` (sorted) that are also in
+    // this set; returns the new count. Merges, or binary-searches when the
+    // candidates are much fewer than the set.
+    public int retainIn(int[] candidates, int n) {
+        int out = 0;
+        if ((long) n * 16 < size) {
+            for (int i = 0; i < n; i++) {
+                if (contains(candidates[i])) candidates[out++] = candidates[i];
+            }
+            return out;
+        }
+        int j = 0;
+        for (int i = 0; i < n && j < size; i++) {
+            int c = candidates[i];
+            while (j < size && values[j] < c) j++;
+            if (j < size && values[j] == c) candidates[out++] = c;
+        }
+        return out;
+    }
+}
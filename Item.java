@@ -0,0 +1,92 @@
+// Item class
+class Item {
+    private String itemName;
+    private String itemCode;
+    private double annualDemand;  // units per year
+    private double orderingCost;  // cost per order placed
+    private double holdingCost;   // cost of holding one unit for a year
+    // Replenishment parameters for reorder planning; lead times in days
+    private double avgDailyUsage;
+    private double maxDailyUsage;
+    private double avgLeadTime;
+    private double maxLeadTime;
+
+    public Item(String itemName, String itemCode, double annualDemand, double orderingCost, double holdingCost) {
+        this.itemName = itemName;
+        this.itemCode = itemCode;
+        this.annualDemand = annualDemand;
+        this.orderingCost = orderingCost;
+        this.holdingCost = holdingCost;
+        this.avgDailyUsage = annualDemand / 365;
+        this.maxDailyUsage = avgDailyUsage;
+    }
+
+    // Economic Order Quantity: sqrt(2DS / H)
+    public double calculateEOQ() {
+        return eoq(annualDemand, orderingCost, holdingCost);
+    }
+
+    static double eoq(double annualDemand, double orderingCost, double holdingCost) {
+        return Math.sqrt((2 * annualDemand * orderingCost) / holdingCost);
+    }
+
+    // Replace the hand-entered demand with figures measured from sales (DemandStats)
+    public void updateDemand(double annualDemand, double avgDailyUsage, double maxDailyUsage) {
+        this.annualDemand = annualDemand;
+        this.avgDailyUsage = avgDailyUsage;
+        this.maxDailyUsage = maxDailyUsage;
+    }
+
+    // Usage defaults to annual demand / 365 with no variation, lead time to 0
+    public void setReplenishment(double avgDailyUsage, double maxDailyUsage, double avgLeadTime, double maxLeadTime) {
+        this.avgDailyUsage = avgDailyUsage;
+        this.maxDailyUsage = maxDailyUsage;
+        this.avgLeadTime = avgLeadTime;
+        this.maxLeadTime = maxLeadTime;
+    }
+
+    public double calculateSafetyStock() {
+        return Warehouse.safetyStock(maxDailyUsage, maxLeadTime, avgDailyUsage, avgLeadTime);
+    }
+
+    public double calculateReorderPoint() {
+        return Warehouse.reorderPoint(avgLeadTime, avgDailyUsage, calculateSafetyStock());
+    }
+
+    // Getters
+    public String getItemName() {
+        return itemName;
+    }
+
+    public String getItemCode() {
+        return itemCode;
+    }
+
+    public double getAnnualDemand() {
+        return annualDemand;
+    }
+
+    public double getOrderingCost() {
+        return orderingCost;
+    }
+
+    public double getHoldingCost() {
+        return holdingCost;
+    }
+
+    public double getAvgDailyUsage() {
+        return avgDailyUsage;
+    }
+
+    public double getMaxDailyUsage() {
+        return maxDailyUsage;
+    }
+
+    public double getAvgLeadTime() {
+        return avgLeadTime;
+    }
+
+    public double getMaxLeadTime() {
+        return maxLeadTime;
+    }
+}
@@ -0,0 +1,269 @@
+package store;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// PersistenceBackend over JDBC, written against MySQL. Any engine that speaks
+// MySQL's INSERT IGNORE / ON DUPLICATE KEY UPDATE works (H2 in MODE=MySQL is
+// used by the tests). Every write is a single transaction of batched prepared
+// statements, executed in chunks of BulkIO.BATCH rows.
+public final class JdbcBackend implements PersistenceBackend {
+    static final String[] SCHEMA = {
+            "CREATE TABLE IF NOT EXISTS products ("
+                    + "id VARCHAR(64) NOT NULL PRIMARY KEY, name VARCHAR(255) NOT NULL,"
+                    + " category VARCHAR(128) NOT NULL, price DOUBLE NOT NULL, stock INT NOT NULL)",
+            "CREATE TABLE IF NOT EXISTS customers ("
+                    + "id VARCHAR(64) NOT NULL PRIMARY KEY, name VARCHAR(255), phone VARCHAR(32))",
+            "CREATE TABLE IF NOT EXISTS sellers ("
+                    + "id VARCHAR(64) NOT NULL PRIMARY KEY, name VARCHAR(255))",
+            // row_id keeps load order equal to write order, whatever the sale IDs look like
+            "CREATE TABLE IF NOT EXISTS sales ("
+                    + "row_id BIGINT NOT NULL AUTO_INCREMENT PRIMARY KEY, sale_id VARCHAR(64) NOT NULL UNIQUE,"
+                    + " product_id VARCHAR(64) NOT NULL, customer_id VARCHAR(64), seller_id VARCHAR(64),"
+                    + " quantity INT NOT NULL, unit_price DOUBLE NOT NULL, sold_at DATETIME(6) NOT NULL)"
+    };
+
+    private static final String UPSERT_PRODUCT = "INSERT INTO products (id, name, category, price, stock)"
+            + " VALUES (?, ?, ?, ?, ?) ON DUPLICATE KEY UPDATE name = VALUES(name),"
+            + " category = VALUES(category), price = VALUES(price), stock = VALUES(stock)";
+    private static final String UPSERT_CUSTOMER = "INSERT INTO customers (id, name, phone) VALUES (?, ?, ?)"
+            + " ON DUPLICATE KEY UPDATE name = VALUES(name), phone = VALUES(phone)";
+    private static final String UPSERT_SELLER = "INSERT INTO sellers (id, name) VALUES (?, ?)"
+            + " ON DUPLICATE KEY UPDATE name = VALUES(name)";
+    private static final String INSERT_SALE = "INSERT IGNORE INTO sales"
+            + " (sale_id, product_id, customer_id, seller_id, quantity, unit_price, sold_at)"
+            + " VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final ConnectionPool pool;
+
+    public JdbcBackend(String url, String user, String password, int poolSize) throws IOException {
+        this.pool = new ConnectionPool(withMySqlDefaults(url), user, password, poolSize, 10_000);
+        try {
+            pool.withConnection(c -> {
+                try (Statement st = c.createStatement()) {
+                    for (String ddl : SCHEMA) st.execute(ddl);
+                }
+                return null;
+            });
+        } catch (SQLException e) {
+            pool.close();
+            throw new IOException("Could not create schema: " + e.getMessage(), e);
+        }
+    }
+
+    // Connector/J sends addBatch() rows one statement at a time unless told to
+    // rewrite them into multi-row INSERTs, and buffers whole result sets unless
+    // cursor fetch is on. Explicit settings in the URL win.
+    static String withMySqlDefaults(String url) {
+        if (!url.startsWith("jdbc:mysql:")) return url;
+        StringBuilder sb = new StringBuilder(url);
+        char sep = url.indexOf('?') < 0 ? '?' : '&';
+        if (!url.contains("rewriteBatchedStatements=")) {
+            sb.append(sep).append("rewriteBatchedStatements=true");
+            sep = '&';
+        }
+        if (!url.contains("useCursorFetch=")) sb.append(sep).append("useCursorFetch=true");
+        return sb.toString();
+    }
+
+    public ConnectionPool pool() {
+        return pool;
+    }
+
+    // ===== Writing =====
+
+    @Override
+    public void write(Batch batch) throws IOException {
+        if (batch.isEmpty()) return;
+        try {
+            pool.withConnection(c -> {
+                c.setAutoCommit(false);
+                upsertProducts(c, batch.products);
+                upsertCustomers(c, batch.customers);
+                upsertSellers(c, batch.sellers);
+                insertSales(c, batch.sales);
+                c.commit();
+                c.setAutoCommit(true);
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Write of " + batch.size() + " rows failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static void upsertProducts(Connection c, List<TransactionModule.Product> rows) throws SQLException {
+        if (rows.isEmpty()) return;
+        try (PreparedStatement ps = c.prepareStatement(UPSERT_PRODUCT)) {
+            int pending = 0;
+            for (TransactionModule.Product p : rows) {
+                ps.setString(1, p.id);
+                ps.setString(2, p.name);
+                ps.setString(3, p.category);
+                ps.setDouble(4, p.price);
+                ps.setInt(5, p.stock);
+                ps.addBatch();
+                if (++pending == BulkIO.BATCH) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) ps.executeBatch();
+        }
+    }
+
+    private static void upsertCustomers(Connection c, List<TransactionModule.Customer> rows) throws SQLException {
+        if (rows.isEmpty()) return;
+        try (PreparedStatement ps = c.prepareStatement(UPSERT_CUSTOMER)) {
+            int pending = 0;
+            for (TransactionModule.Customer cu : rows) {
+                ps.setString(1, cu.id);
+                ps.setString(2, cu.name);
+                ps.setString(3, cu.phone);
+                ps.addBatch();
+                if (++pending == BulkIO.BATCH) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) ps.executeBatch();
+        }
+    }
+
+    private static void upsertSellers(Connection c, List<TransactionModule.Seller> rows) throws SQLException {
+        if (rows.isEmpty()) return;
+        try (PreparedStatement ps = c.prepareStatement(UPSERT_SELLER)) {
+            int pending = 0;
+            for (TransactionModule.Seller s : rows) {
+                ps.setString(1, s.id);
+                ps.setString(2, s.name);
+                ps.addBatch();
+                if (++pending == BulkIO.BATCH) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) ps.executeBatch();
+        }
+    }
+
+    private static void insertSales(Connection c, List<TransactionModule.Sale> rows) throws SQLException {
+        if (rows.isEmpty()) return;
+        try (PreparedStatement ps = c.prepareStatement(INSERT_SALE)) {
+            int pending = 0;
+            for (TransactionModule.Sale s : rows) {
+                ps.setString(1, s.saleId);
+                ps.setString(2, s.productId);
+                ps.setString(3, s.customerId);
+                ps.setString(4, s.sellerId);
+                ps.setInt(5, s.quantity);
+                ps.setDouble(6, s.unitPrice);
+                ps.setObject(7, s.timestamp);
+                ps.addBatch();
+                if (++pending == BulkIO.BATCH) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) ps.executeBatch();
+        }
+    }
+
+    // ===== Loading =====
+
+    @Override
+    public void loadAll(Loader loader) throws IOException {
+        try {
+            pool.withConnection(c -> {
+                // Cursor fetch only streams inside a transaction on some drivers
+                c.setAutoCommit(false);
+                loadProducts(c, loader);
+                loadCustomers(c, loader);
+                loadSellers(c, loader);
+                loadSales(c, loader);
+                c.commit();
+                c.setAutoCommit(true);
+                return null;
+            });
+        } catch (SQLException e) {
+            throw new IOException("Load failed: " + e.getMessage(), e);
+        }
+    }
+
+    private static ResultSet query(Connection c, String sql) throws SQLException {
+        Statement st = c.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        st.setFetchSize(BulkIO.BATCH);
+        st.closeOnCompletion();
+        return st.executeQuery(sql);
+    }
+
+    private static void loadProducts(Connection c, Loader loader) throws SQLException {
+        List<TransactionModule.Product> chunk = new ArrayList<>(BulkIO.BATCH);
+        try (ResultSet rs = query(c, "SELECT id, name, category, price, stock FROM products")) {
+            while (rs.next()) {
+                chunk.add(new TransactionModule.Product(rs.getString(1), rs.getString(2), rs.getString(3),
+                        rs.getDouble(4), rs.getInt(5)));
+                if (chunk.size() == BulkIO.BATCH) {
+                    loader.products(chunk);
+                    chunk = new ArrayList<>(BulkIO.BATCH);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) loader.products(chunk);
+    }
+
+    private static void loadCustomers(Connection c, Loader loader) throws SQLException {
+        List<TransactionModule.Customer> chunk = new ArrayList<>(BulkIO.BATCH);
+        try (ResultSet rs = query(c, "SELECT id, name, phone FROM customers")) {
+            while (rs.next()) {
+                chunk.add(new TransactionModule.Customer(rs.getString(1), rs.getString(2), rs.getString(3)));
+                if (chunk.size() == BulkIO.BATCH) {
+                    loader.customers(chunk);
+                    chunk = new ArrayList<>(BulkIO.BATCH);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) loader.customers(chunk);
+    }
+
+    private static void loadSellers(Connection c, Loader loader) throws SQLException {
+        List<TransactionModule.Seller> chunk = new ArrayList<>(BulkIO.BATCH);
+        try (ResultSet rs = query(c, "SELECT id, name FROM sellers")) {
+            while (rs.next()) {
+                chunk.add(new TransactionModule.Seller(rs.getString(1), rs.getString(2)));
+                if (chunk.size() == BulkIO.BATCH) {
+                    loader.sellers(chunk);
+                    chunk = new ArrayList<>(BulkIO.BATCH);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) loader.sellers(chunk);
+    }
+
+    private static void loadSales(Connection c, Loader loader) throws SQLException {
+        List<TransactionModule.Sale> chunk = new ArrayList<>(BulkIO.BATCH);
+        try (ResultSet rs = query(c, "SELECT sale_id, product_id, customer_id, seller_id, quantity,"
+                + " unit_price, sold_at FROM sales ORDER BY row_id")) {
+            while (rs.next()) {
+                chunk.add(new TransactionModule.Sale(rs.getString(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getInt(5), rs.getDouble(6), rs.getObject(7, LocalDateTime.class)));
+                if (chunk.size() == BulkIO.BATCH) {
+                    loader.sales(chunk);
+                    chunk = new ArrayList<>(BulkIO.BATCH);
+                }
+            }
+        }
+        if (!chunk.isEmpty()) loader.sales(chunk);
+    }
+
+    @Override
+    public void close() {
+        pool.close();
+    }
+}
@@ -0,0 +1,121 @@
+package store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// Runs JdbcBackend against an in-memory H2 database in MySQL mode
+public class JdbcBackendTest {
+    private JdbcBackend backend;
+
+    static class Collected implements PersistenceBackend.Loader {
+        final List<TransactionModule.Product> products = new ArrayList<>();
+        final List<TransactionModule.Customer> customers = new ArrayList<>();
+        final List<TransactionModule.Seller> sellers = new ArrayList<>();
+        final List<TransactionModule.Sale> sales = new ArrayList<>();
+
+        @Override
+        public void products(List<TransactionModule.Product> batch) {
+            products.addAll(batch);
+        }
+
+        @Override
+        public void customers(List<TransactionModule.Customer> batch) {
+            customers.addAll(batch);
+        }
+
+        @Override
+        public void sellers(List<TransactionModule.Seller> batch) {
+            sellers.addAll(batch);
+        }
+
+        @Override
+        public void sales(List<TransactionModule.Sale> batch) {
+            sales.addAll(batch);
+        }
+    }
+
+    @Before
+    public void open() throws Exception {
+        backend = new JdbcBackend("jdbc:h2:mem:store" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "sa", "", 2);
+    }
+
+    @After
+    public void close() {
+        backend.close();
+    }
+
+    @Test
+    public void writesAreIdempotentAndLoadInOrder() throws Exception {
+        LocalDateTime when = LocalDateTime.of(2024, 3, 1, 10, 15, 30, 123_456_000);
+        PersistenceBackend.Batch batch = new PersistenceBackend.Batch();
+        TransactionModule.Product p = new TransactionModule.Product("P1", "Tea", "Grocery", 120.5, 40);
+        batch.products.add(p);
+        batch.customers.add(new TransactionModule.Customer("C1", "Neha", "98"));
+        batch.sellers.add(new TransactionModule.Seller("S1", "Rohan"));
+        // More rows than one executeBatch chunk, with IDs that sort differently as strings
+        for (int i = 1; i <= BulkIO.BATCH + 10; i++) {
+            batch.sales.add(new TransactionModule.Sale("T" + i, "P1", "C1", "S1", 1, 120.5, when));
+        }
+        backend.write(batch);
+        p.stock = 3;
+        backend.write(batch);
+
+        Collected loaded = new Collected();
+        backend.loadAll(loaded);
+        assertEquals(1, loaded.products.size());
+        assertEquals(3, loaded.products.get(0).stock);
+        assertEquals("Neha", loaded.customers.get(0).name);
+        assertEquals("Rohan", loaded.sellers.get(0).name);
+        assertEquals(BulkIO.BATCH + 10, loaded.sales.size());
+        for (int i = 0; i < loaded.sales.size(); i++) assertEquals("T" + (i + 1), loaded.sales.get(i).saleId);
+        assertEquals(when, loaded.sales.get(0).timestamp);
+        assertEquals(120.5, loaded.sales.get(0).unitPrice, 0);
+        assertTrue(backend.pool().openConnections() <= 2);
+    }
+
+    @Test
+    public void discardedConnectionLetsAWaitingBorrowerOpenAnother() throws Exception {
+        ConnectionPool pool = new ConnectionPool("jdbc:h2:mem:pool" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "sa", "", 1, 10_000);
+        try {
+            Connection first = pool.borrow();
+            CompletableFuture<Connection> waiter = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return pool.borrow();
+                } catch (SQLException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            Thread.sleep(100); // the waiter is blocked: the pool is at size
+            pool.release(first, true);
+            // Well inside the borrow timeout: the freed slot wakes the waiter
+            Connection second = waiter.get(5, TimeUnit.SECONDS);
+            assertTrue(second.isValid(1));
+            assertEquals(1, pool.openConnections());
+            pool.release(second, false);
+        } finally {
+            pool.close();
+        }
+    }
+
+    @Test
+    public void mysqlUrlsGetBatchRewriteAndCursorFetch() {
+        assertEquals("jdbc:mysql://db/store?rewriteBatchedStatements=true&useCursorFetch=true",
+                JdbcBackend.withMySqlDefaults("jdbc:mysql://db/store"));
+        assertEquals("jdbc:mysql://db/store?useSSL=false&rewriteBatchedStatements=false&useCursorFetch=true",
+                JdbcBackend.withMySqlDefaults("jdbc:mysql://db/store?useSSL=false&rewriteBatchedStatements=false"));
+        assertEquals("jdbc:h2:mem:x", JdbcBackend.withMySqlDefaults("jdbc:h2:mem:x"));
+    }
+}
@@ -0,0 +1,294 @@
+package store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Minimal JSON support for StoreService: a streaming writer and a small parser.
+// parse() yields Map (objects, insertion-ordered), List, String, Double, Boolean
+// or null. Malformed input, or nesting deeper than MAX_DEPTH, throws
+// IllegalArgumentException.
+public final class Json {
+    // Objects and arrays nest at most this deep; the parser recurses per level
+    public static final int MAX_DEPTH = 64;
+
+    private Json() {
+    }
+
+    // ===== Writing =====
+
+    // Appends tokens to a StringBuilder, inserting commas between members
+    public static final class Writer {
+        private final StringBuilder sb;
+        private boolean needComma;
+
+        public Writer(StringBuilder sb) {
+            this.sb = sb;
+        }
+
+        public Writer beginObject() {
+            comma();
+            sb.append('{');
+            needComma = false;
+            return this;
+        }
+
+        public Writer endObject() {
+            sb.append('}');
+            needComma = true;
+            return this;
+        }
+
+        public Writer beginArray() {
+            comma();
+            sb.append('[');
+            needComma = false;
+            return this;
+        }
+
+        public Writer endArray() {
+            sb.append(']');
+            needComma = true;
+            return this;
+        }
+
+        public Writer name(String name) {
+            comma();
+            string(sb, name);
+            sb.append(':');
+            needComma = false;
+            return this;
+        }
+
+        public Writer value(String v) {
+            comma();
+            if (v == null) sb.append("null");
+            else string(sb, v);
+            needComma = true;
+            return this;
+        }
+
+        public Writer value(long v) {
+            comma();
+            sb.append(v);
+            needComma = true;
+            return this;
+        }
+
+        public Writer value(double v) {
+            comma();
+            if (Double.isFinite(v)) sb.append(v);
+            else sb.append("null");
+            needComma = true;
+            return this;
+        }
+
+        public Writer value(boolean v) {
+            comma();
+            sb.append(v);
+            needComma = true;
+            return this;
+        }
+
+        public Writer field(String name, String v) {
+            return name(name).value(v);
+        }
+
+        public Writer field(String name, long v) {
+            return name(name).value(v);
+        }
+
+        public Writer field(String name, double v) {
+            return name(name).value(v);
+        }
+
+        public Writer field(String name, boolean v) {
+            return name(name).value(v);
+        }
+
+        private void comma() {
+            if (needComma) sb.append(',');
+        }
+    }
+
+    static void string(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        sb.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 15, 16));
+                    } else {
+                        sb.append(c);
+                    }
+            }
+        }
+        sb.append('"');
+    }
+
+    // ===== Parsing =====
+
+    public static Object parse(String text) {
+        Parser p = new Parser(text);
+        Object v = p.value();
+        p.skipWhitespace();
+        if (p.pos != text.length()) throw p.error("trailing characters");
+        return v;
+    }
+
+    private static final class Parser {
+        private final String s;
+        private int pos;
+        private int depth;
+
+        Parser(String s) {
+            this.s = s;
+        }
+
+        Object value() {
+            skipWhitespace();
+            if (pos >= s.length()) throw error("unexpected end");
+            char c = s.charAt(pos);
+            switch (c) {
+                case '{': return nested(true);
+                case '[': return nested(false);
+                case '"': return string();
+                case 't': return literal("true", Boolean.TRUE);
+                case 'f': return literal("false", Boolean.FALSE);
+                case 'n': return literal("null", null);
+                default: return number();
+            }
+        }
+
+        private Object nested(boolean object) {
+            if (++depth > MAX_DEPTH) throw error("nested deeper than " + MAX_DEPTH);
+            Object v = object ? object() : array();
+            depth--;
+            return v;
+        }
+
+        private Map<String, Object> object() {
+            Map<String, Object> m = new LinkedHashMap<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == '}') {
+                pos++;
+                return m;
+            }
+            while (true) {
+                skipWhitespace();
+                if (peek() != '"') throw error("expected a member name");
+                String key = string();
+                skipWhitespace();
+                expect(':');
+                m.put(key, value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect('}');
+                    return m;
+                }
+            }
+        }
+
+        private List<Object> array() {
+            List<Object> list = new ArrayList<>();
+            pos++;
+            skipWhitespace();
+            if (peek() == ']') {
+                pos++;
+                return list;
+            }
+            while (true) {
+                list.add(value());
+                skipWhitespace();
+                if (peek() == ',') {
+                    pos++;
+                } else {
+                    expect(']');
+                    return list;
+                }
+            }
+        }
+
+        private String string() {
+            pos++; // opening quote
+            StringBuilder sb = null;
+            int start = pos;
+            while (true) {
+                if (pos >= s.length()) throw error("unterminated string");
+                char c = s.charAt(pos);
+                if (c == '"') {
+                    String tail = s.substring(start, pos++);
+                    return sb == null ? tail : sb.append(tail).toString();
+                }
+                if (c != '\\') {
+                    pos++;
+                    continue;
+                }
+                if (sb == null) sb = new StringBuilder();
+                sb.append(s, start, pos);
+                if (pos + 1 >= s.length()) throw error("bad escape");
+                char e = s.charAt(pos + 1);
+                pos += 2;
+                switch (e) {
+                    case '"': case '\\': case '/': sb.append(e); break;
+                    case 'b': sb.append('\b'); break;
+                    case 'f': sb.append('\f'); break;
+                    case 'n': sb.append('\n'); break;
+                    case 'r': sb.append('\r'); break;
+                    case 't': sb.append('\t'); break;
+                    case 'u':
+                        if (pos + 4 > s.length()) throw error("bad unicode escape");
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                        pos += 4;
+                        break;
+                    default: throw error("bad escape");
+                }
+                start = pos;
+            }
+        }
+
+        private Double number() {
+            int start = pos;
+            while (pos < s.length() && "+-0123456789.eE".indexOf(s.charAt(pos)) >= 0) pos++;
+            if (start == pos) throw error("unexpected character '" + s.charAt(pos) + "'");
+            try {
+                return Double.valueOf(s.substring(start, pos));
+            } catch (NumberFormatException e) {
+                throw error("bad number");
+            }
+        }
+
+        private Object literal(String word, Object v) {
+            if (!s.startsWith(word, pos)) throw error("unexpected token");
+            pos += word.length();
+            return v;
+        }
+
+        private char peek() {
+            return pos < s.length() ? s.charAt(pos) : '\0';
+        }
+
+        private void expect(char c) {
+            if (peek() != c) throw error("expected '" + c + "'");
+            pos++;
+        }
+
+        void skipWhitespace() {
+            while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+        }
+
+        IllegalArgumentException error(String msg) {
+            return new IllegalArgumentException("Invalid JSON at " + pos + ": " + msg);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package store;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+// Fixed-memory latency histogram with log-linear buckets (the HdrHistogram layout).
+// Values below 2^SUB_BITS nanoseconds get their own bucket. Above that, every
+// power-of-two range is split into 2^(SUB_BITS-1) equal buckets, so any recorded
+// value is known to within 1/32 (about 3%). Values above MAX_NANOS are clamped.
+// record() is one atomic increment plus two striped adders: no locks, no allocation.
+public class LatencyHistogram {
+    static final int SUB_BITS = 6;
+    static final int SUB = 1 << SUB_BITS;
+    static final int HALF = SUB >>> 1;
+    static final long MAX_NANOS = 1L << 40; // about 18 minutes
+
+    private final AtomicLongArray counts = new AtomicLongArray(index(MAX_NANOS) + 1);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sumNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    static int index(long v) {
+        if (v < SUB) return (int) v;
+        int shift = 64 - Long.numberOfLeadingZeros(v) - SUB_BITS; // >= 1
+        return shift * HALF + (int) (v >>> shift);
+    }
+
+    // Smallest and largest value that land in bucket `i`
+    static long lowerBound(int i) {
+        if (i < SUB) return i;
+        int shift = i / HALF - 1;
+        return (long) (i - shift * HALF) << shift;
+    }
+
+    static long upperBound(int i) {
+        return i < SUB ? i : lowerBound(i) + (1L << (i / HALF - 1)) - 1;
+    }
+
+    public void record(long nanos) {
+        long v = Math.max(0, Math.min(nanos, MAX_NANOS));
+        counts.incrementAndGet(index(v));
+        total.increment();
+        sumNanos.add(v);
+        maxNanos.accumulate(v);
+    }
+
+    // Record the time since `startNanos` (from Metrics.start()); free when metrics are off
+    public void recordSince(long startNanos) {
+        if (Metrics.ENABLED) record(System.nanoTime() - startNanos);
+    }
+
+    public long count() {
+        return total.sum();
+    }
+
+    public long sumNanos() {
+        return sumNanos.sum();
+    }
+
+    public long maxNanos() {
+        return maxNanos.get();
+    }
+
+    // Value at or below which `q` (0..1) of the recordings fall, in nanoseconds.
+    // Taken from one pass over the buckets; concurrent records may be half-counted.
+    public long percentile(double q) {
+        return percentiles(q)[0];
+    }
+
+    public long[] percentiles(double... qs) {
+        int n = counts.length();
+        long[] snapshot = new long[n];
+        long all = 0;
+        for (int i = 0; i < n; i++) {
+            snapshot[i] = counts.get(i);
+            all += snapshot[i];
+        }
+        long[] out = new long[qs.length];
+        if (all == 0) return out;
+        for (int k = 0; k < qs.length; k++) {
+            long rank = Math.max(1, (long) Math.ceil(qs[k] * all));
+            long seen = 0;
+            for (int i = 0; i < n; i++) {
+                seen += snapshot[i];
+                if (seen >= rank) {
+                    // Bucket midpoint, but never past the largest value seen
+                    out[k] = Math.min((lowerBound(i) + upperBound(i)) / 2, maxNanos());
+                    break;
+                }
+            }
+        }
+        return out;
+    }
+}
@@ -0,0 +1,57 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsTileTheRangeWithinThreePercent() {
+        long expectedLower = 0;
+        for (int i = 0; i <= LatencyHistogram.index(LatencyHistogram.MAX_NANOS); i++) {
+            assertEquals("bucket " + i, expectedLower, LatencyHistogram.lowerBound(i));
+            long upper = LatencyHistogram.upperBound(i);
+            assertEquals(i, LatencyHistogram.index(LatencyHistogram.lowerBound(i)));
+            assertEquals(i, LatencyHistogram.index(upper));
+            assertTrue(upper - LatencyHistogram.lowerBound(i) <= LatencyHistogram.lowerBound(i) / 32);
+            expectedLower = upper + 1;
+        }
+    }
+
+    @Test
+    public void percentilesMatchSortedSamples() {
+        LatencyHistogram h = new LatencyHistogram();
+        Random rnd = new Random(7);
+        long[] samples = new long[100_000];
+        for (int i = 0; i < samples.length; i++) {
+            // Log-uniform between 1 microsecond and 100 milliseconds
+            samples[i] = (long) Math.pow(10, 3 + 5 * rnd.nextDouble());
+            h.record(samples[i]);
+        }
+        Arrays.sort(samples);
+        assertEquals(samples.length, h.count());
+        assertEquals(samples[samples.length - 1], h.maxNanos());
+        for (double q : new double[] {0.5, 0.9, 0.99, 0.999}) {
+            long exact = samples[(int) Math.ceil(q * samples.length) - 1];
+            long estimate = h.percentile(q);
+            assertTrue(q + ": " + estimate + " vs " + exact, Math.abs(estimate - exact) <= exact / 32 + 1);
+        }
+    }
+
+    @Test
+    public void prometheusOutputListsEveryOperation() {
+        Metrics.SEARCH.record(2_000_000);
+        String text = Metrics.prometheus();
+        assertTrue(text.contains("# TYPE store_operation_latency_seconds summary"));
+        assertTrue(text.contains("store_operation_latency_seconds{op=\"search\",quantile=\"0.99\"} "));
+        assertTrue(text.contains("store_operation_latency_seconds_count{op=\"report_daily_revenue\"} "));
+        assertTrue(text.contains("store_entities{kind=\"products\"} "));
+        for (String line : text.split("\n")) {
+            assertTrue(line, line.startsWith("#") || line.matches("[a-z_]+(\\{[^}]*\\})? \\S+"));
+        }
+    }
+}
@@ -0,0 +1,370 @@
+package store;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.function.IntPredicate;
+
+// Cursor pagination over products and sales, and a buffered text renderer for them.
+// A page holds up to `limit` rows after a cursor: the key of the last row of the
+// previous page (exclusive), or null for the first page. Seeking to the cursor is
+// one skip-list tailMap for products and one SalesTable lookup for sales, so the
+// thousandth page costs what the first does; offset paging walks every product
+// before the page. The page also returns the cursor for the next one, null once
+// nothing is left.
+// Filters are tested while walking in key order; sale filters compare the
+// SalesColumns symbols and times, so only matching sales become Sale objects.
+// A page stops after SCAN_BUDGET
+// rows even if it is not full and still returns a cursor, so a filter that matches
+// little cannot turn one request into a scan of the whole history.
+public final class Listings {
+    static final int SCAN_BUDGET = 1 << 17;
+
+    private Listings() {
+    }
+
+    public static final class Page<T> {
+        public final List<T> rows;
+        public final String next; // cursor for the following page; null when this was the last
+
+        Page(List<T> rows, String next) {
+            this.rows = rows;
+            this.next = next;
+        }
+    }
+
+    // Sales matching every field that is set; times are [from, to)
+    public static final class SaleFilter {
+        String productId;
+        String customerId;
+        String sellerId;
+        LocalDateTime from;
+        LocalDateTime to;
+
+        public SaleFilter product(String id) {
+            productId = blankToNull(id);
+            return this;
+        }
+
+        public SaleFilter customer(String id) {
+            customerId = blankToNull(id);
+            return this;
+        }
+
+        public SaleFilter seller(String id) {
+            sellerId = blankToNull(id);
+            return this;
+        }
+
+        public SaleFilter from(LocalDateTime t) {
+            from = t;
+            return this;
+        }
+
+        public SaleFilter to(LocalDateTime t) {
+            to = t;
+            return this;
+        }
+
+        private static String blankToNull(String s) {
+            return s == null || s.isEmpty() ? null : s;
+        }
+
+        public boolean matches(TransactionModule.Sale s) {
+            return (productId == null || productId.equals(s.productId))
+                    && (customerId == null || customerId.equals(s.customerId))
+                    && (sellerId == null || sellerId.equals(s.sellerId))
+                    && (from == null || !s.timestamp.isBefore(from))
+                    && (to == null || s.timestamp.isBefore(to));
+        }
+
+        // The same test on rows of `cols`, with the IDs looked up once
+        public IntPredicate rows(SalesColumns cols) {
+            int product = symbol(cols.productIds, productId);
+            int customer = symbol(cols.customerIds, customerId);
+            int seller = symbol(cols.sellerIds, sellerId);
+            if (product == NONE || customer == NONE || seller == NONE) return row -> false;
+            long fromMillis = from == null ? 0 : from.toInstant(ZoneOffset.UTC).toEpochMilli();
+            int fromNanos = from == null ? 0 : from.getNano() % 1_000_000;
+            long toMillis = to == null ? 0 : to.toInstant(ZoneOffset.UTC).toEpochMilli();
+            int toNanos = to == null ? 0 : to.getNano() % 1_000_000;
+            return row -> (product == ANY || cols.product(row) == product)
+                    && (customer == ANY || cols.customer(row) == customer)
+                    && (seller == ANY || cols.seller(row) == seller)
+                    && (from == null || !before(cols, row, fromMillis, fromNanos))
+                    && (to == null || before(cols, row, toMillis, toNanos));
+        }
+
+        private static final int ANY = -1;
+        private static final int NONE = -2; // an ID no sale has
+
+        private static int symbol(SymbolTable table, String id) {
+            if (id == null) return ANY;
+            int s = table.find(id);
+            return s < 0 ? NONE : s;
+        }
+
+        private static boolean before(SalesColumns cols, int row, long millis, int nanos) {
+            long m = cols.epochMillis(row);
+            return m < millis || m == millis && cols.nanoOfMilli(row) < nanos;
+        }
+
+        // "seller=S001 customer=C001 product=P100 from=2024-01-01 to=2024-02-01"; dates
+        // may carry a time (2024-01-01T09:30). Blank means no filter.
+        public static SaleFilter parse(String spec) {
+            SaleFilter f = new SaleFilter();
+            for (String term : spec.trim().split("\\s+")) {
+                if (term.isEmpty()) continue;
+                int eq = term.indexOf('=');
+                if (eq <= 0 || eq == term.length() - 1) throw new IllegalArgumentException("Expected key=value: " + term);
+                String value = term.substring(eq + 1);
+                switch (term.substring(0, eq)) {
+                    case "seller": f.seller(value); break;
+                    case "customer": f.customer(value); break;
+                    case "product": f.product(value); break;
+                    case "from": f.from(time(value)); break;
+                    case "to": f.to(time(value)); break;
+                    default: throw new IllegalArgumentException("Unknown filter: " + term);
+                }
+            }
+            return f;
+        }
+
+        static LocalDateTime time(String s) {
+            try {
+                return s.indexOf('T') >= 0 ? LocalDateTime.parse(s) : LocalDate.parse(s).atStartOfDay();
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Not a date: " + s);
+            }
+        }
+    }
+
+    // ===== Pages =====
+
+    // Products after `after` in ID order, optionally of one category (case-insensitive)
+    public static Page<TransactionModule.Product> products(String after, int limit, String category) {
+        ConcurrentNavigableMap<String, TransactionModule.Product> m = TransactionModule.StoreDB.products;
+        if (after != null) m = m.tailMap(after, false);
+        boolean any = category == null || category.isEmpty();
+        limit = Math.max(1, limit);
+        List<TransactionModule.Product> rows = new ArrayList<>(Math.min(limit, 256));
+        int scanned = 0;
+        String last = null;
+        for (TransactionModule.Product p : m.values()) {
+            if (rows.size() == limit || scanned++ == SCAN_BUDGET) return new Page<>(rows, last);
+            last = p.id;
+            if (any || category.equalsIgnoreCase(p.category)) rows.add(p);
+        }
+        return new Page<>(rows, null);
+    }
+
+    // Sales after `after` in recording order that match `filter`. An `after` that
+    // names no sale throws IllegalArgumentException.
+    public static Page<TransactionModule.Sale> sales(String after, int limit, SaleFilter filter) {
+        SalesTable table = TransactionModule.StoreDB.sales;
+        int row = 0;
+        if (after != null) {
+            row = table.rowOf(after) + 1;
+            if (row == 0) throw new IllegalArgumentException("No sale " + after);
+        }
+        IntPredicate matches = filter == null ? r -> true : filter.rows(table.columns());
+        int end = table.columns().size();
+        limit = Math.max(1, limit);
+        List<TransactionModule.Sale> rows = new ArrayList<>(Math.min(limit, 256));
+        int scanned = 0;
+        int last = -1;
+        for (; row < end; row++) {
+            if (!table.live(row)) continue;
+            if (rows.size() == limit || scanned++ == SCAN_BUDGET) return new Page<>(rows, table.saleId(last));
+            last = row;
+            if (matches.test(row)) rows.add(table.sale(row));
+        }
+        return new Page<>(rows, null);
+    }
+
+    // ===== Rendering =====
+
+    // "P100 | Basmati Rice 5kg | Grocery | Price: 549.00 | Stock: 20"
+    public static void product(Writer w, TransactionModule.Product p) {
+        w.text(p.id).text(" | ").text(p.name).text(" | ").text(p.category)
+                .text(" | Price: ").money(SalesColumns.toMinor(p.price)).text(" | Stock: ").number(p.stock).newLine();
+    }
+
+    // "T1 | Basmati Rice 5kg -> Neha Sharma | Seller: Rohan | Qty: 2 | Unit: 549.00 | Total: 1098.00 | 2024-01-01T09:30:00"
+    public static void sale(Writer w, TransactionModule.Sale s, Names names) {
+        long unit = SalesColumns.toMinor(s.unitPrice);
+        w.text(s.saleId).text(" | ").text(names.product(s.productId)).text(" -> ").text(names.customer(s.customerId))
+                .text(" | Seller: ").text(names.seller(s.sellerId)).text(" | Qty: ").number(s.quantity)
+                .text(" | Unit: ").money(unit).text(" | Total: ").money(unit * s.quantity)
+                .text(" | ").timestamp(s.timestamp).newLine();
+    }
+
+    // Display names resolved once per ID for the length of one listing, so a long
+    // listing does three hash probes per row rather than three skip-list searches.
+    // Unknown IDs display as themselves.
+    public static final class Names {
+        private final Map<String, String> products = new HashMap<>();
+        private final Map<String, String> customers = new HashMap<>();
+        private final Map<String, String> sellers = new HashMap<>();
+
+        String product(String id) {
+            if (id == null) return null;
+            return products.computeIfAbsent(id, k -> {
+                TransactionModule.Product p = TransactionModule.StoreDB.products.get(k);
+                return p != null ? p.name : k;
+            });
+        }
+
+        String customer(String id) {
+            if (id == null) return null;
+            return customers.computeIfAbsent(id, k -> {
+                TransactionModule.Customer c = TransactionModule.StoreDB.customers.get(k);
+                return c != null ? c.name : k;
+            });
+        }
+
+        String seller(String id) {
+            if (id == null) return null;
+            return sellers.computeIfAbsent(id, k -> {
+                TransactionModule.Seller s = TransactionModule.StoreDB.sellers.get(k);
+                return s != null ? s.name : k;
+            });
+        }
+    }
+
+    // Encodes text into a reusable byte buffer and hands it to the stream in large
+    // writes, so a listing makes one synchronized PrintStream call per buffer rather
+    // than per row, and formats numbers without String.format.
+    // I/O errors surface as UncheckedIOException; a PrintStream never throws them.
+    public static final class Writer {
+        private final OutputStream out;
+        private final byte[] buf;
+        private int pos;
+
+        public Writer(OutputStream out) {
+            this(out, 64 << 10);
+        }
+
+        public Writer(OutputStream out, int bufferSize) {
+            this.out = out;
+            this.buf = new byte[Math.max(64, bufferSize)];
+        }
+
+        public Writer text(String s) {
+            if (s == null) s = "null";
+            int n = s.length();
+            if (n > buf.length - pos) flush();
+            if (n > buf.length) return bytes(s.getBytes(StandardCharsets.UTF_8));
+            int at = pos;
+            for (int i = 0; i < n; i++) {
+                char c = s.charAt(i);
+                if (c >= 0x80) return bytes(s.getBytes(StandardCharsets.UTF_8)); // rare; re-encode whole
+                buf[at++] = (byte) c;
+            }
+            pos = at;
+            return this;
+        }
+
+        public Writer number(long v) {
+            room(20);
+            if (v < 0) {
+                buf[pos++] = '-';
+                if (v == Long.MIN_VALUE) return text("9223372036854775808");
+                v = -v;
+            }
+            int digits = 1;
+            for (long t = v; t >= 10; t /= 10) digits++;
+            for (int i = pos + digits - 1; i >= pos; i--) {
+                buf[i] = (byte) ('0' + v % 10);
+                v /= 10;
+            }
+            pos += digits;
+            return this;
+        }
+
+        // Two decimal places, from minor units
+        public Writer money(long minor) {
+            if (minor < 0) {
+                room(1);
+                buf[pos++] = '-';
+                minor = -minor;
+            }
+            number(minor / 100);
+            room(3);
+            buf[pos++] = '.';
+            buf[pos++] = (byte) ('0' + minor % 100 / 10);
+            buf[pos++] = (byte) ('0' + minor % 10);
+            return this;
+        }
+
+        // yyyy-MM-ddTHH:mm:ss; display only, so fractions of a second are dropped
+        public Writer timestamp(LocalDateTime t) {
+            room(19);
+            pad(t.getYear(), 4);
+            buf[pos++] = '-';
+            pad(t.getMonthValue(), 2);
+            buf[pos++] = '-';
+            pad(t.getDayOfMonth(), 2);
+            buf[pos++] = 'T';
+            pad(t.getHour(), 2);
+            buf[pos++] = ':';
+            pad(t.getMinute(), 2);
+            buf[pos++] = ':';
+            pad(t.getSecond(), 2);
+            return this;
+        }
+
+        public Writer newLine() {
+            room(1);
+            buf[pos++] = '\n';
+            return this;
+        }
+
+        public void flush() {
+            try {
+                if (pos > 0) out.write(buf, 0, pos);
+                pos = 0;
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private Writer bytes(byte[] b) {
+            if (b.length > buf.length - pos) flush();
+            if (b.length > buf.length) {
+                try {
+                    out.write(b);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return this;
+            }
+            System.arraycopy(b, 0, buf, pos, b.length);
+            pos += b.length;
+            return this;
+        }
+
+        private void room(int n) {
+            if (buf.length - pos < n) flush();
+        }
+
+        private void pad(int v, int width) {
+            for (int i = pos + width - 1; i >= pos; i--) {
+                buf[i] = (byte) ('0' + v % 10);
+                v /= 10;
+            }
+            pos += width;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+public class ListingsTest {
+    private static final LocalDateTime START = LocalDateTime.of(2024, 3, 1, 9, 0);
+
+    // n sales of a fresh product, one per hour, customers alternating between two
+    private static String importSales(int n) {
+        String tag = "LS" + System.nanoTime();
+        List<TransactionModule.Sale> batch = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            batch.add(new TransactionModule.Sale(tag + "-" + (100000 + i), tag, tag + (i % 2 == 0 ? "-A" : "-B"),
+                    "S001", 1 + i % 3, 2.5, START.plusHours(i)));
+        }
+        TransactionModule.StoreDB.importSales(batch);
+        return tag;
+    }
+
+    @Test
+    public void salePagesResumeAfterTheCursor() {
+        String pid = importSales(250);
+        Listings.SaleFilter onlyThese = new Listings.SaleFilter().product(pid);
+        Set<String> seen = new HashSet<>();
+        String cursor = null;
+        String previous = null;
+        int pages = 0;
+        do {
+            Listings.Page<TransactionModule.Sale> page = Listings.sales(cursor, 40, onlyThese);
+            for (TransactionModule.Sale s : page.rows) {
+                assertTrue("duplicate " + s.saleId, seen.add(s.saleId));
+                if (previous != null) {
+                    assertTrue(TransactionModule.StoreDB.sales.rowOf(previous) < TransactionModule.StoreDB.sales.rowOf(s.saleId));
+                }
+                previous = s.saleId;
+            }
+            cursor = page.next;
+            pages++;
+        } while (cursor != null);
+        assertEquals(250, seen.size());
+        assertTrue(pages >= 7);
+    }
+
+    @Test
+    public void saleFiltersCombine() {
+        String pid = importSales(48);
+        Listings.SaleFilter f = Listings.SaleFilter.parse("product=" + pid + " customer=" + pid + "-A"
+                + " from=2024-03-01T12:00 to=2024-03-02");
+        int n = 0;
+        String cursor = null;
+        do {
+            Listings.Page<TransactionModule.Sale> page = Listings.sales(cursor, 1000, f);
+            for (TransactionModule.Sale s : page.rows) {
+                assertEquals(pid + "-A", s.customerId);
+                assertTrue(s.timestamp.getHour() >= 12 && s.timestamp.getDayOfMonth() == 1);
+            }
+            n += page.rows.size();
+            cursor = page.next;
+        } while (cursor != null);
+        assertEquals(6, n); // hours 12, 14, ..., 22 on March 1st
+    }
+
+    @Test
+    public void badFiltersAreRejected() {
+        for (String spec : new String[]{"seller", "colour=red", "from=yesterday"}) {
+            try {
+                Listings.SaleFilter.parse(spec);
+                fail(spec);
+            } catch (IllegalArgumentException expected) {
+                // ok
+            }
+        }
+        assertTrue(Listings.SaleFilter.parse("  ").matches(new TransactionModule.Sale(
+                "T1", "P", "C", "S", 1, 1.0, START)));
+    }
+
+    @Test
+    public void productPagesFilterByCategory() {
+        String category = "Listing-" + System.nanoTime();
+        for (int i = 0; i < 7; i++) {
+            TransactionModule.StoreDB.addProduct(new TransactionModule.Product(
+                    category + "-" + i, "Item " + i, category, 10 + i, i));
+        }
+        List<String> ids = new ArrayList<>();
+        String cursor = null;
+        do {
+            Listings.Page<TransactionModule.Product> page = Listings.products(cursor, 3, category.toLowerCase());
+            assertTrue(page.rows.size() <= 3);
+            for (TransactionModule.Product p : page.rows) ids.add(p.id);
+            cursor = page.next;
+        } while (cursor != null);
+        assertEquals(7, ids.size());
+        assertEquals(category + "-0", ids.get(0));
+        assertEquals(category + "-6", ids.get(6));
+    }
+
+    @Test
+    public void writerMatchesTheFormattedOutput() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        Listings.Writer w = new Listings.Writer(bytes, 64); // small, to force flushes mid-row
+        TransactionModule.Product p = new TransactionModule.Product("P9", "Chai Masala \u20b9 Special", "Grocery", 1234.5, 17);
+        TransactionModule.Sale s = new TransactionModule.Sale("T77", "NO-SUCH-PRODUCT", "NO-SUCH-CUSTOMER", "NO-SUCH-SELLER",
+                3, 0.07, LocalDateTime.of(2024, 1, 2, 3, 4, 5, 678_000_000));
+        String longName = "x".repeat(200);
+        Listings.product(w, p);
+        Listings.sale(w, s, new Listings.Names());
+        w.text(longName).number(-42).money(-5).newLine();
+        w.flush();
+        String expected = String.format("%s | %s | %s | Price: %.2f | Stock: %d%n", p.id, p.name, p.category, p.price, p.stock)
+                .replace(System.lineSeparator(), "\n")
+                + "T77 | NO-SUCH-PRODUCT -> NO-SUCH-CUSTOMER | Seller: NO-SUCH-SELLER | Qty: 3 | Unit: 0.07 | Total: 0.21"
+                + " | 2024-01-02T03:04:05\n"
+                + longName + "-42-0.05\n";
+        assertEquals(expected, new String(bytes.toByteArray(), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void exportStreamsOnlyMatchingSales() throws Exception {
+        String pid = importSales(30);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        BulkIO.Stats stats = BulkIO.exportSales(new Listings.SaleFilter().product(pid).customer(pid + "-B"),
+                Channels.newChannel(bytes));
+        String[] lines = new String(bytes.toByteArray(), StandardCharsets.UTF_8).split("\n");
+        assertEquals(15, stats.rows);
+        assertEquals(16, lines.length);
+        assertEquals(BulkIO.Kind.SALES.header, lines[0]);
+        assertEquals(bytes.size(), stats.bytes);
+        assertTrue(lines[1].startsWith(pid + "-100001," + pid + "," + pid + "-B,S001,"));
+        assertTrue(Listings.sales(null, 10, new Listings.SaleFilter().product("NO-SUCH-" + pid)).rows.isEmpty());
+    }
+}
@@ -0,0 +1,39 @@
+package store;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// Password logins vs. session-token validations. A login pays one PBKDF2 hash
+// (-Dstore.auth.iterations), so it tops out near cores / hash time; validation
+// is a hash-map lookup and should be several orders of magnitude faster.
+// Usage: java store.LoginBenchmark [threads] [loginsPerThread] [validationsPerThread]
+public class LoginBenchmark {
+    public static void main(String[] args) throws Exception {
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        int logins = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        int validations = args.length > 2 ? Integer.parseInt(args[2]) : 2_000_000;
+
+        TransactionModule.StoreDB.seedDemoData();
+        LoginModule.startSession("rohan", "seller123"); // warm up the KDF and the dummy hash
+        LoginModule.login("nobody", "x");
+
+        AtomicLong failed = new AtomicLong();
+        double loginSecs = CheckoutBenchmark.run(threads, t -> {
+            for (int i = 0; i < logins; i++) {
+                if (LoginModule.startSession("rohan", "seller123") == null) failed.incrementAndGet();
+            }
+        });
+        System.out.printf("%d threads, %,d iterations per hash%n", threads, PasswordHasher.ITERATIONS);
+        System.out.printf("logins:      %,.1f /sec (%.1f ms each)%n",
+                threads * logins / loginSecs, loginSecs * 1000 / logins);
+
+        String[] tokens = new String[1024];
+        for (int i = 0; i < tokens.length; i++) tokens[i] = LoginModule.sessions.issue("rohan", "seller").token;
+        double validateSecs = CheckoutBenchmark.run(threads, t -> {
+            for (int i = 0; i < validations; i++) {
+                if (!LoginModule.authenticate(tokens[(i + t) & (tokens.length - 1)]).success) failed.incrementAndGet();
+            }
+        });
+        System.out.printf("validations: %,.0f /sec%n", (double) threads * validations / validateSecs);
+        if (failed.get() > 0) System.out.println(failed.get() + " unexpected failures");
+    }
+}
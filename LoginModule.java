@@ -0,0 +1,89 @@
+package store;
+
+import java.util.Scanner;
+
+public class LoginModule {
+    // Simple role-based login against users stored in TransactionModule.StoreDB
+    public static class AuthResult {
+        public final boolean success;
+        public final String username;
+        public final String role;
+
+        public AuthResult(boolean success, String username, String role) {
+            this.success = success;
+            this.username = username;
+            this.role = role;
+        }
+    }
+
+    // Issued by login(); -Dstore.auth.maxSessions and -Dstore.auth.sessionTtlMinutes
+    public static final SessionCache sessions = new SessionCache(
+            Integer.getInteger("store.auth.maxSessions", 100_000),
+            Long.getLong("store.auth.sessionTtlMinutes", 480) * 60_000);
+
+    public static AuthResult loginPrompt(Scanner sc) {
+        System.out.println("=== Login ===");
+        System.out.print("Username: ");
+        String user = sc.nextLine().trim();
+        System.out.print("Password: ");
+        String pass = sc.nextLine();
+
+        AuthResult auth = login(user, pass);
+        if (auth.success) {
+            System.out.println("Login successful. Role: " + auth.role);
+            return auth;
+        }
+        System.out.println("Invalid credentials.");
+        return auth;
+    }
+
+    // Optional: programmatic login (useful for tests).
+    // Costs one PBKDF2 hash whether or not the user exists.
+    public static AuthResult login(String username, String password) {
+        TransactionModule.User u = TransactionModule.StoreDB.users.get(username);
+        if (u == null) {
+            PasswordHasher.verifyDummy(password);
+            return new AuthResult(false, null, null);
+        }
+        if (!PasswordHasher.verify(password, u.passwordHash)) return new AuthResult(false, null, null);
+        if (PasswordHasher.needsRehash(u.passwordHash)) {
+            // Iterations were raised since this hash was made; upgrade while we have the password
+            TransactionModule.StoreDB.users.replace(username, u,
+                    TransactionModule.User.withPassword(username, password, u.role));
+        }
+        return new AuthResult(true, u.username, u.role);
+    }
+
+    // Password login that also issues a session token; null on bad credentials
+    public static SessionCache.Session startSession(String username, String password) {
+        AuthResult auth = login(username, password);
+        return auth.success ? sessions.issue(auth.username, auth.role) : null;
+    }
+
+    // O(1) check of a token from startSession(); fails for unknown or expired tokens
+    public static AuthResult authenticate(String token) {
+        SessionCache.Session s = sessions.validate(token);
+        return s == null ? new AuthResult(false, null, null) : new AuthResult(true, s.username, s.role);
+    }
+
+    public static boolean logout(String token) {
+        return sessions.revoke(token);
+    }
+
+    // Example main to demo login flow then jump to dashboard
+    public static void main(String[] args) {
+        // Seed demo data
+        TransactionModule.StoreDB.seedDemoData();
+        TransactionModule.StoreDB.openPersistenceFromConfig();
+        TransactionModule.StoreDB.openJournalFromConfig();
+        Metrics.startFromConfig();
+        TransactionModule.enableLowStockWarnings(5);
+
+        Scanner sc = new Scanner(System.in);
+        AuthResult auth = loginPrompt(sc);
+        if (auth.success) {
+            TransactionModule.dashboard(sc, auth.username, auth.role);
+        }
+        sc.close();
+    }
+}
@@ -0,0 +1,53 @@
+package store;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Growable array of atomic long counters indexed by dense int IDs
+// (e.g. SalesColumns dictionary IDs). Grows in chunks; existing chunks never move.
+public class LongCounters {
+    private static final int CHUNK_BITS = 12;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int MASK = CHUNK - 1;
+
+    private volatile AtomicLongArray[] chunks = new AtomicLongArray[0];
+
+    public long add(int id, long delta) {
+        return chunk(id >>> CHUNK_BITS).addAndGet(id & MASK, delta);
+    }
+
+    public long get(int id) {
+        AtomicLongArray[] cs = chunks;
+        int c = id >>> CHUNK_BITS;
+        return c < cs.length ? cs[c].get(id & MASK) : 0;
+    }
+
+    // Copy of counters [0, n)
+    public long[] toArray(int n) {
+        long[] out = new long[n];
+        for (int id = 0; id < n; id++) out[id] = get(id);
+        return out;
+    }
+
+    public void clear() {
+        for (AtomicLongArray c : chunks) {
+            for (int i = 0; i < CHUNK; i++) c.set(i, 0);
+        }
+    }
+
+    private AtomicLongArray chunk(int c) {
+        AtomicLongArray[] cs = chunks;
+        return c < cs.length ? cs[c] : grow(c);
+    }
+
+    private synchronized AtomicLongArray grow(int c) {
+        AtomicLongArray[] cs = chunks;
+        if (c >= cs.length) {
+            int old = cs.length;
+            cs = Arrays.copyOf(cs, c + 1);
+            for (int i = old; i <= c; i++) cs[i] = new AtomicLongArray(CHUNK);
+            chunks = cs;
+        }
+        return cs[c];
+    }
+}
@@ -0,0 +1,217 @@
+package store;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+// Operation latencies and counters, served in Prometheus text format.
+// Off unless -Dstore.metrics=true or -Dstore.metrics.port=<port> is given.
+// ENABLED is a static final constant, so with metrics off the JIT folds every
+// start()/recordSince() call site away and nothing is timed or counted.
+// Latencies are cumulative since startup; rates come from Prometheus' rate().
+public final class Metrics {
+    public static final int PORT = Integer.getInteger("store.metrics.port", 0);
+    public static final boolean ENABLED = PORT > 0 || Boolean.getBoolean("store.metrics");
+
+    private static final Map<String, LatencyHistogram> operations = new ConcurrentSkipListMap<>();
+
+    // ===== Store operations =====
+    public static final LatencyHistogram SALE = operation("sale");
+    public static final LatencyHistogram CHECKOUT = operation("checkout");
+    public static final LatencyHistogram SELL_BATCH = operation("sell_batch");
+    public static final LatencyHistogram SEARCH = operation("search");
+    public static final LatencyHistogram SUGGEST = operation("suggest");
+    public static final LatencyHistogram LIST_PRODUCTS = operation("list_products");
+    public static final LatencyHistogram VIEW_SALES = operation("view_sales");
+    public static final LatencyHistogram HTTP_REQUEST = operation("http_request");
+    public static final LatencyHistogram DB_WRITE = operation("db_write");
+
+    // ===== Reports (build and print) =====
+    public static final LatencyHistogram REPORT_DAILY_REVENUE = operation("report_daily_revenue");
+    public static final LatencyHistogram REPORT_TOP_PRODUCTS = operation("report_top_products");
+    public static final LatencyHistogram REPORT_SALES_BY_SELLER = operation("report_sales_by_seller");
+    public static final LatencyHistogram REPORT_LOW_INVENTORY = operation("report_low_inventory");
+    public static final LatencyHistogram REPORT_TOP_RECENT = operation("report_top_recent");
+    public static final LatencyHistogram REPORT_LIVE_REVENUE = operation("report_live_revenue");
+    public static final LatencyHistogram REPORT_TOP_CUSTOMERS = operation("report_top_customers");
+    public static final LatencyHistogram CUSTOMER_HISTORY = operation("customer_history");
+    public static final LatencyHistogram REPORT_REBUILD = operation("report_rebuild");
+    public static final LatencyHistogram REPORT_CHECK = operation("report_check");
+
+    // Time spent waiting for per-product stock locks
+    public static final LatencyHistogram LOCK_WAIT = new LatencyHistogram();
+
+    // Sale lines committed by live traffic (not replay or import)
+    public static final LongAdder SALES = new LongAdder();
+    public static final LongAdder UNITS = new LongAdder();
+    public static final LongAdder FAILED_SALES = new LongAdder();
+
+    private static HttpServer server;
+
+    private Metrics() {
+    }
+
+    private static LatencyHistogram operation(String name) {
+        LatencyHistogram h = new LatencyHistogram();
+        operations.put(name, h);
+        return h;
+    }
+
+    // Timestamp to pass to LatencyHistogram.recordSince; 0 when metrics are off
+    public static long start() {
+        return ENABLED ? System.nanoTime() : 0L;
+    }
+
+    // Run `action`, recording its latency into `h`
+    public static void time(LatencyHistogram h, Runnable action) {
+        if (!ENABLED) {
+            action.run();
+            return;
+        }
+        long t0 = System.nanoTime();
+        try {
+            action.run();
+        } finally {
+            h.record(System.nanoTime() - t0);
+        }
+    }
+
+    public static void countSales(int lines, long units) {
+        if (!ENABLED) return;
+        SALES.add(lines);
+        UNITS.add(units);
+    }
+
+    public static void countFailedSale() {
+        if (ENABLED) FAILED_SALES.increment();
+    }
+
+    // ===== Exposition =====
+
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    public static String prometheus() {
+        StringBuilder sb = new StringBuilder(8192);
+        sb.append("# HELP store_operation_latency_seconds Latency of store operations since startup\n");
+        sb.append("# TYPE store_operation_latency_seconds summary\n");
+        for (Map.Entry<String, LatencyHistogram> e : operations.entrySet()) {
+            summary(sb, "store_operation_latency_seconds", "op=\"" + e.getKey() + "\"", e.getValue());
+        }
+        sb.append("# HELP store_stock_lock_wait_seconds Time spent acquiring product stock locks\n");
+        sb.append("# TYPE store_stock_lock_wait_seconds summary\n");
+        summary(sb, "store_stock_lock_wait_seconds", null, LOCK_WAIT);
+
+        counter(sb, "store_sales_total", "Sale lines committed", SALES.sum());
+        counter(sb, "store_units_sold_total", "Units sold", UNITS.sum());
+        counter(sb, "store_failed_sales_total", "Sales rejected for stock or unknown product", FAILED_SALES.sum());
+
+        sb.append("# HELP store_entities Rows held by StoreDB\n");
+        sb.append("# TYPE store_entities gauge\n");
+        // Skip-list size() walks the map; fine at scrape intervals
+        gauge(sb, "store_entities", "kind=\"products\"", TransactionModule.StoreDB.products.size());
+        gauge(sb, "store_entities", "kind=\"customers\"", TransactionModule.StoreDB.customers.size());
+        gauge(sb, "store_entities", "kind=\"sellers\"", TransactionModule.StoreDB.sellers.size());
+        gauge(sb, "store_entities", "kind=\"sales\"", TransactionModule.StoreDB.salesColumns.size());
+        SalesJournal j = TransactionModule.StoreDB.journal;
+        if (j != null) {
+            sb.append("# TYPE store_journal_bytes gauge\n");
+            gauge(sb, "store_journal_bytes", null, j.position());
+        }
+        WriteBehindStore w = TransactionModule.StoreDB.persistence;
+        if (w != null) {
+            sb.append("# TYPE store_db_queued_sales gauge\n");
+            gauge(sb, "store_db_queued_sales", null, w.queued());
+            counter(sb, "store_db_write_failures_total", "Failed write-behind flushes", w.failures());
+        }
+        AlertPipeline alerts = AlertPipeline.sharedIfStarted();
+        if (alerts != null) {
+            counter(sb, "store_alerts_delivered_total", "Alerts handed to sinks", alerts.delivered());
+            counter(sb, "store_alerts_coalesced_total", "Duplicate alerts folded into a repeat count", alerts.coalesced());
+            counter(sb, "store_alerts_dropped_total", "Alerts dropped on a full queue", alerts.dropped());
+            counter(sb, "store_alerts_sampled_out_total", "Alerts skipped by sampling under load", alerts.sampledOut());
+        }
+        return sb.toString();
+    }
+
+    private static void summary(StringBuilder sb, String name, String labels, LatencyHistogram h) {
+        String prefix = labels == null ? "{" : "{" + labels + ",";
+        long[] q = h.percentiles(QUANTILES);
+        for (int i = 0; i < QUANTILES.length; i++) {
+            sb.append(name).append(prefix).append("quantile=\"").append(QUANTILES[i]).append("\"} ")
+                    .append(q[i] / 1e9).append('\n');
+        }
+        String plain = labels == null ? "" : "{" + labels + "}";
+        sb.append(name).append("_sum").append(plain).append(' ').append(h.sumNanos() / 1e9).append('\n');
+        sb.append(name).append("_count").append(plain).append(' ').append(h.count()).append('\n');
+    }
+
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(" counter\n");
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void gauge(StringBuilder sb, String name, String labels, long value) {
+        sb.append(name);
+        if (labels != null) sb.append('{').append(labels).append('}');
+        sb.append(' ').append(value).append('\n');
+    }
+
+    // ===== HTTP endpoint =====
+
+    // Serve GET /metrics on `port` (loopback only) from a single daemon thread
+    public static synchronized void startServer(int port) throws IOException {
+        if (server != null) return;
+        HttpServer s = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        s.createContext("/metrics", Metrics::serve);
+        s.setExecutor(null);
+        // The dispatcher thread inherits daemon status from the thread that starts it;
+        // start from a daemon so the endpoint never keeps the JVM alive after logout
+        Thread starter = new Thread(s::start, "store-metrics-start");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        server = s;
+    }
+
+    public static synchronized void stopServer() {
+        if (server == null) return;
+        server.stop(0);
+        server = null;
+    }
+
+    static void serve(HttpExchange exchange) throws IOException {
+        try {
+            byte[] body = prometheus().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // Startup hook next to openJournalFromConfig: -Dstore.metrics.port=<port>
+    public static void startFromConfig() {
+        if (PORT <= 0) return;
+        try {
+            startServer(PORT);
+            System.out.println("Metrics: http://127.0.0.1:" + PORT + "/metrics");
+        } catch (IOException e) {
+            System.out.println("Could not start metrics endpoint on port " + PORT + ": " + e.getMessage());
+        }
+    }
+}
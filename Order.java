@@ -1,9 +1,49 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
 // Order class
+// A store's replenishment order: one line per item with the quantity wanted,
+// and after allocation the warehouses and quantities reserved for each line.
+// OPEN -> ALLOCATED | PARTIAL | BACKORDERED -> SHIPPED | CANCELLED
 class Order {
+    enum Status { OPEN, ALLOCATED, PARTIAL, BACKORDERED, SHIPPED, CANCELLED }
+
+    static final class Allocation {
+        final Warehouse warehouse;
+        final int quantity;
+
+        Allocation(Warehouse warehouse, int quantity) {
+            this.warehouse = warehouse;
+            this.quantity = quantity;
+        }
+    }
+
+    static final class Line {
+        final Item item;
+        int quantity;
+        final List<Allocation> allocations = new ArrayList<>(2);
+
+        Line(Item item, int quantity) {
+            this.item = item;
+            this.quantity = quantity;
+        }
+
+        int allocated() {
+            int n = 0;
+            for (Allocation a : allocations) n += a.quantity;
+            return n;
+        }
+    }
+
     private String orderId;
-    private Warehouse warehouse;
+    private Warehouse warehouse; // preferred source; null when any warehouse may fill it
     private Store store;
-    private List<Item> items;
+    private final Map<String, Line> lines = new LinkedHashMap<>();
+    private Status status = Status.OPEN;
     private Date orderDate;
     private Date expectedArrivalDate;
 
@@ -11,23 +51,107 @@ class Order {
         this.orderId = orderId;
         this.warehouse = warehouse;
         this.store = store;
-        this.items = new ArrayList<>();
         this.orderDate = new Date();
     }
 
-    // Add item to order
-    public void addItem(Item item, int quantity) {
-        System.out.println("Added item " + item.getItemName() + " to order.");
-        items.add(item);
+    public Order(String orderId, Store store) {
+        this(orderId, null, store);
+    }
+
+    // Add item to order; adding the same item again raises its quantity
+    public synchronized void addItem(Item item, int quantity) {
+        if (quantity <= 0) throw new IllegalArgumentException("Quantity must be positive.");
+        if (status != Status.OPEN) throw new IllegalStateException("Order " + orderId + " is " + status);
+        Line line = lines.get(item.getItemCode());
+        if (line == null) lines.put(item.getItemCode(), new Line(item, quantity));
+        else line.quantity += quantity;
+    }
+
+    // Called by OrderAllocator with the reservations it made
+    synchronized void allocated(Status result) {
+        status = result;
+    }
+
+    // Reserved units leave their warehouses
+    public synchronized void ship() {
+        if (status != Status.ALLOCATED && status != Status.PARTIAL) {
+            throw new IllegalStateException("Order " + orderId + " is " + status);
+        }
+        for (Line line : lines.values()) {
+            for (Allocation a : line.allocations) a.warehouse.ship(line.item.getItemCode(), a.quantity);
+        }
+        status = Status.SHIPPED;
+    }
+
+    // Return any reserved units to their warehouses
+    public synchronized void cancel() {
+        if (status == Status.SHIPPED) throw new IllegalStateException("Order " + orderId + " already shipped");
+        releaseAll();
+        status = Status.CANCELLED;
+    }
+
+    synchronized void releaseAll() {
+        for (Line line : lines.values()) {
+            for (Allocation a : line.allocations) a.warehouse.release(line.item.getItemCode(), a.quantity);
+            line.allocations.clear();
+        }
     }
 
     // Method to check and trigger reorder alert
+    // Uses each item's own usage and lead times; ReorderPlanner does this in bulk
     public void triggerReorderAlert() {
+        triggerReorderAlert(new AlertSystem());
+    }
+
+    public void triggerReorderAlert(AlertSystem alerts) {
+        if (warehouse == null) return;
         for (Item item : warehouse.getItems()) {
-            double reorderPoint = warehouse.calculateReorderPoint(10, 20, 30);  // Example values
-            if (item.calculateEOQ() <= reorderPoint) {
-                System.out.println("Reorder alert: " + item.getItemName() + " needs to be ordered!");
+            if (warehouse.available(item.getItemCode()) <= item.calculateReorderPoint()) {
+                alerts.displayReorderAlert(item);
             }
         }
     }
+
+    // Getters
+    public String getOrderId() {
+        return orderId;
+    }
+
+    public Store getStore() {
+        return store;
+    }
+
+    public Warehouse getWarehouse() {
+        return warehouse;
+    }
+
+    public synchronized Status getStatus() {
+        return status;
+    }
+
+    synchronized List<Line> lines() {
+        return Collections.unmodifiableList(new ArrayList<>(lines.values()));
+    }
+
+    public synchronized int quantity(String itemCode) {
+        Line line = lines.get(itemCode);
+        return line == null ? 0 : line.quantity;
+    }
+
+    public synchronized int allocated(String itemCode) {
+        Line line = lines.get(itemCode);
+        return line == null ? 0 : line.allocated();
+    }
+
+    public Date getOrderDate() {
+        return orderDate;
+    }
+
+    public Date getExpectedArrivalDate() {
+        return expectedArrivalDate;
+    }
+
+    public void setExpectedArrivalDate(Date expectedArrivalDate) {
+        this.expectedArrivalDate = expectedArrivalDate;
+    }
 }
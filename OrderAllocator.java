@@ -0,0 +1,105 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Fills store orders from a set of warehouses.
+// For each line it walks the warehouses in policy order and reserves as much as
+// each one has until the line is covered, so one line may be split across
+// warehouses. Reservations are lock-free CAS decrements on the warehouse's
+// per-item counter (see Warehouse.reserve), so parallel orders for the same item
+// never oversell and orders for different items never contend.
+// An order that cannot be filled completely is either kept as PARTIAL or rolled
+// back to BACKORDERED. Rolled-back units are briefly unavailable to other orders.
+class OrderAllocator {
+    enum Policy { NEAREST, MOST_STOCKED }
+
+    private final Warehouse[] warehouses;
+    private final Policy policy;
+    private final Map<Store, Warehouse[]> nearestByStore = new ConcurrentHashMap<>();
+
+    public OrderAllocator(List<Warehouse> warehouses) {
+        this(warehouses, Policy.NEAREST);
+    }
+
+    public OrderAllocator(List<Warehouse> warehouses, Policy policy) {
+        this.warehouses = warehouses.toArray(new Warehouse[0]);
+        this.policy = policy;
+    }
+
+    public Order.Status allocate(Order order) {
+        return allocate(order, false);
+    }
+
+    // Reserve stock for every line of an OPEN order and return its new status
+    public Order.Status allocate(Order order, boolean allowPartial) {
+        synchronized (order) {
+            if (order.getStatus() != Order.Status.OPEN) {
+                throw new IllegalStateException("Order " + order.getOrderId() + " is " + order.getStatus());
+            }
+            boolean complete = true;
+            boolean any = false;
+            Warehouse preferred = order.getWarehouse();
+            for (Order.Line line : order.lines()) {
+                int need = line.quantity;
+                if (preferred != null) need -= take(line, preferred, need);
+                if (need > 0 && policy == Policy.MOST_STOCKED) {
+                    need = fillMostStocked(line, preferred, need);
+                } else if (need > 0) {
+                    for (Warehouse w : nearest(order.getStore())) {
+                        if (w != preferred) need -= take(line, w, need);
+                        if (need == 0) break;
+                    }
+                }
+                if (line.allocated() > 0) any = true;
+                if (need > 0) complete = false;
+            }
+            Order.Status result;
+            if (complete) {
+                result = Order.Status.ALLOCATED;
+            } else if (allowPartial && any) {
+                result = Order.Status.PARTIAL;
+            } else {
+                order.releaseAll();
+                result = Order.Status.BACKORDERED;
+            }
+            order.allocated(result);
+            return result;
+        }
+    }
+
+    private static int take(Order.Line line, Warehouse w, int need) {
+        int got = w.reserve(line.item.getItemCode(), need);
+        if (got > 0) line.allocations.add(new Order.Allocation(w, got));
+        return got;
+    }
+
+    // Warehouses by distance from `store`, computed on the store's first order
+    private Warehouse[] nearest(Store store) {
+        if (store == null) return warehouses;
+        return nearestByStore.computeIfAbsent(store, s -> {
+            Warehouse[] byDistance = warehouses.clone();
+            Arrays.sort(byDistance, Comparator.comparingDouble((Warehouse w) -> w.distanceTo(s.getX(), s.getY())));
+            return byDistance;
+        });
+    }
+
+    // Take from the warehouse with the most available, then the next, until covered.
+    // Counts are read once; a full sort is wasted work since one warehouse usually suffices.
+    private int fillMostStocked(Order.Line line, Warehouse skip, int need) {
+        String code = line.item.getItemCode();
+        int[] avail = new int[warehouses.length];
+        for (int i = 0; i < avail.length; i++) avail[i] = warehouses[i] == skip ? 0 : warehouses[i].available(code);
+        while (need > 0) {
+            int best = -1;
+            for (int i = 0; i < avail.length; i++) {
+                if (avail[i] > 0 && (best < 0 || avail[i] > avail[best])) best = i;
+            }
+            if (best < 0) break;
+            avail[best] = 0;
+            need -= take(line, warehouses[best], need);
+        }
+        return need;
+    }
+}
@@ -0,0 +1,88 @@
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class OrderAllocatorTest {
+    private static final Item RICE = new Item("Rice", "G001", 5000, 100, 2);
+    private static final Item TEA = new Item("Tea", "G002", 800, 100, 4);
+
+    @Test
+    public void linesSplitAcrossNearestWarehousesFirst() {
+        Warehouse near = new Warehouse("WH1", "Near", 1, 0);
+        Warehouse far = new Warehouse("WH2", "Far", 50, 0);
+        near.addItem(RICE, 30);
+        far.addItem(RICE, 100);
+        far.addItem(TEA, 10);
+        OrderAllocator allocator = new OrderAllocator(List.of(far, near));
+
+        Order order = new Order("O1", new Store("ST1", "City", 0, 0));
+        order.addItem(RICE, 20);
+        order.addItem(RICE, 20);
+        order.addItem(TEA, 5);
+        assertEquals(Order.Status.ALLOCATED, allocator.allocate(order));
+        assertEquals(40, order.quantity("G001"));
+        assertEquals(0, near.available("G001"));
+        assertEquals(90, far.available("G001"));
+        assertEquals(10, far.reserved("G001"));
+
+        order.ship();
+        assertEquals(0, far.reserved("G001"));
+        assertEquals(90, far.available("G001"));
+    }
+
+    @Test
+    public void shortOrdersBackorderOrStayPartial() {
+        Warehouse w = new Warehouse("WH1", "Main");
+        w.addItem(RICE, 5);
+        w.addItem(TEA, 50);
+        OrderAllocator allocator = new OrderAllocator(List.of(w), OrderAllocator.Policy.MOST_STOCKED);
+
+        Order all = new Order("O1", new Store("ST1", "City"));
+        all.addItem(TEA, 10);
+        all.addItem(RICE, 10);
+        assertEquals(Order.Status.BACKORDERED, allocator.allocate(all));
+        assertEquals(50, w.available("G002"));
+        assertEquals(5, w.available("G001"));
+
+        Order some = new Order("O2", new Store("ST1", "City"));
+        some.addItem(TEA, 10);
+        some.addItem(RICE, 10);
+        assertEquals(Order.Status.PARTIAL, allocator.allocate(some, true));
+        assertEquals(5, some.allocated("G001"));
+        some.cancel();
+        assertEquals(5, w.available("G001"));
+        assertEquals(0, w.reserved("G002"));
+    }
+
+    @Test
+    public void parallelOrdersNeverOversell() throws Exception {
+        List<Warehouse> warehouses = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            Warehouse w = new Warehouse("WH" + i, "Warehouse " + i, i * 10, 0);
+            w.addItem(RICE, 1000);
+            warehouses.add(w);
+        }
+        OrderAllocator allocator = new OrderAllocator(warehouses);
+        AtomicInteger filled = new AtomicInteger();
+        Thread[] stores = new Thread[8];
+        for (int t = 0; t < stores.length; t++) {
+            Store store = new Store("ST" + t, "Store " + t, t * 7, 3);
+            stores[t] = new Thread(() -> {
+                for (int i = 0; i < 500; i++) {
+                    Order o = new Order(store.getStoreId() + "-" + i, store);
+                    o.addItem(RICE, 3);
+                    if (allocator.allocate(o) == Order.Status.ALLOCATED) filled.addAndGet(3);
+                }
+            });
+            stores[t].start();
+        }
+        for (Thread t : stores) t.join();
+        int left = 0;
+        for (Warehouse w : warehouses) left += w.available("G001");
+        assertEquals(8000, filled.get() + left);
+        assertEquals(7998, filled.get());
+    }
+}
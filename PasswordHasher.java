@@ -0,0 +1,92 @@
+package store;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Base64;
+
+// Salted PBKDF2-HMAC-SHA256 password hashes, stored as
+//   pbkdf2-sha256$<iterations>$<base64 salt>$<base64 hash>
+// Iterations default to 600,000 (OWASP's 2023 figure for this PRF), tunable with
+// -Dstore.auth.iterations. A hash is deliberately slow (a few hundred ms per core),
+// so callers verify once per login and use SessionCache tokens after that.
+public final class PasswordHasher {
+    public static final int ITERATIONS = Integer.getInteger("store.auth.iterations", 600_000);
+
+    private static final String PREFIX = "pbkdf2-sha256";
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    // Verified against when the user does not exist, so a miss costs as much as a hit
+    private static final class Dummy {
+        static final String HASH = hash("not a password", ITERATIONS);
+    }
+
+    private PasswordHasher() {
+    }
+
+    public static String hash(String password) {
+        return hash(password, ITERATIONS);
+    }
+
+    static String hash(String password, int iterations) {
+        byte[] salt = new byte[SALT_BYTES];
+        RANDOM.nextBytes(salt);
+        Base64.Encoder b64 = Base64.getEncoder().withoutPadding();
+        return PREFIX + "$" + iterations + "$" + b64.encodeToString(salt) + "$"
+                + b64.encodeToString(derive(password, salt, iterations));
+    }
+
+    // Constant-time check of `password` against an encoded hash; false if malformed
+    public static boolean verify(String password, String encoded) {
+        String[] parts = encoded == null ? new String[0] : encoded.split("\\$");
+        if (parts.length != 4 || !parts[0].equals(PREFIX)) return false;
+        try {
+            int iterations = Integer.parseInt(parts[1]);
+            byte[] salt = Base64.getDecoder().decode(parts[2]);
+            byte[] expected = Base64.getDecoder().decode(parts[3]);
+            return MessageDigest.isEqual(expected, derive(password, salt, iterations));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    // Burn the same time as a real verify(); used for unknown usernames
+    public static void verifyDummy(String password) {
+        verify(password, Dummy.HASH);
+    }
+
+    // True if `encoded` was made with fewer iterations than the current setting
+    public static boolean needsRehash(String encoded) {
+        String[] parts = encoded.split("\\$");
+        try {
+            return parts.length != 4 || Integer.parseInt(parts[1]) < ITERATIONS;
+        } catch (NumberFormatException e) {
+            return true;
+        }
+    }
+
+    private static byte[] derive(String password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password.toCharArray(), salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " unavailable", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    // Hash a password for pasting into a user store: java store.PasswordHasher <password>
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: PasswordHasher <password>");
+            return;
+        }
+        System.out.println(hash(args[0]));
+    }
+}
@@ -0,0 +1,56 @@
+package store;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+// Durable store behind StoreDB. StoreDB stays the in-memory source of truth for
+// reads; a backend is bulk-loaded once at startup and then fed changes by
+// WriteBehindStore. JdbcBackend is the SQL implementation.
+public interface PersistenceBackend extends AutoCloseable {
+
+    // Apply one batch of changes atomically. Entity rows carry absolute state and
+    // sales are insert-if-absent, so writing the same batch twice is harmless.
+    void write(Batch batch) throws IOException;
+
+    // Stream every stored row into `loader`: products, customers and sellers
+    // first, then sales in the order they were written.
+    void loadAll(Loader loader) throws IOException;
+
+    @Override
+    void close() throws IOException;
+
+    // Rows collected by one write-behind flush
+    final class Batch {
+        public final List<TransactionModule.Product> products = new ArrayList<>();
+        public final List<TransactionModule.Customer> customers = new ArrayList<>();
+        public final List<TransactionModule.Seller> sellers = new ArrayList<>();
+        public final List<TransactionModule.Sale> sales = new ArrayList<>();
+
+        public boolean isEmpty() {
+            return products.isEmpty() && customers.isEmpty() && sellers.isEmpty() && sales.isEmpty();
+        }
+
+        public int size() {
+            return products.size() + customers.size() + sellers.size() + sales.size();
+        }
+
+        void clear() {
+            products.clear();
+            customers.clear();
+            sellers.clear();
+            sales.clear();
+        }
+    }
+
+    // Receives loaded rows in chunks; StoreDB routes them to its import hooks
+    interface Loader {
+        void products(List<TransactionModule.Product> batch);
+
+        void customers(List<TransactionModule.Customer> batch);
+
+        void sellers(List<TransactionModule.Seller> batch);
+
+        void sales(List<TransactionModule.Sale> batch);
+    }
+}
@@ -0,0 +1,65 @@
+package store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+// Compares the trigram index with the original linear scan over a synthetic catalog.
+// Usage: java store.ProductSearchBenchmark [products]
+public class ProductSearchBenchmark {
+    private static final String[] WORDS = {
+        "basmati", "rice", "toothpaste", "mint", "organic", "green", "tea", "coffee", "arabica",
+        "shampoo", "herbal", "soap", "olive", "oil", "wheat", "flour", "sugar", "salt", "masala",
+        "biscuit", "chocolate", "milk", "butter", "paneer", "yogurt", "detergent", "liquid", "powder"
+    };
+    private static final String[] CATEGORIES = {
+        "Grocery", "Personal Care", "Beverages", "Dairy", "Household", "Snacks"
+    };
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        Random rnd = new Random(42);
+        List<TransactionModule.Product> catalog = new ArrayList<>(n);
+        ProductSearchIndex index = new ProductSearchIndex();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < n; i++) {
+            String name = WORDS[rnd.nextInt(WORDS.length)] + " " + WORDS[rnd.nextInt(WORDS.length)]
+                    + " " + (100 + rnd.nextInt(900)) + "g";
+            TransactionModule.Product p = new TransactionModule.Product("P" + i, name,
+                    CATEGORIES[rnd.nextInt(CATEGORIES.length)], 10 + rnd.nextInt(500), 10);
+            catalog.add(p);
+            index.put(p);
+        }
+        System.out.printf("Indexed %,d products in %d ms%n", n, (System.nanoTime() - t0) / 1_000_000);
+
+        String[] queries = {"basmati", "mint tea", "oil 25", "paneer", "xyz", "dairy", "rice 1"};
+        int rounds = 20;
+        for (String q : queries) {
+            long scanHits = 0;
+            long indexHits = 0;
+            long scanNs = 0;
+            long indexNs = 0;
+            for (int r = 0; r < rounds; r++) {
+                long s = System.nanoTime();
+                scanHits = linearScan(catalog, q).size();
+                scanNs += System.nanoTime() - s;
+                s = System.nanoTime();
+                indexHits = index.search(q, null).size();
+                indexNs += System.nanoTime() - s;
+            }
+            if (scanHits != indexHits) throw new IllegalStateException("Result mismatch for " + q);
+            System.out.printf("%-10s hits %,7d | scan %8.2f ms | index %8.2f ms | %6.1fx%n",
+                    q, indexHits, scanNs / 1e6 / rounds, indexNs / 1e6 / rounds, (double) scanNs / indexNs);
+        }
+    }
+
+    // The pre-index implementation of TransactionModule.searchProducts
+    static List<TransactionModule.Product> linearScan(List<TransactionModule.Product> catalog, String query) {
+        String q = query.toLowerCase(Locale.ROOT);
+        return catalog.stream()
+                .filter(p -> p.name.toLowerCase().contains(q) || p.category.toLowerCase().contains(q))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,166 @@
+package store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+// Inverted index over product name and category.
+//  - Trigram postings: lowercased 3-char grams -> sorted product ordinals.
+//    A substring query intersects the postings of its grams, then verifies the
+//    few survivors against the stored lowercased text.
+//  - Word prefixes for autocomplete, and category -> ordinals for filtering.
+// Ordinals are dense ints assigned in first-indexed order.
+// Kept current by StoreDB.addProduct / updateProduct / restoreProduct.
+public class ProductSearchIndex {
+    private static final Pattern NON_WORD = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final SymbolTable ordinals = new SymbolTable();
+
+    private String[] names = new String[64];       // lowercased, by ordinal
+    private String[] categories = new String[64];  // lowercased, by ordinal
+
+    private final Map<Long, IntSortedSet> trigrams = new HashMap<>();
+    private final NavigableMap<String, IntSortedSet> words = new TreeMap<>();
+    private final Map<String, IntSortedSet> byCategory = new HashMap<>();
+
+    // ===== Maintenance =====
+
+    // Index `p`, replacing whatever was indexed for its ID before
+    public void put(TransactionModule.Product p) {
+        String name = lower(p.name);
+        String category = lower(p.category);
+        lock.writeLock().lock();
+        try {
+            int ord = ordinals.idOf(p.id);
+            if (ord >= names.length) {
+                names = Arrays.copyOf(names, Math.max(ord + 1, names.length * 2));
+                categories = Arrays.copyOf(categories, names.length);
+            }
+            if (name.equals(names[ord]) && category.equals(categories[ord])) return;
+            if (names[ord] != null) unindex(ord);
+            names[ord] = name;
+            categories[ord] = category;
+            forEachTrigram(name, g -> posting(trigrams, g).add(ord));
+            forEachTrigram(category, g -> posting(trigrams, g).add(ord));
+            for (String w : splitWords(name)) posting(words, w).add(ord);
+            posting(byCategory, category).add(ord);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void unindex(int ord) {
+        forEachTrigram(names[ord], g -> removeFrom(trigrams, g, ord));
+        forEachTrigram(categories[ord], g -> removeFrom(trigrams, g, ord));
+        for (String w : splitWords(names[ord])) removeFrom(words, w, ord);
+        removeFrom(byCategory, categories[ord], ord);
+    }
+
+    // ===== Queries =====
+
+    // Product IDs whose name or category contains `query` (case-insensitive),
+    // optionally restricted to one category (null/empty = any)
+    public List<String> search(String query, String category) {
+        String q = lower(query);
+        String cat = category == null || category.trim().isEmpty() ? null : lower(category.trim());
+        lock.readLock().lock();
+        try {
+            int[] candidates;
+            int n;
+            if (q.length() >= 3) {
+                List<IntSortedSet> lists = new ArrayList<>();
+                boolean[] missing = {false};
+                forEachTrigram(q, g -> {
+                    IntSortedSet s = trigrams.get(g);
+                    if (s == null) missing[0] = true;
+                    else lists.add(s);
+                });
+                if (missing[0]) return new ArrayList<>();
+                lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+                candidates = lists.get(0).toArray();
+                n = candidates.length;
+                for (int i = 1; i < lists.size() && n > 0; i++) n = lists.get(i).retainIn(candidates, n);
+            } else {
+                // Too short for a trigram: every product is a candidate
+                n = ordinals.size();
+                candidates = new int[n];
+                for (int i = 0; i < n; i++) candidates[i] = i;
+            }
+            if (cat != null) {
+                IntSortedSet inCat = byCategory.get(cat);
+                n = inCat == null ? 0 : inCat.retainIn(candidates, n);
+            }
+            List<String> out = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                int ord = candidates[i];
+                if (names[ord].contains(q) || categories[ord].contains(q)) out.add(ordinals.name(ord));
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Up to `limit` product IDs with a name word starting with `prefix`
+    public List<String> suggest(String prefix, int limit) {
+        String p = lower(prefix.trim());
+        List<String> out = new ArrayList<>();
+        if (p.isEmpty()) return out;
+        lock.readLock().lock();
+        try {
+            IntSortedSet seen = new IntSortedSet();
+            for (IntSortedSet s : words.subMap(p, true, p + Character.MAX_VALUE, false).values()) {
+                for (int i = 0; i < s.size() && out.size() < limit; i++) {
+                    int ord = s.get(i);
+                    if (seen.add(ord)) out.add(ordinals.name(ord));
+                }
+                if (out.size() >= limit) break;
+            }
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ===== Helpers =====
+
+    interface GramVisitor {
+        void visit(long gram);
+    }
+
+    static String lower(String s) {
+        return s == null ? "" : s.toLowerCase(Locale.ROOT);
+    }
+
+    // Three UTF-16 chars packed into one long
+    static void forEachTrigram(String s, GramVisitor v) {
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            v.visit(((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2));
+        }
+    }
+
+    private static List<String> splitWords(String s) {
+        List<String> out = new ArrayList<>();
+        for (String w : NON_WORD.split(s)) {
+            if (!w.isEmpty()) out.add(w);
+        }
+        return out;
+    }
+
+    private static <K> IntSortedSet posting(Map<K, IntSortedSet> m, K key) {
+        return m.computeIfAbsent(key, k -> new IntSortedSet());
+    }
+
+    private static <K> void removeFrom(Map<K, IntSortedSet> m, K key, int ord) {
+        IntSortedSet s = m.get(key);
+        if (s != null && s.remove(ord) && s.size() == 0) m.remove(key);
+    }
+}
@@ -0,0 +1,44 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+public class ProductSearchIndexTest {
+
+    private static TransactionModule.Product product(String id, String name, String category) {
+        return new TransactionModule.Product(id, name, category, 1.0, 1);
+    }
+
+    @Test
+    public void substringQueriesMatchNameOrCategory() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        index.put(product("P1", "Basmati Rice 5kg", "Grocery"));
+        index.put(product("P2", "Toothpaste", "Personal Care"));
+        index.put(product("P3", "Brown Rice", "Grocery"));
+
+        assertEquals(Arrays.asList("P1", "P3"), index.search("RICE", null));
+        assertEquals(Collections.singletonList("P2"), index.search("sonal", ""));
+        assertEquals(Arrays.asList("P1", "P3"), index.search("ri", null));
+        assertTrue(index.search("rice 6", null).isEmpty());
+        assertEquals(Collections.singletonList("P3"), index.search("rown", "grocery"));
+        assertTrue(index.search("rice", "Personal Care").isEmpty());
+    }
+
+    @Test
+    public void updatesReplaceOldPostings() {
+        ProductSearchIndex index = new ProductSearchIndex();
+        TransactionModule.Product p = product("P1", "Green Tea", "Beverages");
+        index.put(p);
+        p.name = "Masala Chai";
+        index.put(p);
+
+        assertTrue(index.search("green", null).isEmpty());
+        assertEquals(Collections.singletonList("P1"), index.search("chai", null));
+        assertEquals(Collections.singletonList("P1"), index.suggest("mas", 10));
+        assertTrue(index.suggest("gre", 10).isEmpty());
+    }
+}
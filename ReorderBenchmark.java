@@ -0,0 +1,43 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Nightly reorder run: load + plan over warehouses x items rows, parallel vs one thread.
+// Usage: java ReorderBenchmark [warehouses] [items] [rounds]
+public class ReorderBenchmark {
+    public static void main(String[] args) {
+        int warehouseCount = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int itemCount = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 5;
+
+        java.util.Random rnd = new java.util.Random(42);
+        Item[] items = new Item[itemCount];
+        for (int i = 0; i < itemCount; i++) {
+            items[i] = new Item("Item " + i, "I" + i, 100 + rnd.nextInt(10_000), 10 + rnd.nextInt(90), 1 + rnd.nextInt(9));
+            double usage = items[i].getAvgDailyUsage();
+            items[i].setReplenishment(usage, usage * (1 + rnd.nextDouble()), 2 + rnd.nextInt(10), 12 + rnd.nextInt(10));
+        }
+        List<Warehouse> warehouses = new ArrayList<>();
+        for (int w = 0; w < warehouseCount; w++) {
+            Warehouse wh = new Warehouse("WH" + w, "Warehouse " + w);
+            for (Item item : items) wh.addItem(item, rnd.nextInt(2_000));
+            warehouses.add(wh);
+        }
+        long rows = (long) warehouseCount * itemCount;
+        int cores = Runtime.getRuntime().availableProcessors();
+        for (int parallelism : cores > 1 ? new int[] {1, cores} : new int[] {1}) {
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            ReorderPlanner planner = new ReorderPlanner(pool);
+            for (int r = 0; r < rounds; r++) {
+                long t0 = System.nanoTime();
+                planner.load(warehouses);
+                long t1 = System.nanoTime();
+                int proposals = planner.plan().size();
+                long t2 = System.nanoTime();
+                System.out.printf("%d threads: load %,.0f items/sec, plan %,.0f items/sec, %,d proposals%n",
+                        parallelism, rows / ((t1 - t0) / 1e9), rows / ((t2 - t1) / 1e9), proposals);
+            }
+            pool.shutdown();
+        }
+    }
+}
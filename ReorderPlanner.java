@@ -0,0 +1,191 @@
+import store.DemandStats;
+import store.SymbolTable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// Nightly reorder run over every item in every warehouse.
+// load() copies each (warehouse, item) pair into one row of primitive columns:
+// usage, lead times, EOQ inputs and available stock. plan() then runs the
+// safety stock / reorder point / EOQ formulas over the columns with fork-join
+// range splitting. The kernel touches only double and int arrays, so it streams
+// through memory and does not chase per-item objects. Rows at or below their
+// reorder point get a purchase-order proposal.
+// Proposed quantity is the EOQ, raised if needed so stock ends up above the
+// reorder point.
+class ReorderPlanner {
+    static final int THRESHOLD = 4096; // rows per leaf task
+
+    static final class Proposal {
+        final Warehouse warehouse;
+        final Item item;
+        final int available;
+        final double reorderPoint;
+        final int quantity;
+
+        Proposal(Warehouse warehouse, Item item, int available, double reorderPoint, int quantity) {
+            this.warehouse = warehouse;
+            this.item = item;
+            this.available = available;
+            this.reorderPoint = reorderPoint;
+            this.quantity = quantity;
+        }
+
+        @Override
+        public String toString() {
+            return warehouse.getWarehouseId() + " " + item.getItemCode() + ": order " + quantity
+                    + " (available " + available + ", reorder point " + Math.round(reorderPoint) + ")";
+        }
+    }
+
+    interface RangeTask {
+        void run(int from, int to);
+    }
+
+    private final ForkJoinPool pool;
+    private int rows;
+    private Warehouse[] warehouseOf = new Warehouse[0];
+    private Item[] itemOf = new Item[0];
+    private double[] avgUsage, maxUsage, avgLead, maxLead;
+    private double[] demand, orderingCost, holdingCost;
+    private int[] available;
+    // Outputs of plan()
+    private double[] safetyStock, reorderPoint;
+    private int[] orderQty;
+
+    public ReorderPlanner() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public ReorderPlanner(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    // Snapshot the current stock and item parameters of `warehouses`
+    public void load(List<Warehouse> warehouses) {
+        Warehouse.Stock[][] perWarehouse = new Warehouse.Stock[warehouses.size()][];
+        int n = 0;
+        for (int w = 0; w < perWarehouse.length; w++) {
+            perWarehouse[w] = warehouses.get(w).stockSnapshot();
+            n += perWarehouse[w].length;
+        }
+        Warehouse.Stock[] stock = new Warehouse.Stock[n];
+        warehouseOf = new Warehouse[n];
+        int at = 0;
+        for (int w = 0; w < perWarehouse.length; w++) {
+            int len = perWarehouse[w].length;
+            System.arraycopy(perWarehouse[w], 0, stock, at, len);
+            Arrays.fill(warehouseOf, at, at + len, warehouses.get(w));
+            at += len;
+        }
+        rows = n;
+        itemOf = new Item[n];
+        avgUsage = new double[n];
+        maxUsage = new double[n];
+        avgLead = new double[n];
+        maxLead = new double[n];
+        demand = new double[n];
+        orderingCost = new double[n];
+        holdingCost = new double[n];
+        available = new int[n];
+        forEachRange(n, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                Item item = stock[i].item;
+                itemOf[i] = item;
+                avgUsage[i] = item.getAvgDailyUsage();
+                maxUsage[i] = item.getMaxDailyUsage();
+                avgLead[i] = item.getAvgLeadTime();
+                maxLead[i] = item.getMaxLeadTime();
+                demand[i] = item.getAnnualDemand();
+                orderingCost[i] = item.getOrderingCost();
+                holdingCost[i] = item.getHoldingCost();
+                available[i] = stock[i].available.get();
+            }
+        });
+        safetyStock = new double[n];
+        reorderPoint = new double[n];
+        orderQty = new int[n];
+    }
+
+    // Set each item's demand and usage from sales history, matching item codes to
+    // product IDs; items that never sold keep their figures. Lead times stay per item.
+    public static int applyDemand(List<Warehouse> warehouses, DemandStats stats, int asOfDay) {
+        DemandStats.Demand[] all = stats.all(asOfDay);
+        SymbolTable ids = stats.productIds();
+        Set<Item> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        int updated = 0;
+        for (Warehouse w : warehouses) {
+            for (Item item : w.getItems()) {
+                if (!seen.add(item)) continue;
+                int id = ids.find(item.getItemCode());
+                if (id < 0 || id >= all.length || all[id] == null) continue;
+                DemandStats.Demand d = all[id];
+                item.updateDemand(d.annualDemand(), d.avgDaily, d.maxDaily);
+                updated++;
+            }
+        }
+        return updated;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    // Evaluate every loaded row and return the purchase-order proposals
+    public List<Proposal> plan() {
+        forEachRange(rows, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                double ss = Warehouse.safetyStock(maxUsage[i], maxLead[i], avgUsage[i], avgLead[i]);
+                double rop = Warehouse.reorderPoint(avgLead[i], avgUsage[i], ss);
+                safetyStock[i] = ss;
+                reorderPoint[i] = rop;
+                int qty = 0;
+                if (available[i] <= rop) {
+                    double eoq = Item.eoq(demand[i], orderingCost[i], holdingCost[i]);
+                    qty = (int) Math.ceil(Math.max(eoq, rop - available[i] + 1));
+                }
+                orderQty[i] = qty;
+            }
+        });
+        List<Proposal> proposals = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            if (orderQty[i] > 0) {
+                proposals.add(new Proposal(warehouseOf[i], itemOf[i], available[i], reorderPoint[i], orderQty[i]));
+            }
+        }
+        return proposals;
+    }
+
+    private void forEachRange(int n, RangeTask task) {
+        if (n <= THRESHOLD) task.run(0, n);
+        else pool.invoke(new Split(task, 0, n));
+    }
+
+    private static final class Split extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final RangeTask task;
+        private final int from, to;
+
+        Split(RangeTask task, int from, int to) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= THRESHOLD) {
+                task.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new Split(task, from, mid), new Split(task, mid, to));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+import org.junit.Test;
+import store.TransactionModule;
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class ReorderPlannerTest {
+    @Test
+    public void proposesOrdersForItemsAtOrBelowReorderPoint() {
+        Item rice = new Item("Rice", "G001", 3650, 100, 2);
+        rice.setReplenishment(10, 15, 4, 6); // safety 15*6 - 10*4 = 50, reorder point 4*10 + 50 = 90
+        Item tea = new Item("Tea", "G002", 365, 50, 1);
+        tea.setReplenishment(1, 1, 2, 2);    // reorder point 2
+        Warehouse low = new Warehouse("WH1", "Low");
+        low.addItem(rice, 90);
+        low.addItem(tea, 100);
+        Warehouse high = new Warehouse("WH2", "High");
+        high.addItem(rice, 91);
+
+        ReorderPlanner planner = new ReorderPlanner();
+        planner.load(List.of(low, high));
+        assertEquals(3, planner.rows());
+        List<ReorderPlanner.Proposal> proposals = planner.plan();
+        assertEquals(1, proposals.size());
+        ReorderPlanner.Proposal p = proposals.get(0);
+        assertEquals("WH1", p.warehouse.getWarehouseId());
+        assertEquals("G001", p.item.getItemCode());
+        assertEquals(90.0, p.reorderPoint, 1e-9);
+        assertEquals(90.0, rice.calculateReorderPoint(), 1e-9);
+        assertEquals((int) Math.ceil(rice.calculateEOQ()), p.quantity);
+    }
+
+    @Test
+    public void parallelPlanMatchesPerItemFormulas() {
+        List<Warehouse> warehouses = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            Item item = new Item("Item " + i, "I" + i, 1000 + i, 20, 1 + i % 5);
+            item.setReplenishment(i % 7, i % 7 + i % 3, 3, 5);
+            items.add(item);
+        }
+        for (int w = 0; w < 4; w++) {
+            Warehouse wh = new Warehouse("WH" + w, "Warehouse " + w);
+            for (int i = 0; i < items.size(); i++) wh.addItem(items.get(i), (i * 31 + w * 17) % 60);
+            warehouses.add(wh);
+        }
+        ReorderPlanner planner = new ReorderPlanner();
+        planner.load(warehouses);
+        int expected = 0;
+        for (Warehouse wh : warehouses) {
+            for (Item item : items) {
+                if (wh.available(item.getItemCode()) <= item.calculateReorderPoint()) expected++;
+            }
+        }
+        List<ReorderPlanner.Proposal> proposals = planner.plan();
+        assertEquals(expected, proposals.size());
+        for (ReorderPlanner.Proposal p : proposals) {
+            assertEquals(p.item.calculateReorderPoint(), p.reorderPoint, 1e-9);
+            assertEquals(true, p.available + p.quantity > p.reorderPoint);
+        }
+    }
+
+    @Test
+    public void demandFromSalesHistoryFeedsItems() {
+        String code = "RP-" + System.nanoTime();
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(code, "Planned", "Test", 1.0, 1000));
+        for (int i = 0; i < 5; i++) TransactionModule.StoreDB.recordSale(code, "C001", "S001", 7);
+        Item item = new Item("Planned", code, 1, 100, 2); // hand-entered demand of 1 unit a year
+        Item unsold = new Item("Unsold", code + "-X", 50, 100, 2);
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(code + "-C", "Catalogued", "Test", 1.0, 5));
+        Item catalogued = new Item("Catalogued", code + "-C", 20, 100, 2); // in the catalogue, never sold
+        Warehouse w = new Warehouse("WH1", "Main");
+        w.addItem(item, 10);
+        w.addItem(unsold, 10);
+        w.addItem(catalogued, 10);
+
+        int today = (int) java.time.LocalDate.now().toEpochDay();
+        assertEquals(1, ReorderPlanner.applyDemand(List.of(w), TransactionModule.StoreDB.demand, today));
+        double perDay = 35.0 / TransactionModule.StoreDB.demand.windowDays();
+        assertEquals(perDay, item.getAvgDailyUsage(), 1e-9);
+        assertEquals(35.0, item.getMaxDailyUsage(), 1e-9);
+        assertEquals(perDay * 365, item.getAnnualDemand(), 1e-9);
+        assertEquals(50.0, unsold.getAnnualDemand(), 1e-9);
+        assertEquals(20.0, catalogued.getAnnualDemand(), 1e-9);
+    }
+}
@@ -0,0 +1,161 @@
+package store;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Materialized report totals, updated as each sale is indexed:
+// revenue per day, units per product and revenue per seller (minor units).
+// Product and seller keys are SalesColumns dictionary IDs.
+// Sales update under the shared read lock; rebuild() takes the write lock.
+public class ReportAggregates implements SaleListener {
+    private final SalesColumns cols;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final ConcurrentSkipListMap<Integer, LongAdder> revenueByDay = new ConcurrentSkipListMap<>();
+    private final LongCounters quantityByProduct = new LongCounters();
+    private final LongCounters revenueBySeller = new LongCounters();
+
+    // Most sales land on today; remember its bucket to skip the map lookup
+    private volatile DayBucket lastDay;
+    // Rows below this were counted by rebuild() and must not be counted again
+    private volatile int rebuiltUpTo;
+
+    private static final class DayBucket {
+        final int day;
+        final LongAdder revenue;
+
+        DayBucket(int day, LongAdder revenue) {
+            this.day = day;
+            this.revenue = revenue;
+        }
+    }
+
+    public ReportAggregates(SalesColumns cols) {
+        this.cols = cols;
+    }
+
+    @Override
+    public void onSale(TransactionModule.Sale sale, int row) {
+        lock.readLock().lock();
+        try {
+            if (row >= rebuiltUpTo) apply(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void onSales(List<TransactionModule.Sale> sales, int firstRow) {
+        lock.readLock().lock();
+        try {
+            for (int row = Math.max(firstRow, rebuiltUpTo); row < firstRow + sales.size(); row++) apply(row);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void apply(int row) {
+        int qty = cols.quantity(row);
+        long revenue = cols.priceMinor(row) * qty;
+        dayRevenue(cols.epochDay(row)).add(revenue);
+        quantityByProduct.add(cols.product(row), qty);
+        int seller = cols.seller(row);
+        if (seller >= 0) revenueBySeller.add(seller, revenue);
+    }
+
+    private LongAdder dayRevenue(int day) {
+        DayBucket b = lastDay;
+        if (b != null && b.day == day) return b.revenue;
+        LongAdder sum = revenueByDay.computeIfAbsent(day, d -> new LongAdder());
+        lastDay = new DayBucket(day, sum);
+        return sum;
+    }
+
+    // ===== Queries (O(result size)) =====
+
+    // Epoch day -> revenue in minor units, ascending by day
+    public Map<Integer, Long> revenueByDay() {
+        Map<Integer, Long> out = new LinkedHashMap<>();
+        revenueByDay.forEach((day, sum) -> out.put(day, sum.sum()));
+        return out;
+    }
+
+    public long quantityOfProduct(int productId) {
+        return quantityByProduct.get(productId);
+    }
+
+    public long revenueOfSeller(int sellerId) {
+        return revenueBySeller.get(sellerId);
+    }
+
+    // Units per product dictionary ID, as an array
+    public long[] quantityByProduct() {
+        return quantityByProduct.toArray(cols.productIds.size());
+    }
+
+    // Revenue per seller dictionary ID, as an array
+    public long[] revenueBySeller() {
+        return revenueBySeller.toArray(cols.sellerIds.size());
+    }
+
+    // ===== Maintenance =====
+
+    // Discard the totals and recompute them from the full sales history
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            int n = cols.size();
+            revenueByDay.clear();
+            quantityByProduct.clear();
+            revenueBySeller.clear();
+            lastDay = null;
+            for (int row = 0; row < n; row++) apply(row);
+            rebuiltUpTo = n;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Compare the totals with a full rescan of the columnar store.
+    // Returns one line per mismatch; empty when consistent. Sales committed
+    // while the check runs can show up as transient differences.
+    public List<String> verify() {
+        List<String> problems = new ArrayList<>();
+        lock.writeLock().lock();
+        try {
+            long[] days = cols.revenueByDay();
+            int firstDay = cols.minDay();
+            for (int i = 0; i < days.length; i++) {
+                LongAdder sum = revenueByDay.get(firstDay + i);
+                long have = sum == null ? 0 : sum.sum();
+                if (have != days[i]) {
+                    problems.add("day " + LocalDate.ofEpochDay(firstDay + i)
+                            + ": aggregate " + have + " != scan " + days[i]);
+                }
+            }
+            long[] qty = cols.quantityByProduct();
+            for (int id = 0; id < qty.length; id++) {
+                if (quantityByProduct.get(id) != qty[id]) {
+                    problems.add("product " + cols.productIds.name(id) + ": aggregate "
+                            + quantityByProduct.get(id) + " != scan " + qty[id]);
+                }
+            }
+            long[] rev = cols.revenueBySeller();
+            for (int id = 0; id < rev.length; id++) {
+                if (revenueBySeller.get(id) != rev[id]) {
+                    problems.add("seller " + cols.sellerIds.name(id) + ": aggregate "
+                            + revenueBySeller.get(id) + " != scan " + rev[id]);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+        return problems;
+    }
+}
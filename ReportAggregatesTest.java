@@ -0,0 +1,60 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReportAggregatesTest {
+
+    @Test
+    public void totalsMatchFullScanAfterConcurrentSales() throws Exception {
+        String prefix = "AGG-" + System.nanoTime() + "-";
+        for (int t = 0; t < 4; t++) {
+            String pid = prefix + t;
+            TransactionModule.StoreDB.products.put(pid,
+                    new TransactionModule.Product(pid, "Agg Item " + t, "Test", 2.5, 10_000));
+        }
+        StoreDBConcurrencyTest.runConcurrently(8, 1000, t ->
+                TransactionModule.StoreDB.recordSale(prefix + (t % 4), "C001", t % 2 == 0 ? "S001" : "S002", 2));
+
+        ReportAggregates agg = TransactionModule.StoreDB.aggregates;
+        assertTrue(agg.verify().toString(), agg.verify().isEmpty());
+        int id = TransactionModule.StoreDB.salesColumns.productIds.find(prefix + 0);
+        assertEquals(4000, agg.quantityOfProduct(id));
+    }
+
+    @Test
+    public void rebuildReproducesIncrementalTotals() {
+        String pid = "AGG-" + System.nanoTime();
+        TransactionModule.StoreDB.products.put(pid,
+                new TransactionModule.Product(pid, "Agg Item", "Test", 9.99, 100));
+        for (int i = 0; i < 10; i++) TransactionModule.StoreDB.recordSale(pid, "C002", "S002", 3);
+
+        ReportAggregates agg = TransactionModule.StoreDB.aggregates;
+        int id = TransactionModule.StoreDB.salesColumns.productIds.find(pid);
+        long before = agg.quantityOfProduct(id);
+        agg.rebuild();
+        assertEquals(before, agg.quantityOfProduct(id));
+        assertEquals(30, agg.quantityOfProduct(id));
+        assertTrue(agg.verify().isEmpty());
+    }
+
+    @Test
+    public void salesWithoutCustomerOrSellerAreCounted() {
+        String pid = "AGG-" + System.nanoTime();
+        TransactionModule.StoreDB.products.put(pid,
+                new TransactionModule.Product(pid, "Agg Item", "Test", 4.0, 100));
+        SalesColumns cols = TransactionModule.StoreDB.salesColumns;
+        int rows = cols.size();
+        assertTrue(TransactionModule.StoreDB.recordSale(pid, "C001", null, 2) != null);
+        assertTrue(TransactionModule.StoreDB.recordSale(pid, null, "S001", 3) != null);
+        assertEquals(rows + 2, cols.size());
+        assertEquals(-1, cols.seller(rows));
+        assertEquals(-1, cols.customer(rows + 1));
+
+        ReportAggregates agg = TransactionModule.StoreDB.aggregates;
+        assertEquals(5, agg.quantityOfProduct(cols.productIds.find(pid)));
+        assertEquals(95, TransactionModule.StoreDB.products.get(pid).stock);
+        assertTrue(agg.verify().toString(), agg.verify().isEmpty());
+    }
+}
@@ -2,7 +2,6 @@ package store;
 
 import java.time.LocalDate;
 import java.util.*;
-import java.util.stream.Collectors;
 
 public class ReportingModule {
 
@@ -12,7 +11,13 @@ public class ReportingModule {
         System.out.println("2. Top-selling products");
         System.out.println("3. Sales by seller");
         System.out.println("4. Inventory below threshold");
-        System.out.println("5. Back");
+        System.out.println("5. Top-selling products today");
+        System.out.println("6. Top-selling products last 7 days");
+        System.out.println("7. Rebuild report totals from history");
+        System.out.println("8. Check report totals against full scan");
+        System.out.println("9. Live revenue (last 15 minutes / last hour)");
+        System.out.println("10. Top customers by revenue");
+        System.out.println("11. Back");
     }
 
     public static void handleReports(Scanner sc) {
@@ -21,15 +26,21 @@ public class ReportingModule {
             System.out.print("Choose: ");
             String ch = sc.nextLine().trim();
             switch (ch) {
-                case "1": dailyRevenue(); break;
-                case "2": topSellingProducts(5); break;
-                case "3": salesBySeller(); break;
+                case "1": Metrics.time(Metrics.REPORT_DAILY_REVENUE, ReportingModule::dailyRevenue); break;
+                case "2": Metrics.time(Metrics.REPORT_TOP_PRODUCTS, () -> topSellingProducts(5)); break;
+                case "3": Metrics.time(Metrics.REPORT_SALES_BY_SELLER, ReportingModule::salesBySeller); break;
                 case "4":
                     System.out.print("Threshold: ");
                     int t = parseInt(sc.nextLine());
-                    inventoryBelowThreshold(t <= 0 ? 5 : t);
+                    Metrics.time(Metrics.REPORT_LOW_INVENTORY, () -> inventoryBelowThreshold(t <= 0 ? 5 : t));
                     break;
-                case "5": return;
+                case "5": Metrics.time(Metrics.REPORT_TOP_RECENT, () -> topSellingProductsRecent(10, 1)); break;
+                case "6": Metrics.time(Metrics.REPORT_TOP_RECENT, () -> topSellingProductsRecent(10, 7)); break;
+                case "7": Metrics.time(Metrics.REPORT_REBUILD, ReportingModule::rebuildAggregates); break;
+                case "8": Metrics.time(Metrics.REPORT_CHECK, ReportingModule::checkAggregates); break;
+                case "9": Metrics.time(Metrics.REPORT_LIVE_REVENUE, ReportingModule::liveRevenue); break;
+                case "10": Metrics.time(Metrics.REPORT_TOP_CUSTOMERS, () -> topCustomers(10)); break;
+                case "11": return;
                 default: System.out.println("Invalid option.");
             }
         }
@@ -39,77 +50,159 @@ public class ReportingModule {
 
     // 1) Daily revenue: sum of total per day
     public static void dailyRevenue() {
-        Map<LocalDate, Double> revenueByDay = new TreeMap<>();
-        for (TransactionModule.Sale s : TransactionModule.StoreDB.sales.values()) {
-            LocalDate d = s.timestamp.toLocalDate();
-            double total = s.unitPrice * s.quantity;
-            revenueByDay.merge(d, total, Double::sum);
-        }
+        Map<Integer, Long> revenueByDay = TransactionModule.StoreDB.aggregates.revenueByDay();
         System.out.println("=== Daily Revenue ===");
         if (revenueByDay.isEmpty()) {
             System.out.println("No sales.");
             return;
         }
-        revenueByDay.forEach((d, sum) -> System.out.printf("%s | %.2f%n", d, sum));
+        revenueByDay.forEach((d, sum) -> System.out.printf("%s | %.2f%n", LocalDate.ofEpochDay(d), sum / 100.0));
     }
 
     // 2) Top-selling products by quantity
     public static void topSellingProducts(int topN) {
-        Map<String, Integer> qtyByProduct = new HashMap<>();
-        for (TransactionModule.Sale s : TransactionModule.StoreDB.sales.values()) {
-            qtyByProduct.merge(s.productId, s.quantity, Integer::sum);
-        }
-        List<Map.Entry<String, Integer>> sorted = qtyByProduct.entrySet().stream()
-                .sorted((a, b) -> Integer.compare(b.getValue(), a.getValue()))
-                .limit(topN)
-                .collect(Collectors.toList());
-
         System.out.println("=== Top Selling Products ===");
-        if (sorted.isEmpty()) {
-            System.out.println("No sales.");
-            return;
-        }
-        for (Map.Entry<String, Integer> e : sorted) {
-            TransactionModule.Product p = TransactionModule.StoreDB.products.get(e.getKey());
-            System.out.printf("%s | %s | Qty: %d%n",
-                    e.getKey(), p != null ? p.name : "(unknown)", e.getValue());
-        }
+        printTop(TransactionModule.StoreDB.topProducts.top(topN));
     }
 
     // 3) Sales by seller
     public static void salesBySeller() {
-        Map<String, Double> revenueBySeller = new HashMap<>();
-        for (TransactionModule.Sale s : TransactionModule.StoreDB.sales.values()) {
-            double total = s.unitPrice * s.quantity;
-            revenueBySeller.merge(s.sellerId, total, Double::sum);
-        }
+        SalesColumns cols = TransactionModule.StoreDB.salesColumns;
+        long[] revenueBySeller = TransactionModule.StoreDB.aggregates.revenueBySeller();
         System.out.println("=== Sales By Seller ===");
-        if (revenueBySeller.isEmpty()) {
-            System.out.println("No sales.");
-            return;
-        }
-        for (Map.Entry<String, Double> e : revenueBySeller.entrySet()) {
-            TransactionModule.Seller sel = TransactionModule.StoreDB.sellers.get(e.getKey());
+        boolean any = false;
+        // Seller IDs cover every seller ever registered; only those who sold are listed
+        for (int id = 0; id < revenueBySeller.length; id++) {
+            if (revenueBySeller[id] == 0) continue;
+            any = true;
+            String sid = cols.sellerIds.name(id);
+            TransactionModule.Seller sel = TransactionModule.StoreDB.sellers.get(sid);
             System.out.printf("%s | %s | Revenue: %.2f%n",
-                    e.getKey(), sel != null ? sel.name : "(unknown)", e.getValue());
+                    sid, sel != null ? sel.name : "(unknown)", revenueBySeller[id] / 100.0);
         }
+        if (!any) System.out.println("No sales.");
     }
 
-    // 4) Inventory below threshold
+    // 4) Inventory below threshold (range query on the stock index)
     public static void inventoryBelowThreshold(int threshold) {
         System.out.println("=== Low Inventory (<= " + threshold + ") ===");
-        List<TransactionModule.Product> low = TransactionModule.StoreDB.products.values().stream()
-                .filter(p -> p.stock <= threshold)
-                .collect(Collectors.toList());
+        List<String> low = TransactionModule.StoreDB.stockIndex.atOrBelow(threshold);
         if (low.isEmpty()) {
             System.out.println("All good.");
             return;
         }
-        for (TransactionModule.Product p : low) {
+        for (String id : low) {
+            TransactionModule.Product p = TransactionModule.StoreDB.products.get(id);
+            if (p == null) continue;
             System.out.printf("%s | %s | Stock: %d%n", p.id, p.name, p.stock);
         }
     }
 
+    // 5/6) Top-selling products over the trailing `days` days (including today)
+    public static void topSellingProductsRecent(int topN, int days) {
+        System.out.println("=== Top Selling Products (" + (days == 1 ? "today" : "last " + days + " days") + ") ===");
+        int today = (int) LocalDate.now().toEpochDay();
+        printTop(TransactionModule.StoreDB.topProducts.topForDays(topN, today, days));
+    }
+
+    private static void printTop(TopProducts.Entry[] top) {
+        if (top.length == 0) {
+            System.out.println("No sales.");
+            return;
+        }
+        SalesColumns cols = TransactionModule.StoreDB.salesColumns;
+        for (TopProducts.Entry e : top) {
+            String pid = cols.productIds.name(e.productId);
+            TransactionModule.Product p = TransactionModule.StoreDB.products.get(pid);
+            System.out.printf("%s | %s | Qty: %d%s%n", pid, p != null ? p.name : "(unknown)",
+                    e.quantity, e.error > 0 ? " (+/-" + e.error + ")" : "");
+        }
+    }
+
+    // 7) Recompute the report totals from the full sales history
+    public static void rebuildAggregates() {
+        long start = System.nanoTime();
+        TransactionModule.StoreDB.aggregates.rebuild();
+        System.out.printf("Report totals rebuilt from %d sales in %d ms%n",
+                TransactionModule.StoreDB.salesColumns.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // 8) Consistency check: maintained totals vs a full rescan
+    public static void checkAggregates() {
+        List<String> problems = TransactionModule.StoreDB.aggregates.verify();
+        if (problems.isEmpty()) {
+            System.out.println("Report totals match a full scan.");
+            return;
+        }
+        System.out.println("Report totals differ from a full scan:");
+        problems.forEach(System.out::println);
+    }
+
+    // 9) Trailing-window totals from the minute buckets, overall and per category
+    public static void liveRevenue() {
+        SalesRollups rollups = TransactionModule.StoreDB.rollups;
+        System.out.println("=== Live Revenue ===");
+        for (int minutes : new int[] {15, 60}) {
+            SalesRollups.Totals t = rollups.last(minutes);
+            System.out.printf("Last %d min | Revenue: %.2f | Units: %d | Sales: %d%n",
+                    minutes, t.revenue(), t.units, t.sales);
+        }
+        Set<String> categories = new TreeSet<>();
+        for (TransactionModule.Product p : TransactionModule.StoreDB.products.values()) {
+            if (p.category != null) categories.add(p.category);
+        }
+        for (String c : categories) {
+            SalesRollups.Totals t = rollups.lastForCategory(c, 60);
+            if (t.sales > 0) System.out.printf("  %s (last hour) | Revenue: %.2f | Units: %d%n", c, t.revenue(), t.units);
+        }
+    }
+
+    // 10) Customers ranked by lifetime revenue (one total per customer, no sales scan)
+    public static void topCustomers(int topN) {
+        System.out.println("=== Top Customers ===");
+        CustomerIndex.Summary[] top = TransactionModule.StoreDB.customerIndex.top(topN);
+        if (top.length == 0) {
+            System.out.println("No sales.");
+            return;
+        }
+        for (CustomerIndex.Summary s : top) {
+            TransactionModule.Customer c = TransactionModule.StoreDB.customers.get(s.customerId);
+            System.out.printf("%s | %s | Revenue: %.2f | Sales: %d | Last: %s%n", s.customerId,
+                    c != null ? c.name : "(unknown)", s.revenue(), s.sales, s.lastPurchase().toLocalDate());
+        }
+    }
+
+    // ==== Chain reports (StoreShards) ====
+    // Each section is one scatter-gather: every shard computes its partial on its
+    // own thread, and the partials are merged here.
+
+    public static void chainReport(StoreShards chain, int topN) {
+        System.out.println("=== Chain Report (" + chain.shardCount() + " shards) ===");
+        Map<String, Long> byStore = chain.revenueByStore();
+        if (byStore.isEmpty()) {
+            System.out.println("No sales.");
+            return;
+        }
+        System.out.println("-- Revenue by store --");
+        byStore.forEach((store, r) -> System.out.printf("%s | %.2f%n", store, r / 100.0));
+        System.out.println("-- Daily revenue --");
+        chain.revenueByDay().forEach((d, r) -> System.out.printf("%s | %.2f%n", LocalDate.ofEpochDay(d), r / 100.0));
+        System.out.println("-- Top products --");
+        for (TopProducts.Entry e : chain.topProducts(topN)) {
+            String pid = chain.productIds().name(e.productId);
+            TransactionModule.Product p = TransactionModule.StoreDB.products.get(pid);
+            System.out.printf("%s | %s | Qty: %d%n", pid, p != null ? p.name : "(unknown)", e.quantity);
+        }
+        System.out.println("-- Sales by seller --");
+        long[] bySeller = chain.revenueBySeller();
+        for (int id = 0; id < bySeller.length; id++) {
+            if (bySeller[id] == 0) continue;
+            String sid = chain.sellerIds().name(id);
+            TransactionModule.Seller sel = TransactionModule.StoreDB.sellers.get(sid);
+            System.out.printf("%s | %s | Revenue: %.2f%n", sid, sel != null ? sel.name : "(unknown)", bySeller[id] / 100.0);
+        }
+    }
+
     private static int parseInt(String s) {
         try { return Integer.parseInt(s); } catch (Exception e) { return -1; }
     }
@@ -121,10 +214,7 @@ public class ReportingModule {
         TransactionModule.Product p = TransactionModule.StoreDB.products.get("P100");
         TransactionModule.Customer c = TransactionModule.StoreDB.customers.get("C001");
         TransactionModule.Seller sel = TransactionModule.StoreDB.sellers.get("S001");
-        String saleId = "T" + (TransactionModule.StoreDB.sales.size() + 1);
-        TransactionModule.StoreDB.sales.put(saleId, new TransactionModule.Sale(
-                saleId, p.id, c.id, sel.id, 2, p.price, java.time.LocalDateTime.now()
-        ));
+        TransactionModule.StoreDB.recordSale(p.id, c.id, sel.id, 2);
 
         handleReports(new java.util.Scanner(System.in));
     }
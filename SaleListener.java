@@ -0,0 +1,15 @@
+package store;
+
+import java.util.List;
+
+// Notified after a sale is appended to StoreDB.salesColumns and indexed in StoreDB.sales.
+// `row` is the sale's row in the columnar store.
+public interface SaleListener {
+    void onSale(TransactionModule.Sale sale, int row);
+
+    // A committed batch occupying rows firstRow .. firstRow + sales.size() - 1.
+    // Override to apply the whole batch in one step.
+    default void onSales(List<TransactionModule.Sale> sales, int firstRow) {
+        for (int i = 0; i < sales.size(); i++) onSale(sales.get(i), firstRow + i);
+    }
+}
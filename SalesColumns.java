@@ -0,0 +1,212 @@
+package store;
+
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+
+// Column-oriented sales for reporting scans, and StoreDB's only copy of its
+// sales (SalesTable indexes the rows by sale ID and rebuilds Sale objects).
+// Each sale is one row across parallel primitive arrays; string IDs are
+// dictionary-encoded to dense ints and prices are kept in minor units (paise).
+// Times keep full precision: epoch millis plus the nanos within the milli.
+// Generated sale IDs ("T" + n) are stored as n; any other ID as -1.
+// A sale with no customer or seller (null ID) stores -1 in that column, as
+// Sale does for its symbols; scans and listeners skip -1.
+// Storage grows in fixed-size chunks, so appends never copy existing rows.
+// A single writer lock serialises appends; readers scan [0, size()) lock-free.
+public class SalesColumns {
+    static final int CHUNK_BITS = 16;
+    static final int CHUNK = 1 << CHUNK_BITS;
+    static final int MASK = CHUNK - 1;
+
+    public final SymbolTable productIds;
+    public final SymbolTable sellerIds;
+    public final SymbolTable customerIds;
+
+    private volatile long[][] saleSeq = new long[0][];
+    private volatile int[][] product = new int[0][];
+    private volatile int[][] seller = new int[0][];
+    private volatile int[][] customer = new int[0][];
+    private volatile int[][] quantity = new int[0][];
+    private volatile long[][] priceMinor = new long[0][];
+    private volatile int[][] epochDay = new int[0][];
+    private volatile long[][] epochMillis = new long[0][];
+    private volatile int[][] nanoOfMilli = new int[0][];
+
+    private volatile int size;
+    private volatile int minDay = Integer.MAX_VALUE;
+    private volatile int maxDay = Integer.MIN_VALUE;
+
+    public SalesColumns() {
+        this(new SymbolTable(), new SymbolTable(), new SymbolTable());
+    }
+
+    // Columns encoding IDs through shared tables, so several columns number
+    // products, sellers and customers the same way. Over the process-wide tables
+    // (SymbolTable.PRODUCTS etc.) a sale arrives already encoded.
+    public SalesColumns(SymbolTable productIds, SymbolTable sellerIds, SymbolTable customerIds) {
+        this.productIds = productIds;
+        this.sellerIds = sellerIds;
+        this.customerIds = customerIds;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // First/last epoch day with sales; minDay > maxDay when empty
+    public int minDay() {
+        return minDay;
+    }
+
+    public int maxDay() {
+        return maxDay;
+    }
+
+    public static long toMinor(double amount) {
+        return Math.round(amount * 100);
+    }
+
+    // Append a batch as consecutive rows; returns the first row
+    public synchronized int appendAll(List<TransactionModule.Sale> batch) {
+        int first = size;
+        for (TransactionModule.Sale s : batch) append(s);
+        return first;
+    }
+
+    public synchronized int append(TransactionModule.Sale s) {
+        int row = size;
+        int chunk = row >>> CHUNK_BITS;
+        if (chunk == product.length) grow();
+        int i = row & MASK;
+        saleSeq[chunk][i] = seqOf(s.saleId);
+        product[chunk][i] = encode(productIds, SymbolTable.PRODUCTS, s.productSymbol, s.productId);
+        seller[chunk][i] = encode(sellerIds, SymbolTable.SELLERS, s.sellerSymbol, s.sellerId);
+        customer[chunk][i] = encode(customerIds, SymbolTable.CUSTOMERS, s.customerSymbol, s.customerId);
+        quantity[chunk][i] = s.quantity;
+        priceMinor[chunk][i] = toMinor(s.unitPrice);
+        int day = (int) s.timestamp.toLocalDate().toEpochDay();
+        epochDay[chunk][i] = day;
+        epochMillis[chunk][i] = s.timestamp.toInstant(ZoneOffset.UTC).toEpochMilli();
+        nanoOfMilli[chunk][i] = s.timestamp.getNano() % 1_000_000;
+        if (day < minDay) minDay = day;
+        if (day > maxDay) maxDay = day;
+        size = row + 1; // publish the row
+        return row;
+    }
+
+    // `product` is swapped last: append() uses its length as the chunk count
+    private void grow() {
+        saleSeq = addChunk(saleSeq, new long[CHUNK]);
+        seller = addChunk(seller, new int[CHUNK]);
+        customer = addChunk(customer, new int[CHUNK]);
+        quantity = addChunk(quantity, new int[CHUNK]);
+        priceMinor = addChunk(priceMinor, new long[CHUNK]);
+        epochDay = addChunk(epochDay, new int[CHUNK]);
+        epochMillis = addChunk(epochMillis, new long[CHUNK]);
+        nanoOfMilli = addChunk(nanoOfMilli, new int[CHUNK]);
+        product = addChunk(product, new int[CHUNK]);
+    }
+
+    private static int[][] addChunk(int[][] chunks, int[] c) {
+        int[][] next = Arrays.copyOf(chunks, chunks.length + 1);
+        next[chunks.length] = c;
+        return next;
+    }
+
+    private static long[][] addChunk(long[][] chunks, long[] c) {
+        long[][] next = Arrays.copyOf(chunks, chunks.length + 1);
+        next[chunks.length] = c;
+        return next;
+    }
+
+    private static int encode(SymbolTable table, SymbolTable global, int symbol, String key) {
+        if (key == null) return -1;
+        return table == global && symbol >= 0 ? symbol : table.idOf(key);
+    }
+
+    // n for a generated ID "T" + n (n >= 1, no leading zeros), else -1
+    static long seqOf(String saleId) {
+        int len = saleId.length();
+        if (len < 2 || len > 19 || saleId.charAt(0) != 'T' || saleId.charAt(1) == '0') return -1;
+        long n = 0;
+        for (int i = 1; i < len; i++) {
+            char c = saleId.charAt(i);
+            if (c < '0' || c > '9') return -1;
+            n = n * 10 + (c - '0');
+        }
+        return n;
+    }
+
+    // ===== Row accessors =====
+
+    public long saleSeq(int row) { return saleSeq[row >>> CHUNK_BITS][row & MASK]; }
+    public int product(int row) { return product[row >>> CHUNK_BITS][row & MASK]; }
+    public int seller(int row) { return seller[row >>> CHUNK_BITS][row & MASK]; }
+    public int customer(int row) { return customer[row >>> CHUNK_BITS][row & MASK]; }
+    public int quantity(int row) { return quantity[row >>> CHUNK_BITS][row & MASK]; }
+    public long priceMinor(int row) { return priceMinor[row >>> CHUNK_BITS][row & MASK]; }
+    public int epochDay(int row) { return epochDay[row >>> CHUNK_BITS][row & MASK]; }
+    public long epochMillis(int row) { return epochMillis[row >>> CHUNK_BITS][row & MASK]; }
+    public int nanoOfMilli(int row) { return nanoOfMilli[row >>> CHUNK_BITS][row & MASK]; }
+
+    // ===== Scans =====
+    // Each walks the columns chunk by chunk and allocates only its result array.
+
+    // Revenue (minor units) per day; index 0 is minDay()
+    public long[] revenueByDay() {
+        int n = size;
+        int lo = minDay;
+        if (n == 0) return new long[0];
+        long[] out = new long[maxDay - lo + 1];
+        int[][] days = epochDay;
+        int[][] qty = quantity;
+        long[][] price = priceMinor;
+        for (int c = 0, remaining = n; remaining > 0; c++, remaining -= CHUNK) {
+            int[] d = days[c];
+            int[] q = qty[c];
+            long[] p = price[c];
+            int len = Math.min(CHUNK, remaining);
+            for (int i = 0; i < len; i++) {
+                out[d[i] - lo] += p[i] * q[i];
+            }
+        }
+        return out;
+    }
+
+    // Units sold per product ID
+    public long[] quantityByProduct() {
+        int n = size;
+        long[] out = new long[productIds.size()];
+        int[][] prod = product;
+        int[][] qty = quantity;
+        for (int c = 0, remaining = n; remaining > 0; c++, remaining -= CHUNK) {
+            int[] pr = prod[c];
+            int[] q = qty[c];
+            int len = Math.min(CHUNK, remaining);
+            for (int i = 0; i < len; i++) {
+                out[pr[i]] += q[i];
+            }
+        }
+        return out;
+    }
+
+    // Revenue (minor units) per seller ID
+    public long[] revenueBySeller() {
+        int n = size;
+        long[] out = new long[sellerIds.size()];
+        int[][] sel = seller;
+        int[][] qty = quantity;
+        long[][] price = priceMinor;
+        for (int c = 0, remaining = n; remaining > 0; c++, remaining -= CHUNK) {
+            int[] s = sel[c];
+            int[] q = qty[c];
+            long[] p = price[c];
+            int len = Math.min(CHUNK, remaining);
+            for (int i = 0; i < len; i++) {
+                if (s[i] >= 0) out[s[i]] += p[i] * q[i];
+            }
+        }
+        return out;
+    }
+}
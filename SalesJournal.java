@@ -0,0 +1,480 @@
+package store;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+// Append-only binary journal of StoreDB mutations (write-ahead log).
+// Record layout: [int length][byte type][payload][int crc32(type + payload)]
+// Appenders copy encoded records into a shared buffer; one flusher thread writes
+// and fsyncs whatever has accumulated, so concurrent sales share an fsync (group commit).
+// Records carry absolute state (stock after a sale, full product rows), which keeps
+// replay idempotent: replaying a record twice leaves StoreDB unchanged.
+public class SalesJournal implements AutoCloseable {
+
+    public enum Durability {
+        COMMIT,   // append returns once its record is fsynced
+        BATCH,    // every flushed batch is fsynced; appenders don't wait
+        INTERVAL  // fsync at most once per interval; appenders don't wait
+    }
+
+    static final byte SALE = 1;
+    static final byte PRODUCT = 2;
+    static final byte CUSTOMER = 3;
+    static final byte SELLER = 4;
+
+    // stockAfter of a sale that did not move stock (bulk-imported history)
+    static final int STOCK_UNCHANGED = Integer.MIN_VALUE;
+
+    private static final int BUFFER_SIZE = 1 << 20;
+    private static final int HEADER = 4;
+    private static final int TRAILER = 4;
+    private static final int RECORD_OVERHEAD = HEADER + 1 + TRAILER;
+
+    // Per-thread scratch space so records are encoded outside the journal lock
+    private static final ThreadLocal<ByteBuffer> SCRATCH =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocate(64 * 1024));
+    private static final ThreadLocal<CRC32> CRC = ThreadLocal.withInitial(CRC32::new);
+
+    private final FileChannel channel;
+    private final Durability durability;
+    private final long intervalMillis;
+    private final Thread flusher;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition dataReady = lock.newCondition();
+    private final Condition flushed = lock.newCondition();
+    private ByteBuffer active = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private ByteBuffer spare = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private long appendedLsn;   // file offset just past the last appended record
+    private long durableLsn;    // file offset up to which records are fsynced
+    private IOException failure;
+    private boolean closed;
+
+    private SalesJournal(FileChannel channel, Durability durability, long intervalMillis, long end) {
+        this.channel = channel;
+        this.durability = durability;
+        this.intervalMillis = Math.max(1, intervalMillis);
+        this.appendedLsn = end;
+        this.durableLsn = end;
+        this.flusher = new Thread(this::flushLoop, "store-journal");
+        this.flusher.setDaemon(true);
+        this.flusher.start();
+    }
+
+    // Open (or create) a journal, replaying existing records into StoreDB first.
+    // A torn record at the tail (crash mid-write) is truncated away.
+    public static SalesJournal open(Path file, Durability durability, long intervalMillis) throws IOException {
+        return open(file, durability, intervalMillis, 0);
+    }
+
+    // As above, replaying only the records from offset `from` on (the tail after a snapshot)
+    public static SalesJournal open(Path file, Durability durability, long intervalMillis, long from)
+            throws IOException {
+        FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE);
+        if (!recordStartsAt(ch, from)) {
+            ch.close();
+            throw new IOException("No journal record starts at offset " + from);
+        }
+        long end = replay(ch, from);
+        ch.truncate(end);
+        ch.position(end);
+        return new SalesJournal(ch, durability, intervalMillis, end);
+    }
+
+    public Durability durability() {
+        return durability;
+    }
+
+    // ===== Appends =====
+    // Each returns the LSN to pass to awaitDurable().
+
+    public long appendSale(TransactionModule.Sale s, int stockAfter) {
+        ByteBuffer b = scratch(saleSize(s));
+        putSale(b, s, stockAfter);
+        return append(b);
+    }
+
+    // Append several sales with one buffer copy (one lock round trip per
+    // scratch-full of records); stockAfter[i] belongs to sales.get(i)
+    public long appendSales(List<TransactionModule.Sale> sales, int[] stockAfter) {
+        long lsn = position();
+        ByteBuffer b = scratch(0);
+        for (int i = 0; i < sales.size(); i++) {
+            int need = saleSize(sales.get(i));
+            if (b.remaining() < need) {
+                if (b.position() > 0) lsn = append(b);
+                b = scratch(need);
+            }
+            putSale(b, sales.get(i), stockAfter[i]);
+        }
+        return b.position() > 0 ? append(b) : lsn;
+    }
+
+    public long appendProduct(TransactionModule.Product p) {
+        ByteBuffer b = scratch(RECORD_OVERHEAD + stringSize(p.id) + stringSize(p.name)
+                + stringSize(p.category) + 12);
+        int start = begin(b, PRODUCT);
+        putString(b, p.id);
+        putString(b, p.name);
+        putString(b, p.category);
+        b.putDouble(p.price);
+        b.putInt(p.stock);
+        finish(b, start);
+        return append(b);
+    }
+
+    public long appendCustomer(TransactionModule.Customer c) {
+        ByteBuffer b = scratch(RECORD_OVERHEAD + stringSize(c.id) + stringSize(c.name) + stringSize(c.phone));
+        int start = begin(b, CUSTOMER);
+        putString(b, c.id);
+        putString(b, c.name);
+        putString(b, c.phone);
+        finish(b, start);
+        return append(b);
+    }
+
+    public long appendSeller(TransactionModule.Seller s) {
+        ByteBuffer b = scratch(RECORD_OVERHEAD + stringSize(s.id) + stringSize(s.name));
+        int start = begin(b, SELLER);
+        putString(b, s.id);
+        putString(b, s.name);
+        finish(b, start);
+        return append(b);
+    }
+
+    private static int saleSize(TransactionModule.Sale s) {
+        return RECORD_OVERHEAD + stringSize(s.saleId) + stringSize(s.productId)
+                + stringSize(s.customerId) + stringSize(s.sellerId) + 32;
+    }
+
+    private static void putSale(ByteBuffer b, TransactionModule.Sale s, int stockAfter) {
+        int start = begin(b, SALE);
+        putString(b, s.saleId);
+        putString(b, s.productId);
+        putString(b, s.customerId);
+        putString(b, s.sellerId);
+        b.putInt(s.quantity);
+        b.putDouble(s.unitPrice);
+        b.putLong(s.timestamp.toEpochSecond(ZoneOffset.UTC));
+        b.putInt(s.timestamp.getNano());
+        b.putInt(stockAfter);
+        finish(b, start);
+    }
+
+    // Blocks until `lsn` is on disk; a no-op unless durability is COMMIT
+    public void awaitDurable(long lsn) {
+        if (durability != Durability.COMMIT) return;
+        lock.lock();
+        try {
+            while (durableLsn < lsn && failure == null) {
+                flushed.awaitUninterruptibly();
+            }
+            if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Current end of the journal; records before it are covered by the next flush
+    public long position() {
+        lock.lock();
+        try {
+            return appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Flush and fsync everything appended so far, whatever the durability mode
+    public void sync() {
+        long target = position();
+        lock.lock();
+        try {
+            while (durableLsn < target && failure == null && !closed) {
+                dataReady.signal();
+                flushed.awaitUninterruptibly();
+            }
+            if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (closed) return;
+            closed = true;
+            dataReady.signal();
+        } finally {
+            lock.unlock();
+        }
+        try {
+            flusher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+        if (failure != null) throw failure;
+    }
+
+    // Empty per-thread scratch buffer with room for at least `need` bytes
+    private static ByteBuffer scratch(int need) {
+        ByteBuffer b = SCRATCH.get();
+        if (b.capacity() < need) {
+            b = ByteBuffer.allocate(need);
+            SCRATCH.set(b);
+        }
+        b.clear();
+        return b;
+    }
+
+    // Start a record at the current position; returns its start offset
+    private static int begin(ByteBuffer b, byte type) {
+        int start = b.position();
+        b.position(start + HEADER);
+        b.put(type);
+        return start;
+    }
+
+    // Fill in the length and checksum of the record started at `start`
+    private static void finish(ByteBuffer b, int start) {
+        int bodyLen = b.position() - start - HEADER;
+        CRC32 crc = CRC.get();
+        crc.reset();
+        crc.update(b.array(), start + HEADER, bodyLen);
+        b.putInt((int) crc.getValue());
+        b.putInt(start, bodyLen);
+    }
+
+    // Copy the finished records in `rec` into the shared buffer
+    private long append(ByteBuffer rec) {
+        rec.flip();
+
+        lock.lock();
+        try {
+            if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+            if (closed) throw new IllegalStateException("Journal is closed");
+            while (active.remaining() < rec.remaining()) {
+                if (active.position() == 0) {
+                    active = ByteBuffer.allocateDirect(rec.remaining());
+                } else {
+                    // Buffer full: let the flusher drain it (backpressure)
+                    dataReady.signal();
+                    flushed.awaitUninterruptibly();
+                    if (failure != null) throw new UncheckedIOException("Journal write failed", failure);
+                }
+            }
+            appendedLsn += rec.remaining();
+            active.put(rec);
+            if (durability != Durability.INTERVAL) dataReady.signal();
+            return appendedLsn;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void flushLoop() {
+        while (true) {
+            ByteBuffer batch;
+            long batchLsn;
+            boolean last;
+            lock.lock();
+            try {
+                if (durability == Durability.INTERVAL) {
+                    if (!closed) dataReady.await(intervalMillis, TimeUnit.MILLISECONDS);
+                } else {
+                    while (active.position() == 0 && !closed) dataReady.await();
+                }
+                last = closed;
+                if (active.position() == 0) {
+                    if (last) return;
+                    continue;
+                }
+                batch = active;
+                active = spare;
+                spare = batch;
+                batchLsn = appendedLsn;
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException error = null;
+            try {
+                batch.flip();
+                while (batch.hasRemaining()) channel.write(batch);
+                channel.force(false);
+            } catch (IOException e) {
+                error = e;
+            }
+            batch.clear();
+
+            lock.lock();
+            try {
+                if (error != null) {
+                    failure = error;
+                } else {
+                    durableLsn = batchLsn;
+                }
+                flushed.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            if (error != null) return;
+        }
+    }
+
+    // ===== Recovery =====
+
+    // Replay records starting at `from` into StoreDB; returns the offset just past
+    // the last intact record.
+    static long replay(FileChannel ch, long from) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+        CRC32 crc = new CRC32();
+        long pos = from;
+        long size = ch.size();
+        while (pos + HEADER < size) {
+            buf.clear();
+            buf.limit(HEADER);
+            readFully(ch, buf, pos);
+            int bodyLen = buf.getInt(0);
+            long end = pos + HEADER + bodyLen + TRAILER;
+            if (bodyLen <= 0 || end > size) break;
+            if (buf.capacity() < bodyLen + TRAILER) buf = ByteBuffer.allocate(bodyLen + TRAILER);
+            buf.clear();
+            buf.limit(bodyLen + TRAILER);
+            readFully(ch, buf, pos + HEADER);
+            crc.reset();
+            crc.update(buf.array(), 0, bodyLen);
+            if ((int) crc.getValue() != buf.getInt(bodyLen)) break;
+            buf.flip();
+            buf.limit(bodyLen);
+            apply(buf);
+            pos = end;
+        }
+        return pos;
+    }
+
+    // True if an intact record starts at `pos`, or `pos` is the end of the journal.
+    // Guards against pairing a snapshot with a journal it was not taken from.
+    static boolean recordStartsAt(FileChannel ch, long pos) throws IOException {
+        long size = ch.size();
+        if (pos == size) return true;
+        if (pos < 0 || pos + HEADER > size) return false;
+        ByteBuffer head = ByteBuffer.allocate(HEADER);
+        readFully(ch, head, pos);
+        int bodyLen = head.getInt(0);
+        if (bodyLen <= 0 || pos + HEADER + bodyLen + TRAILER > size) return false;
+        ByteBuffer body = ByteBuffer.allocate(bodyLen + TRAILER);
+        readFully(ch, body, pos + HEADER);
+        CRC32 crc = new CRC32();
+        crc.update(body.array(), 0, bodyLen);
+        return (int) crc.getValue() == body.getInt(bodyLen);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        while (buf.hasRemaining()) {
+            int n = ch.read(buf, pos);
+            if (n < 0) throw new IOException("Unexpected end of journal");
+            pos += n;
+        }
+    }
+
+    private static void apply(ByteBuffer b) {
+        byte type = b.get();
+        switch (type) {
+            case SALE: {
+                String saleId = getString(b);
+                String productId = getString(b);
+                String customerId = getString(b);
+                String sellerId = getString(b);
+                int qty = b.getInt();
+                double unitPrice = b.getDouble();
+                LocalDateTime ts = LocalDateTime.ofEpochSecond(b.getLong(), b.getInt(), ZoneOffset.UTC);
+                int stockAfter = b.getInt();
+                TransactionModule.StoreDB.restoreSale(new TransactionModule.Sale(
+                        saleId, productId, customerId, sellerId, qty, unitPrice, ts), stockAfter);
+                break;
+            }
+            case PRODUCT:
+                TransactionModule.StoreDB.restoreProduct(getString(b), getString(b), getString(b),
+                        b.getDouble(), b.getInt());
+                break;
+            case CUSTOMER:
+                TransactionModule.StoreDB.restoreCustomer(getString(b), getString(b), getString(b));
+                break;
+            case SELLER:
+                TransactionModule.StoreDB.restoreSeller(getString(b), getString(b));
+                break;
+            default:
+                throw new IllegalStateException("Unknown journal record type " + type);
+        }
+    }
+
+    // ===== Encoding =====
+
+    // Upper bound on the encoded size of `s`
+    static int stringSize(String s) {
+        return 2 + (s == null ? 0 : s.length() * 3);
+    }
+
+    static void putString(ByteBuffer b, String s) {
+        byte[] bytes = (s == null ? "" : s).getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) throw new IllegalArgumentException("Field too long for journal");
+        b.putShort((short) bytes.length);
+        b.put(bytes);
+    }
+
+    static String getString(ByteBuffer b) {
+        int len = b.getShort() & 0xFFFF;
+        String s = new String(b.array(), b.arrayOffset() + b.position(), len, StandardCharsets.UTF_8);
+        b.position(b.position() + len);
+        return s;
+    }
+
+    // Standalone throughput check: 8 terminals selling against a scratch journal
+    public static void main(String[] args) throws Exception {
+        int threads = 8;
+        int perThread = 20_000;
+        for (Durability d : Durability.values()) {
+            Path file = java.nio.file.Files.createTempFile("store-journal", ".log");
+            TransactionModule.StoreDB.openJournal(file, d, 5);
+            String pid = "BENCH-" + d;
+            TransactionModule.StoreDB.addProduct(
+                    new TransactionModule.Product(pid, "Bench item", "Bench", 1.0, threads * perThread));
+            Thread[] workers = new Thread[threads];
+            long start = System.nanoTime();
+            for (int t = 0; t < threads; t++) {
+                workers[t] = new Thread(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 1);
+                    }
+                });
+                workers[t].start();
+            }
+            for (Thread w : workers) w.join();
+            TransactionModule.StoreDB.journal.sync();
+            double secs = (System.nanoTime() - start) / 1e9;
+            TransactionModule.StoreDB.closeJournal();
+            System.out.printf("%-8s %,.0f sales/sec (%,d bytes)%n",
+                    d, threads * perThread / secs, java.nio.file.Files.size(file));
+            java.nio.file.Files.delete(file);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package store;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+
+public class SalesJournalTest {
+    private Path file;
+
+    @After
+    public void cleanUp() throws Exception {
+        TransactionModule.StoreDB.closeJournal();
+        if (file != null) Files.deleteIfExists(file);
+    }
+
+    @Test
+    public void replayRestoresSalesAndStock() throws Exception {
+        file = Files.createTempFile("journal", ".log");
+        String pid = "J-" + System.nanoTime();
+        TransactionModule.StoreDB.openJournal(file, SalesJournal.Durability.COMMIT, 10);
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Journal Item", "Test", 5.0, 10));
+        TransactionModule.Sale s1 = TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 3);
+        TransactionModule.Sale s2 = TransactionModule.StoreDB.recordSale(pid, "C002", "S002", 2);
+        TransactionModule.StoreDB.closeJournal();
+
+        // Simulate a restart: the heap copy is gone
+        TransactionModule.StoreDB.products.remove(pid);
+        TransactionModule.StoreDB.sales.remove(s1.saleId);
+        TransactionModule.StoreDB.sales.remove(s2.saleId);
+
+        TransactionModule.StoreDB.openJournal(file, SalesJournal.Durability.COMMIT, 10);
+        assertEquals(5, TransactionModule.StoreDB.products.get(pid).stock);
+        TransactionModule.Sale restored = TransactionModule.StoreDB.sales.get(s2.saleId);
+        assertNotNull(restored);
+        assertEquals(2, restored.quantity);
+        assertEquals(s2.timestamp, restored.timestamp);
+        assertNotNull(TransactionModule.StoreDB.sales.get(s1.saleId));
+    }
+
+    @Test
+    public void failedAppendLeavesStockUntouched() throws Exception {
+        file = Files.createTempFile("journal", ".log");
+        String pid = "J-" + System.nanoTime();
+        TransactionModule.StoreDB.openJournal(file, SalesJournal.Durability.COMMIT, 10);
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Journal Item", "Test", 5.0, 10));
+        TransactionModule.StoreDB.journal.close(); // appends now throw, as after a disk error
+        int sales = TransactionModule.StoreDB.sales.size();
+        try {
+            TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 3);
+            fail("sale recorded without a journal");
+        } catch (IllegalStateException expected) {
+            // the journal refused it
+        }
+        List<TransactionModule.SaleRequest> basket = Arrays.asList(
+                new TransactionModule.SaleRequest(pid, "C001", "S001", 2),
+                new TransactionModule.SaleRequest(pid, "C001", "S001", 1));
+        try {
+            TransactionModule.StoreDB.checkout(basket);
+            fail("checkout recorded without a journal");
+        } catch (IllegalStateException expected) {
+            // the journal refused it
+        }
+        assertEquals(10, TransactionModule.StoreDB.products.get(pid).stock);
+        assertEquals(sales, TransactionModule.StoreDB.sales.size());
+    }
+
+    @Test
+    public void tornTailIsTruncated() throws Exception {
+        file = Files.createTempFile("journal", ".log");
+        String pid = "J-" + System.nanoTime();
+        TransactionModule.StoreDB.openJournal(file, SalesJournal.Durability.BATCH, 10);
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Journal Item", "Test", 5.0, 10));
+        TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 4);
+        TransactionModule.StoreDB.journal.sync();
+        TransactionModule.StoreDB.closeJournal();
+        long intact = Files.size(file);
+
+        // Half-written record left behind by a crash
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 40, 1, 2, 3}));
+        }
+        TransactionModule.StoreDB.products.get(pid).stock = 99;
+
+        TransactionModule.StoreDB.openJournal(file, SalesJournal.Durability.BATCH, 10);
+        assertEquals(intact, Files.size(file));
+        assertEquals(6, TransactionModule.StoreDB.products.get(pid).stock);
+    }
+}
@@ -0,0 +1,206 @@
+package store;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+// Rolling revenue / units / sale counts for "last N minutes" dashboards, for the
+// whole store and per category and seller.
+// Each series keeps two rings of time buckets: MINUTES one-minute buckets and
+// HOURS one-hour buckets. A bucket's counters are LongAdders (striped), so
+// concurrent sales rarely touch the same cache line. A slot is recycled by CASing
+// in a fresh bucket for the new period. A writer still holding the old bucket can
+// only be recording a sale older than the whole ring, which no query covers, so
+// nothing needs a lock.
+// A trailing-window query sums at most MINUTES (or HOURS) buckets: its cost depends
+// on the window length, never on the number of sales.
+// Times are the sale timestamps, on the same clock as SalesColumns.epochMillis.
+public class SalesRollups implements SaleListener {
+    static final int MINUTES = 120;
+    static final int HOURS = 48;
+    static final long MINUTE_MILLIS = 60_000;
+    static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+
+    private final SalesColumns cols;
+    private final Series total = new Series();
+    private final Map<String, Series> byCategory = new ConcurrentHashMap<>();
+    private volatile Series[] bySeller = new Series[0]; // by SalesColumns seller ID
+
+    public static final class Totals {
+        public final long revenueMinor;
+        public final long units;
+        public final long sales;
+
+        Totals(long revenueMinor, long units, long sales) {
+            this.revenueMinor = revenueMinor;
+            this.units = units;
+            this.sales = sales;
+        }
+
+        public double revenue() {
+            return revenueMinor / 100.0;
+        }
+    }
+
+    private static final class Bucket {
+        final long period;
+        final LongAdder revenue = new LongAdder();
+        final LongAdder units = new LongAdder();
+        final LongAdder sales = new LongAdder();
+
+        Bucket(long period) {
+            this.period = period;
+        }
+    }
+
+    private static final class Ring {
+        private final AtomicReferenceArray<Bucket> slots;
+        private final long periodMillis;
+
+        Ring(int size, long periodMillis) {
+            this.slots = new AtomicReferenceArray<>(size);
+            this.periodMillis = periodMillis;
+        }
+
+        void add(long millis, long revenue, int qty) {
+            long period = Math.floorDiv(millis, periodMillis);
+            int i = (int) Math.floorMod(period, (long) slots.length());
+            while (true) {
+                Bucket b = slots.get(i);
+                if (b == null || b.period < period) {
+                    Bucket fresh = new Bucket(period);
+                    if (!slots.compareAndSet(i, b, fresh)) continue;
+                    b = fresh;
+                } else if (b.period > period) {
+                    return; // older than the ring
+                }
+                b.revenue.add(revenue);
+                b.units.add(qty);
+                b.sales.increment();
+                return;
+            }
+        }
+
+        // Adds the buckets for periods [from, to] into acc = {revenue, units, sales}
+        void sum(long from, long to, long[] acc) {
+            int n = slots.length();
+            for (long p = Math.max(from, to - n + 1); p <= to; p++) {
+                Bucket b = slots.get((int) Math.floorMod(p, (long) n));
+                if (b == null || b.period != p) continue;
+                acc[0] += b.revenue.sum();
+                acc[1] += b.units.sum();
+                acc[2] += b.sales.sum();
+            }
+        }
+    }
+
+    private static final class Series {
+        final Ring minutes = new Ring(MINUTES, MINUTE_MILLIS);
+        final Ring hours = new Ring(HOURS, HOUR_MILLIS);
+
+        void add(long millis, long revenue, int qty) {
+            minutes.add(millis, revenue, qty);
+            hours.add(millis, revenue, qty);
+        }
+
+        // Trailing `minutes` minutes up to and including the current one. Beyond the
+        // minute ring, whole hours including the current one.
+        Totals last(int minutes, long nowMillis) {
+            long[] acc = new long[3];
+            if (minutes <= MINUTES) {
+                long now = Math.floorDiv(nowMillis, MINUTE_MILLIS);
+                this.minutes.sum(now - minutes + 1, now, acc);
+            } else {
+                long now = Math.floorDiv(nowMillis, HOUR_MILLIS);
+                hours.sum(now - (minutes + 59) / 60 + 1, now, acc);
+            }
+            return new Totals(acc[0], acc[1], acc[2]);
+        }
+    }
+
+    public SalesRollups(SalesColumns cols) {
+        this.cols = cols;
+    }
+
+    @Override
+    public void onSale(TransactionModule.Sale sale, int row) {
+        int qty = cols.quantity(row);
+        long millis = cols.epochMillis(row);
+        long revenue = cols.priceMinor(row) * qty;
+        total.add(millis, revenue, qty);
+        TransactionModule.Product p = TransactionModule.StoreDB.products.get(sale.productId);
+        if (p != null && p.category != null) series(byCategory, p.category).add(millis, revenue, qty);
+        int seller = cols.seller(row);
+        if (seller >= 0) sellerSeries(seller).add(millis, revenue, qty);
+    }
+
+    @Override
+    public void onSales(List<TransactionModule.Sale> sales, int firstRow) {
+        for (int i = 0; i < sales.size(); i++) onSale(sales.get(i), firstRow + i);
+    }
+
+    private static Series series(Map<String, Series> m, String key) {
+        Series s = m.get(key);
+        return s != null ? s : m.computeIfAbsent(key, k -> new Series());
+    }
+
+    // Series are created under the lock; Series fields are final, so a reader that
+    // finds one in the array sees it whole
+    private Series sellerSeries(int id) {
+        Series[] a = bySeller;
+        Series s = id < a.length ? a[id] : null;
+        return s != null ? s : newSellerSeries(id);
+    }
+
+    private synchronized Series newSellerSeries(int id) {
+        Series[] a = bySeller;
+        if (id >= a.length) a = bySeller = Arrays.copyOf(a, Math.max(id + 1, a.length * 2));
+        if (a[id] == null) a[id] = new Series();
+        return a[id];
+    }
+
+    // ===== Queries =====
+
+    public Totals last(int minutes) {
+        return last(minutes, nowMillis());
+    }
+
+    public Totals lastForCategory(String category, int minutes) {
+        return lastOf(byCategory.get(category), minutes, nowMillis());
+    }
+
+    public Totals lastForSeller(String sellerId, int minutes) {
+        return lastOf(sellerSeriesOrNull(sellerId), minutes, nowMillis());
+    }
+
+    Totals last(int minutes, long nowMillis) {
+        return lastOf(total, minutes, nowMillis);
+    }
+
+    Totals lastForCategory(String category, int minutes, long nowMillis) {
+        return lastOf(byCategory.get(category), minutes, nowMillis);
+    }
+
+    private Series sellerSeriesOrNull(String sellerId) {
+        int id = cols.sellerIds.find(sellerId);
+        Series[] a = bySeller;
+        return id < 0 || id >= a.length ? null : a[id];
+    }
+
+    private static Totals lastOf(Series s, int minutes, long nowMillis) {
+        if (minutes <= 0 || minutes > HOURS * 60) {
+            throw new IllegalArgumentException("Window must be 1.." + HOURS * 60 + " minutes");
+        }
+        return s == null ? new Totals(0, 0, 0) : s.last(minutes, nowMillis);
+    }
+
+    // Now, on the sale-timestamp clock (local time read as UTC, as in SalesColumns)
+    static long nowMillis() {
+        return LocalDateTime.now().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+}
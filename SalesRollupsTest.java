@@ -0,0 +1,71 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+public class SalesRollupsTest {
+    private static final long NOW = LocalDateTime.of(2024, 5, 1, 12, 30, 20).toInstant(ZoneOffset.UTC).toEpochMilli();
+
+    private static TransactionModule.Sale sale(String pid, long minutesAgo, int qty, double price) {
+        LocalDateTime at = LocalDateTime.ofEpochSecond(NOW / 1000 - minutesAgo * 60, 0, ZoneOffset.UTC);
+        return new TransactionModule.Sale("RU-" + System.nanoTime(), pid, "C001", "S001", qty, price, at);
+    }
+
+    private static void record(SalesColumns cols, SalesRollups rollups, TransactionModule.Sale s) {
+        rollups.onSale(s, cols.append(s));
+    }
+
+    @Test
+    public void trailingWindowsCoverOnlyTheirBuckets() {
+        String pid = "RU-" + System.nanoTime();
+        String category = "Rollup-" + pid;
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Rollup Item", category, 2.0, 100));
+        SalesColumns cols = new SalesColumns();
+        SalesRollups rollups = new SalesRollups(cols);
+        record(cols, rollups, sale(pid, 0, 1, 2.0));
+        record(cols, rollups, sale(pid, 10, 2, 2.0));
+        record(cols, rollups, sale(pid, 90, 3, 2.0));
+        record(cols, rollups, sale(pid, 300, 4, 2.0));
+        record(cols, rollups, sale(pid, 5000, 5, 2.0)); // older than both rings
+
+        assertEquals(1, rollups.last(1, NOW).units);
+        assertEquals(3, rollups.last(15, NOW).units);
+        assertEquals(3, rollups.last(60, NOW).units);
+        assertEquals(6, rollups.last(120, NOW).units);
+        assertEquals(1200, rollups.last(120, NOW).revenueMinor);
+        assertEquals(3, rollups.last(120, NOW).sales);
+        // Longer windows round to whole hours, the current one included
+        assertEquals(6, rollups.last(180, NOW).units);
+        assertEquals(10, rollups.last(360, NOW).units);
+        assertEquals(10, rollups.last(48 * 60, NOW).units);
+        assertEquals(3, rollups.lastForCategory(category, 15, NOW).units);
+        assertEquals(0, rollups.lastForCategory("none", 15, NOW).units);
+    }
+
+    @Test
+    public void concurrentSalesInOneMinuteAreAllCounted() throws Exception {
+        SalesColumns cols = new SalesColumns();
+        List<TransactionModule.Sale> sales = new ArrayList<>();
+        for (int i = 0; i < 40_000; i++) sales.add(sale("RU-P" + (i % 50), i % 3, 1, 1.5));
+        int first = cols.appendAll(sales);
+        SalesRollups shared = new SalesRollups(cols);
+        Thread[] ts = new Thread[8];
+        for (int t = 0; t < ts.length; t++) {
+            final int id = t;
+            ts[t] = new Thread(() -> {
+                for (int i = id; i < sales.size(); i += ts.length) shared.onSale(sales.get(i), first + i);
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        SalesRollups.Totals t = shared.last(5, NOW);
+        assertEquals(40_000, t.units);
+        assertEquals(40_000 * 150L, t.revenueMinor);
+        assertEquals(40_000, t.sales);
+    }
+}
@@ -0,0 +1,201 @@
+package store;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// StoreDB's sales: the SalesColumns rows plus an index from sale ID to row.
+// No Sale object is kept per sale; get() and iteration rebuild one from its row,
+// so a sale costs its columns and four bytes of index instead of an object graph
+// and a skip-list node.
+// Generated IDs ("T" + n) index through chunked int arrays keyed by n; any other
+// ID (imports from elsewhere) goes through a map, which also remembers the ID
+// string for its row. Iteration is in row (recording) order.
+// Adds serialise on the columns' lock; lookups and iteration are lock-free. A
+// row is appended before its ID is indexed, so a reader that finds the ID sees
+// the whole row.
+public final class SalesTable implements Iterable<TransactionModule.Sale> {
+    private static final int CHUNK_BITS = 16;
+    private static final int CHUNK = 1 << CHUNK_BITS;
+    private static final int MASK = CHUNK - 1;
+
+    private final SalesColumns cols;
+    private volatile AtomicIntegerArray[] rowBySeq = new AtomicIntegerArray[0]; // row + 1; 0 = none
+    private final Map<String, Integer> rowByOtherId = new ConcurrentHashMap<>();
+    private final Map<Integer, String> otherIdByRow = new ConcurrentHashMap<>();
+    private volatile int size;
+
+    public SalesTable(SalesColumns cols) {
+        this.cols = cols;
+    }
+
+    public SalesColumns columns() {
+        return cols;
+    }
+
+    // Sales with a live ID; rows of removed IDs stay in the columns
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Row of `saleId`, or -1
+    public int rowOf(String saleId) {
+        long seq = SalesColumns.seqOf(saleId);
+        if (seq < 0 || seq > Integer.MAX_VALUE) {
+            Integer row = rowByOtherId.get(saleId);
+            return row == null ? -1 : row;
+        }
+        return rowOfSeq((int) seq);
+    }
+
+    private int rowOfSeq(int seq) {
+        AtomicIntegerArray[] chunks = rowBySeq;
+        int c = seq >>> CHUNK_BITS;
+        return c < chunks.length && chunks[c] != null ? chunks[c].get(seq & MASK) - 1 : -1;
+    }
+
+    public boolean contains(String saleId) {
+        return rowOf(saleId) >= 0;
+    }
+
+    public TransactionModule.Sale get(String saleId) {
+        int row = rowOf(saleId);
+        return row < 0 ? null : sale(row);
+    }
+
+    public String saleId(int row) {
+        long seq = cols.saleSeq(row);
+        return seq >= 0 ? "T" + seq : otherIdByRow.get(row);
+    }
+
+    // Whether `row` is the current row of its sale ID
+    public boolean live(int row) {
+        long seq = cols.saleSeq(row);
+        if (seq >= 0 && seq <= Integer.MAX_VALUE) return rowOfSeq((int) seq) == row;
+        return rowOf(saleId(row)) == row;
+    }
+
+    // The sale in `row`, rebuilt from the columns
+    public TransactionModule.Sale sale(int row) {
+        long millis = cols.epochMillis(row);
+        LocalDateTime time = LocalDateTime.ofEpochSecond(Math.floorDiv(millis, 1000),
+                Math.floorMod(millis, 1000) * 1_000_000 + cols.nanoOfMilli(row), ZoneOffset.UTC);
+        return new TransactionModule.Sale(saleId(row), name(cols.productIds, cols.product(row)),
+                name(cols.customerIds, cols.customer(row)), name(cols.sellerIds, cols.seller(row)),
+                cols.quantity(row), cols.priceMinor(row) / 100.0, time);
+    }
+
+    private static String name(SymbolTable table, int id) {
+        return id < 0 ? null : table.name(id);
+    }
+
+    // Append `s` unless its ID is already present; returns its row, or -1
+    int add(TransactionModule.Sale s) {
+        synchronized (cols) {
+            if (rowOf(s.saleId) >= 0) return -1;
+            int row = cols.append(s);
+            index(s.saleId, row);
+            size++;
+            return row;
+        }
+    }
+
+    // Append sales whose IDs are known to be new; returns the first row
+    int addAll(List<TransactionModule.Sale> batch) {
+        synchronized (cols) {
+            int first = cols.appendAll(batch);
+            for (int i = 0; i < batch.size(); i++) index(batch.get(i).saleId, first + i);
+            size += batch.size();
+            return first;
+        }
+    }
+
+    // Append the sales of `batch` whose IDs are not present yet (the first of any
+    // repeats), collecting them in `fresh`; returns the first row
+    int addNew(List<TransactionModule.Sale> batch, List<TransactionModule.Sale> fresh) {
+        synchronized (cols) {
+            int first = cols.size();
+            for (TransactionModule.Sale s : batch) {
+                if (rowOf(s.saleId) >= 0) continue;
+                index(s.saleId, cols.append(s));
+                fresh.add(s);
+            }
+            size += fresh.size();
+            return first;
+        }
+    }
+
+    // Forget `saleId`; its row stays in the columns (and in the report totals)
+    public boolean remove(String saleId) {
+        synchronized (cols) {
+            int row = rowOf(saleId);
+            if (row < 0) return false;
+            long seq = SalesColumns.seqOf(saleId);
+            if (seq < 0 || seq > Integer.MAX_VALUE) {
+                rowByOtherId.remove(saleId);
+            } else {
+                rowBySeq[(int) (seq >>> CHUNK_BITS)].set((int) seq & MASK, 0);
+            }
+            size--;
+            return true;
+        }
+    }
+
+    private void index(String saleId, int row) {
+        long seq = SalesColumns.seqOf(saleId);
+        if (seq < 0 || seq > Integer.MAX_VALUE) {
+            if (seq < 0) otherIdByRow.put(row, saleId);
+            rowByOtherId.put(saleId, row);
+            return;
+        }
+        int c = (int) (seq >>> CHUNK_BITS);
+        AtomicIntegerArray[] chunks = rowBySeq;
+        if (c >= chunks.length || chunks[c] == null) {
+            if (c >= chunks.length) chunks = Arrays.copyOf(chunks, Math.max(c + 1, chunks.length * 2));
+            chunks[c] = new AtomicIntegerArray(CHUNK);
+            rowBySeq = chunks;
+        }
+        chunks[c].set((int) seq & MASK, row + 1);
+    }
+
+    // Live sales from row `from` on, in row order
+    public Iterator<TransactionModule.Sale> iterator(int from) {
+        return new Iterator<TransactionModule.Sale>() {
+            private final int end = cols.size();
+            private int row = advance(from);
+
+            private int advance(int r) {
+                while (r < end && !live(r)) r++;
+                return r;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return row < end;
+            }
+
+            @Override
+            public TransactionModule.Sale next() {
+                if (row >= end) throw new NoSuchElementException();
+                TransactionModule.Sale s = sale(row);
+                row = advance(row + 1);
+                return s;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<TransactionModule.Sale> iterator() {
+        return iterator(0);
+    }
+}
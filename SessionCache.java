@@ -0,0 +1,109 @@
+package store;
+
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Bearer tokens issued after a successful password check, so the slow hash is
+// paid once per login instead of once per request.
+// Tokens are 256-bit random strings. validate() is a single hash-map lookup plus
+// an expiry check, with no lock. Every session lives `ttlMillis` from issue.
+// At most `maxSessions` are kept: issuing beyond that evicts the oldest, which
+// with a fixed TTL is also the one closest to expiring. Issue order is tracked
+// in a queue, so eviction and expiry sweeps are O(1) per session.
+public final class SessionCache {
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    public static final class Session {
+        public final String token;
+        public final String username;
+        public final String role;
+        public final long expiresAtMillis;
+
+        Session(String token, String username, String role, long expiresAtMillis) {
+            this.token = token;
+            this.username = username;
+            this.role = role;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+
+    private final Map<String, Session> sessions = new ConcurrentHashMap<>();
+    private final Queue<Session> issueOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger live = new AtomicInteger();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final int maxSessions;
+    private final long ttlMillis;
+
+    public SessionCache(int maxSessions, long ttlMillis) {
+        if (maxSessions <= 0) throw new IllegalArgumentException("maxSessions must be positive");
+        this.maxSessions = maxSessions;
+        this.ttlMillis = ttlMillis;
+    }
+
+    public Session issue(String username, String role) {
+        byte[] raw = new byte[32];
+        RANDOM.nextBytes(raw);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(raw);
+        long now = System.currentTimeMillis();
+        Session s = new Session(token, username, role, now + ttlMillis);
+        sessions.put(token, s);
+        live.incrementAndGet();
+        issueOrder.add(s);
+        queued.incrementAndGet();
+        trim(now);
+        return s;
+    }
+
+    // The live session for `token`, or null if unknown, expired or revoked
+    public Session validate(String token) {
+        if (token == null) return null;
+        Session s = sessions.get(token);
+        if (s == null) return null;
+        if (System.currentTimeMillis() >= s.expiresAtMillis) {
+            remove(s);
+            return null;
+        }
+        return s;
+    }
+
+    public boolean revoke(String token) {
+        Session s = token == null ? null : sessions.get(token);
+        return s != null && remove(s);
+    }
+
+    // Drop every session of `username`, e.g. after a password change
+    public void revokeAll(String username) {
+        for (Session s : sessions.values()) {
+            if (s.username.equals(username)) remove(s);
+        }
+    }
+
+    public int size() {
+        return live.get();
+    }
+
+    // Pop expired sessions, then the oldest while over capacity. Revoked sessions
+    // linger in the queue until they reach its head; twice the capacity bounds that.
+    private void trim(long now) {
+        Session head;
+        while ((head = issueOrder.peek()) != null) {
+            boolean expired = now >= head.expiresAtMillis;
+            if (!expired && live.get() <= maxSessions && queued.get() <= 2 * maxSessions) return;
+            if (issueOrder.remove(head)) {
+                queued.decrementAndGet();
+                remove(head);
+            }
+        }
+    }
+
+    private boolean remove(Session s) {
+        if (!sessions.remove(s.token, s)) return false;
+        live.decrementAndGet();
+        return true;
+    }
+}
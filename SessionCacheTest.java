@@ -0,0 +1,61 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SessionCacheTest {
+    @Test
+    public void tokensValidateUntilRevokedOrExpired() throws Exception {
+        SessionCache cache = new SessionCache(10, 50);
+        SessionCache.Session a = cache.issue("rohan", "seller");
+        SessionCache.Session b = cache.issue("rohan", "seller");
+        assertNotEquals(a.token, b.token);
+        assertSame(a, cache.validate(a.token));
+        assertNull(cache.validate("forged"));
+        assertNull(cache.validate(null));
+
+        assertTrue(cache.revoke(a.token));
+        assertFalse(cache.revoke(a.token));
+        assertNull(cache.validate(a.token));
+        assertEquals(1, cache.size());
+
+        Thread.sleep(60);
+        assertNull(cache.validate(b.token));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void oldestSessionsAreEvictedBeyondCapacity() {
+        SessionCache cache = new SessionCache(3, 60_000);
+        SessionCache.Session[] s = new SessionCache.Session[5];
+        for (int i = 0; i < s.length; i++) s[i] = cache.issue("u" + i, "seller");
+        assertEquals(3, cache.size());
+        assertNull(cache.validate(s[0].token));
+        assertNull(cache.validate(s[1].token));
+        for (int i = 2; i < s.length; i++) assertSame(s[i], cache.validate(s[i].token));
+
+        cache.revokeAll("u3");
+        assertNull(cache.validate(s[3].token));
+        // Revoked entries still queued must not push live sessions out early
+        for (int i = 0; i < 2; i++) cache.issue("x" + i, "seller");
+        assertSame(s[4], cache.validate(s[4].token));
+        assertEquals(3, cache.size());
+    }
+
+    @Test
+    public void passwordHashesAreSaltedAndUpgradedWhenWeak() {
+        String weak = PasswordHasher.hash("seller123", 1000);
+        assertNotEquals(weak, PasswordHasher.hash("seller123", 1000));
+        assertTrue(PasswordHasher.verify("seller123", weak));
+        assertFalse(PasswordHasher.verify("seller124", weak));
+        assertFalse(PasswordHasher.verify("seller123", "seller123"));
+        assertFalse(PasswordHasher.verify("seller123", "pbkdf2-sha256$x$y$z"));
+        assertTrue(PasswordHasher.needsRehash(weak));
+        assertFalse(PasswordHasher.needsRehash(PasswordHasher.hash("seller123", PasswordHasher.ITERATIONS)));
+    }
+}
@@ -0,0 +1,55 @@
+package store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+// Sales throughput of StoreShards as the shard count grows, against the single
+// shared StoreDB. Terminals sell at their own stores and keep up to `window`
+// sales in flight, as a store's tills would.
+// Usage: java store.ShardBenchmark [terminals] [salesPerTerminal] [stores] [window]
+public class ShardBenchmark {
+    public static void main(String[] args) throws Exception {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int terminals = args.length > 0 ? Integer.parseInt(args[0]) : cores * 2;
+        int perTerminal = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        int stores = args.length > 2 ? Integer.parseInt(args[2]) : 64;
+        int window = args.length > 3 ? Integer.parseInt(args[3]) : 32;
+        int products = 1000;
+        for (int i = 0; i < products; i++) {
+            TransactionModule.StoreDB.addProduct(new TransactionModule.Product(
+                    "SB" + i, "Bench " + i, "Bench", 10.0, Integer.MAX_VALUE / 2));
+        }
+        long total = (long) terminals * perTerminal;
+
+        double single = CheckoutBenchmark.run(terminals, t -> {
+            for (int i = 0; i < perTerminal; i++) {
+                TransactionModule.StoreDB.recordSale("SB" + ((i * 31 + t) % products), "C001", "S001", 1);
+            }
+        });
+        System.out.printf("StoreDB:           %,12.0f sales/sec%n", total / single);
+
+        for (int shards = 1; shards <= cores; shards *= 2) {
+            try (StoreShards chain = new StoreShards(shards)) {
+                for (int s = 0; s < stores; s++) {
+                    for (int p = 0; p < products; p++) chain.receive("ST" + s, "SB" + p, Integer.MAX_VALUE / 2);
+                }
+                chain.stock("ST0", "SB0").join();
+                double secs = CheckoutBenchmark.run(terminals, t -> {
+                    List<CompletableFuture<?>> inFlight = new ArrayList<>(window);
+                    for (int i = 0; i < perTerminal; i++) {
+                        int slot = i % window;
+                        if (slot < inFlight.size()) inFlight.get(slot).join();
+                        String store = "ST" + ((t + (i / window) * terminals) % stores);
+                        CompletableFuture<?> sale = chain.sell(store, "SB" + ((i * 31 + t) % products), "C001", "S001", 1);
+                        if (slot < inFlight.size()) inFlight.set(slot, sale);
+                        else inFlight.add(sale);
+                    }
+                    for (CompletableFuture<?> f : inFlight) f.join();
+                });
+                System.out.printf("StoreShards(%3d):  %,12.0f sales/sec%n", shards, total / secs);
+                if (shards * 2 > cores && shards != cores) shards = cores / 2; // end on `cores` itself
+            }
+        }
+    }
+}
@@ -0,0 +1,419 @@
+package store;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// Binary checkpoint of StoreDB: products, customers, sellers, users and sales,
+// plus the journal offset (LSN) it is consistent with. Startup loads the
+// snapshot and replays only the journal from that offset.
+//
+// Snapshots are fuzzy: they are written while sales continue, so a row may be
+// captured in a state newer than the LSN. That is harmless because journal
+// records carry absolute state; replaying the tail brings every row to its
+// final value. CheckpointGate makes sure nothing older than the LSN is missing.
+// Report aggregates are not stored: loading feeds sales through the usual
+// import path, which rebuilds them along with the columns and indexes.
+//
+// Layout: a HEADER-byte header, then tagged records ending in END, then the
+// dictionary of product/customer/seller IDs that sale records refer to by
+// index. The header's CRC32 covers everything after it; a snapshot that fails
+// any check is ignored and the journal is replayed from the start instead.
+public final class Snapshot {
+    static final int MAGIC = 0x534E5031; // "SNP1"
+    static final int VERSION = 2; // 2: users carry password hashes
+    static final int HEADER = 48;
+
+    private static final byte END = 0;
+    private static final byte PRODUCT = 1;
+    private static final byte CUSTOMER = 2;
+    private static final byte SELLER = 3;
+    private static final byte USER = 4;
+    private static final byte SALE = 5;
+
+    private static final int WRITE_BUFFER = 1 << 20;
+    private static final int WINDOW = 1 << 28;      // bytes mapped at a time when loading
+    private static final int MAX_RECORD = 1 << 18;  // > 1 + 3 * (2 + 0xFFFF) + fixed fields
+
+    public static final class Info {
+        public final long lsn;
+        public final long sales;
+        public final long bytes;
+        public final long nanos;
+
+        Info(long lsn, long sales, long bytes, long nanos) {
+            this.lsn = lsn;
+            this.sales = sales;
+            this.bytes = bytes;
+            this.nanos = nanos;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d sales, %,d bytes at journal offset %,d in %.2f s",
+                    sales, bytes, lsn, nanos / 1e9);
+        }
+    }
+
+    private Snapshot() {
+    }
+
+    // ===== Writing =====
+
+    // Write a snapshot of StoreDB to `target`, replacing it atomically.
+    // Needs an open journal: the snapshot is only meaningful with the tail after it.
+    public static Info write(Path target) throws IOException {
+        SalesJournal j = TransactionModule.StoreDB.journal;
+        if (j == null) throw new IllegalStateException("Snapshots need an open journal");
+        long t0 = System.nanoTime();
+        long lsn = TransactionModule.StoreDB.checkpointGate.awaitApplied(j);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        long sales = 0;
+        long end;
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Out out = new Out(ch);
+            for (TransactionModule.Product p : TransactionModule.StoreDB.products.values()) {
+                ByteBuffer b = out.record(PRODUCT, 12 + SalesJournal.stringSize(p.id)
+                        + SalesJournal.stringSize(p.name) + SalesJournal.stringSize(p.category));
+                SalesJournal.putString(b, p.id);
+                SalesJournal.putString(b, p.name);
+                SalesJournal.putString(b, p.category);
+                b.putDouble(p.price);
+                b.putInt(p.stock);
+            }
+            for (TransactionModule.Customer c : TransactionModule.StoreDB.customers.values()) {
+                ByteBuffer b = out.record(CUSTOMER, SalesJournal.stringSize(c.id)
+                        + SalesJournal.stringSize(c.name) + SalesJournal.stringSize(c.phone));
+                SalesJournal.putString(b, c.id);
+                SalesJournal.putString(b, c.name);
+                SalesJournal.putString(b, c.phone);
+            }
+            for (TransactionModule.Seller s : TransactionModule.StoreDB.sellers.values()) {
+                ByteBuffer b = out.record(SELLER, SalesJournal.stringSize(s.id) + SalesJournal.stringSize(s.name));
+                SalesJournal.putString(b, s.id);
+                SalesJournal.putString(b, s.name);
+            }
+            for (TransactionModule.User u : TransactionModule.StoreDB.users.values()) {
+                ByteBuffer b = out.record(USER, SalesJournal.stringSize(u.username)
+                        + SalesJournal.stringSize(u.passwordHash) + SalesJournal.stringSize(u.role));
+                SalesJournal.putString(b, u.username);
+                SalesJournal.putString(b, u.passwordHash);
+                SalesJournal.putString(b, u.role);
+            }
+            Map<String, Integer> refs = new HashMap<>();
+            List<String> names = new ArrayList<>();
+            for (TransactionModule.Sale s : TransactionModule.StoreDB.sales) {
+                long seq = SalesColumns.seqOf(s.saleId);
+                boolean canonical = seq >= 0 && s.saleId.equals("T" + seq);
+                ByteBuffer b = out.record(SALE, 48 + (canonical ? 0 : SalesJournal.stringSize(s.saleId)));
+                b.putLong(canonical ? seq : -1);
+                if (!canonical) SalesJournal.putString(b, s.saleId);
+                b.putInt(ref(refs, names, s.productId));
+                b.putInt(ref(refs, names, s.customerId));
+                b.putInt(ref(refs, names, s.sellerId));
+                b.putInt(s.quantity);
+                b.putDouble(s.unitPrice);
+                b.putLong(s.timestamp.toEpochSecond(ZoneOffset.UTC));
+                b.putInt(s.timestamp.getNano());
+                sales++;
+            }
+            out.record(END, 0);
+            long dictOffset = out.position();
+            out.reserve(4).putInt(names.size());
+            for (String name : names) SalesJournal.putString(out.reserve(SalesJournal.stringSize(name)), name);
+            end = out.finish();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            header.putInt(MAGIC).putInt(VERSION).putLong(lsn).putLong(dictOffset).putLong(end)
+                    .putLong(sales).putInt(out.crc()).flip();
+            while (header.hasRemaining()) ch.write(header, header.position());
+            ch.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new Info(lsn, sales, end, System.nanoTime() - t0);
+    }
+
+    private static int ref(Map<String, Integer> refs, List<String> names, String id) {
+        if (id == null) return -1;
+        Integer r = refs.get(id);
+        if (r == null) {
+            r = names.size();
+            refs.put(id, r);
+            names.add(id);
+        }
+        return r;
+    }
+
+    // Buffered sequential writer that checksums what it writes
+    private static final class Out {
+        private final FileChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocate(WRITE_BUFFER);
+        private final CRC32 crc = new CRC32();
+        private long flushed = HEADER;
+
+        Out(FileChannel ch) throws IOException {
+            this.ch = ch;
+            ch.position(HEADER);
+        }
+
+        // The buffer, with room for `size` more bytes
+        ByteBuffer reserve(int size) throws IOException {
+            if (buf.remaining() < size) drain();
+            if (buf.remaining() < size) throw new IOException("Record too large for snapshot");
+            return buf;
+        }
+
+        // The buffer with `tag` written and room for `size` more bytes
+        ByteBuffer record(byte tag, int size) throws IOException {
+            return reserve(1 + size).put(tag);
+        }
+
+        long position() {
+            return flushed + buf.position();
+        }
+
+        int crc() {
+            return (int) crc.getValue();
+        }
+
+        long finish() throws IOException {
+            drain();
+            return flushed;
+        }
+
+        private void drain() throws IOException {
+            crc.update(buf.array(), 0, buf.position());
+            buf.flip();
+            while (buf.hasRemaining()) ch.write(buf);
+            flushed += buf.limit();
+            buf.clear();
+        }
+    }
+
+    // ===== Loading =====
+
+    // Load `snapshot` into StoreDB if it is intact and was taken from `journal`.
+    // Returns the journal offset to replay from: 0 when there is no usable snapshot
+    // (nothing is loaded in that case).
+    public static long load(Path snapshot, Path journal) throws IOException {
+        if (!Files.exists(snapshot)) return 0;
+        try (FileChannel ch = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            String problem = check(ch, journal);
+            if (problem != null) {
+                System.out.println("Ignoring snapshot " + snapshot + ": " + problem);
+                return 0;
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER);
+            ch.read(header, 0);
+            long lsn = header.getLong(8);
+            long dictOffset = header.getLong(16);
+            long end = header.getLong(24);
+            apply(new In(ch, end), dictionary(new In(ch, end), dictOffset));
+            return lsn;
+        }
+    }
+
+    // Null if the snapshot is usable, else the reason it is not
+    private static String check(FileChannel ch, Path journal) throws IOException {
+        long size = ch.size();
+        if (size < HEADER) return "truncated header";
+        ByteBuffer header = ByteBuffer.allocate(HEADER);
+        while (header.hasRemaining()) {
+            if (ch.read(header, header.position()) < 0) return "truncated header";
+        }
+        header.flip();
+        if (header.getInt() != MAGIC) return "not a snapshot";
+        if (header.getInt() != VERSION) return "unsupported version";
+        long lsn = header.getLong();
+        long dictOffset = header.getLong();
+        long end = header.getLong();
+        header.getLong(); // sale count
+        int expectedCrc = header.getInt();
+        if (end > size || dictOffset < HEADER || dictOffset > end) return "truncated body";
+        CRC32 crc = new CRC32();
+        for (long pos = HEADER; pos < end; pos += WINDOW) {
+            crc.update(ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, end - pos)));
+        }
+        if ((int) crc.getValue() != expectedCrc) return "checksum mismatch";
+        if (!Files.exists(journal)) return "journal " + journal + " is missing";
+        try (FileChannel jc = FileChannel.open(journal, StandardOpenOption.READ)) {
+            if (!SalesJournal.recordStartsAt(jc, lsn)) return "journal does not match (offset " + lsn + ")";
+        }
+        return null;
+    }
+
+    private static String[] dictionary(In in, long offset) throws IOException {
+        in.seek(offset);
+        in.ensure(4);
+        String[] names = new String[in.buf.getInt()];
+        for (int i = 0; i < names.length; i++) {
+            in.ensure(2 + 0xFFFF);
+            names[i] = in.string();
+        }
+        return names;
+    }
+
+    // Records go through the StoreDB import hooks in batches, like BulkIO rows
+    private static void apply(In in, String[] names) throws IOException {
+        in.seek(HEADER);
+        List<TransactionModule.Product> products = new ArrayList<>();
+        List<TransactionModule.Customer> customers = new ArrayList<>();
+        List<TransactionModule.Seller> sellers = new ArrayList<>();
+        List<TransactionModule.Sale> sales = new ArrayList<>(BulkIO.BATCH);
+        while (true) {
+            in.ensure(MAX_RECORD);
+            ByteBuffer b = in.buf;
+            byte tag = b.get();
+            switch (tag) {
+                case PRODUCT:
+                    products.add(new TransactionModule.Product(in.string(), in.string(), in.string(),
+                            b.getDouble(), b.getInt()));
+                    if (products.size() == BulkIO.BATCH) products = flushProducts(products);
+                    break;
+                case CUSTOMER:
+                    customers.add(new TransactionModule.Customer(in.string(), in.string(), in.string()));
+                    if (customers.size() == BulkIO.BATCH) customers = flushCustomers(customers);
+                    break;
+                case SELLER:
+                    sellers.add(new TransactionModule.Seller(in.string(), in.string()));
+                    if (sellers.size() == BulkIO.BATCH) sellers = flushSellers(sellers);
+                    break;
+                case USER: {
+                    TransactionModule.User u = new TransactionModule.User(in.string(), in.string(), in.string());
+                    TransactionModule.StoreDB.users.put(u.username, u);
+                    break;
+                }
+                case SALE: {
+                    long seq = b.getLong();
+                    String saleId = seq >= 0 ? "T" + seq : in.string();
+                    String product = name(names, b.getInt());
+                    String customer = name(names, b.getInt());
+                    String seller = name(names, b.getInt());
+                    int qty = b.getInt();
+                    double unitPrice = b.getDouble();
+                    LocalDateTime ts = LocalDateTime.ofEpochSecond(b.getLong(), b.getInt(), ZoneOffset.UTC);
+                    sales.add(new TransactionModule.Sale(saleId, product, customer, seller, qty, unitPrice, ts));
+                    if (sales.size() == BulkIO.BATCH) {
+                        TransactionModule.StoreDB.importSales(sales);
+                        sales.clear();
+                    }
+                    break;
+                }
+                case END:
+                    flushProducts(products);
+                    flushCustomers(customers);
+                    flushSellers(sellers);
+                    if (!sales.isEmpty()) TransactionModule.StoreDB.importSales(sales);
+                    return;
+                default:
+                    throw new IOException("Unknown snapshot record type " + tag);
+            }
+        }
+    }
+
+    // Entities come before sales, so imported sales always find their products
+    private static List<TransactionModule.Product> flushProducts(List<TransactionModule.Product> batch) {
+        if (!batch.isEmpty()) TransactionModule.StoreDB.importProducts(batch);
+        return new ArrayList<>();
+    }
+
+    private static List<TransactionModule.Customer> flushCustomers(List<TransactionModule.Customer> batch) {
+        if (!batch.isEmpty()) TransactionModule.StoreDB.importCustomers(batch);
+        return new ArrayList<>();
+    }
+
+    private static List<TransactionModule.Seller> flushSellers(List<TransactionModule.Seller> batch) {
+        if (!batch.isEmpty()) TransactionModule.StoreDB.importSellers(batch);
+        return new ArrayList<>();
+    }
+
+    private static String name(String[] names, int ref) {
+        return ref < 0 ? null : names[ref];
+    }
+
+    // Sequential reader over a read-only mapping of [pos, pos + WINDOW),
+    // remapped further along whenever a record might cross its end
+    private static final class In {
+        private final FileChannel ch;
+        private final long end;
+        private final byte[] scratch = new byte[0xFFFF];
+        private long base;
+        MappedByteBuffer buf;
+
+        In(FileChannel ch, long end) {
+            this.ch = ch;
+            this.end = end;
+        }
+
+        void seek(long pos) throws IOException {
+            base = pos;
+            buf = ch.map(FileChannel.MapMode.READ_ONLY, pos, Math.min(WINDOW, end - pos));
+        }
+
+        // Make the next `n` bytes (or all that are left) readable from `buf`
+        void ensure(int n) throws IOException {
+            if (buf.remaining() < n && base + buf.limit() < end) seek(base + buf.position());
+        }
+
+        String string() {
+            int len = buf.getShort() & 0xFFFF;
+            buf.get(scratch, 0, len);
+            return new String(scratch, 0, len, StandardCharsets.UTF_8);
+        }
+    }
+
+    // Write or load a snapshot for timing; `write` first fills StoreDB with
+    // synthetic sales and journals them so the snapshot has a journal to pair with.
+    // Usage: Snapshot write <sales> <journal> <snapshot> | Snapshot load <journal> <snapshot>
+    public static void main(String[] args) throws Exception {
+        if (args.length == 4 && args[0].equals("write")) {
+            int n = Integer.parseInt(args[1]);
+            Path journal = Paths.get(args[2]);
+            Files.deleteIfExists(journal);
+            TransactionModule.StoreDB.openJournal(journal, SalesJournal.Durability.INTERVAL, 100);
+            List<TransactionModule.Product> catalog = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++) {
+                catalog.add(new TransactionModule.Product("P" + i, "Product " + i, "Cat" + i % 20, 10 + i % 500,
+                        1_000_000));
+            }
+            TransactionModule.StoreDB.importProducts(catalog);
+            LocalDateTime start = LocalDateTime.now().minusDays(365);
+            List<TransactionModule.Sale> batch = new ArrayList<>(BulkIO.BATCH);
+            for (int i = 1; i <= n; i++) {
+                batch.add(new TransactionModule.Sale("T" + i, "P" + i % 10_000, "C" + i % 50_000, "S" + i % 40,
+                        1 + i % 5, 10 + i % 500, start.plusSeconds(i * 3L)));
+                if (batch.size() == BulkIO.BATCH || i == n) {
+                    TransactionModule.StoreDB.importSales(batch);
+                    batch = new ArrayList<>(BulkIO.BATCH);
+                }
+            }
+            TransactionModule.StoreDB.journal.sync();
+            System.out.println("Wrote " + write(Paths.get(args[3])));
+            TransactionModule.StoreDB.closeJournal();
+        } else if (args.length == 3 && args[0].equals("load")) {
+            long t0 = System.nanoTime();
+            TransactionModule.StoreDB.openJournal(Paths.get(args[1]), Paths.get(args[2]),
+                    SalesJournal.Durability.BATCH, 100);
+            System.out.printf("Loaded %,d sales in %.2f s%n", TransactionModule.StoreDB.salesColumns.size(),
+                    (System.nanoTime() - t0) / 1e9);
+            TransactionModule.StoreDB.closeJournal();
+        } else {
+            System.out.println("Usage: Snapshot write <sales> <journal> <snapshot> | load <journal> <snapshot>");
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package store;
+
+import org.junit.After;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+public class SnapshotTest {
+    private Path journal;
+    private Path snapshot;
+
+    @After
+    public void cleanUp() throws Exception {
+        TransactionModule.StoreDB.closeJournal();
+        if (journal != null) Files.deleteIfExists(journal);
+        if (snapshot != null) Files.deleteIfExists(snapshot);
+    }
+
+    private void forget(String pid, List<TransactionModule.Sale> sold) {
+        TransactionModule.StoreDB.products.remove(pid);
+        for (TransactionModule.Sale s : sold) TransactionModule.StoreDB.sales.remove(s.saleId);
+    }
+
+    @Test
+    public void startupLoadsSnapshotAndReplaysOnlyTheTail() throws Exception {
+        journal = Files.createTempFile("journal", ".log");
+        snapshot = Files.createTempFile("journal", ".snap");
+        Files.delete(snapshot);
+        String pid = "SN-" + System.nanoTime();
+        TransactionModule.StoreDB.openJournal(journal, snapshot, SalesJournal.Durability.COMMIT, 10);
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Snapshot Item", "Test", 5.0, 100));
+        List<TransactionModule.Sale> sold = new ArrayList<>();
+        for (int i = 0; i < 10; i++) sold.add(TransactionModule.StoreDB.recordSale(pid, "C001", "S002", 1));
+        Snapshot.Info info = Snapshot.write(snapshot);
+        assertEquals(Files.size(journal), info.lsn);
+        for (int i = 0; i < 5; i++) sold.add(TransactionModule.StoreDB.recordSale(pid, "C002", "S001", 2));
+        TransactionModule.StoreDB.closeJournal();
+
+        // Wreck the journal before the snapshot: a full replay would stop at the first record
+        try (FileChannel ch = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[] {0, 0, 0, 0}), 0);
+        }
+        forget(pid, sold);
+
+        TransactionModule.StoreDB.openJournal(journal, snapshot, SalesJournal.Durability.COMMIT, 10);
+        assertEquals(80, TransactionModule.StoreDB.products.get(pid).stock);
+        for (TransactionModule.Sale s : sold) {
+            TransactionModule.Sale restored = TransactionModule.StoreDB.sales.get(s.saleId);
+            assertNotNull(s.saleId, restored);
+            assertEquals(s.timestamp, restored.timestamp);
+            assertEquals(s.customerId, restored.customerId);
+            assertEquals(s.sellerId, restored.sellerId);
+        }
+    }
+
+    @Test
+    public void damagedSnapshotFallsBackToFullReplay() throws Exception {
+        journal = Files.createTempFile("journal", ".log");
+        snapshot = Files.createTempFile("journal", ".snap");
+        String pid = "SN-" + System.nanoTime();
+        TransactionModule.StoreDB.openJournal(journal, SalesJournal.Durability.COMMIT, 10);
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Snapshot Item", "Test", 5.0, 10));
+        List<TransactionModule.Sale> sold = new ArrayList<>();
+        sold.add(TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 3));
+        Snapshot.write(snapshot);
+        TransactionModule.StoreDB.closeJournal();
+
+        try (FileChannel ch = FileChannel.open(snapshot, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.wrap(new byte[] {42}), Files.size(snapshot) - 1);
+        }
+        forget(pid, sold);
+
+        TransactionModule.StoreDB.openJournal(journal, snapshot, SalesJournal.Durability.COMMIT, 10);
+        assertEquals(7, TransactionModule.StoreDB.products.get(pid).stock);
+        assertNotNull(TransactionModule.StoreDB.sales.get(sold.get(0).saleId));
+    }
+
+    @Test
+    public void snapshotTakenUnderLoadMissesNothing() throws Exception {
+        journal = Files.createTempFile("journal", ".log");
+        snapshot = Files.createTempFile("journal", ".snap");
+        String pid = "SN-" + System.nanoTime();
+        TransactionModule.StoreDB.openJournal(journal, SalesJournal.Durability.INTERVAL, 5);
+        TransactionModule.StoreDB.addProduct(
+                new TransactionModule.Product(pid, "Snapshot Item", "Test", 5.0, 1_000_000));
+        List<TransactionModule.Sale> sold = new ArrayList<>();
+        AtomicBoolean stop = new AtomicBoolean();
+        Thread seller = new Thread(() -> {
+            while (!stop.get()) {
+                TransactionModule.Sale s = TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 1);
+                synchronized (sold) {
+                    sold.add(s);
+                }
+            }
+        });
+        seller.start();
+        Thread.sleep(50);
+        Snapshot.Info info = Snapshot.write(snapshot);
+        Thread.sleep(50);
+        stop.set(true);
+        seller.join();
+        TransactionModule.StoreDB.closeJournal();
+        assertTrue(info.sales > 0);
+
+        forget(pid, sold);
+        TransactionModule.StoreDB.openJournal(journal, snapshot, SalesJournal.Durability.INTERVAL, 5);
+        assertEquals(1_000_000 - sold.size(), TransactionModule.StoreDB.products.get(pid).stock);
+        for (TransactionModule.Sale s : sold) assertNotNull(TransactionModule.StoreDB.sales.get(s.saleId));
+    }
+}
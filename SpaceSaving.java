@@ -0,0 +1,147 @@
+package store;
+
+import java.util.Arrays;
+
+// Space-Saving heavy-hitters sketch (Metwally et al.) over int keys.
+// Tracks at most `capacity` keys in fixed memory. Counts are overestimates by
+// at most error(key); when fewer than `capacity` distinct keys were offered,
+// every count is exact. Slots live in a min-heap by count, so offers cost O(log k).
+public class SpaceSaving {
+    private final int capacity;
+    private final int[] keys;
+    private final long[] counts;
+    private final long[] errors;
+    private final int[] heap;      // heap of slot numbers, smallest count first
+    private final int[] heapPos;   // slot -> position in heap
+    private final IntIntMap slotOf;
+    private int size;
+
+    public SpaceSaving(int capacity) {
+        this.capacity = capacity;
+        this.keys = new int[capacity];
+        this.counts = new long[capacity];
+        this.errors = new long[capacity];
+        this.heap = new int[capacity];
+        this.heapPos = new int[capacity];
+        this.slotOf = new IntIntMap(capacity);
+    }
+
+    public synchronized void offer(int key, long weight) {
+        int slot = slotOf.get(key);
+        if (slot < 0) {
+            if (size < capacity) {
+                slot = size;
+                heap[size] = slot;
+                heapPos[slot] = size;
+                size++;
+                counts[slot] = 0;
+                errors[slot] = 0;
+            } else {
+                // Evict the smallest key; the newcomer inherits its count as error
+                slot = heap[0];
+                slotOf.remove(keys[slot]);
+                errors[slot] = counts[slot];
+            }
+            keys[slot] = key;
+            slotOf.put(key, slot);
+        }
+        counts[slot] += weight;
+        siftDown(heapPos[slot]);
+    }
+
+    // True when every tracked count is exact (the sketch never evicted)
+    public synchronized boolean isExact() {
+        for (int i = 0; i < size; i++) if (errors[i] != 0) return false;
+        return true;
+    }
+
+    // Smallest tracked count: the most an untracked key could have been offered
+    public synchronized long minCount() {
+        return size < capacity ? 0 : counts[heap[0]];
+    }
+
+    public synchronized void clear() {
+        for (int i = 0; i < size; i++) slotOf.remove(keys[i]);
+        size = 0;
+    }
+
+    // Calls `v` for every tracked key with its count and error bound
+    public synchronized void forEach(Visitor v) {
+        for (int i = 0; i < size; i++) v.visit(keys[i], counts[i], errors[i]);
+    }
+
+    public interface Visitor {
+        void visit(int key, long count, long error);
+    }
+
+    private void siftDown(int pos) {
+        int slot = heap[pos];
+        long c = counts[slot];
+        while (true) {
+            int child = 2 * pos + 1;
+            if (child >= size) break;
+            if (child + 1 < size && counts[heap[child + 1]] < counts[heap[child]]) child++;
+            if (counts[heap[child]] >= c) break;
+            heap[pos] = heap[child];
+            heapPos[heap[pos]] = pos;
+            pos = child;
+        }
+        heap[pos] = slot;
+        heapPos[slot] = pos;
+    }
+
+    // Open-addressing int -> int map (linear probing, backward-shift delete)
+    static final class IntIntMap {
+        private static final int EMPTY = Integer.MIN_VALUE;
+        private final int[] k;
+        private final int[] v;
+        private final int mask;
+
+        IntIntMap(int expected) {
+            int cap = Integer.highestOneBit(Math.max(4, expected * 2) - 1) << 1;
+            k = new int[cap];
+            v = new int[cap];
+            mask = cap - 1;
+            Arrays.fill(k, EMPTY);
+        }
+
+        private int index(int key) {
+            int h = key * 0x9E3779B9;
+            return (h ^ (h >>> 16)) & mask;
+        }
+
+        // Value for `key`, or -1 if absent
+        int get(int key) {
+            for (int i = index(key); ; i = (i + 1) & mask) {
+                if (k[i] == key) return v[i];
+                if (k[i] == EMPTY) return -1;
+            }
+        }
+
+        void put(int key, int value) {
+            int i = index(key);
+            while (k[i] != EMPTY && k[i] != key) i = (i + 1) & mask;
+            k[i] = key;
+            v[i] = value;
+        }
+
+        void remove(int key) {
+            int i = index(key);
+            while (k[i] != key) {
+                if (k[i] == EMPTY) return;
+                i = (i + 1) & mask;
+            }
+            // Shift later entries of the probe run back into the hole
+            int hole = i;
+            for (int j = (hole + 1) & mask; k[j] != EMPTY; j = (j + 1) & mask) {
+                int home = index(k[j]);
+                if (((j - home) & mask) >= ((j - hole) & mask)) {
+                    k[hole] = k[j];
+                    v[hole] = v[j];
+                    hole = j;
+                }
+            }
+            k[hole] = EMPTY;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Secondary index ordering products by stock level, plus low-stock subscriptions.
+// Entries are (stock, ordinal) packed into one long, so "stock <= N" is a head-set
+// range query. StoreDB calls moved() under the product's stock lock, which keeps
+// the remove/add pair for one product ordered.
+// Subscribers fire once each time a product's stock crosses from above their level
+// to at or below it; restocking above the level re-arms them.
+public class StockIndex {
+    private static final long MAX_ORDINAL = 0xFFFFFFFFL;
+
+    private final SymbolTable ordinals = new SymbolTable();
+    private final ConcurrentSkipListSet<Long> byStock = new ConcurrentSkipListSet<>();
+    private final ConcurrentSkipListMap<Integer, List<Subscription>> subscriptions = new ConcurrentSkipListMap<>();
+
+    public interface StockListener {
+        void onLowStock(TransactionModule.Product p, int stock, int level);
+    }
+
+    public final class Subscription {
+        final int level;
+        final StockListener listener;
+
+        Subscription(int level, StockListener listener) {
+            this.level = level;
+            this.listener = listener;
+        }
+
+        public void cancel() {
+            List<Subscription> subs = subscriptions.get(level);
+            if (subs != null) subs.remove(this);
+        }
+    }
+
+    private static long key(int stock, int ordinal) {
+        return ((long) stock << 32) | (ordinal & MAX_ORDINAL);
+    }
+
+    // ===== Maintenance =====
+
+    public void add(TransactionModule.Product p) {
+        byStock.add(key(p.stock, ordinals.idOf(p.id)));
+    }
+
+    // Re-file `p` after its stock changed from `before` to `after`
+    public void moved(TransactionModule.Product p, int before, int after) {
+        if (before == after) return;
+        int ord = ordinals.idOf(p.id);
+        byStock.remove(key(before, ord));
+        byStock.add(key(after, ord));
+    }
+
+    // Fire subscriptions whose level the stock just crossed on the way down.
+    // Called after the stock lock is released; listeners should be quick.
+    public void notifyCrossings(TransactionModule.Product p, int before, int after) {
+        if (after >= before || subscriptions.isEmpty()) return;
+        // Levels L with after <= L < before
+        for (Map.Entry<Integer, List<Subscription>> e : subscriptions.subMap(after, true, before, false).entrySet()) {
+            for (Subscription s : e.getValue()) s.listener.onLowStock(p, after, s.level);
+        }
+    }
+
+    public Subscription subscribe(int level, StockListener listener) {
+        Subscription s = new Subscription(level, listener);
+        subscriptions.computeIfAbsent(level, l -> new CopyOnWriteArrayList<>()).add(s);
+        return s;
+    }
+
+    // ===== Queries =====
+
+    // IDs of products with stock <= level, lowest stock first
+    public List<String> atOrBelow(int level) {
+        NavigableSet<Long> range = byStock.headSet(key(level, (int) MAX_ORDINAL), true);
+        List<String> out = new ArrayList<>();
+        for (long k : range) out.add(ordinals.name((int) k));
+        return out;
+    }
+
+    public int countAtOrBelow(int level) {
+        return byStock.headSet(key(level, (int) MAX_ORDINAL), true).size();
+    }
+}
@@ -0,0 +1,56 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class StockIndexTest {
+
+    @Test
+    public void rangeQueryFollowsStockChanges() {
+        StockIndex index = new StockIndex();
+        TransactionModule.Product a = new TransactionModule.Product("A", "A", "Test", 1.0, 3);
+        TransactionModule.Product b = new TransactionModule.Product("B", "B", "Test", 1.0, 10);
+        TransactionModule.Product c = new TransactionModule.Product("C", "C", "Test", 1.0, 0);
+        index.add(a);
+        index.add(b);
+        index.add(c);
+
+        assertEquals(Arrays.asList("C", "A"), index.atOrBelow(5));
+        index.moved(b, 10, 2);
+        b.stock = 2;
+        assertEquals(Arrays.asList("C", "B", "A"), index.atOrBelow(5));
+        assertEquals(1, index.countAtOrBelow(0));
+        assertTrue(index.atOrBelow(-1).isEmpty());
+    }
+
+    @Test
+    public void subscriptionFiresOncePerCrossing() {
+        String pid = "LOW-" + System.nanoTime();
+        TransactionModule.StoreDB.addProduct(new TransactionModule.Product(pid, "Low Item", "Test", 1.0, 8));
+        List<Integer> fired = new ArrayList<>();
+        StockIndex.Subscription sub = TransactionModule.StoreDB.stockIndex.subscribe(5, (p, stock, level) -> {
+            if (p.id.equals(pid)) fired.add(stock);
+        });
+        try {
+            TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 2); // 6: above level
+            TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 2); // 4: crosses
+            TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 1); // 3: already below
+            assertEquals(Arrays.asList(4), fired);
+            assertTrue(TransactionModule.StoreDB.stockIndex.atOrBelow(3).contains(pid));
+
+            // Restock re-arms the subscription
+            TransactionModule.Product p = TransactionModule.StoreDB.products.get(pid);
+            TransactionModule.StoreDB.updateProduct(p, p.name, p.category, p.price, 20);
+            assertTrue(!TransactionModule.StoreDB.stockIndex.atOrBelow(5).contains(pid));
+            TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 16);
+            assertEquals(Arrays.asList(4, 4), fired);
+        } finally {
+            sub.cancel();
+        }
+    }
+}
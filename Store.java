@@ -0,0 +1,66 @@
+import store.StoreShards;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Store class
+class Store {
+    private String storeId;
+    private String storeName;
+    private double x, y;
+    private List<Item> inventory;
+
+    public Store(String storeId, String storeName) {
+        this(storeId, storeName, 0, 0);
+    }
+
+    public Store(String storeId, String storeName, double x, double y) {
+        this.storeId = storeId;
+        this.storeName = storeName;
+        this.x = x;
+        this.y = y;
+        inventory = new ArrayList<>();
+    }
+
+    public void addItem(Item item) {
+        inventory.add(item);
+    }
+
+    // Order from one warehouse; the returned order is ALLOCATED or BACKORDERED
+    public Order placeOrder(Warehouse warehouse, Item item, int quantity) {
+        Order order = new Order(storeId + "-" + System.nanoTime(), warehouse, this);
+        order.addItem(item, quantity);
+        new OrderAllocator(List.of(warehouse)).allocate(order, false);
+        System.out.println("Order for " + quantity + " units of " + item.getItemName() + " from "
+                + warehouse.getWarehouseName() + ": " + order.getStatus());
+        return order;
+    }
+
+    // Credit a shipped order to this store's shelf stock in the sharded chain;
+    // item codes are catalogue product IDs
+    public void receiveShipment(StoreShards chain, Order order) {
+        if (order.getStatus() != Order.Status.SHIPPED) {
+            throw new IllegalStateException("Order " + order.getOrderId() + " is " + order.getStatus());
+        }
+        for (Order.Line line : order.lines()) {
+            int units = line.allocated();
+            if (units > 0) chain.receive(storeId, line.item.getItemCode(), units).join();
+        }
+    }
+
+    public String getStoreId() {
+        return storeId;
+    }
+
+    public String getStoreName() {
+        return storeName;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public double getY() {
+        return y;
+    }
+}
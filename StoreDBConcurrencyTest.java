@@ -0,0 +1,90 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class StoreDBConcurrencyTest {
+    private static final int THREADS = 16;
+
+    @Test
+    public void concurrentSalesNeverOversell() throws Exception {
+        String pid = "STRESS-" + System.nanoTime();
+        TransactionModule.StoreDB.products.put(pid,
+                new TransactionModule.Product(pid, "Stress Item", "Test", 10.0, 1000));
+
+        AtomicInteger sold = new AtomicInteger();
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        runConcurrently(THREADS, 200, t -> {
+            TransactionModule.Sale s = TransactionModule.StoreDB.recordSale(pid, "C001", "S001", 1);
+            if (s != null) {
+                sold.incrementAndGet();
+                ids.add(s.saleId);
+            }
+        });
+
+        assertEquals(1000, sold.get());
+        assertEquals(0, TransactionModule.StoreDB.products.get(pid).stock);
+        assertEquals("duplicate sale IDs", 1000, ids.size());
+        for (String id : ids) {
+            assertNotNull(TransactionModule.StoreDB.sales.get(id));
+        }
+    }
+
+    @Test
+    public void salesOfDifferentProductsAreIndependent() throws Exception {
+        String prefix = "STRESS-" + System.nanoTime() + "-";
+        for (int t = 0; t < THREADS; t++) {
+            String pid = prefix + t;
+            TransactionModule.StoreDB.products.put(pid,
+                    new TransactionModule.Product(pid, "Item " + t, "Test", 1.0, 500));
+        }
+
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        runConcurrently(THREADS, 500, t -> {
+            TransactionModule.Sale s = TransactionModule.StoreDB.recordSale(prefix + t, "C001", "S001", 1);
+            assertNotNull(s);
+            assertTrue("duplicate sale ID " + s.saleId, ids.add(s.saleId));
+        });
+
+        for (int t = 0; t < THREADS; t++) {
+            assertEquals(0, TransactionModule.StoreDB.products.get(prefix + t).stock);
+        }
+        assertEquals(THREADS * 500, ids.size());
+    }
+
+    interface Step {
+        void run(int thread);
+    }
+
+    // Starts all threads together and runs `step` `perThread` times on each
+    static void runConcurrently(int threads, int perThread, Step step) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        Set<Throwable> errors = ConcurrentHashMap.newKeySet();
+        for (int t = 0; t < threads; t++) {
+            final int thread = t;
+            pool.execute(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < perThread; i++) step.run(thread);
+                } catch (Throwable e) {
+                    errors.add(e);
+                }
+            });
+        }
+        start.countDown();
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(60, TimeUnit.SECONDS));
+        assertTrue("worker failed: " + errors, errors.isEmpty());
+    }
+}
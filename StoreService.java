@@ -0,0 +1,667 @@
+package store;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Headless JSON service over StoreDB for POS terminals, on the JDK HTTP server.
+// Every request runs on its own virtual thread when the JVM has them (Java 21+);
+// older JVMs fall back to a fixed pool of -Dstore.service.threads platform threads.
+// Terminals log in once with POST /api/login and send the returned token as
+// "Authorization: Bearer <token>"; HTTP Basic still works but pays a full
+// password hash per request. Creating or updating products needs the admin
+// role, as on the dashboard. Request bodies are capped at MAX_BODY bytes (413)
+// and Json.MAX_DEPTH levels of nesting (400).
+//
+//   GET  /api/health
+//   POST /api/login      {username, password} -> {token, role, expiresAt}
+//   POST /api/logout     (revokes the bearer token)
+//   GET  /api/products?after=&limit=&category=   POST /api/products    (admin)
+//   GET  /api/products/{id}                  PUT  /api/products/{id}   (admin)
+//   GET  /api/customers/{id}                 POST /api/customers
+//   GET  /api/customers/{id}/history?limit=  (lifetime totals and latest purchases)
+//   GET  /api/search?q=&category=            GET  /api/suggest?prefix=&limit=
+//   POST /api/sales      {productId, customerId, quantity}
+//   POST /api/checkout   {customerId, lines: [{productId, quantity}]}
+//   GET  /api/sales?after=&limit=&seller=&customer=&product=&from=&to=
+//        (pages carry "next": pass it back as after= for the following page;
+//         offset= still works but walks every row before the page)
+//   GET  /api/reports/daily-revenue | sales-by-seller
+//   GET  /api/reports/top-products?n=&days=  GET  /api/reports/low-stock?threshold=
+//   GET  /api/reports/revenue-recent?minutes=&category=&seller=
+//   GET  /api/reports/top-customers?n=
+// Metrics are not served here: -Dstore.metrics.port starts Metrics' own
+// endpoint, bound to loopback.
+public class StoreService {
+    static final int MAX_PAGE = 1000;
+    static final int MAX_BODY = 1 << 20; // bytes; larger request bodies get 413
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    private StoreService(HttpServer server, ExecutorService executor) {
+        this.server = server;
+        this.executor = executor;
+    }
+
+    // Start serving on `port` (0 picks a free port)
+    public static StoreService start(int port) throws IOException {
+        // The JDK server closes keep-alive connections beyond 200 idle ones, which
+        // makes terminals reconnect (or fail a request) under load. Read once per JVM.
+        if (System.getProperty("sun.net.httpserver.maxIdleConnections") == null) {
+            System.setProperty("sun.net.httpserver.maxIdleConnections", "4096");
+        }
+        HttpServer server = HttpServer.create(new InetSocketAddress(port), 4096);
+        ExecutorService executor = newRequestExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/", StoreService::handle);
+        server.start();
+        return new StoreService(server, executor);
+    }
+
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // ===== Threads =====
+
+    // One virtual thread per task where available, else a fixed platform pool
+    static ExecutorService newRequestExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger n = new AtomicInteger();
+            return Executors.newFixedThreadPool(Integer.getInteger("store.service.threads", 256), r -> {
+                Thread t = new Thread(r, "store-http-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    static boolean virtualThreadsAvailable() {
+        try {
+            Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return true;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    // ===== Dispatch =====
+
+    // Carries an HTTP status out of a handler
+    static final class ApiException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+
+    private static final class Request {
+        final HttpExchange exchange;
+        final String method;
+        final String[] path; // segments after /api/
+        final Map<String, String> query;
+        final LoginModule.AuthResult user;
+
+        Request(HttpExchange exchange, String[] path, LoginModule.AuthResult user) {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            this.path = path;
+            this.query = parseQuery(exchange.getRequestURI().getRawQuery());
+            this.user = user;
+        }
+
+        Map<String, Object> body() throws IOException {
+            try (InputStream in = exchange.getRequestBody()) {
+                byte[] bytes = in.readNBytes(MAX_BODY + 1);
+                if (bytes.length > MAX_BODY) throw new ApiException(413, "Request body over " + MAX_BODY + " bytes.");
+                Object v = Json.parse(new String(bytes, StandardCharsets.UTF_8));
+                if (!(v instanceof Map)) throw new ApiException(400, "Expected a JSON object");
+                @SuppressWarnings("unchecked")
+                Map<String, Object> m = (Map<String, Object>) v;
+                return m;
+            } catch (IllegalArgumentException e) {
+                throw new ApiException(400, e.getMessage());
+            }
+        }
+
+        int intParam(String name, int dflt) {
+            String v = query.get(name);
+            if (v == null || v.isEmpty()) return dflt;
+            try {
+                return Integer.parseInt(v);
+            } catch (NumberFormatException e) {
+                throw new ApiException(400, "Bad number for " + name + ": " + v);
+            }
+        }
+
+        void requireAdmin() {
+            if (!"admin".equals(user.role)) throw new ApiException(403, "Admin only.");
+        }
+    }
+
+    private static void handle(HttpExchange ex) throws IOException {
+        long t0 = Metrics.start();
+        // Whatever a handler throws, the exchange is closed
+        try {
+            int status;
+            String body;
+            try {
+                String rest = ex.getRequestURI().getPath().substring("/api/".length());
+                String[] path = rest.isEmpty() ? new String[0] : rest.split("/");
+                boolean open = path.length == 1 && (path[0].equals("health") || path[0].equals("login"));
+                LoginModule.AuthResult user = open ? null : authenticate(ex);
+                StringBuilder sb = new StringBuilder(256);
+                status = route(new Request(ex, path, user), new Json.Writer(sb));
+                body = sb.toString();
+            } catch (ApiException e) {
+                status = e.status;
+                body = error(e.getMessage());
+            } catch (RuntimeException e) {
+                // The detail goes to the log, not to the client
+                System.out.println("Request failed: " + ex.getRequestMethod() + " " + ex.getRequestURI().getPath()
+                        + ": " + e);
+                status = 500;
+                body = error("Internal error.");
+            }
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (status == 401) ex.getResponseHeaders().set("WWW-Authenticate", "Basic realm=\"store\"");
+            ex.sendResponseHeaders(status, bytes.length);
+            try (OutputStream out = ex.getResponseBody()) {
+                out.write(bytes);
+            }
+        } finally {
+            ex.close();
+            Metrics.HTTP_REQUEST.recordSince(t0);
+        }
+    }
+
+    private static String error(String message) {
+        StringBuilder sb = new StringBuilder();
+        new Json.Writer(sb).beginObject().field("error", message).endObject();
+        return sb.toString();
+    }
+
+    private static LoginModule.AuthResult authenticate(HttpExchange ex) {
+        String header = ex.getRequestHeaders().getFirst("Authorization");
+        if (header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)) {
+            LoginModule.AuthResult auth = LoginModule.authenticate(header.substring(7).trim());
+            if (!auth.success) throw new ApiException(401, "Invalid or expired token.");
+            return auth;
+        }
+        if (header == null || !header.regionMatches(true, 0, "Basic ", 0, 6)) {
+            throw new ApiException(401, "Authentication required.");
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getDecoder().decode(header.substring(6).trim()), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(401, "Malformed credentials.");
+        }
+        int colon = decoded.indexOf(':');
+        LoginModule.AuthResult auth = colon < 0 ? null
+                : LoginModule.login(decoded.substring(0, colon), decoded.substring(colon + 1));
+        if (auth == null || !auth.success) throw new ApiException(401, "Invalid credentials.");
+        return auth;
+    }
+
+    // Returns the status; the body has been written to `out`
+    private static int route(Request r, Json.Writer out) throws IOException {
+        String[] p = r.path;
+        String first = p.length > 0 ? p[0] : "";
+        boolean get = r.method.equals("GET");
+        boolean post = r.method.equals("POST");
+        switch (first) {
+            case "health":
+                if (get) {
+                    out.beginObject().field("status", "ok").field("sales", TransactionModule.StoreDB.salesColumns.size())
+                            .endObject();
+                    return 200;
+                }
+                break;
+            case "login":
+                if (p.length == 1 && post) return login(r, out);
+                break;
+            case "logout":
+                if (p.length == 1 && post) {
+                    String header = r.exchange.getRequestHeaders().getFirst("Authorization");
+                    boolean revoked = header != null && header.regionMatches(true, 0, "Bearer ", 0, 7)
+                            && LoginModule.logout(header.substring(7).trim());
+                    out.beginObject().field("revoked", revoked).endObject();
+                    return 200;
+                }
+                break;
+            case "products":
+                if (p.length == 1 && get) return listProducts(r, out);
+                if (p.length == 1 && post) return createProduct(r, out);
+                if (p.length == 2 && get) return getProduct(p[1], out);
+                if (p.length == 2 && r.method.equals("PUT")) return updateProduct(r, p[1], out);
+                break;
+            case "customers":
+                if (p.length == 1 && post) return createCustomer(r, out);
+                if (p.length == 2 && get) return getCustomer(p[1], out);
+                if (p.length == 3 && get && p[2].equals("history")) return customerHistory(r, p[1], out);
+                break;
+            case "search":
+                if (get) {
+                    long t0 = Metrics.start();
+                    List<String> ids = TransactionModule.StoreDB.searchIndex.search(
+                            r.query.getOrDefault("q", ""), r.query.get("category"));
+                    Metrics.SEARCH.recordSince(t0);
+                    return productList(ids, r.intParam("limit", 100), out);
+                }
+                break;
+            case "suggest":
+                if (get) {
+                    long t0 = Metrics.start();
+                    List<String> ids = TransactionModule.StoreDB.searchIndex.suggest(
+                            r.query.getOrDefault("prefix", ""), Math.min(r.intParam("limit", 20), MAX_PAGE));
+                    Metrics.SUGGEST.recordSince(t0);
+                    return productList(ids, MAX_PAGE, out);
+                }
+                break;
+            case "sales":
+                if (p.length == 1 && post) return sell(r, out);
+                if (p.length == 1 && get) return listSales(r, out);
+                break;
+            case "checkout":
+                if (post) return checkout(r, out);
+                break;
+            case "reports":
+                if (get && p.length == 2) return report(r, p[1], out);
+                break;
+            default:
+                throw new ApiException(404, "No such resource: /api/" + String.join("/", p));
+        }
+        throw new ApiException(405, r.method + " not supported here.");
+    }
+
+    // ===== Sessions =====
+
+    private static int login(Request r, Json.Writer out) throws IOException {
+        Map<String, Object> b = r.body();
+        SessionCache.Session s = LoginModule.startSession(requiredString(b, "username"), string(b, "password", ""));
+        if (s == null) throw new ApiException(401, "Invalid credentials.");
+        out.beginObject().field("token", s.token).field("role", s.role)
+                .field("expiresAt", s.expiresAtMillis).endObject();
+        return 200;
+    }
+
+    // ===== Products and customers =====
+
+    private static int listProducts(Request r, Json.Writer out) {
+        int limit = Math.min(Math.max(1, r.intParam("limit", 100)), MAX_PAGE);
+        String after = cursor(r, TransactionModule.StoreDB.products);
+        Listings.Page<TransactionModule.Product> page = Listings.products(after, limit, r.query.get("category"));
+        out.beginObject().name("products").beginArray();
+        for (TransactionModule.Product p : page.rows) product(out, p);
+        out.endArray().field("next", page.next).endObject();
+        return 200;
+    }
+
+    // after=, or for older clients the key just before row offset=
+    private static String cursor(Request r, NavigableMap<String, ?> m) {
+        String after = r.query.get("after");
+        if (after != null && !after.isEmpty()) return after;
+        int offset = r.intParam("offset", 0);
+        if (offset <= 0) return null;
+        String key = null;
+        for (String k : m.keySet()) {
+            if (offset-- == 0) break;
+            key = k;
+        }
+        return key;
+    }
+
+    // Sales are rows in recording order, so an offset is a row number: the cursor
+    // is the last live sale before it
+    private static String saleCursor(Request r) {
+        String after = r.query.get("after");
+        if (after != null && !after.isEmpty()) return after;
+        SalesTable table = TransactionModule.StoreDB.sales;
+        int row = Math.min(r.intParam("offset", 0), table.columns().size()) - 1;
+        while (row >= 0 && !table.live(row)) row--;
+        return row < 0 ? null : table.saleId(row);
+    }
+
+    private static int productList(List<String> ids, int limit, Json.Writer out) {
+        out.beginObject().name("products").beginArray();
+        int n = 0;
+        for (String id : ids) {
+            if (n == limit) break;
+            TransactionModule.Product p = TransactionModule.StoreDB.products.get(id);
+            if (p == null) continue;
+            product(out, p);
+            n++;
+        }
+        out.endArray().field("total", ids.size()).endObject();
+        return 200;
+    }
+
+    private static int getProduct(String id, Json.Writer out) {
+        TransactionModule.Product p = TransactionModule.StoreDB.products.get(id);
+        if (p == null) throw new ApiException(404, "Product not found: " + id);
+        product(out, p);
+        return 200;
+    }
+
+    private static int createProduct(Request r, Json.Writer out) throws IOException {
+        r.requireAdmin();
+        Map<String, Object> b = r.body();
+        TransactionModule.Product p = new TransactionModule.Product(requiredString(b, "id"),
+                requiredString(b, "name"), string(b, "category", ""), number(b, "price"), (int) number(b, "stock"));
+        if (!TransactionModule.StoreDB.addProduct(p)) throw new ApiException(409, "Product ID already exists.");
+        product(out, p);
+        return 201;
+    }
+
+    private static int updateProduct(Request r, String id, Json.Writer out) throws IOException {
+        r.requireAdmin();
+        TransactionModule.Product p = TransactionModule.StoreDB.products.get(id);
+        if (p == null) throw new ApiException(404, "Product not found: " + id);
+        Map<String, Object> b = r.body();
+        // Omitted fields keep their current values
+        TransactionModule.StoreDB.updateProduct(p, string(b, "name", p.name), string(b, "category", p.category),
+                b.containsKey("price") ? number(b, "price") : p.price,
+                b.containsKey("stock") ? (int) number(b, "stock") : p.stock);
+        product(out, p);
+        return 200;
+    }
+
+    private static int createCustomer(Request r, Json.Writer out) throws IOException {
+        Map<String, Object> b = r.body();
+        TransactionModule.Customer c = TransactionModule.StoreDB.addCustomer(new TransactionModule.Customer(
+                requiredString(b, "id"), requiredString(b, "name"), string(b, "phone", "")));
+        customer(out, c);
+        return 201;
+    }
+
+    private static int getCustomer(String id, Json.Writer out) {
+        TransactionModule.Customer c = TransactionModule.StoreDB.customers.get(id);
+        if (c == null) throw new ApiException(404, "Customer not found: " + id);
+        customer(out, c);
+        return 200;
+    }
+
+    private static int customerHistory(Request r, String id, Json.Writer out) {
+        long t0 = Metrics.start();
+        CustomerIndex.Summary sum = TransactionModule.StoreDB.customerIndex.summary(id);
+        if (sum == null) {
+            if (!TransactionModule.StoreDB.customers.containsKey(id)) throw new ApiException(404, "Customer not found: " + id);
+            out.beginObject().field("id", id).field("sales", 0).name("purchases").beginArray().endArray().endObject();
+            return 200;
+        }
+        int limit = Math.min(Math.max(1, r.intParam("limit", 50)), MAX_PAGE);
+        out.beginObject().field("id", id).field("revenue", sum.revenue()).field("sales", sum.sales)
+                .field("units", sum.units).field("firstPurchase", sum.firstPurchase().toString())
+                .field("lastPurchase", sum.lastPurchase().toString());
+        if (sum.sales > 1) out.field("daysBetweenPurchases", sum.daysBetweenPurchases());
+        out.name("purchases").beginArray();
+        for (CustomerIndex.Purchase p : TransactionModule.StoreDB.customerIndex.history(id, limit)) {
+            out.beginObject().field("productId", p.productId).field("sellerId", p.sellerId)
+                    .field("quantity", p.quantity).field("unitPrice", p.priceMinor / 100.0)
+                    .field("timestamp", p.time().toString()).endObject();
+        }
+        out.endArray().endObject();
+        Metrics.CUSTOMER_HISTORY.recordSince(t0);
+        return 200;
+    }
+
+    // ===== Sales =====
+
+    private static int sell(Request r, Json.Writer out) throws IOException {
+        Map<String, Object> b = r.body();
+        String pid = requiredString(b, "productId");
+        int qty = (int) number(b, "quantity");
+        if (qty <= 0) throw new ApiException(400, "Quantity must be positive.");
+        if (!TransactionModule.StoreDB.products.containsKey(pid)) throw new ApiException(404, "Product not found: " + pid);
+        int[] stock = new int[1]; // as recordSale saw it, under the product lock
+        TransactionModule.Sale sale = TransactionModule.StoreDB.recordSale(pid,
+                requiredString(b, "customerId"), sellerFor(r), qty, stock);
+        if (sale == null) throw new ApiException(409, "Insufficient stock. Available: " + stock[0]);
+        sale(out, sale);
+        return 201;
+    }
+
+    private static int checkout(Request r, Json.Writer out) throws IOException {
+        Map<String, Object> b = r.body();
+        String cid = requiredString(b, "customerId");
+        String sellerId = sellerFor(r);
+        Object lines = b.get("lines");
+        if (!(lines instanceof List)) throw new ApiException(400, "Missing lines array.");
+        List<TransactionModule.SaleRequest> basket = new ArrayList<>();
+        for (Object o : (List<?>) lines) {
+            if (!(o instanceof Map)) throw new ApiException(400, "Each line must be an object.");
+            @SuppressWarnings("unchecked")
+            Map<String, Object> line = (Map<String, Object>) o;
+            basket.add(new TransactionModule.SaleRequest(requiredString(line, "productId"), cid, sellerId,
+                    (int) number(line, "quantity")));
+        }
+        TransactionModule.CheckoutResult result = TransactionModule.StoreDB.checkout(basket);
+        if (!result.success) throw new ApiException(409, result.error);
+        double total = 0;
+        out.beginObject().name("sales").beginArray();
+        for (TransactionModule.Sale s : result.sales) {
+            sale(out, s);
+            total += s.quantity * s.unitPrice;
+        }
+        out.endArray().field("total", total).endObject();
+        return 201;
+    }
+
+    private static int listSales(Request r, Json.Writer out) {
+        int limit = Math.min(Math.max(1, r.intParam("limit", 100)), MAX_PAGE);
+        Listings.SaleFilter filter = new Listings.SaleFilter().seller(r.query.get("seller"))
+                .customer(r.query.get("customer")).product(r.query.get("product"));
+        try {
+            String from = r.query.get("from");
+            String to = r.query.get("to");
+            if (from != null && !from.isEmpty()) filter.from(Listings.SaleFilter.time(from));
+            if (to != null && !to.isEmpty()) filter.to(Listings.SaleFilter.time(to));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+        Listings.Page<TransactionModule.Sale> page;
+        try {
+            page = Listings.sales(saleCursor(r), limit, filter);
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(400, e.getMessage());
+        }
+        out.beginObject().name("sales").beginArray();
+        for (TransactionModule.Sale s : page.rows) sale(out, s);
+        out.endArray().field("next", page.next).endObject();
+        return 200;
+    }
+
+    private static String sellerFor(Request r) {
+        String sid = TransactionModule.sellerIdForUser(r.user.username);
+        return sid == null ? "S001" : sid;
+    }
+
+    // ===== Reports =====
+
+    private static int report(Request r, String name, Json.Writer out) {
+        SalesColumns cols = TransactionModule.StoreDB.salesColumns;
+        switch (name) {
+            case "daily-revenue": {
+                long t0 = Metrics.start();
+                out.beginObject().name("days").beginArray();
+                for (Map.Entry<Integer, Long> e : TransactionModule.StoreDB.aggregates.revenueByDay().entrySet()) {
+                    out.beginObject().field("date", LocalDate.ofEpochDay(e.getKey()).toString())
+                            .field("revenue", e.getValue() / 100.0).endObject();
+                }
+                out.endArray().endObject();
+                Metrics.REPORT_DAILY_REVENUE.recordSince(t0);
+                return 200;
+            }
+            case "top-products": {
+                long t0 = Metrics.start();
+                int n = Math.min(Math.max(1, r.intParam("n", 10)), MAX_PAGE);
+                int days = r.intParam("days", 0);
+                TopProducts.Entry[] top = days > 0
+                        ? TransactionModule.StoreDB.topProducts.topForDays(n, (int) LocalDate.now().toEpochDay(), days)
+                        : TransactionModule.StoreDB.topProducts.top(n);
+                out.beginObject().name("products").beginArray();
+                for (TopProducts.Entry e : top) {
+                    String pid = cols.productIds.name(e.productId);
+                    TransactionModule.Product p = TransactionModule.StoreDB.products.get(pid);
+                    out.beginObject().field("id", pid).field("name", p != null ? p.name : null)
+                            .field("quantity", e.quantity).field("error", e.error).endObject();
+                }
+                out.endArray().endObject();
+                (days > 0 ? Metrics.REPORT_TOP_RECENT : Metrics.REPORT_TOP_PRODUCTS).recordSince(t0);
+                return 200;
+            }
+            case "revenue-recent": {
+                long t0 = Metrics.start();
+                int minutes = r.intParam("minutes", 15);
+                String category = r.query.get("category");
+                String seller = r.query.get("seller");
+                SalesRollups.Totals t;
+                try {
+                    t = category != null ? TransactionModule.StoreDB.rollups.lastForCategory(category, minutes)
+                            : seller != null ? TransactionModule.StoreDB.rollups.lastForSeller(seller, minutes)
+                            : TransactionModule.StoreDB.rollups.last(minutes);
+                } catch (IllegalArgumentException e) {
+                    throw new ApiException(400, e.getMessage());
+                }
+                out.beginObject().field("minutes", minutes).field("revenue", t.revenue())
+                        .field("units", t.units).field("sales", t.sales).endObject();
+                Metrics.REPORT_LIVE_REVENUE.recordSince(t0);
+                return 200;
+            }
+            case "top-customers": {
+                long t0 = Metrics.start();
+                int n = Math.min(Math.max(1, r.intParam("n", 10)), MAX_PAGE);
+                out.beginObject().name("customers").beginArray();
+                for (CustomerIndex.Summary s : TransactionModule.StoreDB.customerIndex.top(n)) customerSummary(out, s);
+                out.endArray().endObject();
+                Metrics.REPORT_TOP_CUSTOMERS.recordSince(t0);
+                return 200;
+            }
+            case "sales-by-seller": {
+                long t0 = Metrics.start();
+                long[] revenue = TransactionModule.StoreDB.aggregates.revenueBySeller();
+                out.beginObject().name("sellers").beginArray();
+                for (int id = 0; id < revenue.length; id++) {
+                    if (revenue[id] == 0) continue; // registered, but has not sold
+                    String sid = cols.sellerIds.name(id);
+                    TransactionModule.Seller s = TransactionModule.StoreDB.sellers.get(sid);
+                    out.beginObject().field("id", sid).field("name", s != null ? s.name : null)
+                            .field("revenue", revenue[id] / 100.0).endObject();
+                }
+                out.endArray().endObject();
+                Metrics.REPORT_SALES_BY_SELLER.recordSince(t0);
+                return 200;
+            }
+            case "low-stock": {
+                long t0 = Metrics.start();
+                int threshold = r.intParam("threshold", 5);
+                productList(TransactionModule.StoreDB.stockIndex.atOrBelow(threshold), MAX_PAGE, out);
+                Metrics.REPORT_LOW_INVENTORY.recordSince(t0);
+                return 200;
+            }
+            default:
+                throw new ApiException(404, "No such report: " + name);
+        }
+    }
+
+    // ===== Encoding =====
+
+    private static void product(Json.Writer out, TransactionModule.Product p) {
+        out.beginObject().field("id", p.id).field("name", p.name).field("category", p.category)
+                .field("price", p.price).field("stock", p.stock).endObject();
+    }
+
+    private static void customer(Json.Writer out, TransactionModule.Customer c) {
+        out.beginObject().field("id", c.id).field("name", c.name).field("phone", c.phone).endObject();
+    }
+
+    private static void customerSummary(Json.Writer out, CustomerIndex.Summary s) {
+        TransactionModule.Customer c = TransactionModule.StoreDB.customers.get(s.customerId);
+        out.beginObject().field("id", s.customerId).field("name", c != null ? c.name : null)
+                .field("revenue", s.revenue()).field("sales", s.sales).field("units", s.units)
+                .field("firstPurchase", s.firstPurchase().toString()).field("lastPurchase", s.lastPurchase().toString())
+                .endObject();
+    }
+
+    private static void sale(Json.Writer out, TransactionModule.Sale s) {
+        out.beginObject().field("saleId", s.saleId).field("productId", s.productId)
+                .field("customerId", s.customerId).field("sellerId", s.sellerId)
+                .field("quantity", s.quantity).field("unitPrice", s.unitPrice)
+                .field("total", s.quantity * s.unitPrice).field("timestamp", s.timestamp.toString()).endObject();
+    }
+
+    private static String requiredString(Map<String, Object> b, String key) {
+        Object v = b.get(key);
+        if (v == null || v.toString().trim().isEmpty()) throw new ApiException(400, "Missing " + key + ".");
+        return v.toString().trim();
+    }
+
+    private static String string(Map<String, Object> b, String key, String dflt) {
+        Object v = b.get(key);
+        return v == null ? dflt : v.toString();
+    }
+
+    private static double number(Map<String, Object> b, String key) {
+        Object v = b.get(key);
+        if (!(v instanceof Double)) throw new ApiException(400, "Missing or non-numeric " + key + ".");
+        return (Double) v;
+    }
+
+    private static Map<String, String> parseQuery(String raw) {
+        if (raw == null || raw.isEmpty()) return Collections.emptyMap();
+        Map<String, String> m = new HashMap<>();
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            String k = eq < 0 ? pair : pair.substring(0, eq);
+            String v = eq < 0 ? "" : pair.substring(eq + 1);
+            m.put(URLDecoder.decode(k, StandardCharsets.UTF_8), URLDecoder.decode(v, StandardCharsets.UTF_8));
+        }
+        return m;
+    }
+
+    // ===== Service mode =====
+
+    // java store.StoreService [port]   (default -Dstore.service.port, else 8080)
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : Integer.getInteger("store.service.port", 8080);
+        TransactionModule.StoreDB.seedDemoData();
+        TransactionModule.StoreDB.openPersistenceFromConfig();
+        TransactionModule.StoreDB.openJournalFromConfig();
+        Metrics.startFromConfig();
+        StoreService service = start(port);
+        System.out.println("Store service listening on port " + service.port()
+                + (virtualThreadsAvailable() ? " (virtual threads)" : " (platform thread pool)"));
+        // The server's dispatcher thread keeps the JVM running until Ctrl-C
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop, "store-service-stop"));
+    }
+}
@@ -0,0 +1,104 @@
+package store;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+// Local load test for StoreService: N concurrent POS clients against one JVM.
+// Each client loops over a mix of 60% search, 25% single sales, 10% product
+// lookups and 5% reports until the time is up.
+// Usage: java store.StoreServiceBenchmark [clients] [seconds] [products]
+public class StoreServiceBenchmark {
+    public static void main(String[] args) throws Exception {
+        int clients = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int products = args.length > 2 ? Integer.parseInt(args[2]) : 10_000;
+
+        TransactionModule.StoreDB.seedDemoData();
+        List<TransactionModule.Product> catalog = new ArrayList<>(products);
+        String[] words = {"rice", "tea", "soap", "oil", "milk", "flour", "masala", "biscuit"};
+        for (int i = 0; i < products; i++) {
+            catalog.add(new TransactionModule.Product("LP" + i, words[i % words.length] + " pack " + i,
+                    "Grocery", 10 + i % 200, 1_000_000_000));
+        }
+        TransactionModule.StoreDB.importProducts(catalog);
+
+        StoreService service = StoreService.start(0);
+        String base = "http://127.0.0.1:" + service.port() + "/api/";
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1)
+                .executor(StoreService.newRequestExecutor()).build();
+        // One login shared by all clients: a password hash per terminal would only
+        // measure PBKDF2 (see LoginBenchmark), not request handling
+        HttpResponse<String> login = client.send(HttpRequest.newBuilder(URI.create(base + "login"))
+                .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"rohan\",\"password\":\"seller123\"}"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        @SuppressWarnings("unchecked")
+        String auth = "Bearer " + ((Map<String, Object>) Json.parse(login.body())).get("token");
+
+        LatencyHistogram latency = new LatencyHistogram();
+        LongAdder errors = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+        long warmupEnd = System.nanoTime() + Math.min(5, seconds / 4) * 1_000_000_000L;
+        CountDownLatch done = new CountDownLatch(clients);
+        ExecutorService pool = StoreService.newRequestExecutor();
+        for (int c = 0; c < clients; c++) {
+            pool.execute(() -> {
+                try {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    while (System.nanoTime() < deadline) {
+                        HttpRequest req = request(base, auth, rnd, products);
+                        long t0 = System.nanoTime();
+                        int status;
+                        try {
+                            status = client.send(req, HttpResponse.BodyHandlers.discarding()).statusCode();
+                        } catch (Exception e) {
+                            status = -1;
+                        }
+                        if (t0 < warmupEnd) continue;
+                        latency.record(System.nanoTime() - t0);
+                        if (status < 200 || status >= 300) errors.increment();
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        pool.shutdownNow();
+        service.stop();
+
+        double measured = (deadline - warmupEnd) / 1e9;
+        long[] q = latency.percentiles(0.5, 0.99, 0.999);
+        System.out.printf("%d clients (%s), %d products, %.0f s measured%n", clients,
+                StoreService.virtualThreadsAvailable() ? "virtual threads" : "platform threads", products, measured);
+        System.out.printf("%,.0f requests/sec, %,d errors%n", latency.count() / measured, errors.sum());
+        System.out.printf("latency p50 %.2f ms, p99 %.2f ms, p99.9 %.2f ms, max %.2f ms%n",
+                q[0] / 1e6, q[1] / 1e6, q[2] / 1e6, latency.maxNanos() / 1e6);
+        System.exit(0);
+    }
+
+    private static HttpRequest request(String base, String auth, ThreadLocalRandom rnd, int products) {
+        int roll = rnd.nextInt(100);
+        String pid = "LP" + rnd.nextInt(products);
+        HttpRequest.Builder b;
+        if (roll < 60) {
+            b = HttpRequest.newBuilder(URI.create(base + "search?limit=20&q=pack+" + rnd.nextInt(100))).GET();
+        } else if (roll < 85) {
+            String json = "{\"productId\":\"" + pid + "\",\"customerId\":\"C001\",\"quantity\":1}";
+            b = HttpRequest.newBuilder(URI.create(base + "sales")).POST(HttpRequest.BodyPublishers.ofString(json));
+        } else if (roll < 95) {
+            b = HttpRequest.newBuilder(URI.create(base + "products/" + pid)).GET();
+        } else {
+            b = HttpRequest.newBuilder(URI.create(base + "reports/top-products?n=10")).GET();
+        }
+        return b.header("Authorization", auth).build();
+    }
+}
@@ -0,0 +1,150 @@
+package store;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class StoreServiceTest {
+    private static StoreService service;
+    private static final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+
+    @BeforeClass
+    public static void startService() throws Exception {
+        TransactionModule.StoreDB.seedDemoData();
+        service = StoreService.start(0);
+    }
+
+    @AfterClass
+    public static void stopService() {
+        service.stop();
+    }
+
+    private static final Map<String, String> tokens = new ConcurrentHashMap<>();
+
+    private static HttpResponse<String> send(String authorization, String method, String path, String json)
+            throws Exception {
+        HttpRequest.Builder b = HttpRequest.newBuilder(URI.create("http://127.0.0.1:" + service.port() + path));
+        if (authorization != null) b.header("Authorization", authorization);
+        b.method(method, json == null ? HttpRequest.BodyPublishers.noBody() : HttpRequest.BodyPublishers.ofString(json));
+        return client.send(b.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String login(String user, String password) throws Exception {
+        HttpResponse<String> r = send(null, "POST", "/api/login",
+                "{\"username\":\"" + user + "\",\"password\":\"" + password + "\"}");
+        assertEquals(200, r.statusCode());
+        return (String) body(r).get("token");
+    }
+
+    // Logs in once per user, like a terminal would, then sends the bearer token
+    private static HttpResponse<String> call(String user, String password, String method, String path, String json)
+            throws Exception {
+        if (user == null) return send(null, method, path, json);
+        String token = tokens.get(user);
+        if (token == null) {
+            token = login(user, password);
+            tokens.put(user, token);
+        }
+        return send("Bearer " + token, method, path, json);
+    }
+
+    private static String basic(String user, String password) {
+        return "Basic " + Base64.getEncoder().encodeToString((user + ":" + password).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HttpResponse<String> admin(String method, String path, String json) throws Exception {
+        return call("admin", "admin123", method, path, json);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> body(HttpResponse<String> r) {
+        return (Map<String, Object>) Json.parse(r.body());
+    }
+
+    @Test
+    public void productLifecycleAndSales() throws Exception {
+        String pid = "HTTP-" + System.nanoTime();
+        String create = "{\"id\":\"" + pid + "\",\"name\":\"Qwerty \\\"Mug\\\"\",\"category\":\"Kitchen\","
+                + "\"price\":120.5,\"stock\":5}";
+        assertEquals(403, call("rohan", "seller123", "POST", "/api/products", create).statusCode());
+        assertEquals(201, admin("POST", "/api/products", create).statusCode());
+        assertEquals(409, admin("POST", "/api/products", create).statusCode());
+        assertEquals("Qwerty \"Mug\"", body(admin("GET", "/api/products/" + pid, null)).get("name"));
+
+        HttpResponse<String> sold = call("rohan", "seller123", "POST", "/api/sales",
+                "{\"productId\":\"" + pid + "\",\"customerId\":\"C001\",\"quantity\":2}");
+        assertEquals(201, sold.statusCode());
+        assertEquals(241.0, (Double) body(sold).get("total"), 1e-9);
+        HttpResponse<String> refused = call("rohan", "seller123", "POST", "/api/sales",
+                "{\"productId\":\"" + pid + "\",\"customerId\":\"C001\",\"quantity\":4}");
+        assertEquals(409, refused.statusCode());
+        assertEquals("Insufficient stock. Available: 3", body(refused).get("error"));
+
+        HttpResponse<String> tooMany = admin("POST", "/api/checkout", "{\"customerId\":\"C002\",\"lines\":["
+                + "{\"productId\":\"" + pid + "\",\"quantity\":2},{\"productId\":\"" + pid + "\",\"quantity\":2}]}");
+        assertEquals(409, tooMany.statusCode());
+        assertEquals(3.0, (Double) body(admin("GET", "/api/products/" + pid, null)).get("stock"), 0);
+
+        assertEquals(200, admin("PUT", "/api/products/" + pid, "{\"stock\":40}").statusCode());
+        assertEquals(40, TransactionModule.StoreDB.products.get(pid).stock);
+
+        List<?> found = (List<?>) body(admin("GET", "/api/search?q=qwerty", null)).get("products");
+        assertEquals(1, found.size());
+        List<?> top = (List<?>) body(admin("GET", "/api/reports/top-products?n=1000&days=1", null)).get("products");
+        assertTrue(top.toString().contains(pid));
+
+        String idle = "HTTP-S" + System.nanoTime(); // registered, never sold
+        TransactionModule.StoreDB.addSeller(new TransactionModule.Seller(idle, "Idle"));
+        String sellers = body(admin("GET", "/api/reports/sales-by-seller", null)).get("sellers").toString();
+        assertTrue(sellers, sellers.contains("S001") && !sellers.contains(idle));
+    }
+
+    @Test
+    public void errorsAreJson() throws Exception {
+        assertEquals(200, call(null, null, "GET", "/api/health", null).statusCode());
+        HttpResponse<String> anonymous = call(null, null, "GET", "/api/products", null);
+        assertEquals(401, anonymous.statusCode());
+        assertEquals("Authentication required.", body(anonymous).get("error"));
+        assertEquals(401, send(basic("admin", "wrong"), "GET", "/api/products", null).statusCode());
+        assertEquals(404, admin("GET", "/api/products/NO-SUCH", null).statusCode());
+        assertEquals(404, admin("GET", "/api/nothing", null).statusCode());
+        assertEquals(400, admin("POST", "/api/sales", "{not json").statusCode());
+        assertEquals(405, admin("DELETE", "/api/sales", null).statusCode());
+        // Hostile bodies, before any login: deep nesting and oversized input
+        assertEquals(400, send(null, "POST", "/api/login", "[".repeat(200_000)).statusCode());
+        assertEquals(400, send(null, "POST", "/api/login",
+                "{\"a\":" + "[".repeat(Json.MAX_DEPTH) + "]".repeat(Json.MAX_DEPTH) + "}").statusCode());
+        assertEquals(413, send(null, "POST", "/api/login", " ".repeat(StoreService.MAX_BODY + 1)).statusCode());
+        // Last: the JDK server closes the connection after its own 404 for an unknown context
+        assertEquals(404, send(null, "GET", "/metrics", null).statusCode()); // loopback endpoint only
+    }
+
+    @Test
+    public void sessionsReplacePerRequestPasswordChecks() throws Exception {
+        assertEquals(200, send(basic("rohan", "seller123"), "GET", "/api/products", null).statusCode());
+        assertEquals(401, send(null, "POST", "/api/login",
+                "{\"username\":\"rohan\",\"password\":\"nope\"}").statusCode());
+        assertEquals(401, send(null, "POST", "/api/login",
+                "{\"username\":\"nobody\",\"password\":\"nope\"}").statusCode());
+
+        String token = login("rohan", "seller123");
+        assertEquals(200, send("Bearer " + token, "GET", "/api/products", null).statusCode());
+        assertEquals(403, send("Bearer " + token, "POST", "/api/products", "{}").statusCode());
+        assertEquals(true, body(send("Bearer " + token, "POST", "/api/logout", null)).get("revoked"));
+        HttpResponse<String> after = send("Bearer " + token, "GET", "/api/products", null);
+        assertEquals(401, after.statusCode());
+        assertEquals("Invalid or expired token.", body(after).get("error"));
+    }
+}
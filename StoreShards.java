@@ -0,0 +1,320 @@
+package store;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+// The chain's stores partitioned into shards by store ID. A shard holds the stock
+// and sales of the stores that hash to it and is owned by one thread: every sale,
+// stock change and report partial for those stores runs as a task on that thread.
+// Shard state therefore needs no locks, and stores in different shards never
+// contend. Callers get a CompletableFuture; outcomes are decided in submission
+// order on the owner.
+// Reports are scatter-gather. Each owner computes a partial over its own stores
+// from its ReportAggregates, and the coordinator merges them. Every shard encodes
+// through the process-wide SymbolTables, so per-product and per-seller partials
+// are arrays over the same IDs and merge index by index. A store's stock is a
+// map keyed by product symbol holding only the products that store carries, so
+// a store's footprint follows its own range, not the size of the catalogue.
+// Product definitions (name, category, price) stay in the chain-wide
+// StoreDB.products catalogue; only stock is per store. Shards are in-memory: the
+// journal, snapshots and write-behind cover the single-store StoreDB.
+public class StoreShards implements AutoCloseable {
+    private final Shard[] shards;
+
+    public StoreShards(int shardCount) {
+        if (shardCount < 1) throw new IllegalArgumentException("shardCount must be at least 1");
+        shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) shards[i] = new Shard(i);
+    }
+
+    // Stock of one product in one store; touched by the owning thread only
+    private static final class Level {
+        int units;
+    }
+
+    private final class Shard {
+        final int index;
+        final ExecutorService owner;
+        final SalesColumns cols = new SalesColumns(SymbolTable.PRODUCTS, SymbolTable.SELLERS, SymbolTable.CUSTOMERS);
+        final ReportAggregates aggregates = new ReportAggregates(cols);
+        final Map<String, Map<Integer, Level>> stock = new HashMap<>(); // store -> product symbol -> units
+        final Map<String, long[]> revenueByStore = new HashMap<>();  // store -> {minor units}
+        long seq;
+
+        Shard(int index) {
+            this.index = index;
+            this.owner = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "store-shard-" + index);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+
+        Level level(String storeId, String productId, boolean create) {
+            int id = create ? SymbolTable.PRODUCTS.idOf(productId) : SymbolTable.PRODUCTS.find(productId);
+            if (id < 0) return null;
+            Map<Integer, Level> store = stock.get(storeId);
+            if (store == null) {
+                if (!create) return null;
+                store = new HashMap<>();
+                stock.put(storeId, store);
+            }
+            Level l = store.get(id);
+            if (l == null && create) {
+                l = new Level();
+                store.put(id, l);
+            }
+            return l;
+        }
+
+        // Interleaved across shards, so IDs are unique chain-wide without a shared counter
+        String nextSaleId() {
+            return "T" + (seq++ * shards.length + index + 1);
+        }
+
+        TransactionModule.Sale sell(String storeId, String productId, String customerId, String sellerId, int qty) {
+            TransactionModule.Product p = TransactionModule.StoreDB.products.get(productId);
+            Level l = level(storeId, productId, false);
+            if (p == null || qty <= 0 || l == null || l.units < qty) {
+                Metrics.countFailedSale();
+                return null;
+            }
+            l.units -= qty;
+            TransactionModule.Sale sale = new TransactionModule.Sale(nextSaleId(), productId, customerId, sellerId,
+                    qty, p.price, LocalDateTime.now());
+            index(storeId, sale);
+            Metrics.countSales(1, qty);
+            return sale;
+        }
+
+        // All-or-nothing, trivially: nothing else touches these stores meanwhile
+        TransactionModule.CheckoutResult checkout(String storeId, List<TransactionModule.SaleRequest> basket) {
+            if (basket.isEmpty()) return new TransactionModule.CheckoutResult(false, Collections.emptyList(), "Empty basket.");
+            int n = basket.size();
+            TransactionModule.Product[] products = new TransactionModule.Product[n];
+            Level[] levels = new Level[n];
+            Map<Level, Integer> wanted = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                TransactionModule.SaleRequest r = basket.get(i);
+                products[i] = TransactionModule.StoreDB.products.get(r.productId);
+                levels[i] = level(storeId, r.productId, false);
+                String error = null;
+                if (products[i] == null) error = "product not found: " + r.productId;
+                else if (levels[i] == null) error = r.productId + " is not stocked at " + storeId;
+                else if (r.quantity <= 0) error = "invalid quantity " + r.quantity;
+                if (error != null) {
+                    Metrics.countFailedSale();
+                    return new TransactionModule.CheckoutResult(false, Collections.emptyList(),
+                            "Line " + (i + 1) + ": " + error);
+                }
+                int total = wanted.merge(levels[i], r.quantity, Integer::sum);
+                if (total > levels[i].units) {
+                    Metrics.countFailedSale();
+                    return new TransactionModule.CheckoutResult(false, Collections.emptyList(),
+                            "Insufficient stock for " + r.productId + ". Available: " + levels[i].units);
+                }
+            }
+            LocalDateTime now = LocalDateTime.now();
+            List<TransactionModule.Sale> sold = new ArrayList<>(n);
+            long units = 0;
+            for (int i = 0; i < n; i++) {
+                TransactionModule.SaleRequest r = basket.get(i);
+                levels[i].units -= r.quantity;
+                units += r.quantity;
+                sold.add(new TransactionModule.Sale(nextSaleId(), r.productId, r.customerId, r.sellerId,
+                        r.quantity, products[i].price, now));
+            }
+            int firstRow = cols.appendAll(sold);
+            aggregates.onSales(sold, firstRow);
+            long[] revenue = revenueOf(storeId);
+            for (int i = 0; i < n; i++) revenue[0] += cols.priceMinor(firstRow + i) * cols.quantity(firstRow + i);
+            Metrics.countSales(n, units);
+            return new TransactionModule.CheckoutResult(true, sold, null);
+        }
+
+        void index(String storeId, TransactionModule.Sale sale) {
+            int row = cols.append(sale);
+            aggregates.onSale(sale, row);
+            revenueOf(storeId)[0] += cols.priceMinor(row) * cols.quantity(row);
+        }
+
+        long[] revenueOf(String storeId) {
+            long[] r = revenueByStore.get(storeId);
+            if (r == null) {
+                r = new long[1];
+                revenueByStore.put(storeId, r);
+            }
+            return r;
+        }
+
+        <T> CompletableFuture<T> submit(Supplier<T> task) {
+            return CompletableFuture.supplyAsync(task, owner);
+        }
+    }
+
+    public int shardCount() {
+        return shards.length;
+    }
+
+    // Which shard owns `storeId`
+    public int shardOf(String storeId) {
+        int h = storeId.hashCode();
+        return Math.floorMod(h ^ (h >>> 16), shards.length);
+    }
+
+    private Shard owner(String storeId) {
+        return shards[shardOf(storeId)];
+    }
+
+    public SymbolTable productIds() {
+        return SymbolTable.PRODUCTS;
+    }
+
+    public SymbolTable sellerIds() {
+        return SymbolTable.SELLERS;
+    }
+
+    // ===== Routed operations =====
+
+    // Add (or with a negative count, remove) units of a catalogue product at a store
+    public CompletableFuture<Integer> receive(String storeId, String productId, int units) {
+        Shard s = owner(storeId);
+        return s.submit(() -> {
+            Level l = s.level(storeId, productId, true);
+            l.units = Math.max(0, l.units + units);
+            return l.units;
+        });
+    }
+
+    public CompletableFuture<Integer> stock(String storeId, String productId) {
+        Shard s = owner(storeId);
+        return s.submit(() -> {
+            Level l = s.level(storeId, productId, false);
+            return l == null ? 0 : l.units;
+        });
+    }
+
+    // Completes with the sale, or null if the product is unknown or out of stock at the store
+    public CompletableFuture<TransactionModule.Sale> sell(String storeId, String productId, String customerId,
+                                                          String sellerId, int qty) {
+        Shard s = owner(storeId);
+        return s.submit(() -> s.sell(storeId, productId, customerId, sellerId, qty));
+    }
+
+    public CompletableFuture<TransactionModule.CheckoutResult> checkout(String storeId,
+                                                                        List<TransactionModule.SaleRequest> basket) {
+        Shard s = owner(storeId);
+        List<TransactionModule.SaleRequest> lines = new ArrayList<>(basket);
+        return s.submit(() -> s.checkout(storeId, lines));
+    }
+
+    // ===== Scatter-gather reports =====
+
+    // One partial per shard, computed on the owners in parallel
+    private <T> List<T> gather(Function<Shard, T> partial) {
+        List<CompletableFuture<T>> pending = new ArrayList<>(shards.length);
+        for (Shard s : shards) pending.add(s.submit(() -> partial.apply(s)));
+        List<T> out = new ArrayList<>(shards.length);
+        for (CompletableFuture<T> f : pending) out.add(f.join());
+        return out;
+    }
+
+    private static long[] sum(List<long[]> parts) {
+        int n = 0;
+        for (long[] p : parts) n = Math.max(n, p.length);
+        long[] out = new long[n];
+        for (long[] p : parts) {
+            for (int i = 0; i < p.length; i++) out[i] += p[i];
+        }
+        return out;
+    }
+
+    // Epoch day -> revenue in minor units, ascending by day
+    public Map<Integer, Long> revenueByDay() {
+        Map<Integer, Long> out = new TreeMap<>();
+        for (Map<Integer, Long> part : gather(s -> s.aggregates.revenueByDay())) {
+            part.forEach((day, revenue) -> out.merge(day, revenue, Long::sum));
+        }
+        return out;
+    }
+
+    // Units per productIds() ID
+    public long[] quantityByProduct() {
+        return sum(gather(s -> s.aggregates.quantityByProduct()));
+    }
+
+    // Revenue (minor units) per sellerIds() ID
+    public long[] revenueBySeller() {
+        return sum(gather(s -> s.aggregates.revenueBySeller()));
+    }
+
+    // Store ID -> revenue in minor units, by store ID
+    public Map<String, Long> revenueByStore() {
+        Map<String, Long> out = new TreeMap<>();
+        for (Map<String, Long> part : gather(s -> {
+            Map<String, Long> m = new HashMap<>();
+            s.revenueByStore.forEach((store, r) -> m.put(store, r[0]));
+            return m;
+        })) {
+            out.putAll(part); // a store lives in exactly one shard
+        }
+        return out;
+    }
+
+    // Top `n` products by units across every store; IDs are productIds() IDs
+    public TopProducts.Entry[] topProducts(int n) {
+        long[] qty = quantityByProduct();
+        TopProducts.Ranking r = new TopProducts.Ranking(n);
+        for (int id = 0; id < qty.length; id++) {
+            if (qty[id] > 0) r.offer(id, qty[id], 0);
+        }
+        return r.result();
+    }
+
+    // Store ID -> product IDs with at most `threshold` units there, both sorted
+    public Map<String, List<String>> lowStock(int threshold) {
+        Map<String, List<String>> out = new TreeMap<>();
+        for (Map<String, List<String>> part : gather(s -> {
+            Map<String, List<String>> m = new HashMap<>();
+            s.stock.forEach((store, levels) -> levels.forEach((id, l) -> {
+                if (l.units <= threshold) {
+                    m.computeIfAbsent(store, k -> new ArrayList<>()).add(SymbolTable.PRODUCTS.name(id));
+                }
+            }));
+            return m;
+        })) {
+            part.forEach((store, ids) -> {
+                Collections.sort(ids);
+                out.put(store, ids);
+            });
+        }
+        return out;
+    }
+
+    public long salesCount() {
+        long n = 0;
+        for (int rows : gather(s -> s.cols.size())) n += rows;
+        return n;
+    }
+
+    @Override
+    public void close() {
+        for (Shard s : shards) s.owner.shutdown();
+        try {
+            for (Shard s : shards) s.owner.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
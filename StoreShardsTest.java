@@ -0,0 +1,147 @@
+package store;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class StoreShardsTest {
+    private static final String[] PRODUCTS = {"SH-P1", "SH-P2", "SH-P3", "SH-P4"};
+    private final List<StoreShards> open = new ArrayList<>();
+
+    @Before
+    public void catalogue() {
+        for (int i = 0; i < PRODUCTS.length; i++) {
+            TransactionModule.StoreDB.addProduct(new TransactionModule.Product(
+                    PRODUCTS[i], "Shard item " + i, "Shard", 1.25 * (i + 1), 0));
+        }
+    }
+
+    @After
+    public void closeShards() {
+        for (StoreShards s : open) s.close();
+    }
+
+    private StoreShards shards(int n, int stores, int unitsEach) {
+        StoreShards chain = new StoreShards(n);
+        open.add(chain);
+        for (int s = 0; s < stores; s++) {
+            for (String pid : PRODUCTS) chain.receive("ST" + s, pid, unitsEach).join();
+        }
+        return chain;
+    }
+
+    @Test
+    public void concurrentSalesNeverOversellAStore() throws Exception {
+        StoreShards chain = shards(4, 16, 50);
+        Set<String> ids = ConcurrentHashMap.newKeySet();
+        Thread[] ts = new Thread[8];
+        for (int t = 0; t < ts.length; t++) {
+            final int id = t;
+            ts[t] = new Thread(() -> {
+                List<CompletableFuture<TransactionModule.Sale>> pending = new ArrayList<>();
+                for (int i = 0; i < 2000; i++) {
+                    pending.add(chain.sell("ST" + ((i + id) % 16), PRODUCTS[i % PRODUCTS.length], "C001", "S00" + (i % 3), 1));
+                }
+                for (CompletableFuture<TransactionModule.Sale> f : pending) {
+                    TransactionModule.Sale s = f.join();
+                    if (s != null) assertTrue("duplicate " + s.saleId, ids.add(s.saleId));
+                }
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        // 16 stores x 4 products x 50 units, and 16,000 attempts to take them
+        assertEquals(16 * 4 * 50, ids.size());
+        assertEquals(16 * 4 * 50, chain.salesCount());
+        for (int s = 0; s < 16; s++) {
+            for (String pid : PRODUCTS) assertEquals(0, (int) chain.stock("ST" + s, pid).join());
+        }
+        assertNull(chain.sell("ST0", PRODUCTS[0], "C001", "S001", 1).join());
+        assertEquals(16, chain.lowStock(0).size());
+    }
+
+    @Test
+    public void scatterGatherMatchesOneShard() {
+        StoreShards one = shards(1, 12, 1000);
+        StoreShards many = shards(5, 12, 1000);
+        for (StoreShards chain : Arrays.asList(one, many)) {
+            List<CompletableFuture<?>> pending = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                pending.add(chain.sell("ST" + (i * 7 % 12), PRODUCTS[i % 4], "C00" + (i % 5), "S-" + (i % 4), 1 + i % 3));
+            }
+            pending.forEach(CompletableFuture::join);
+        }
+        assertEquals(one.salesCount(), many.salesCount());
+        assertEquals(one.revenueByDay(), many.revenueByDay());
+        assertEquals(one.revenueByStore(), many.revenueByStore());
+        assertEquals(12, many.revenueByStore().size());
+        assertArrayEquals(byName(one, one.quantityByProduct()), byName(many, many.quantityByProduct()));
+        TopProducts.Entry[] a = one.topProducts(2);
+        TopProducts.Entry[] b = many.topProducts(2);
+        assertEquals(2, b.length);
+        for (int i = 0; i < a.length; i++) assertEquals(a[i].quantity, b[i].quantity); // ties may rank by different IDs
+        long total = 0;
+        for (long r : many.revenueBySeller()) total += r;
+        long byStore = 0;
+        for (long r : many.revenueByStore().values()) byStore += r;
+        assertEquals(byStore, total);
+    }
+
+    // Units per product, in catalogue order (dictionary IDs differ between chains)
+    private static long[] byName(StoreShards chain, long[] byId) {
+        long[] out = new long[PRODUCTS.length];
+        for (int i = 0; i < PRODUCTS.length; i++) {
+            int id = chain.productIds().find(PRODUCTS[i]);
+            out[i] = id < 0 || id >= byId.length ? 0 : byId[id];
+        }
+        return out;
+    }
+
+    @Test
+    public void checkoutIsAllOrNothingWithinAStore() {
+        StoreShards chain = shards(3, 2, 5);
+        List<TransactionModule.SaleRequest> basket = Arrays.asList(
+                new TransactionModule.SaleRequest(PRODUCTS[0], "C001", "S001", 3),
+                new TransactionModule.SaleRequest(PRODUCTS[1], "C001", "S001", 2),
+                new TransactionModule.SaleRequest(PRODUCTS[0], "C001", "S001", 3));
+        TransactionModule.CheckoutResult failed = chain.checkout("ST0", basket).join();
+        assertFalse(failed.success);
+        assertTrue(failed.error, failed.error.startsWith("Insufficient stock for " + PRODUCTS[0]));
+        assertEquals(5, (int) chain.stock("ST0", PRODUCTS[0]).join());
+
+        TransactionModule.CheckoutResult ok = chain.checkout("ST0", basket.subList(0, 2)).join();
+        assertTrue(ok.success);
+        assertEquals(2, ok.sales.size());
+        assertEquals(2, (int) chain.stock("ST0", PRODUCTS[0]).join());
+        assertEquals(5, (int) chain.stock("ST1", PRODUCTS[0]).join());
+        Map<String, Long> revenue = chain.revenueByStore();
+        assertEquals(Long.valueOf(3 * 125 + 2 * 250), revenue.get("ST0"));
+        assertFalse(chain.checkout("ST9", basket.subList(0, 1)).join().success); // nothing stocked there
+    }
+
+    @Test
+    public void storesSpreadOverShards() {
+        StoreShards chain = shards(4, 0, 0);
+        Set<Integer> used = new HashSet<>();
+        for (int s = 0; s < 64; s++) {
+            int shard = chain.shardOf("ST" + s);
+            assertEquals(shard, chain.shardOf("ST" + s));
+            used.add(shard);
+        }
+        assertEquals(4, used.size());
+    }
+}
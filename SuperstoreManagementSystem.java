@@ -7,7 +7,7 @@ public class SuperstoreManagementSystem {
         // Create warehouse and items
         Warehouse warehouse = new Warehouse("WH001", "Main Warehouse");
         Item item1 = new Item("Laptop", "E001", 100, 2000, 50);
-        warehouse.addItem(item1);
+        warehouse.addItem(item1, 500);
 
         // Create store
         Store store = new Store("ST001", "City Store");
@@ -0,0 +1,92 @@
+package store;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// String <-> dense int encoding; IDs are assigned in first-seen order from 0.
+// Keys live once, in `names`; the hash index is an open-addressing table of
+// (id + 1) ints, so a key costs a String reference and about two ints rather
+// than a map node and a boxed Integer.
+// Lookups are lock-free. A writer stores the name, then publishes its slot with
+// a volatile set; a reader that sees the slot therefore sees the name. Growth
+// builds a fresh table and swaps it in whole. Adds serialise on the table.
+//
+// PRODUCTS, CUSTOMERS and SELLERS are the process-wide tables: domain objects
+// intern their IDs through them when built (CLI, import, API, replay), so every
+// sale of a product shares one ID string, and StoreDB's columns, indexes and
+// aggregates key on the same ints. Names are resolved back only for display.
+public final class SymbolTable {
+    public static final SymbolTable PRODUCTS = new SymbolTable();
+    public static final SymbolTable CUSTOMERS = new SymbolTable();
+    public static final SymbolTable SELLERS = new SymbolTable();
+
+    private volatile AtomicIntegerArray slots = new AtomicIntegerArray(32);
+    private volatile String[] names = new String[16];
+    private volatile int size;
+
+    // ID for `key`, assigning the next one if it is new
+    public int idOf(String key) {
+        int id = find(key);
+        return id >= 0 ? id : add(key);
+    }
+
+    // ID for `key`, or -1 if it was never seen (or is null)
+    public int find(String key) {
+        if (key == null) return -1;
+        AtomicIntegerArray t = slots;
+        int mask = t.length() - 1;
+        for (int i = spread(key.hashCode()) & mask; ; i = (i + 1) & mask) {
+            int s = t.get(i);
+            if (s == 0) return -1;
+            if (key.equals(names[s - 1])) return s - 1;
+        }
+    }
+
+    // The table's own copy of `key`, adding it if new; null stays null
+    public String intern(String key) {
+        if (key == null) return null;
+        int id = idOf(key); // before reading `names`, which an add may replace
+        return names[id];
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private synchronized int add(String key) {
+        int id = find(key);
+        if (id >= 0) return id;
+        int next = size;
+        if (next == names.length) names = Arrays.copyOf(names, next * 2);
+        names[next] = key;
+        AtomicIntegerArray t = slots;
+        if ((next + 1) * 2 > t.length()) t = rehash(t.length() * 2, next);
+        insert(t, key, next);
+        slots = t;
+        size = next + 1;
+        return next;
+    }
+
+    // A table of `capacity` slots holding IDs [0, count)
+    private AtomicIntegerArray rehash(int capacity, int count) {
+        AtomicIntegerArray t = new AtomicIntegerArray(capacity);
+        for (int id = 0; id < count; id++) insert(t, names[id], id);
+        return t;
+    }
+
+    private static void insert(AtomicIntegerArray t, String key, int id) {
+        int mask = t.length() - 1;
+        int i = spread(key.hashCode()) & mask;
+        while (t.get(i) != 0) i = (i + 1) & mask;
+        t.set(i, id + 1);
+    }
+
+    private static int spread(int h) {
+        int x = h * 0x9E3779B9;
+        return x ^ (x >>> 16);
+    }
+}
@@ -0,0 +1,122 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class SymbolTableTest {
+
+    @Test
+    public void idsAreDenseInFirstSeenOrder() {
+        SymbolTable t = new SymbolTable();
+        assertEquals(-1, t.find("P1"));
+        assertEquals(0, t.idOf("P1"));
+        assertEquals(1, t.idOf("P2"));
+        assertEquals(0, t.idOf("P1"));
+        assertEquals(1, t.find("P2"));
+        assertEquals(-1, t.find(null));
+        for (int i = 0; i < 100_000; i++) t.idOf("K" + i); // many table growths
+        assertEquals(100_002, t.size());
+        for (int i = 0; i < 100_000; i += 997) {
+            assertEquals(i + 2, t.find("K" + i));
+            assertEquals("K" + i, t.name(i + 2));
+        }
+        assertEquals("P2", t.name(1));
+    }
+
+    @Test
+    public void internReturnsOneCopyPerKey() {
+        SymbolTable t = new SymbolTable();
+        String first = t.intern(new String("C001"));
+        assertSame(first, t.intern(new String("C001")));
+        assertSame(first, t.name(t.find("C001")));
+        assertNull(t.intern(null));
+    }
+
+    @Test
+    public void concurrentAddsAssignEachKeyOnce() throws Exception {
+        SymbolTable t = new SymbolTable();
+        int keys = 20_000;
+        int[][] seen = new int[8][keys];
+        Thread[] ts = new Thread[seen.length];
+        for (int k = 0; k < ts.length; k++) {
+            final int[] ids = seen[k];
+            final int offset = k * 1000;
+            ts[k] = new Thread(() -> {
+                for (int i = 0; i < keys; i++) {
+                    int key = (i + offset) % keys;
+                    ids[key] = t.idOf("S" + key);
+                }
+            });
+            ts[k].start();
+        }
+        for (Thread th : ts) th.join();
+        assertEquals(keys, t.size());
+        for (int key = 0; key < keys; key++) {
+            for (int[] ids : seen) assertEquals(seen[0][key], ids[key]);
+            assertEquals("S" + key, t.name(seen[0][key]));
+        }
+    }
+
+    @Test
+    public void salesShareInternedIdsAndArriveEncoded() {
+        LocalDateTime now = LocalDateTime.now();
+        String pid = "SY-P" + System.nanoTime();
+        TransactionModule.Sale a = new TransactionModule.Sale("T1", new String(pid), new String("SY-C1"), "S001", 1, 2.0, now);
+        TransactionModule.Sale b = new TransactionModule.Sale("T2", new String(pid), new String("SY-C1"), "S001", 3, 2.0, now);
+        assertSame(a.productId, b.productId);
+        assertSame(a.customerId, b.customerId);
+        assertSame(SymbolTable.PRODUCTS.intern(pid), a.productId);
+
+        SalesColumns shared = new SalesColumns(SymbolTable.PRODUCTS, SymbolTable.SELLERS, SymbolTable.CUSTOMERS);
+        int row = shared.append(b);
+        assertEquals(SymbolTable.PRODUCTS.find(pid), shared.product(row));
+        assertEquals(SymbolTable.CUSTOMERS.find("SY-C1"), shared.customer(row));
+
+        SalesColumns own = new SalesColumns(); // private tables number from 0
+        assertEquals(0, own.product(own.append(a)));
+    }
+
+    @Test
+    public void salesTableRebuildsSalesFromTheirRows() {
+        LocalDateTime when = LocalDateTime.of(2024, 5, 1, 10, 30, 15, 123_456_789);
+        SalesTable t = new SalesTable(new SalesColumns());
+        TransactionModule.Sale generated = new TransactionModule.Sale("T70000", "P1", "C1", "S1", 2, 19.99, when);
+        TransactionModule.Sale imported = new TransactionModule.Sale("POS-7", "P1", null, null, 1, 5.0, when);
+        TransactionModule.Sale huge = new TransactionModule.Sale("T" + Long.MAX_VALUE, "P2", "C2", "S1", 1, 1.0, when);
+        List<TransactionModule.Sale> fresh = new ArrayList<>();
+        assertEquals(0, t.addNew(Arrays.asList(generated, imported, generated, huge), fresh));
+        assertEquals(Arrays.asList(generated, imported, huge), fresh);
+        assertEquals(-1, t.add(imported));
+        assertEquals(3, t.size());
+
+        for (TransactionModule.Sale s : fresh) {
+            TransactionModule.Sale back = t.get(s.saleId);
+            assertEquals(s.saleId, back.saleId);
+            assertEquals(s.productId, back.productId);
+            assertEquals(s.customerId, back.customerId);
+            assertEquals(s.sellerId, back.sellerId);
+            assertEquals(s.quantity, back.quantity);
+            assertEquals(s.unitPrice, back.unitPrice, 0);
+            assertEquals(when, back.timestamp);
+        }
+        assertNull(t.get("T70001"));
+        assertNull(t.get("T070000")); // not the canonical spelling of 70000
+
+        assertTrue(t.remove("POS-7"));
+        assertFalse(t.live(1));
+        List<String> ids = new ArrayList<>();
+        for (TransactionModule.Sale s : t) ids.add(s.saleId);
+        assertEquals(Arrays.asList("T70000", "T" + Long.MAX_VALUE), ids);
+        assertEquals(3, t.add(imported)); // comes back as a new row
+        assertEquals(3, t.rowOf("POS-7"));
+    }
+}
@@ -0,0 +1,223 @@
+package store;
+
+import java.util.Arrays;
+
+// Top-N products by units sold.
+//  - EXACT: a bounded min-heap of N entries over the counters kept by
+//    ReportAggregates; O(products) time, O(N) extra memory per query.
+//  - APPROXIMATE: an all-time Space-Saving sketch of fixed size, for catalogs
+//    too large to rank on every query.
+// Windowed queries ("today", "last 7 days") always use per-day sketches kept in
+// a ring of WINDOW_DAYS slots, so memory stays constant whatever the catalog size.
+// A slot's day is read and written only under that slot's sketch lock, so an
+// offer can never land in a sketch that was recycled for another day meanwhile.
+public class TopProducts implements SaleListener {
+    public enum Mode { EXACT, APPROXIMATE }
+
+    public static final int WINDOW_DAYS = 32;
+
+    private final SalesColumns cols;
+    private final ReportAggregates aggregates;
+    private final Mode mode;
+    private final int sketchCapacity;
+    private final SpaceSaving allTime;
+    private final SpaceSaving[] daySketches = new SpaceSaving[WINDOW_DAYS];
+    private final int[] slotDay = new int[WINDOW_DAYS]; // guarded by daySketches[slot]
+    private int latestDay = Integer.MIN_VALUE; // guarded by this
+
+    public static final class Entry {
+        public final int productId;   // SalesColumns.productIds ID
+        public final long quantity;
+        public final long error;      // quantity may overstate the true count by this much
+
+        Entry(int productId, long quantity, long error) {
+            this.productId = productId;
+            this.quantity = quantity;
+            this.error = error;
+        }
+    }
+
+    public TopProducts(SalesColumns cols, ReportAggregates aggregates, Mode mode, int sketchCapacity) {
+        this.cols = cols;
+        this.aggregates = aggregates;
+        this.mode = mode;
+        this.sketchCapacity = sketchCapacity;
+        this.allTime = mode == Mode.APPROXIMATE ? new SpaceSaving(sketchCapacity) : null;
+        for (int i = 0; i < WINDOW_DAYS; i++) {
+            daySketches[i] = new SpaceSaving(sketchCapacity);
+            slotDay[i] = Integer.MIN_VALUE;
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    @Override
+    public void onSale(TransactionModule.Sale sale, int row) {
+        int product = cols.product(row);
+        int qty = cols.quantity(row);
+        if (allTime != null) allTime.offer(product, qty);
+        offerForDay(cols.epochDay(row), product, qty);
+    }
+
+    // Count a sale in `day`'s sketch, recycling the ring slot when a new day
+    // starts. Days that have already fallen out of the window are dropped.
+    // Lock order: this, then a sketch.
+    private void offerForDay(int day, int product, int qty) {
+        int slot = Math.floorMod(day, WINDOW_DAYS);
+        SpaceSaving sketch = daySketches[slot];
+        synchronized (sketch) {
+            if (slotDay[slot] == day) {
+                sketch.offer(product, qty);
+                return;
+            }
+        }
+        synchronized (this) {
+            if (day <= (long) latestDay - WINDOW_DAYS) return;
+            synchronized (sketch) {
+                if (slotDay[slot] > day) return;
+                if (slotDay[slot] < day) {
+                    sketch.clear();
+                    slotDay[slot] = day;
+                }
+                if (day > latestDay) latestDay = day;
+                sketch.offer(product, qty);
+            }
+        }
+    }
+
+    // ===== Queries =====
+
+    // All-time top `n`: exact in EXACT mode, sketch-based in APPROXIMATE mode
+    public Entry[] top(int n) {
+        if (mode == Mode.APPROXIMATE) {
+            Ranking r = new Ranking(n);
+            allTime.forEach(r::offer);
+            return r.result();
+        }
+        Ranking r = new Ranking(n);
+        int products = cols.productIds.size();
+        for (int id = 0; id < products; id++) {
+            long q = aggregates.quantityOfProduct(id);
+            if (q > 0) r.offer(id, q, 0);
+        }
+        return r.result();
+    }
+
+    // Top `n` over the last `days` days ending with `lastDay` (epoch days, inclusive)
+    public Entry[] topForDays(int n, int lastDay, int days) {
+        int span = Math.min(days, WINDOW_DAYS);
+        // Merge the per-day sketches (Agarwal et al.): sum the counts, and for
+        // each day a key is missing from, charge that day's minimum count, since
+        // the key may have been evicted there.
+        int cap = span * sketchCapacity;
+        SpaceSaving.IntIntMap index = new SpaceSaving.IntIntMap(cap);
+        int[] key = new int[cap];
+        long[] sum = new long[cap];
+        long[] err = new long[cap];
+        long[] presentFloors = new long[cap];
+        int[] distinct = {0};
+        long totalFloors = 0;
+        for (int d = lastDay - span + 1; d <= lastDay; d++) {
+            int slot = Math.floorMod(d, WINDOW_DAYS);
+            SpaceSaving s = daySketches[slot];
+            synchronized (s) {
+                if (slotDay[slot] != d) continue;
+                long floor = s.minCount();
+                totalFloors += floor;
+                s.forEach((k, c, e) -> {
+                    int i = index.get(k);
+                    if (i < 0) {
+                        i = distinct[0]++;
+                        index.put(k, i);
+                        key[i] = k;
+                    }
+                    sum[i] += c;
+                    err[i] += e;
+                    presentFloors[i] += floor;
+                });
+            }
+        }
+        Ranking r = new Ranking(n);
+        for (int i = 0; i < distinct[0]; i++) {
+            long missing = totalFloors - presentFloors[i];
+            r.offer(key[i], sum[i] + missing, err[i] + missing);
+        }
+        return r.result();
+    }
+
+    // Bounded min-heap keeping the `n` largest counts seen
+    static final class Ranking {
+        private final int n;
+        private final int[] ids;
+        private final long[] qty;
+        private final long[] err;
+        private int size;
+
+        Ranking(int n) {
+            this.n = Math.max(0, n);
+            ids = new int[this.n];
+            qty = new long[this.n];
+            err = new long[this.n];
+        }
+
+        void offer(int id, long q, long e) {
+            if (n == 0) return;
+            if (size < n) {
+                int pos = size++;
+                set(pos, id, q, e);
+                siftUp(pos);
+            } else if (q > qty[0] || (q == qty[0] && id < ids[0])) {
+                set(0, id, q, e);
+                siftDown(0);
+            }
+        }
+
+        // Entries sorted by quantity, largest first (ties by lower ID)
+        Entry[] result() {
+            Entry[] out = new Entry[size];
+            for (int i = 0; i < size; i++) out[i] = new Entry(ids[i], qty[i], err[i]);
+            Arrays.sort(out, (a, b) -> a.quantity != b.quantity
+                    ? Long.compare(b.quantity, a.quantity) : Integer.compare(a.productId, b.productId));
+            return out;
+        }
+
+        // Heap order: smaller quantity first; on ties the higher ID is "smaller"
+        private boolean less(int a, int b) {
+            return qty[a] != qty[b] ? qty[a] < qty[b] : ids[a] > ids[b];
+        }
+
+        private void set(int pos, int id, long q, long e) {
+            ids[pos] = id;
+            qty[pos] = q;
+            err[pos] = e;
+        }
+
+        private void swap(int a, int b) {
+            int i = ids[a]; ids[a] = ids[b]; ids[b] = i;
+            long q = qty[a]; qty[a] = qty[b]; qty[b] = q;
+            long e = err[a]; err[a] = err[b]; err[b] = e;
+        }
+
+        private void siftUp(int pos) {
+            while (pos > 0) {
+                int parent = (pos - 1) / 2;
+                if (!less(pos, parent)) break;
+                swap(pos, parent);
+                pos = parent;
+            }
+        }
+
+        private void siftDown(int pos) {
+            while (true) {
+                int child = 2 * pos + 1;
+                if (child >= size) break;
+                if (child + 1 < size && less(child + 1, child)) child++;
+                if (!less(child, pos)) break;
+                swap(pos, child);
+                pos = child;
+            }
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+public class TopProductsTest {
+
+    @Test
+    public void spaceSavingCountsBoundTheTruth() {
+        SpaceSaving sketch = new SpaceSaving(64);
+        long[] truth = new long[50_000];
+        Random rnd = new Random(7);
+        for (int i = 0; i < 500_000; i++) {
+            // Skewed popularity: a few keys dominate
+            int key = (int) (Math.pow(rnd.nextDouble(), 4) * truth.length);
+            truth[key]++;
+            sketch.offer(key, 1);
+        }
+        sketch.forEach((key, count, error) -> {
+            assertTrue("underestimate for " + key, count >= truth[key]);
+            assertTrue("error bound violated for " + key, count - error <= truth[key]);
+        });
+        TopProducts.Ranking top = new TopProducts.Ranking(1);
+        sketch.forEach(top::offer);
+        assertEquals(0, top.result()[0].productId);
+    }
+
+    @Test
+    public void windowedTopIsExactWhileSketchesHaveRoom() {
+        SalesColumns cols = new SalesColumns();
+        ReportAggregates agg = new ReportAggregates(cols);
+        TopProducts top = new TopProducts(cols, agg, TopProducts.Mode.EXACT, 16);
+        java.time.LocalDateTime now = java.time.LocalDateTime.now();
+        String[] products = {"A", "B", "C"};
+        int[] perDay = {5, 3, 1};
+        for (int day = 0; day < 10; day++) {
+            for (int p = 0; p < products.length; p++) {
+                TransactionModule.Sale s = new TransactionModule.Sale("T" + day + p, products[p],
+                        "C1", "S1", perDay[p] + day, 1.0, now.minusDays(day));
+                int row = cols.append(s);
+                agg.onSale(s, row);
+                top.onSale(s, row);
+            }
+        }
+        int today = (int) now.toLocalDate().toEpochDay();
+
+        TopProducts.Entry[] week = top.topForDays(2, today, 7);
+        assertEquals(2, week.length);
+        assertEquals("A", cols.productIds.name(week[0].productId));
+        assertEquals(5 * 7 + 21, week[0].quantity);
+        assertEquals(0, week[0].error);
+
+        TopProducts.Entry[] all = top.top(3);
+        assertEquals(5 * 10 + 45, all[0].quantity);
+        assertEquals("C", cols.productIds.name(all[2].productId));
+    }
+
+    @Test
+    public void concurrentDayRolloverKeepsSalesInTheirOwnDay() throws Exception {
+        SalesColumns cols = new SalesColumns();
+        TopProducts top = new TopProducts(cols, new ReportAggregates(cols), TopProducts.Mode.EXACT, 16);
+        java.time.LocalDateTime start = java.time.LocalDateTime.of(2024, 1, 1, 12, 0);
+        int days = 3 * TopProducts.WINDOW_DAYS;
+        Thread[] ts = new Thread[4];
+        for (int t = 0; t < ts.length; t++) {
+            final int id = t;
+            ts[t] = new Thread(() -> {
+                Random rnd = new Random(id);
+                for (int d = 0; d < days; d++) {
+                    // Mostly today's sales, some stragglers from the days before
+                    int day = Math.max(0, d - (rnd.nextInt(10) == 0 ? rnd.nextInt(TopProducts.WINDOW_DAYS + 4) : 0));
+                    for (int i = 0; i < 20; i++) {
+                        TransactionModule.Sale s = new TransactionModule.Sale("T" + id + "-" + d + "-" + i,
+                                "D" + day, "C1", "S1", 1, 1.0, start.plusDays(day));
+                        top.onSale(s, cols.append(s));
+                    }
+                }
+            });
+            ts[t].start();
+        }
+        for (Thread t : ts) t.join();
+        // The product is named after the day it sold on: a sketch may only hold its own day
+        int first = (int) start.toLocalDate().toEpochDay();
+        for (int d = first; d < first + days; d++) {
+            for (TopProducts.Entry e : top.topForDays(16, d, 1)) {
+                assertEquals("D" + (d - first), cols.productIds.name(e.productId));
+            }
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package store;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
 
 public class TransactionModule {
 
@@ -12,10 +22,14 @@ public class TransactionModule {
         public String name;
         public String category;
         public double price;
-        public int stock;
+        public volatile int stock;
+
+        // Per-product lock: every stock check-and-decrement runs under it, so
+        // sales of different products never wait on each other.
+        final ReentrantLock stockLock = new ReentrantLock();
 
         public Product(String id, String name, String category, double price, int stock) {
-            this.id = id;
+            this.id = SymbolTable.PRODUCTS.intern(id);
             this.name = name;
             this.category = category;
             this.price = price;
@@ -29,7 +43,7 @@ public class TransactionModule {
         public String phone;
 
         public Customer(String id, String name, String phone) {
-            this.id = id;
+            this.id = SymbolTable.CUSTOMERS.intern(id);
             this.name = name;
             this.phone = phone;
         }
@@ -40,11 +54,13 @@ public class TransactionModule {
         public String name;
 
         public Seller(String id, String name) {
-            this.id = id;
+            this.id = SymbolTable.SELLERS.intern(id);
             this.name = name;
         }
     }
 
+    // IDs are interned through the process-wide SymbolTables, so sales share one
+    // copy of each ID string; the symbols are what StoreDB's columns store.
     public static class Sale {
         public final String saleId;
         public final String productId;
@@ -53,46 +69,126 @@ public class TransactionModule {
         public final int quantity;
         public final double unitPrice;
         public final LocalDateTime timestamp;
+        final int productSymbol;
+        final int customerSymbol;
+        final int sellerSymbol;
 
         public Sale(String saleId, String productId, String customerId, String sellerId,
                     int quantity, double unitPrice, LocalDateTime timestamp) {
             this.saleId = saleId;
+            this.productSymbol = productId == null ? -1 : SymbolTable.PRODUCTS.idOf(productId);
+            this.customerSymbol = customerId == null ? -1 : SymbolTable.CUSTOMERS.idOf(customerId);
+            this.sellerSymbol = sellerId == null ? -1 : SymbolTable.SELLERS.idOf(sellerId);
+            this.productId = productId == null ? null : SymbolTable.PRODUCTS.name(productSymbol);
+            this.customerId = customerId == null ? null : SymbolTable.CUSTOMERS.name(customerSymbol);
+            this.sellerId = sellerId == null ? null : SymbolTable.SELLERS.name(sellerSymbol);
+            this.quantity = quantity;
+            this.unitPrice = unitPrice;
+            this.timestamp = timestamp;
+        }
+    }
+
+    // One line of a basket or of a batch upload
+    public static class SaleRequest {
+        public final String productId;
+        public final String customerId;
+        public final String sellerId;
+        public final int quantity;
+
+        public SaleRequest(String productId, String customerId, String sellerId, int quantity) {
             this.productId = productId;
             this.customerId = customerId;
             this.sellerId = sellerId;
             this.quantity = quantity;
-            this.unitPrice = unitPrice;
-            this.timestamp = timestamp;
+        }
+    }
+
+    public static class CheckoutResult {
+        public final boolean success;
+        public final List<Sale> sales;
+        public final String error;
+
+        public CheckoutResult(boolean success, List<Sale> sales, String error) {
+            this.success = success;
+            this.sales = sales;
+            this.error = error;
         }
     }
 
     public static class User {
         public final String username;
-        public final String password;
+        public final String passwordHash; // PasswordHasher encoding, never the plaintext
         public final String role; // "admin" or "seller"
 
-        public User(String username, String password, String role) {
+        public User(String username, String passwordHash, String role) {
             this.username = username;
-            this.password = password;
+            this.passwordHash = passwordHash;
             this.role = role;
         }
+
+        public static User withPassword(String username, String password, String role) {
+            return new User(username, PasswordHasher.hash(password), role);
+        }
     }
 
     // ===== In-memory Store =====
+    // All maps are concurrent so several checkout terminals can share one JVM.
+    // Sorted maps keep listings stable; sales list in recording order.
     public static class StoreDB {
-        public static final Map<String, Product> products = new LinkedHashMap<>();
-        public static final Map<String, Customer> customers = new LinkedHashMap<>();
-        public static final Map<String, Seller> sellers = new LinkedHashMap<>();
-        public static final Map<String, Sale> sales = new LinkedHashMap<>();
-        public static final Map<String, User> users = new LinkedHashMap<>();
+        public static final ConcurrentNavigableMap<String, Product> products = new ConcurrentSkipListMap<>();
+        public static final Map<String, Customer> customers = new ConcurrentSkipListMap<>();
+        public static final Map<String, Seller> sellers = new ConcurrentSkipListMap<>();
+        public static final Map<String, User> users = new ConcurrentSkipListMap<>();
+
+        // Every sale, as columns for report scans; `sales` indexes the rows by sale ID.
+        // Both are kept in step by indexSale()
+        public static final SalesColumns salesColumns = new SalesColumns(
+                SymbolTable.PRODUCTS, SymbolTable.SELLERS, SymbolTable.CUSTOMERS);
+        public static final SalesTable sales = new SalesTable(salesColumns);
+        // Name/category search over products; kept in step by the product mutators
+        public static final ProductSearchIndex searchIndex = new ProductSearchIndex();
+        // Products ordered by stock level, with low-stock subscriptions
+        public static final StockIndex stockIndex = new StockIndex();
+        // Report totals maintained incrementally as sales are indexed
+        public static final ReportAggregates aggregates = new ReportAggregates(salesColumns);
+
+        // Top-N engine; -Dstore.topn.mode=APPROXIMATE ranks from a fixed-size sketch
+        public static final TopProducts topProducts = new TopProducts(salesColumns, aggregates,
+                TopProducts.Mode.valueOf(System.getProperty("store.topn.mode", "EXACT").toUpperCase()),
+                Integer.getInteger("store.topn.capacity", 1024));
+
+        // Daily demand per product over the last -Dstore.demand.windowDays (28) days
+        public static final DemandStats demand = new DemandStats(salesColumns,
+                Integer.getInteger("store.demand.windowDays", 28));
+
+        // Minute/hour buckets for trailing-window revenue ("last 15 minutes")
+        public static final SalesRollups rollups = new SalesRollups(salesColumns);
+
+        // Each customer's sale rows and lifetime totals
+        public static final CustomerIndex customerIndex = new CustomerIndex(salesColumns);
+
+        private static final List<SaleListener> saleListeners = new CopyOnWriteArrayList<>(
+                Arrays.asList(aggregates, topProducts, demand, rollups, customerIndex));
 
-        public static void seedDemoData() {
+        private static final AtomicLong saleSeq = new AtomicLong();
+
+        // Write-ahead journal; null keeps StoreDB purely in-memory
+        static volatile SalesJournal journal;
+
+        // Sales bracket "journal, then index" with this so snapshots find a safe LSN
+        static final CheckpointGate checkpointGate = new CheckpointGate();
+        private static ScheduledExecutorService snapshots;
+
+        // Database write-behind; null when no persistence backend is configured
+        static volatile WriteBehindStore persistence;
+
+        public static synchronized void seedDemoData() {
             if (!users.isEmpty()) return;
-            users.put("admin", new User("admin", "admin123", "admin"));
-            users.put("rohan", new User("rohan", "seller123", "seller"));
+            users.put("admin", User.withPassword("admin", "admin123", "admin"));
+            users.put("rohan", User.withPassword("rohan", "seller123", "seller"));
 
-            products.put("P100", new Product("P100", "Basmati Rice 5kg", "Grocery", 549.0, 20));
-            products.put("P101", new Product("P101", "Toothpaste", "Personal Care", 89.0, 50));
+            addProduct(new Product("P100", "Basmati Rice 5kg", "Grocery", 549.0, 20));
+            addProduct(new Product("P101", "Toothpaste", "Personal Care", 89.0, 50));
 
             customers.put("C001", new Customer("C001", "Neha Sharma", "9876543210"));
             customers.put("C002", new Customer("C002", "Arjun Mehta", "9990011223"));
@@ -100,6 +196,614 @@ public class TransactionModule {
             sellers.put("S001", new Seller("S001", "Rohan"));
             sellers.put("S002", new Seller("S002", "Priya"));
         }
+
+        // Lock-free sale ID generator: unique across threads, never reuses an ID
+        public static String nextSaleId() {
+            return "T" + saleSeq.incrementAndGet();
+        }
+
+        // Keep the generator ahead of IDs loaded from disk
+        static void advanceSaleSeq(String saleId) {
+            try {
+                long n = Long.parseLong(saleId.substring(1));
+                saleSeq.accumulateAndGet(n, Math::max);
+            } catch (NumberFormatException | IndexOutOfBoundsException ignored) {
+                // Not a generated ID; nothing to advance past
+            }
+        }
+
+        // Atomically reserve stock and record the sale.
+        // Returns null if the product is unknown or stock is insufficient.
+        public static Sale recordSale(String productId, String customerId, String sellerId, int qty) {
+            return recordSale(productId, customerId, sellerId, qty, null);
+        }
+
+        // As above; stockSeen[0] gets the stock the sale was checked against under
+        // the product lock (-1 for an unknown product), for error messages
+        public static Sale recordSale(String productId, String customerId, String sellerId, int qty,
+                                      int[] stockSeen) {
+            long t0 = Metrics.start();
+            Product p = products.get(productId);
+            if (stockSeen != null) stockSeen[0] = -1;
+            if (p == null || qty <= 0) {
+                Metrics.countFailedSale();
+                return null;
+            }
+            SalesJournal j = journal;
+            Sale sale;
+            long lsn = 0;
+            int before;
+            int gate = checkpointGate.enter();
+            try {
+                long w = Metrics.start();
+                p.stockLock.lock();
+                Metrics.LOCK_WAIT.recordSince(w);
+                try {
+                    before = p.stock;
+                    if (stockSeen != null) stockSeen[0] = before;
+                    if (qty > before) {
+                        Metrics.countFailedSale();
+                        return null;
+                    }
+                    sale = new Sale(nextSaleId(), productId, customerId, sellerId, qty, p.price, LocalDateTime.now());
+                    // Logged under the product lock so journal order matches stock order, and
+                    // before the stock moves, so a failed append leaves the units in place
+                    if (j != null) lsn = j.appendSale(sale, before - qty);
+                    p.stock = before - qty;
+                    stockIndex.moved(p, before, p.stock);
+                } finally {
+                    p.stockLock.unlock();
+                }
+                stockIndex.notifyCrossings(p, before, before - qty);
+                indexSale(sale);
+            } finally {
+                checkpointGate.exit(gate);
+            }
+            if (j != null) j.awaitDurable(lsn);
+            Metrics.countSales(1, qty);
+            Metrics.SALE.recordSince(t0);
+            return sale;
+        }
+
+        // All-or-nothing: every line of the basket is sold, or none is.
+        // Stock for all lines is reserved under one pass of product locks, sale IDs
+        // come as one block, and the journal and listeners see one batch.
+        public static CheckoutResult checkout(List<SaleRequest> basket) {
+            if (basket.isEmpty()) return new CheckoutResult(false, Collections.emptyList(), "Empty basket.");
+            long t0 = Metrics.start();
+            String[] error = new String[1];
+            Sale[] sold = commitLines(basket, true, error);
+            Metrics.CHECKOUT.recordSince(t0);
+            if (sold == null) return new CheckoutResult(false, Collections.emptyList(), error[0]);
+            return new CheckoutResult(true, Arrays.asList(sold), null);
+        }
+
+        // Bulk upload (e.g. end-of-shift POS batches): each line succeeds or fails
+        // on its own. The result is parallel to `requests`; failed lines are null.
+        public static List<Sale> sellBatch(List<SaleRequest> requests) {
+            if (requests.isEmpty()) return Collections.emptyList();
+            long t0 = Metrics.start();
+            Sale[] sold = commitLines(requests, false, new String[1]);
+            Metrics.SELL_BATCH.recordSince(t0);
+            return Arrays.asList(sold);
+        }
+
+        // Returns the sales parallel to `lines`, or null (with error[0] set)
+        // when `atomic` and any line cannot be sold.
+        private static Sale[] commitLines(List<SaleRequest> lines, boolean atomic, String[] error) {
+            int n = lines.size();
+            Product[] lineProducts = new Product[n];
+            // Locks are always taken in product ID order, so baskets cannot deadlock
+            TreeMap<String, Product> involved = new TreeMap<>();
+            Map<String, Integer> wanted = new HashMap<>();
+            for (int i = 0; i < n; i++) {
+                SaleRequest r = lines.get(i);
+                Product p = products.get(r.productId);
+                if (p == null || r.quantity <= 0) {
+                    if (atomic) {
+                        error[0] = "Line " + (i + 1) + ": " + (p == null ? "product not found: " + r.productId
+                                : "invalid quantity " + r.quantity);
+                        Metrics.countFailedSale();
+                        return null;
+                    }
+                    Metrics.countFailedSale();
+                    continue;
+                }
+                lineProducts[i] = p;
+                involved.put(p.id, p);
+                wanted.merge(p.id, r.quantity, Integer::sum);
+            }
+            Product[] order = involved.values().toArray(new Product[0]);
+            int[] before = new int[order.length];
+            int[] after = new int[order.length];
+            Sale[] sold = new Sale[n];
+            List<Sale> batch = new ArrayList<>(n);
+            SalesJournal j = journal;
+            long lsn = 0;
+            long units = 0;
+            int locked = 0;
+            int gate = checkpointGate.enter();
+            try {
+                try {
+                    long w = Metrics.start();
+                    for (; locked < order.length; locked++) order[locked].stockLock.lock();
+                    Metrics.LOCK_WAIT.recordSince(w);
+                    for (int k = 0; k < order.length; k++) {
+                        before[k] = order[k].stock;
+                        if (atomic && wanted.get(order[k].id) > before[k]) {
+                            error[0] = "Insufficient stock for " + order[k].id + ". Available: " + before[k];
+                            Metrics.countFailedSale();
+                            return null;
+                        }
+                    }
+                    // Journal order per product must match stock order: build records under the locks
+                    boolean[] take = new boolean[n];
+                    int[] stockAfter = new int[n];
+                    int ok = 0;
+                    for (int i = 0; i < n; i++) {
+                        Product p = lineProducts[i];
+                        if (p == null) continue;
+                        if (lines.get(i).quantity > p.stock) {
+                            Metrics.countFailedSale();
+                            continue;
+                        }
+                        p.stock -= lines.get(i).quantity;
+                        units += lines.get(i).quantity;
+                        stockAfter[ok++] = p.stock;
+                        take[i] = true;
+                    }
+                    long first = saleSeq.getAndAdd(ok) + 1;
+                    LocalDateTime now = LocalDateTime.now();
+                    for (int i = 0; i < n; i++) {
+                        if (!take[i]) continue;
+                        SaleRequest r = lines.get(i);
+                        Product p = lineProducts[i];
+                        sold[i] = new Sale("T" + (first + batch.size()), p.id, r.customerId, r.sellerId,
+                                r.quantity, p.price, now);
+                        batch.add(sold[i]);
+                    }
+                    if (j != null && !batch.isEmpty()) {
+                        try {
+                            lsn = j.appendSales(batch, stockAfter);
+                        } catch (RuntimeException e) {
+                            // Not journaled, so not sold: put the units back
+                            for (int k = 0; k < order.length; k++) order[k].stock = before[k];
+                            throw e;
+                        }
+                    }
+                    for (int k = 0; k < order.length; k++) {
+                        after[k] = order[k].stock;
+                        stockIndex.moved(order[k], before[k], after[k]);
+                    }
+                } finally {
+                    for (int k = locked - 1; k >= 0; k--) order[k].stockLock.unlock();
+                }
+                for (int k = 0; k < order.length; k++) stockIndex.notifyCrossings(order[k], before[k], after[k]);
+                indexSales(batch);
+            } finally {
+                checkpointGate.exit(gate);
+            }
+            if (j != null) j.awaitDurable(lsn);
+            Metrics.countSales(batch.size(), units);
+            return sold;
+        }
+
+        // Every path that adds a sale (live, replay) goes through here
+        private static void indexSale(Sale sale) {
+            int row = sales.add(sale);
+            if (row >= 0) {
+                for (SaleListener l : saleListeners) l.onSale(sale, row);
+            }
+        }
+
+        // Freshly committed batch: IDs are new, so no duplicate check is needed
+        private static void indexSales(List<Sale> batch) {
+            if (batch.isEmpty()) return;
+            int firstRow = sales.addAll(batch);
+            for (SaleListener l : saleListeners) l.onSales(batch, firstRow);
+        }
+
+        public static void addSaleListener(SaleListener listener) {
+            saleListeners.add(listener);
+        }
+
+        // ===== Journaled mutations =====
+
+        // Returns false if the ID is already taken
+        public static boolean addProduct(Product p) {
+            if (products.putIfAbsent(p.id, p) != null) return false;
+            searchIndex.put(p);
+            registerProduct(p);
+            return true;
+        }
+
+        public static void updateProduct(Product p, String name, String category, double price, int stock) {
+            SalesJournal j = journal;
+            long lsn = 0;
+            int before;
+            p.stockLock.lock();
+            try {
+                before = p.stock;
+                p.name = name;
+                p.category = category;
+                p.price = price;
+                p.stock = stock;
+                stockIndex.moved(p, before, stock);
+                if (j != null) lsn = j.appendProduct(p);
+            } finally {
+                p.stockLock.unlock();
+            }
+            stockIndex.notifyCrossings(p, before, stock);
+            searchIndex.put(p);
+            persistChanged(p);
+            if (j != null) j.awaitDurable(lsn);
+        }
+
+        // File a newly added product in the stock index and journal it
+        private static void registerProduct(Product p) {
+            SalesJournal j = journal;
+            long lsn = 0;
+            p.stockLock.lock();
+            try {
+                stockIndex.add(p);
+                if (j != null) lsn = j.appendProduct(p);
+            } finally {
+                p.stockLock.unlock();
+            }
+            persistChanged(p);
+            if (j != null) j.awaitDurable(lsn);
+        }
+
+        // Returns the customer now stored under c.id (c itself unless it already existed)
+        public static Customer addCustomer(Customer c) {
+            Customer existing = customers.putIfAbsent(c.id, c);
+            if (existing != null) return existing;
+            updateCustomer(c, c.name, c.phone);
+            return c;
+        }
+
+        public static void updateCustomer(Customer c, String name, String phone) {
+            SalesJournal j = journal;
+            long lsn = 0;
+            synchronized (c) {
+                c.name = name;
+                c.phone = phone;
+                if (j != null) lsn = j.appendCustomer(c);
+            }
+            persistChanged(c);
+            if (j != null) j.awaitDurable(lsn);
+        }
+
+        public static boolean addSeller(Seller s) {
+            if (sellers.putIfAbsent(s.id, s) != null) return false;
+            updateSeller(s, s.name);
+            return true;
+        }
+
+        public static void updateSeller(Seller s, String name) {
+            SalesJournal j = journal;
+            long lsn = 0;
+            synchronized (s) {
+                s.name = name;
+                if (j != null) lsn = j.appendSeller(s);
+            }
+            persistChanged(s);
+            if (j != null) j.awaitDurable(lsn);
+        }
+
+        // ===== Bulk load (BulkIO) =====
+        // Rows go straight into the maps and indexes, overwriting existing IDs, so
+        // re-running an import is harmless. Each row is journaled but nobody waits
+        // for it; BulkIO syncs the journal once at the end. Like replay, imports
+        // don't fire low-stock subscriptions.
+
+        static void importProducts(List<Product> batch) {
+            SalesJournal j = journal;
+            for (Product row : batch) {
+                Product p = products.putIfAbsent(row.id, row);
+                if (p == null) p = row;
+                p.stockLock.lock();
+                try {
+                    if (p == row) {
+                        stockIndex.add(p);
+                    } else {
+                        stockIndex.moved(p, p.stock, row.stock);
+                        p.name = row.name;
+                        p.category = row.category;
+                        p.price = row.price;
+                        p.stock = row.stock;
+                    }
+                    if (j != null) j.appendProduct(p);
+                } finally {
+                    p.stockLock.unlock();
+                }
+                searchIndex.put(p);
+                persistChanged(p);
+            }
+        }
+
+        static void importCustomers(List<Customer> batch) {
+            SalesJournal j = journal;
+            for (Customer row : batch) {
+                Customer c = customers.putIfAbsent(row.id, row);
+                if (c == null) c = row;
+                synchronized (c) {
+                    c.name = row.name;
+                    c.phone = row.phone;
+                    if (j != null) j.appendCustomer(c);
+                }
+                persistChanged(c);
+            }
+        }
+
+        static void importSellers(List<Seller> batch) {
+            SalesJournal j = journal;
+            for (Seller row : batch) {
+                Seller s = sellers.putIfAbsent(row.id, row);
+                if (s == null) s = row;
+                synchronized (s) {
+                    s.name = row.name;
+                    if (j != null) j.appendSeller(s);
+                }
+                persistChanged(s);
+            }
+        }
+
+        // Historical sales: stock is whatever the product import said it is.
+        // Sales whose ID is already present are skipped.
+        static void importSales(List<Sale> batch) {
+            List<Sale> fresh = new ArrayList<>(batch.size());
+            int firstRow = sales.addNew(batch, fresh);
+            if (fresh.isEmpty()) return;
+            for (Sale s : fresh) advanceSaleSeq(s.saleId);
+            SalesJournal j = journal;
+            if (j != null) {
+                int[] unchanged = new int[fresh.size()];
+                Arrays.fill(unchanged, SalesJournal.STOCK_UNCHANGED);
+                j.appendSales(fresh, unchanged);
+            }
+            for (SaleListener l : saleListeners) l.onSales(fresh, firstRow);
+        }
+
+        // ===== Recovery (journal replay) =====
+        // Records hold absolute state, so applying one twice is harmless.
+
+        static void restoreSale(Sale sale, int stockAfter) {
+            indexSale(sale);
+            advanceSaleSeq(sale.saleId);
+            Product p = products.get(sale.productId);
+            if (p != null && stockAfter != SalesJournal.STOCK_UNCHANGED) {
+                restoreStock(p, stockAfter);
+                persistChanged(p);
+            }
+        }
+
+        static void restoreProduct(String id, String name, String category, double price, int stock) {
+            Product p = products.get(id);
+            if (p == null) {
+                p = new Product(id, name, category, price, stock);
+                products.put(id, p);
+                stockIndex.add(p);
+            } else {
+                p.name = name;
+                p.category = category;
+                p.price = price;
+                restoreStock(p, stock);
+            }
+            searchIndex.put(p);
+            persistChanged(p);
+        }
+
+        // Replay sets stock without firing low-stock subscriptions
+        private static void restoreStock(Product p, int stock) {
+            p.stockLock.lock();
+            try {
+                stockIndex.moved(p, p.stock, stock);
+                p.stock = stock;
+            } finally {
+                p.stockLock.unlock();
+            }
+        }
+
+        static void restoreCustomer(String id, String name, String phone) {
+            Customer c = customers.get(id);
+            if (c == null) {
+                c = new Customer(id, name, phone);
+                customers.put(id, c);
+            } else {
+                c.name = name;
+                c.phone = phone;
+            }
+            persistChanged(c);
+        }
+
+        static void restoreSeller(String id, String name) {
+            Seller s = sellers.get(id);
+            if (s == null) {
+                s = new Seller(id, name);
+                sellers.put(id, s);
+            } else {
+                s.name = name;
+            }
+            persistChanged(s);
+        }
+
+        // ===== Persistence (write-behind to a database) =====
+        // Every journaled mutation also marks its row dirty here; sales reach the
+        // write-behind queue as a SaleListener. Nothing waits for the database.
+
+        private static void persistChanged(Product p) {
+            WriteBehindStore w = persistence;
+            if (w != null) w.productChanged(p);
+        }
+
+        private static void persistChanged(Customer c) {
+            WriteBehindStore w = persistence;
+            if (w != null) w.customerChanged(c);
+        }
+
+        private static void persistChanged(Seller s) {
+            WriteBehindStore w = persistence;
+            if (w != null) w.sellerChanged(s);
+        }
+
+        // Bulk-load everything `backend` holds, then queue all further changes to it.
+        // Open before the journal, so replayed changes newer than the database are
+        // written back to it.
+        public static synchronized void openPersistence(PersistenceBackend backend, int queueCapacity,
+                                                        int maxBatch, long flushMillis) throws IOException {
+            if (persistence != null) throw new IllegalStateException("Persistence already open");
+            backend.loadAll(new PersistenceBackend.Loader() {
+                @Override
+                public void products(List<Product> batch) {
+                    importProducts(batch);
+                }
+
+                @Override
+                public void customers(List<Customer> batch) {
+                    importCustomers(batch);
+                }
+
+                @Override
+                public void sellers(List<Seller> batch) {
+                    importSellers(batch);
+                }
+
+                @Override
+                public void sales(List<Sale> batch) {
+                    importSales(batch);
+                }
+            });
+            WriteBehindStore w = new WriteBehindStore(backend, queueCapacity, maxBatch, flushMillis);
+            persistence = w;
+            addSaleListener(w);
+            Runtime.getRuntime().addShutdownHook(new Thread(StoreDB::closePersistence, "store-db-close"));
+        }
+
+        public static synchronized void closePersistence() {
+            WriteBehindStore w = persistence;
+            if (w == null) return;
+            persistence = null;
+            saleListeners.remove(w);
+            try {
+                w.close();
+            } catch (IOException e) {
+                System.out.println("Database close failed: " + e.getMessage());
+            }
+        }
+
+        // Startup load driven by system properties:
+        //   -Dstore.db.url=jdbc:mysql://host/store  -Dstore.db.user=<u>  -Dstore.db.password=<p>
+        //   -Dstore.db.pool=<connections>  -Dstore.db.queue=<sales>  -Dstore.db.batch=<sales>
+        //   -Dstore.db.flushMs=<n>
+        public static void openPersistenceFromConfig() {
+            String url = System.getProperty("store.db.url");
+            if (url == null || url.isEmpty()) return;
+            long t0 = System.nanoTime();
+            try {
+                JdbcBackend backend = new JdbcBackend(url, System.getProperty("store.db.user"),
+                        System.getProperty("store.db.password"), Integer.getInteger("store.db.pool", 4));
+                try {
+                    openPersistence(backend, Integer.getInteger("store.db.queue", 100_000),
+                            Integer.getInteger("store.db.batch", 1000), Long.getLong("store.db.flushMs", 50));
+                } catch (IOException | RuntimeException e) {
+                    backend.close();
+                    throw e;
+                }
+                System.out.printf("Database loaded: %d products, %d sales in %d ms%n", products.size(),
+                        salesColumns.size(), (System.nanoTime() - t0) / 1_000_000);
+            } catch (IOException e) {
+                System.out.println("Could not open database " + url + ": " + e.getMessage());
+            }
+        }
+
+        // Replay `file` into StoreDB and journal all further mutations to it
+        public static synchronized void openJournal(Path file, SalesJournal.Durability durability,
+                                                    long intervalMillis) throws IOException {
+            openJournal(file, null, durability, intervalMillis);
+        }
+
+        // As above, starting from `snapshot` (when usable) so only the journal tail
+        // after it is replayed
+        public static synchronized void openJournal(Path file, Path snapshot, SalesJournal.Durability durability,
+                                                    long intervalMillis) throws IOException {
+            if (journal != null) throw new IllegalStateException("Journal already open");
+            long from = snapshot == null ? 0 : Snapshot.load(snapshot, file);
+            SalesJournal j = SalesJournal.open(file, durability, intervalMillis, from);
+            journal = j;
+            Runtime.getRuntime().addShutdownHook(new Thread(StoreDB::closeJournal, "store-journal-close"));
+        }
+
+        public static synchronized void closeJournal() {
+            stopSnapshots();
+            SalesJournal j = journal;
+            if (j == null) return;
+            journal = null;
+            try {
+                j.close();
+            } catch (IOException e) {
+                System.out.println("Journal close failed: " + e.getMessage());
+            }
+        }
+
+        // Checkpoint to `snapshot` every `intervalMillis` while the journal grows.
+        // Runs on one background thread; sales carry on while it writes.
+        public static synchronized void startSnapshots(Path snapshot, long intervalMillis) {
+            if (journal == null) throw new IllegalStateException("Snapshots need an open journal");
+            stopSnapshots();
+            ScheduledExecutorService s = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "store-snapshot");
+                t.setDaemon(true);
+                return t;
+            });
+            long[] lastLsn = {-1};
+            s.scheduleWithFixedDelay(() -> {
+                SalesJournal j = journal;
+                if (j == null || j.position() == lastLsn[0]) return;
+                try {
+                    lastLsn[0] = Snapshot.write(snapshot).lsn;
+                } catch (IOException | RuntimeException e) {
+                    System.out.println("Snapshot failed: " + e.getMessage());
+                }
+            }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            snapshots = s;
+        }
+
+        private static synchronized void stopSnapshots() {
+            ScheduledExecutorService s = snapshots;
+            if (s == null) return;
+            snapshots = null;
+            s.shutdownNow();
+            try {
+                // Let a snapshot in progress finish; its temp file is never half-installed
+                s.awaitTermination(30, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        // Startup recovery driven by system properties:
+        //   -Dstore.journal=<file>  -Dstore.journal.durability=COMMIT|BATCH|INTERVAL
+        //   -Dstore.journal.intervalMs=<n>
+        //   -Dstore.snapshot=<file>  -Dstore.snapshot.intervalSec=<n>
+        public static void openJournalFromConfig() {
+            String file = System.getProperty("store.journal");
+            if (file == null || file.isEmpty()) return;
+            SalesJournal.Durability d = SalesJournal.Durability.valueOf(
+                    System.getProperty("store.journal.durability", "COMMIT").toUpperCase());
+            long interval = Long.getLong("store.journal.intervalMs", 100);
+            String snap = System.getProperty("store.snapshot");
+            Path snapshot = snap == null || snap.isEmpty() ? null : Paths.get(snap);
+            long t0 = System.nanoTime();
+            try {
+                openJournal(Paths.get(file), snapshot, d, interval);
+                System.out.printf("Journal opened: %s (%d sales, %d ms)%n", file, salesColumns.size(),
+                        (System.nanoTime() - t0) / 1_000_000);
+                if (snapshot != null) startSnapshots(snapshot, Long.getLong("store.snapshot.intervalSec", 300) * 1000);
+            } catch (IOException e) {
+                System.out.println("Could not open journal " + file + ": " + e.getMessage());
+            }
+        }
     }
 
     // ===== Dashboard (CLI) =====
@@ -115,7 +819,8 @@ public class TransactionModule {
             System.out.println("6. Seller info");
             System.out.println("7. View sales");
             System.out.println("8. Search product by name/category");
-            System.out.println("9. Logout");
+            System.out.println("9. Checkout basket (multiple products)");
+            System.out.println("10. Logout");
             System.out.print("Choose: ");
             String choice = sc.nextLine().trim();
 
@@ -123,12 +828,13 @@ public class TransactionModule {
                 case "1": addProduct(sc, role); break;
                 case "2": updateProduct(sc, role); break;
                 case "3": sellProduct(sc, username, role); break;
-                case "4": listProducts(); break;
+                case "4": listProducts(sc); break;
                 case "5": customerInfo(sc, role); break;
                 case "6": sellerInfo(sc, role); break;
-                case "7": viewSales(); break;
+                case "7": viewSales(sc); break;
                 case "8": searchProducts(sc); break;
-                case "9": System.out.println("Goodbye!"); return;
+                case "9": checkoutBasket(sc, username); break;
+                case "10": System.out.println("Goodbye!"); return;
                 default: System.out.println("Invalid option.");
             }
         }
@@ -158,7 +864,10 @@ public class TransactionModule {
         System.out.print("Stock: ");
         int stock = parseInt(sc.nextLine());
 
-        StoreDB.products.put(id, new Product(id, name, cat, price, stock));
+        if (!StoreDB.addProduct(new Product(id, name, cat, price, stock))) {
+            System.out.println("Product ID already exists.");
+            return;
+        }
         System.out.println("Product added: " + id);
     }
 
@@ -179,20 +888,21 @@ public class TransactionModule {
         System.out.println("Leave field blank to keep current.");
         System.out.print("New name (" + p.name + "): ");
         String name = sc.nextLine().trim();
-        if (!name.isEmpty()) p.name = name;
+        if (name.isEmpty()) name = p.name;
 
         System.out.print("New category (" + p.category + "): ");
         String cat = sc.nextLine().trim();
-        if (!cat.isEmpty()) p.category = cat;
+        if (cat.isEmpty()) cat = p.category;
 
         System.out.print("New price (" + p.price + "): ");
         String priceStr = sc.nextLine().trim();
-        if (!priceStr.isEmpty()) p.price = parseDouble(priceStr);
+        double price = priceStr.isEmpty() ? p.price : parseDouble(priceStr);
 
         System.out.print("New stock (" + p.stock + "): ");
         String stockStr = sc.nextLine().trim();
-        if (!stockStr.isEmpty()) p.stock = parseInt(stockStr);
+        int stock = stockStr.isEmpty() ? p.stock : parseInt(stockStr);
 
+        StoreDB.updateProduct(p, name, cat, price, stock);
         System.out.println("Updated: " + id);
     }
 
@@ -214,6 +924,52 @@ public class TransactionModule {
         }
         System.out.print("Customer ID (existing or new): ");
         String cid = sc.nextLine().trim();
+        findOrCreateCustomer(sc, cid);
+        String sellerId = sellerIdOrDefault(username);
+
+        // Stock may have been taken by another terminal since the check above
+        int[] stock = new int[1];
+        Sale sale = StoreDB.recordSale(pid, cid, sellerId, qty, stock);
+        if (sale == null) {
+            System.out.println("Invalid quantity. Available stock: " + stock[0]);
+            return;
+        }
+
+        double total = sale.quantity * sale.unitPrice;
+        System.out.printf("Sale recorded: %s | Total: %.2f%n", sale.saleId, total);
+    }
+
+    // Checkout a basket of several products in one all-or-nothing sale
+    private static void checkoutBasket(Scanner sc, String username) {
+        System.out.println("=== Checkout Basket ===");
+        System.out.print("Customer ID (existing or new): ");
+        String cid = sc.nextLine().trim();
+        findOrCreateCustomer(sc, cid);
+        String sellerId = sellerIdOrDefault(username);
+
+        List<SaleRequest> basket = new ArrayList<>();
+        while (true) {
+            System.out.print("Product ID (blank to finish): ");
+            String pid = sc.nextLine().trim();
+            if (pid.isEmpty()) break;
+            System.out.print("Quantity: ");
+            basket.add(new SaleRequest(pid, cid, sellerId, parseInt(sc.nextLine())));
+        }
+        CheckoutResult result = StoreDB.checkout(basket);
+        if (!result.success) {
+            System.out.println("Checkout failed: " + result.error);
+            return;
+        }
+        double total = 0;
+        for (Sale sale : result.sales) {
+            total += sale.quantity * sale.unitPrice;
+            System.out.printf("%s | %s x %d | %.2f%n", sale.saleId, sale.productId, sale.quantity,
+                    sale.quantity * sale.unitPrice);
+        }
+        System.out.printf("Basket total: %.2f%n", total);
+    }
+
+    private static Customer findOrCreateCustomer(Scanner sc, String cid) {
         Customer c = StoreDB.customers.get(cid);
         if (c == null) {
             System.out.println("New customer details:");
@@ -221,24 +977,19 @@ public class TransactionModule {
             String cname = sc.nextLine().trim();
             System.out.print("Phone: ");
             String phone = sc.nextLine().trim();
-            c = new Customer(cid, cname, phone);
-            StoreDB.customers.put(cid, c);
+            c = StoreDB.addCustomer(new Customer(cid, cname, phone));
         }
+        return c;
+    }
 
-        // Determine seller id from username role mapping
+    // Determine seller id from username role mapping
+    private static String sellerIdOrDefault(String username) {
         String sellerId = sellerIdForUser(username);
         if (sellerId == null) {
             System.out.println("Seller mapping not found. Using S001.");
             sellerId = "S001";
         }
-
-        String saleId = "T" + (StoreDB.sales.size() + 1);
-        Sale sale = new Sale(saleId, pid, cid, sellerId, qty, p.price, LocalDateTime.now());
-        StoreDB.sales.put(saleId, sale);
-        p.stock -= qty;
-
-        double total = qty * p.price;
-        System.out.printf("Sale recorded: %s | Total: %.2f%n", saleId, total);
+        return sellerId;
     }
 
     // Customer info: add/update/list
@@ -247,6 +998,7 @@ public class TransactionModule {
         System.out.println("1. List customers");
         System.out.println("2. Add customer");
         System.out.println("3. Update customer");
+        System.out.println("4. Purchase history");
         System.out.print("Choose: ");
         String ch = sc.nextLine().trim();
         switch (ch) {
@@ -269,7 +1021,11 @@ public class TransactionModule {
                 String name = sc.nextLine().trim();
                 System.out.print("Phone: ");
                 String phone = sc.nextLine().trim();
-                StoreDB.customers.put(id, new Customer(id, name, phone));
+                Customer added = new Customer(id, name, phone);
+                if (StoreDB.addCustomer(added) != added) {
+                    System.out.println("ID exists.");
+                    return;
+                }
                 System.out.println("Added: " + id);
                 break;
             case "3":
@@ -282,17 +1038,47 @@ public class TransactionModule {
                 }
                 System.out.print("New name (" + c.name + "): ");
                 String newName = sc.nextLine().trim();
-                if (!newName.isEmpty()) c.name = newName;
+                if (newName.isEmpty()) newName = c.name;
                 System.out.print("New phone (" + c.phone + "): ");
                 String newPhone = sc.nextLine().trim();
-                if (!newPhone.isEmpty()) c.phone = newPhone;
+                if (newPhone.isEmpty()) newPhone = c.phone;
+                StoreDB.updateCustomer(c, newName, newPhone);
                 System.out.println("Updated: " + uid);
                 break;
+            case "4":
+                System.out.print("Customer ID: ");
+                purchaseHistory(sc.nextLine().trim(), 20);
+                break;
             default:
                 System.out.println("Invalid option.");
         }
     }
 
+    // Lifetime totals and the latest `limit` purchases, from the customer index
+    static void purchaseHistory(String customerId, int limit) {
+        long t0 = Metrics.start();
+        CustomerIndex.Summary sum = StoreDB.customerIndex.summary(customerId);
+        if (sum == null) {
+            System.out.println(StoreDB.customers.containsKey(customerId) ? "No purchases yet." : "Not found.");
+            return;
+        }
+        Customer c = StoreDB.customers.get(customerId);
+        Listings.Writer w = new Listings.Writer(System.out);
+        w.text(customerId).text(" | ").text(c != null ? c.name : "(unknown)").text(" | Lifetime value: ")
+                .money(sum.revenueMinor).text(" | Sales: ").number(sum.sales).text(" | Units: ").number(sum.units)
+                .newLine().text("First purchase: ").timestamp(sum.firstPurchase())
+                .text(" | Last purchase: ").timestamp(sum.lastPurchase());
+        if (sum.sales > 1) w.text(" | Buys every ~").number(Math.round(sum.daysBetweenPurchases())).text(" days");
+        w.newLine();
+        Listings.Names names = new Listings.Names();
+        for (CustomerIndex.Purchase p : StoreDB.customerIndex.history(customerId, limit)) {
+            w.timestamp(p.time()).text(" | ").text(names.product(p.productId)).text(" | Qty: ").number(p.quantity)
+                    .text(" | Unit: ").money(p.priceMinor).text(" | Total: ").money(p.priceMinor * p.quantity).newLine();
+        }
+        w.flush();
+        Metrics.CUSTOMER_HISTORY.recordSince(t0);
+    }
+
     // Seller info: list/add/update (admin-only for add/update)
     private static void sellerInfo(Scanner sc, String role) {
         System.out.println("=== Seller Info ===");
@@ -323,7 +1109,10 @@ public class TransactionModule {
                 }
                 System.out.print("Name: ");
                 String name = sc.nextLine().trim();
-                StoreDB.sellers.put(id, new Seller(id, name));
+                if (!StoreDB.addSeller(new Seller(id, name))) {
+                    System.out.println("ID exists.");
+                    return;
+                }
                 System.out.println("Added: " + id);
                 break;
             case "3":
@@ -340,7 +1129,7 @@ public class TransactionModule {
                 }
                 System.out.print("New name (" + s.name + "): ");
                 String newName = sc.nextLine().trim();
-                if (!newName.isEmpty()) s.name = newName;
+                if (!newName.isEmpty()) StoreDB.updateSeller(s, newName);
                 System.out.println("Updated: " + sid);
                 break;
             default:
@@ -348,63 +1137,133 @@ public class TransactionModule {
         }
     }
 
-    private static void listProducts() {
+    // Whole catalog through one buffered writer: a handful of large writes to
+    // System.out rather than a printf per product
+    static void listProducts() {
         System.out.println("=== Product List ===");
         if (StoreDB.products.isEmpty()) {
             System.out.println("No products.");
             return;
         }
-        StoreDB.products.values().forEach(p -> System.out.printf(
-                "%s | %s | %s | Price: %.2f | Stock: %d%n",
-                p.id, p.name, p.category, p.price, p.stock
-        ));
+        Listings.Writer w = new Listings.Writer(System.out);
+        for (Product p : StoreDB.products.values()) Listings.product(w, p);
+        w.flush();
+    }
+
+    // A page at a time, optionally one category
+    private static void listProducts(Scanner sc) {
+        System.out.println("=== Product List ===");
+        System.out.print("Category (blank for all): ");
+        String category = sc.nextLine().trim();
+        Listings.Writer w = new Listings.Writer(System.out);
+        String cursor = null;
+        int shown = 0;
+        while (true) {
+            long t0 = Metrics.start();
+            Listings.Page<Product> page = Listings.products(cursor, PAGE_SIZE, category);
+            for (Product p : page.rows) Listings.product(w, p);
+            w.flush();
+            Metrics.LIST_PRODUCTS.recordSince(t0);
+            shown += page.rows.size();
+            cursor = page.next;
+            if (cursor == null || !page.rows.isEmpty() && !morePages(sc)) break;
+        }
+        if (shown == 0) System.out.println("No products.");
     }
 
     private static void searchProducts(Scanner sc) {
         System.out.println("=== Search Products ===");
-        System.out.print("Query (name/category): ");
-        String q = sc.nextLine().trim().toLowerCase();
-        List<Product> results = StoreDB.products.values().stream()
-                .filter(p -> p.name.toLowerCase().contains(q) || p.category.toLowerCase().contains(q))
-                .collect(Collectors.toList());
-        if (results.isEmpty()) {
+        System.out.print("Query (name/category, end with * to autocomplete): ");
+        String q = sc.nextLine().trim();
+        List<String> ids;
+        if (q.endsWith("*")) {
+            long t0 = Metrics.start();
+            ids = StoreDB.searchIndex.suggest(q.substring(0, q.length() - 1), 20);
+            Metrics.SUGGEST.recordSince(t0);
+        } else {
+            System.out.print("Category filter (blank for all): ");
+            String category = sc.nextLine();
+            long t0 = Metrics.start();
+            ids = StoreDB.searchIndex.search(q, category);
+            Metrics.SEARCH.recordSince(t0);
+        }
+        if (ids.isEmpty()) {
             System.out.println("No matches.");
         } else {
-            results.forEach(p -> System.out.printf(
-                    "%s | %s | %s | Price: %.2f | Stock: %d%n",
-                    p.id, p.name, p.category, p.price, p.stock
-            ));
+            Listings.Writer w = new Listings.Writer(System.out);
+            for (String id : ids) {
+                Product p = StoreDB.products.get(id);
+                if (p != null) Listings.product(w, p);
+            }
+            w.flush();
         }
     }
 
-    private static void viewSales() {
+    // Whole history through one buffered writer, names resolved once per ID
+    static void viewSales() {
         System.out.println("=== Sales ===");
         if (StoreDB.sales.isEmpty()) {
             System.out.println("No sales yet.");
             return;
         }
-        StoreDB.sales.values().forEach(sale -> {
-            TransactionModule.Product p = StoreDB.products.get(sale.productId);
-            TransactionModule.Customer c = StoreDB.customers.get(sale.customerId);
-            TransactionModule.Seller s = StoreDB.sellers.get(sale.sellerId);
-            double total = sale.quantity * sale.unitPrice;
-            System.out.printf("%s | %s -> %s | Seller: %s | Qty: %d | Unit: %.2f | Total: %.2f | %s%n",
-                    sale.saleId,
-                    p != null ? p.name : sale.productId,
-                    c != null ? c.name : sale.customerId,
-                    s != null ? s.name : sale.sellerId,
-                    sale.quantity, sale.unitPrice, total, sale.timestamp);
-        });
+        Listings.Writer w = new Listings.Writer(System.out);
+        Listings.Names names = new Listings.Names();
+        for (Sale sale : StoreDB.sales) Listings.sale(w, sale, names);
+        w.flush();
+    }
+
+    // Filtered, a page at a time, or streamed to a CSV file
+    private static void viewSales(Scanner sc) {
+        System.out.println("=== Sales ===");
+        System.out.print("Filter (seller=ID customer=ID product=ID from=DATE to=DATE, blank for all): ");
+        Listings.SaleFilter filter;
+        try {
+            filter = Listings.SaleFilter.parse(sc.nextLine());
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return;
+        }
+        System.out.print("Export to CSV file (blank to view here): ");
+        String file = sc.nextLine().trim();
+        if (!file.isEmpty()) {
+            try {
+                System.out.println("Exported " + BulkIO.exportSales(filter, Paths.get(file)));
+            } catch (IOException e) {
+                System.out.println("Export failed: " + e.getMessage());
+            }
+            return;
+        }
+        Listings.Writer w = new Listings.Writer(System.out);
+        Listings.Names names = new Listings.Names();
+        String cursor = null;
+        int shown = 0;
+        while (true) {
+            long t0 = Metrics.start();
+            Listings.Page<Sale> page = Listings.sales(cursor, PAGE_SIZE, filter);
+            for (Sale sale : page.rows) Listings.sale(w, sale, names);
+            w.flush();
+            Metrics.VIEW_SALES.recordSince(t0);
+            shown += page.rows.size();
+            cursor = page.next;
+            if (cursor == null || !page.rows.isEmpty() && !morePages(sc)) break;
+        }
+        if (shown == 0) System.out.println("No sales found.");
     }
 
     // ===== Helpers =====
+    private static final int PAGE_SIZE = 50;
+
+    private static boolean morePages(Scanner sc) {
+        System.out.print("-- Enter for more, q to stop: ");
+        return !sc.nextLine().trim().equalsIgnoreCase("q");
+    }
     private static double parseDouble(String s) {
         try { return Double.parseDouble(s); } catch (Exception e) { return -1; }
     }
     private static int parseInt(String s) {
         try { return Integer.parseInt(s); } catch (Exception e) { return -1; }
     }
-    private static String sellerIdForUser(String username) {
+    static String sellerIdForUser(String username) {
         // Simple mapping: username to seller by name match, else first seller
         for (Seller s : StoreDB.sellers.values()) {
             if (s.name.equalsIgnoreCase(username)) return s.id;
@@ -412,11 +1271,22 @@ public class TransactionModule {
         return StoreDB.sellers.keySet().stream().findFirst().orElse(null);
     }
 
+    // Warn when a sale or update drops a product to the low-stock level. The sale
+    // thread only enqueues; AlertPipeline prints, and folds repeats for the same product.
+    public static void enableLowStockWarnings(int level) {
+        StoreDB.stockIndex.subscribe(level, (p, stock, lvl) -> AlertPipeline.shared().raise(
+                "low-stock:" + p.id, "Low stock: " + p.id + " (" + p.name + ") now " + stock));
+    }
+
     // Standalone runner for quick testing (bypasses LoginModule)
     public static void main(String[] args) {
         StoreDB.seedDemoData();
+        StoreDB.openPersistenceFromConfig();
+        StoreDB.openJournalFromConfig();
+        Metrics.startFromConfig();
+        enableLowStockWarnings(5);
         Scanner sc = new Scanner(System.in);
         dashboard(sc, "admin", "admin");
         sc.close();
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -1,15 +1,21 @@
+import store.PasswordHasher;
+
 // Base class User
 abstract class User {
     protected String username;
-    protected String password;
+    protected String passwordHash; // salted PBKDF2, never the password itself
     protected String role;
 
     public User(String username, String password, String role) {
         this.username = username;
-        this.password = password;
+        this.passwordHash = PasswordHasher.hash(password);
         this.role = role;
     }
 
+    public boolean checkPassword(String password) {
+        return PasswordHasher.verify(password, passwordHash);
+    }
+
     public abstract void login();
     public abstract void viewData();
 }
@@ -1,55 +1,143 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
 // Warehouse class
+// Stock is indexed by item code. Each item keeps an available count, which
+// reservations take from with a CAS loop, and a reserved count for units held
+// by open orders. Many stores can reserve the same item at once without locks
+// and without overselling.
 class Warehouse {
     private String warehouseId;
     private String warehouseName;
-    private List<Item> items;
+    private double x, y; // location, for nearest-warehouse allocation
+    private final Map<String, Stock> items = new ConcurrentHashMap<>();
     private double safetyStock;
 
+    static final class Stock {
+        final Item item;
+        final AtomicInteger available = new AtomicInteger();
+        final AtomicInteger reserved = new AtomicInteger();
+
+        Stock(Item item) {
+            this.item = item;
+        }
+    }
+
     public Warehouse(String warehouseId, String warehouseName) {
+        this(warehouseId, warehouseName, 0, 0);
+    }
+
+    public Warehouse(String warehouseId, String warehouseName, double x, double y) {
         this.warehouseId = warehouseId;
         this.warehouseName = warehouseName;
-        this.items = new ArrayList<>();
+        this.x = x;
+        this.y = y;
     }
 
     // Add item to warehouse inventory
     public void addItem(Item item) {
-        items.add(item);
+        addItem(item, 0);
+    }
+
+    public void addItem(Item item, int quantity) {
+        items.computeIfAbsent(item.getItemCode(), k -> new Stock(item)).available.addAndGet(quantity);
+    }
+
+    // Receive more units of an item already carried
+    public void addStock(String itemCode, int quantity) {
+        Stock s = items.get(itemCode);
+        if (s == null) throw new IllegalArgumentException("Item not stocked here: " + itemCode);
+        s.available.addAndGet(quantity);
+    }
+
+    // Units that can still be reserved (0 if the item is not carried)
+    public int available(String itemCode) {
+        Stock s = items.get(itemCode);
+        return s == null ? 0 : s.available.get();
+    }
+
+    public int reserved(String itemCode) {
+        Stock s = items.get(itemCode);
+        return s == null ? 0 : s.reserved.get();
+    }
+
+    // Reserve up to `max` units; returns how many were reserved (possibly 0)
+    public int reserve(String itemCode, int max) {
+        Stock s = items.get(itemCode);
+        if (s == null || max <= 0) return 0;
+        while (true) {
+            int avail = s.available.get();
+            if (avail <= 0) return 0;
+            int take = Math.min(avail, max);
+            if (s.available.compareAndSet(avail, avail - take)) {
+                s.reserved.addAndGet(take);
+                return take;
+            }
+        }
+    }
+
+    // Give back units from a cancelled or rolled-back reservation
+    public void release(String itemCode, int quantity) {
+        Stock s = items.get(itemCode);
+        s.reserved.addAndGet(-quantity);
+        s.available.addAndGet(quantity);
+    }
+
+    // Reserved units have left the building
+    public void ship(String itemCode, int quantity) {
+        items.get(itemCode).reserved.addAndGet(-quantity);
+    }
+
+    public double distanceTo(double toX, double toY) {
+        return Math.hypot(x - toX, y - toY);
     }
 
     // Calculate Safety Stock
     public double calculateSafetyStock(double maxDailyUsage, double maxLeadTime, double avgDailyUsage, double avgLeadTime) {
-        return (maxDailyUsage * maxLeadTime) - (avgDailyUsage * avgLeadTime);
+        return safetyStock(maxDailyUsage, maxLeadTime, avgDailyUsage, avgLeadTime);
     }
 
     // Calculate reorder point
     public double calculateReorderPoint(double leadTime, double avgDailyUsage, double safetyStock) {
+        return reorderPoint(leadTime, avgDailyUsage, safetyStock);
+    }
+
+    // Static forms for ReorderPlanner's array kernel
+    static double safetyStock(double maxDailyUsage, double maxLeadTime, double avgDailyUsage, double avgLeadTime) {
+        return (maxDailyUsage * maxLeadTime) - (avgDailyUsage * avgLeadTime);
+    }
+
+    static double reorderPoint(double leadTime, double avgDailyUsage, double safetyStock) {
         return (leadTime * avgDailyUsage) + safetyStock;
     }
 
-    // Getters and Setters
-    public List<Item> getItems() {
-        return items;
+    public void calculateAndDisplayEOQ() {
+        for (Stock s : items.values()) {
+            System.out.printf("EOQ for %s (%s): %.1f units, %d on hand%n", s.item.getItemName(),
+                    s.item.getItemCode(), s.item.calculateEOQ(), s.available.get() + s.reserved.get());
+        }
     }
-}
 
-// Store class
-class Store {
-    private String storeId;
-    private String storeName;
-    private List<Item> inventory;
+    // Getters and Setters
+    public String getWarehouseId() {
+        return warehouseId;
+    }
 
-    public Store(String storeId, String storeName) {
-        this.storeId = storeId;
-        this.storeName = storeName;
-        inventory = new ArrayList<>();
+    public String getWarehouseName() {
+        return warehouseName;
     }
 
-    public void addItem(Item item) {
-        inventory.add(item);
+    // Point-in-time copy of the stock records, for bulk scans
+    Stock[] stockSnapshot() {
+        return items.values().toArray(new Stock[0]);
     }
 
-    public void placeOrder(Warehouse warehouse, Item item, int quantity) {
-        System.out.println("Placing order for " + quantity + " units of " + item.getItemName() + " from warehouse.");
-        // Implement order placement logic
+    public List<Item> getItems() {
+        List<Item> list = new ArrayList<>(items.size());
+        for (Stock s : items.values()) list.add(s.item);
+        return list;
     }
 }
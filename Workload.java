@@ -0,0 +1,315 @@
+package store;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+// Synthetic store data for capacity tests: a catalogue, customers, sellers, a sales
+// history and per-terminal streams of baskets. Everything derives from the seed,
+// so one seed always yields the same data and the same baskets in the same order.
+//
+// Products are spread over CATEGORIES, each with its own price range (log-uniform
+// within it). Popularity is Zipf with exponent `productSkew` over a seeded
+// permutation of the catalogue, so best-sellers land in every category. Customers
+// are Zipf too (`customerSkew`, milder): regulars come back, most visit rarely.
+// History is spread over the `days` days before `endDay`, weighted by hour of day
+// (HOURLY, a store open 08:00-22:00 with midday and evening peaks) and busier at
+// weekends. Baskets hold 1 + Geometric(mean basketMean - 1) lines of 1-3 units.
+//
+// Settings are fluent and must be made before the first products()/customers()/
+// sellers() call, which fixes the catalogue.
+public class Workload {
+    private static final class Category {
+        final String name;
+        final double minPrice;
+        final double maxPrice;
+        final int weight; // share of the catalogue
+
+        Category(String name, double minPrice, double maxPrice, int weight) {
+            this.name = name;
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.weight = weight;
+        }
+    }
+
+    private static final Category[] CATEGORIES = {
+            new Category("Grocery", 20, 900, 24),
+            new Category("Beverages", 15, 400, 10),
+            new Category("Snacks", 10, 250, 12),
+            new Category("Dairy", 20, 300, 8),
+            new Category("Personal Care", 30, 600, 12),
+            new Category("Household", 40, 1500, 10),
+            new Category("Baby Care", 80, 1200, 5),
+            new Category("Stationery", 5, 300, 6),
+            new Category("Apparel", 200, 4000, 8),
+            new Category("Electronics", 300, 25000, 5),
+    };
+
+    // Relative sales per hour of day
+    private static final int[] HOURLY = {
+            0, 0, 0, 0, 0, 0, 0, 0, 3, 5, 6, 7, 9, 9, 7, 6, 6, 8, 10, 11, 9, 6, 0, 0};
+
+    private static final String[] FIRST = {"Aarav", "Neha", "Arjun", "Priya", "Rohan", "Ananya", "Vikram",
+            "Isha", "Kabir", "Meera", "Rahul", "Sneha", "Aditya", "Kavya", "Sanjay", "Pooja"};
+    private static final String[] LAST = {"Sharma", "Mehta", "Iyer", "Reddy", "Gupta", "Nair", "Singh",
+            "Das", "Patel", "Khan", "Joshi", "Rao"};
+
+    private final long seed;
+    private final int productCount;
+    private final int customerCount;
+    private final int sellerCount;
+    private double productSkew = 1.1;
+    private double customerSkew = 0.7;
+    private double basketMean = 3.0;
+    private int days = 90;
+    private LocalDate endDay = LocalDate.of(2024, 6, 30);
+    private int stock = 1_000_000;
+
+    private List<TransactionModule.Product> products;
+    private List<TransactionModule.Customer> customers;
+    private List<TransactionModule.Seller> sellers;
+    private Zipf productPicker;
+    private Zipf customerPicker;
+    private int[] productByRank;
+
+    public Workload(long seed, int products, int customers, int sellers) {
+        if (products < 1 || customers < 1 || sellers < 1) {
+            throw new IllegalArgumentException("Need at least one product, customer and seller");
+        }
+        this.seed = seed;
+        this.productCount = products;
+        this.customerCount = customers;
+        this.sellerCount = sellers;
+    }
+
+    public Workload productSkew(double s) {
+        productSkew = s;
+        return this;
+    }
+
+    public Workload customerSkew(double s) {
+        customerSkew = s;
+        return this;
+    }
+
+    public Workload basketMean(double lines) {
+        if (lines < 1) throw new IllegalArgumentException("basketMean must be at least 1");
+        basketMean = lines;
+        return this;
+    }
+
+    // History covers the `days` days ending with `endDay`
+    public Workload historyDays(LocalDate endDay, int days) {
+        this.endDay = endDay;
+        this.days = Math.max(1, days);
+        return this;
+    }
+
+    // Units each product starts with
+    public Workload stock(int units) {
+        stock = units;
+        return this;
+    }
+
+    public long seed() {
+        return seed;
+    }
+
+    // ===== Catalogue =====
+
+    public synchronized List<TransactionModule.Product> products() {
+        if (products == null) build();
+        return products;
+    }
+
+    public synchronized List<TransactionModule.Customer> customers() {
+        if (customers == null) build();
+        return customers;
+    }
+
+    public synchronized List<TransactionModule.Seller> sellers() {
+        if (sellers == null) build();
+        return sellers;
+    }
+
+    // Product IDs, most popular first
+    public List<String> productsByPopularity() {
+        List<TransactionModule.Product> ps = products();
+        List<String> out = new ArrayList<>(productCount);
+        for (int idx : productByRank) out.add(ps.get(idx).id);
+        return out;
+    }
+
+    private void build() {
+        SplittableRandom rnd = new SplittableRandom(seed);
+        int weights = 0;
+        for (Category c : CATEGORIES) weights += c.weight;
+        List<TransactionModule.Product> ps = new ArrayList<>(productCount);
+        for (int i = 0; i < productCount; i++) {
+            int w = rnd.nextInt(weights);
+            Category c = CATEGORIES[0];
+            for (Category k : CATEGORIES) {
+                if (w < k.weight) {
+                    c = k;
+                    break;
+                }
+                w -= k.weight;
+            }
+            double price = c.minPrice * Math.pow(c.maxPrice / c.minPrice, rnd.nextDouble());
+            ps.add(new TransactionModule.Product(productId(i), c.name + " " + (1000 + i), c.name,
+                    Math.round(price * 100) / 100.0, stock));
+        }
+        productByRank = new int[productCount];
+        for (int i = 0; i < productCount; i++) productByRank[i] = i;
+        for (int i = productCount - 1; i > 0; i--) { // Fisher-Yates
+            int j = rnd.nextInt(i + 1);
+            int t = productByRank[i];
+            productByRank[i] = productByRank[j];
+            productByRank[j] = t;
+        }
+        List<TransactionModule.Customer> cs = new ArrayList<>(customerCount);
+        for (int i = 0; i < customerCount; i++) {
+            String name = FIRST[rnd.nextInt(FIRST.length)] + " " + LAST[rnd.nextInt(LAST.length)];
+            String phone = Long.toString(6_000_000_000L + rnd.nextLong(4_000_000_000L));
+            cs.add(new TransactionModule.Customer(customerId(i), name, phone));
+        }
+        List<TransactionModule.Seller> ss = new ArrayList<>(sellerCount);
+        for (int i = 0; i < sellerCount; i++) {
+            ss.add(new TransactionModule.Seller(sellerId(i), FIRST[rnd.nextInt(FIRST.length)]));
+        }
+        products = Collections.unmodifiableList(ps);
+        customers = Collections.unmodifiableList(cs);
+        sellers = Collections.unmodifiableList(ss);
+        productPicker = new Zipf(productCount, productSkew);
+        customerPicker = new Zipf(customerCount, customerSkew);
+    }
+
+    static String productId(int i) {
+        return "P" + (1000 + i);
+    }
+
+    static String customerId(int i) {
+        return "C" + (10000 + i);
+    }
+
+    static String sellerId(int i) {
+        return "S" + (100 + i);
+    }
+
+    // ===== Sales =====
+
+    // `n` historical sales in time order. Sale IDs come from StoreDB.nextSaleId() so
+    // the history never collides with sales already in the store; everything else
+    // is fixed by the seed.
+    public List<TransactionModule.Sale> history(int n) {
+        List<TransactionModule.Sale> out = new ArrayList<>(n);
+        history(n, out::addAll);
+        return out;
+    }
+
+    // The same history handed over one day at a time, so it is never held whole
+    public void history(int n, Consumer<List<TransactionModule.Sale>> perDay) {
+        List<TransactionModule.Product> ps = products();
+        SplittableRandom rnd = new SplittableRandom(seed ^ 0x5DEECE66DL);
+        LocalDate first = endDay.minusDays(days - 1);
+        double[] upTo = new double[days + 1]; // cumulative day weights
+        for (int d = 0; d < days; d++) {
+            DayOfWeek dow = first.plusDays(d).getDayOfWeek();
+            upTo[d + 1] = upTo[d] + (dow == DayOfWeek.SATURDAY || dow == DayOfWeek.SUNDAY ? 1.4 : 1.0);
+        }
+        int hourTotal = 0;
+        for (int h : HOURLY) hourTotal += h;
+        for (int d = 0; d < days; d++) {
+            int count = (int) (Math.round(n * upTo[d + 1] / upTo[days]) - Math.round(n * upTo[d] / upTo[days]));
+            if (count == 0) continue;
+            long dayStart = first.plusDays(d).toEpochDay() * 86_400;
+            long[] seconds = new long[count];
+            for (int i = 0; i < count; i++) {
+                int w = rnd.nextInt(hourTotal);
+                int h = 0;
+                while (w >= HOURLY[h]) w -= HOURLY[h++];
+                seconds[i] = dayStart + h * 3600L + rnd.nextInt(3600);
+            }
+            Arrays.sort(seconds);
+            List<TransactionModule.Sale> sales = new ArrayList<>(count);
+            for (long t : seconds) {
+                TransactionModule.Product p = ps.get(productByRank[productPicker.sample(rnd)]);
+                sales.add(new TransactionModule.Sale(TransactionModule.StoreDB.nextSaleId(), p.id,
+                        customers.get(customerPicker.sample(rnd)).id, sellers.get(rnd.nextInt(sellerCount)).id,
+                        units(rnd), p.price, LocalDateTime.ofEpochSecond(t, 0, ZoneOffset.UTC)));
+            }
+            perDay.accept(sales);
+        }
+    }
+
+    // Load the catalogue and `historySales` past sales into StoreDB through the bulk
+    // import path
+    public void load(int historySales) {
+        TransactionModule.StoreDB.importProducts(products());
+        TransactionModule.StoreDB.importCustomers(customers());
+        TransactionModule.StoreDB.importSellers(sellers());
+        history(historySales, TransactionModule.StoreDB::importSales);
+    }
+
+    private int units(SplittableRandom rnd) {
+        int u = rnd.nextInt(10);
+        return u < 7 ? 1 : u < 9 ? 2 : 3;
+    }
+
+    // One till's stream of baskets; its cashier is seller `index % sellers`
+    public Terminal terminal(int index) {
+        products();
+        return new Terminal(index);
+    }
+
+    public final class Terminal {
+        private final SplittableRandom rnd;
+        private final String sellerId;
+        private final double continueLines; // chance of one more line
+
+        Terminal(int index) {
+            this.rnd = new SplittableRandom(seed * 31 + index);
+            this.sellerId = sellers.get(index % sellerCount).id;
+            this.continueLines = 1 - 1 / basketMean;
+        }
+
+        public List<TransactionModule.SaleRequest> nextBasket() {
+            String customerId = customers.get(customerPicker.sample(rnd)).id;
+            List<TransactionModule.SaleRequest> basket = new ArrayList<>(4);
+            do {
+                String productId = products.get(productByRank[productPicker.sample(rnd)]).id;
+                basket.add(new TransactionModule.SaleRequest(productId, customerId, sellerId, units(rnd)));
+            } while (basket.size() < 50 && rnd.nextDouble() < continueLines);
+            return basket;
+        }
+    }
+
+    // Ranks 0..n-1 with P(k) proportional to 1 / (k + 1)^s, by binary search of the CDF
+    static final class Zipf {
+        private final double[] cdf;
+
+        Zipf(int n, double s) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int k = 0; k < n; k++) cdf[k] = sum += Math.pow(k + 1, -s);
+            for (int k = 0; k < n; k++) cdf[k] /= sum;
+        }
+
+        int sample(SplittableRandom rnd) {
+            int i = Arrays.binarySearch(cdf, rnd.nextDouble());
+            return Math.min(i < 0 ? -i - 1 : i, cdf.length - 1);
+        }
+
+        double probability(int rank) {
+            return rank == 0 ? cdf[0] : cdf[rank] - cdf[rank - 1];
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class WorkloadTest {
+
+    private static String describe(TransactionModule.Product p) {
+        return p.id + "/" + p.name + "/" + p.category + "/" + p.price;
+    }
+
+    private static List<String> baskets(Workload w, int terminal, int n) {
+        Workload.Terminal till = w.terminal(terminal);
+        List<String> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (TransactionModule.SaleRequest r : till.nextBasket()) {
+                sb.append(r.productId).append('x').append(r.quantity).append('@').append(r.customerId).append(' ');
+            }
+            out.add(sb.toString());
+        }
+        return out;
+    }
+
+    @Test
+    public void sameSeedSameDataDifferentSeedDifferentData() {
+        Workload a = new Workload(7, 500, 2000, 4);
+        Workload b = new Workload(7, 500, 2000, 4);
+        Workload c = new Workload(8, 500, 2000, 4);
+        for (int i = 0; i < 500; i++) assertEquals(describe(a.products().get(i)), describe(b.products().get(i)));
+        assertEquals(a.customers().get(1999).phone, b.customers().get(1999).phone);
+        assertEquals(a.productsByPopularity(), b.productsByPopularity());
+        assertEquals(baskets(a, 3, 200), baskets(b, 3, 200));
+        assertNotEquals(baskets(a, 3, 200), baskets(a, 4, 200));
+        assertNotEquals(a.productsByPopularity(), c.productsByPopularity());
+
+        List<TransactionModule.Sale> ha = a.history(5000);
+        List<TransactionModule.Sale> hb = b.history(5000);
+        assertEquals(5000, ha.size());
+        for (int i = 0; i < ha.size(); i += 97) {
+            assertEquals(ha.get(i).productId, hb.get(i).productId);
+            assertEquals(ha.get(i).customerId, hb.get(i).customerId);
+            assertEquals(ha.get(i).timestamp, hb.get(i).timestamp);
+        }
+    }
+
+    @Test
+    public void catalogueAndHistoryLookLikeAStore() {
+        Workload w = new Workload(11, 2000, 5000, 6).historyDays(LocalDate.of(2024, 3, 31), 28);
+        Set<String> categories = new HashSet<>();
+        for (TransactionModule.Product p : w.products()) {
+            categories.add(p.category);
+            assertTrue(p.price >= 5 && p.price <= 25_000);
+        }
+        assertEquals(10, categories.size());
+
+        List<TransactionModule.Sale> history = w.history(40_000);
+        LocalDateTime first = LocalDateTime.of(2024, 3, 4, 0, 0);
+        LocalDateTime end = LocalDateTime.of(2024, 4, 1, 0, 0);
+        Map<String, Integer> byProduct = new HashMap<>();
+        for (int i = 0; i < history.size(); i++) {
+            TransactionModule.Sale s = history.get(i);
+            assertTrue(!s.timestamp.isBefore(first) && s.timestamp.isBefore(end));
+            assertTrue(s.timestamp.getHour() >= 8 && s.timestamp.getHour() < 22); // opening hours
+            if (i > 0) assertTrue(!s.timestamp.isBefore(history.get(i - 1).timestamp));
+            byProduct.merge(s.productId, 1, Integer::sum);
+        }
+        // Zipf(1.1) over 2000 products: the best-seller takes about 1 / H(2000, 1.1) of sales
+        double expected = new Workload.Zipf(2000, 1.1).probability(0);
+        double share = byProduct.get(w.productsByPopularity().get(0)) / (double) history.size();
+        assertEquals(expected, share, expected * 0.1);
+        assertTrue(byProduct.getOrDefault(w.productsByPopularity().get(1999), 0) < 10);
+    }
+
+    @Test
+    public void harnessReplaysAtTheTargetRate() throws Exception {
+        Workload w = new Workload(3, 200, 1000, 2).stock(10_000_000);
+        long before = TransactionModule.StoreDB.sales.size();
+        w.load(2000);
+        assertEquals(before + 2000, TransactionModule.StoreDB.sales.size());
+
+        CapacityHarness.Result r = CapacityHarness.run(w, 4, 400, 1.0);
+        assertEquals(0, r.failed);
+        assertEquals(r.baskets, r.sale.count() + r.checkout.count());
+        assertTrue("baskets " + r.baskets, r.baskets >= 360 && r.baskets <= 404);
+        assertTrue(r.lines >= r.baskets);
+        assertTrue(r.heapPeakBytes > 0);
+    }
+}
@@ -0,0 +1,207 @@
+package store;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Write-behind queue between StoreDB and a PersistenceBackend. Sales are queued
+// and products, customers and sellers are only marked dirty, so a sale never
+// waits for the database. One writer thread drains whatever has accumulated
+// into a single backend write: under light load that is a sale at a time,
+// under heavy load the batches grow up to `maxBatch` sales, and a product sold
+// a thousand times between flushes is written once with its latest stock.
+// A failed write is kept and retried with backoff. When the queue is full,
+// sellers block until the writer catches up rather than losing sales.
+public final class WriteBehindStore implements SaleListener, AutoCloseable {
+    private static final long MAX_BACKOFF_MS = 5_000;
+
+    private final PersistenceBackend backend;
+    private final BlockingQueue<TransactionModule.Sale> queue;
+    private final Map<String, TransactionModule.Product> dirtyProducts = new ConcurrentHashMap<>();
+    private final Map<String, TransactionModule.Customer> dirtyCustomers = new ConcurrentHashMap<>();
+    private final Map<String, TransactionModule.Seller> dirtySellers = new ConcurrentHashMap<>();
+    private final long flushMillis;
+    private final int maxBatch;
+    private final Thread writer;
+
+    // Sales ever enqueued vs. written; flush() waits for the second to catch up
+    private final AtomicLong salesQueued = new AtomicLong();
+    private volatile long salesWritten;
+
+    // Owned by the writer thread
+    private final PersistenceBackend.Batch pending = new PersistenceBackend.Batch();
+    private volatile boolean busy;
+    private volatile boolean closed;
+    private volatile long rowsWritten;
+    private volatile long failures;
+    private volatile String lastError;
+
+    public WriteBehindStore(PersistenceBackend backend, int capacity, int maxBatch, long flushMillis) {
+        this.backend = backend;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.flushMillis = flushMillis;
+        this.writer = new Thread(this::run, "store-write-behind");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // ===== Producers (StoreDB) =====
+
+    @Override
+    public void onSale(TransactionModule.Sale sale, int row) {
+        enqueue(sale);
+        TransactionModule.Product p = TransactionModule.StoreDB.products.get(sale.productId);
+        if (p != null) dirtyProducts.put(p.id, p);
+    }
+
+    public void productChanged(TransactionModule.Product p) {
+        dirtyProducts.put(p.id, p);
+    }
+
+    public void customerChanged(TransactionModule.Customer c) {
+        dirtyCustomers.put(c.id, c);
+    }
+
+    public void sellerChanged(TransactionModule.Seller s) {
+        dirtySellers.put(s.id, s);
+    }
+
+    private void enqueue(TransactionModule.Sale sale) {
+        salesQueued.incrementAndGet();
+        if (queue.offer(sale)) return;
+        try {
+            queue.put(sale);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while the write-behind queue was full", e);
+        }
+    }
+
+    // ===== Writer =====
+
+    private void run() {
+        long backoff = flushMillis;
+        while (true) {
+            boolean last = closed;
+            try {
+                if (pending.isEmpty()) collect();
+                if (!pending.isEmpty()) {
+                    long t0 = Metrics.start();
+                    backend.write(pending);
+                    Metrics.DB_WRITE.recordSince(t0);
+                    rowsWritten += pending.size();
+                    salesWritten += pending.sales.size();
+                    pending.clear();
+                    backoff = flushMillis;
+                }
+                synchronized (this) {
+                    busy = false;
+                    notifyAll();
+                }
+            } catch (IOException | RuntimeException e) {
+                failures++;
+                String msg = String.valueOf(e.getMessage());
+                if (!msg.equals(lastError)) System.out.println("Write-behind failed, will retry: " + msg);
+                lastError = msg;
+                if (last) return;
+                sleep(backoff);
+                backoff = Math.min(backoff * 2, MAX_BACKOFF_MS);
+                continue;
+            }
+            if (last && queue.isEmpty() && dirtyCount() == 0) return;
+        }
+    }
+
+    // Wait up to flushMillis for the first sale, then take everything ready
+    private void collect() {
+        TransactionModule.Sale first = null;
+        if (dirtyCount() == 0 && !closed) {
+            try {
+                first = queue.poll(flushMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+        if (first != null) pending.sales.add(first);
+        queue.drainTo(pending.sales, maxBatch - pending.sales.size());
+        // Under the monitor, so flush() sees a row either still dirty or busy
+        synchronized (this) {
+            busy = true;
+            // remove() before reading, so a change racing with this flush re-marks the row
+            for (String id : dirtyProducts.keySet()) {
+                TransactionModule.Product p = dirtyProducts.remove(id);
+                if (p != null) pending.products.add(p);
+            }
+            for (String id : dirtyCustomers.keySet()) {
+                TransactionModule.Customer c = dirtyCustomers.remove(id);
+                if (c != null) pending.customers.add(c);
+            }
+            for (String id : dirtySellers.keySet()) {
+                TransactionModule.Seller s = dirtySellers.remove(id);
+                if (s != null) pending.sellers.add(s);
+            }
+        }
+    }
+
+    private int dirtyCount() {
+        return dirtyProducts.size() + dirtyCustomers.size() + dirtySellers.size();
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ignored) {
+            // Retry sooner
+        }
+    }
+
+    // ===== Control =====
+
+    // Block until everything queued or marked dirty before the call is written.
+    // Returns false if that did not happen within `timeoutMillis`.
+    public boolean flush(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        long target = salesQueued.get();
+        synchronized (this) {
+            while (busy || salesWritten < target || dirtyCount() > 0) {
+                long left = deadline - System.currentTimeMillis();
+                if (left <= 0 || !writer.isAlive()) return false;
+                wait(Math.min(left, flushMillis));
+            }
+        }
+        return true;
+    }
+
+    public int queued() {
+        return queue.size();
+    }
+
+    public long rowsWritten() {
+        return rowsWritten;
+    }
+
+    public long failures() {
+        return failures;
+    }
+
+    // Drain what is queued (one last attempt if the backend is failing), then close it
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join(Math.max(10_000, flushMillis * 2));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        long unwritten = salesQueued.get() - salesWritten;
+        if (unwritten > 0 || dirtyCount() > 0) {
+            System.out.println("Write-behind closed with " + unwritten + " sales not written: " + lastError);
+        }
+        backend.close();
+    }
+}
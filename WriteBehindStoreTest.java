@@ -0,0 +1,108 @@
+package store;
+
+import org.junit.Test;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class WriteBehindStoreTest {
+
+    // Keeps copies of written rows, the way a database would
+    static class MemoryBackend implements PersistenceBackend {
+        final Map<String, Integer> stock = new ConcurrentHashMap<>();
+        final Map<String, String> customers = new ConcurrentHashMap<>();
+        final List<TransactionModule.Sale> sales = Collections.synchronizedList(new ArrayList<>());
+        final List<TransactionModule.Product> preload = new ArrayList<>();
+        final AtomicInteger writes = new AtomicInteger();
+        volatile int failuresLeft;
+
+        @Override
+        public void write(Batch batch) throws IOException {
+            if (failuresLeft > 0) {
+                failuresLeft--;
+                throw new IOException("database unavailable");
+            }
+            writes.incrementAndGet();
+            for (TransactionModule.Product p : batch.products) stock.put(p.id, p.stock);
+            for (TransactionModule.Customer c : batch.customers) customers.put(c.id, c.name);
+            for (TransactionModule.Sale s : batch.sales) {
+                if (sales.stream().noneMatch(x -> x.saleId.equals(s.saleId))) sales.add(s);
+            }
+        }
+
+        @Override
+        public void loadAll(Loader loader) {
+            loader.products(preload);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    private static TransactionModule.Product product(int stock) {
+        TransactionModule.Product p = new TransactionModule.Product("WB-" + System.nanoTime(), "Write-behind item",
+                "Test", 10.0, stock);
+        TransactionModule.StoreDB.addProduct(p);
+        return p;
+    }
+
+    @Test
+    public void salesAreBatchedAndProductsCoalesced() throws Exception {
+        TransactionModule.Product p = product(100);
+        MemoryBackend db = new MemoryBackend();
+        WriteBehindStore w = new WriteBehindStore(db, 16, 1000, 20);
+        for (int i = 0; i < 200; i++) {
+            p.stock--;
+            w.onSale(new TransactionModule.Sale("WBT" + i, p.id, "C001", "S001", 1, 10.0, LocalDateTime.now()), i);
+        }
+        assertTrue(w.flush(10_000));
+        assertEquals(200, db.sales.size());
+        assertEquals("WBT199", db.sales.get(199).saleId);
+        assertEquals(Integer.valueOf(-100), db.stock.get(p.id));
+        // A 16-slot queue forced the sellers to wait, but the writes still grouped sales
+        assertTrue(db.writes.get() < 200);
+        w.close();
+    }
+
+    @Test
+    public void failedWritesAreRetried() throws Exception {
+        MemoryBackend db = new MemoryBackend();
+        db.failuresLeft = 3;
+        WriteBehindStore w = new WriteBehindStore(db, 1000, 1000, 5);
+        TransactionModule.Customer c = new TransactionModule.Customer("WBC-" + System.nanoTime(), "Retry", "1");
+        w.customerChanged(c);
+        assertTrue(w.flush(10_000));
+        assertEquals("Retry", db.customers.get(c.id));
+        assertEquals(3, w.failures());
+        w.close();
+    }
+
+    @Test
+    public void storeDbLoadsAtStartupAndWritesBehind() throws Exception {
+        MemoryBackend db = new MemoryBackend();
+        String loadedId = "WBL-" + System.nanoTime();
+        db.preload.add(new TransactionModule.Product(loadedId, "Loaded item", "Test", 5.0, 7));
+        TransactionModule.StoreDB.openPersistence(db, 1000, 100, 10);
+        try {
+            assertEquals(7, TransactionModule.StoreDB.products.get(loadedId).stock);
+            TransactionModule.Sale sale = TransactionModule.StoreDB.recordSale(loadedId, "C001", "S001", 2);
+            TransactionModule.Customer c = TransactionModule.StoreDB.addCustomer(
+                    new TransactionModule.Customer("WBD-" + System.nanoTime(), "Dev", "2"));
+            assertTrue(TransactionModule.StoreDB.persistence.flush(10_000));
+            assertTrue(db.sales.stream().anyMatch(s -> s.saleId.equals(sale.saleId)));
+            assertEquals(Integer.valueOf(5), db.stock.get(loadedId));
+            assertEquals("Dev", db.customers.get(c.id));
+        } finally {
+            TransactionModule.StoreDB.closePersistence();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package store;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Synthetic catalog and sales history shared by the benchmarks.
+// StoreDB is static, so one JVM holds one data set: JMH forks per trial, and
+// load() refuses to mix sizes inside a fork.
+final class BenchData {
+    static final String[] WORDS = {
+        "basmati", "rice", "toothpaste", "mint", "organic", "green", "tea", "coffee", "arabica",
+        "shampoo", "herbal", "soap", "olive", "oil", "wheat", "flour", "sugar", "salt", "masala",
+        "biscuit", "chocolate", "milk", "butter", "paneer", "yogurt", "detergent", "liquid", "powder"
+    };
+    static final String[] CATEGORIES = {
+        "Grocery", "Personal Care", "Beverages", "Dairy", "Household", "Snacks"
+    };
+    static final int CUSTOMERS = 10_000;
+    static final int SELLERS = 20;
+    static final int HISTORY_DAYS = 30;
+    // Stock high enough that benchmarks never run a product dry
+    static final int STOCK = 1_000_000_000;
+
+    private static String loaded;
+
+    private BenchData() {
+    }
+
+    static String productId(int i) {
+        return "P" + i;
+    }
+
+    static String customerId(int i) {
+        return "C" + i;
+    }
+
+    static String sellerId(int i) {
+        return "S" + i;
+    }
+
+    static synchronized void load(int catalogSize, int salesHistory) {
+        String key = catalogSize + "/" + salesHistory;
+        if (key.equals(loaded)) return;
+        if (loaded != null) {
+            throw new IllegalStateException("StoreDB already holds " + loaded + "; run each trial in its own fork");
+        }
+        Random rnd = new Random(42);
+        List<TransactionModule.Product> products = new ArrayList<>(BulkIO.BATCH);
+        for (int i = 0; i < catalogSize; i++) {
+            String name = WORDS[rnd.nextInt(WORDS.length)] + " " + WORDS[rnd.nextInt(WORDS.length)]
+                    + " " + (100 + rnd.nextInt(900)) + "g";
+            int stock = lowStock(i) ? rnd.nextInt(5) : STOCK;
+            products.add(new TransactionModule.Product(productId(i), name,
+                    CATEGORIES[rnd.nextInt(CATEGORIES.length)], 10 + rnd.nextInt(500), stock));
+            if (products.size() == BulkIO.BATCH) {
+                TransactionModule.StoreDB.importProducts(products);
+                products.clear();
+            }
+        }
+        TransactionModule.StoreDB.importProducts(products);
+
+        List<TransactionModule.Customer> customers = new ArrayList<>(CUSTOMERS);
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(new TransactionModule.Customer(customerId(i), "Customer " + i, "98" + (10_000_000 + i)));
+        }
+        TransactionModule.StoreDB.importCustomers(customers);
+        List<TransactionModule.Seller> sellers = new ArrayList<>(SELLERS);
+        for (int i = 0; i < SELLERS; i++) sellers.add(new TransactionModule.Seller(sellerId(i), "Seller " + i));
+        TransactionModule.StoreDB.importSellers(sellers);
+
+        LocalDateTime start = LocalDateTime.now().minusDays(HISTORY_DAYS);
+        long spanSeconds = HISTORY_DAYS * 86_400L;
+        List<TransactionModule.Sale> sales = new ArrayList<>(BulkIO.BATCH);
+        for (int i = 0; i < salesHistory; i++) {
+            TransactionModule.Product p = TransactionModule.StoreDB.products.get(productId(skewed(rnd, catalogSize)));
+            sales.add(new TransactionModule.Sale(TransactionModule.StoreDB.nextSaleId(), p.id,
+                    customerId(rnd.nextInt(CUSTOMERS)), sellerId(rnd.nextInt(SELLERS)), 1 + rnd.nextInt(5),
+                    p.price, start.plusSeconds(spanSeconds * i / Math.max(1, salesHistory))));
+            if (sales.size() == BulkIO.BATCH) {
+                TransactionModule.StoreDB.importSales(sales);
+                sales = new ArrayList<>(BulkIO.BATCH);
+            }
+        }
+        TransactionModule.StoreDB.importSales(sales);
+        loaded = key;
+    }
+
+    // A few low-stock items so the inventory report has something to print
+    static boolean lowStock(int i) {
+        return i % 100 == 99;
+    }
+
+    // Product to sell: skewed, and never one of the low-stock items
+    static String sellable(Random rnd, int n) {
+        int i = skewed(rnd, n);
+        return productId(lowStock(i) ? i - 1 : i);
+    }
+
+    // Popular items sell more: the square of a uniform pick favours low indexes
+    static int skewed(Random rnd, int n) {
+        double u = rnd.nextDouble();
+        return (int) (u * u * n);
+    }
+
+    // The listing and report methods print; benchmarks measure formatting, not the terminal
+    static PrintStream silenceStdout() {
+        PrintStream original = System.out;
+        System.setOut(new PrintStream(new OutputStream() {
+            @Override
+            public void write(int b) {
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) {
+            }
+        }));
+        return original;
+    }
+}
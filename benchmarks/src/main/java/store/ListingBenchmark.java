@@ -0,0 +1,66 @@
+package store;
+
+import java.io.PrintStream;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Full listProducts / viewSales output, formatted into a discarding stream.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ListingBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"10000", "1000000"})
+    public int salesHistory;
+
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void load() {
+        BenchData.load(catalogSize, salesHistory);
+        stdout = BenchData.silenceStdout();
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void listProducts() {
+        TransactionModule.listProducts();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void viewSales() {
+        TransactionModule.viewSales();
+    }
+
+    // Several terminals listing at once share System.out's lock
+    @Benchmark
+    @Threads(4)
+    public void listProducts4Threads() {
+        TransactionModule.listProducts();
+    }
+}
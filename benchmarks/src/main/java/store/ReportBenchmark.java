@@ -0,0 +1,95 @@
+package store;
+
+import java.io.PrintStream;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Every ReportingModule report, printed into a discarding stream.
+// The "underLoad" group runs the top-N report while other threads keep selling.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ReportBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"10000", "1000000"})
+    public int salesHistory;
+
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void load() {
+        BenchData.load(catalogSize, salesHistory);
+        stdout = BenchData.silenceStdout();
+    }
+
+    @TearDown(Level.Trial)
+    public void restore() {
+        System.setOut(stdout);
+    }
+
+    @Benchmark
+    public void dailyRevenue() {
+        ReportingModule.dailyRevenue();
+    }
+
+    @Benchmark
+    public void topSellingProducts() {
+        ReportingModule.topSellingProducts(5);
+    }
+
+    @Benchmark
+    public void salesBySeller() {
+        ReportingModule.salesBySeller();
+    }
+
+    @Benchmark
+    public void inventoryBelowThreshold() {
+        ReportingModule.inventoryBelowThreshold(5);
+    }
+
+    @Benchmark
+    public void topSellingProductsToday() {
+        ReportingModule.topSellingProductsRecent(10, 1);
+    }
+
+    @Benchmark
+    public void topSellingProductsLast7Days() {
+        ReportingModule.topSellingProductsRecent(10, 7);
+    }
+
+    @Benchmark
+    @Group("underLoad")
+    @GroupThreads(2)
+    public void topSellingWhileSelling() {
+        ReportingModule.topSellingProducts(5);
+    }
+
+    @Benchmark
+    @Group("underLoad")
+    @GroupThreads(6)
+    public TransactionModule.Sale sellWhileReporting() {
+        String pid = BenchData.sellable(ThreadLocalRandom.current(), catalogSize);
+        return TransactionModule.StoreDB.recordSale(pid, "C1", "S1", 1);
+    }
+}
@@ -0,0 +1,81 @@
+package store;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The sellProduct path: StoreDB.recordSale on a random (skewed) product.
+// Multi-threaded variants show lock contention on popular products.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class SaleRecordingBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    @Param({"10000", "1000000"})
+    public int salesHistory;
+
+    @Setup(Level.Trial)
+    public void load() {
+        BenchData.load(catalogSize, salesHistory);
+    }
+
+    private String pick() {
+        return BenchData.sellable(ThreadLocalRandom.current(), catalogSize);
+    }
+
+    private static String customer() {
+        return BenchData.customerId(ThreadLocalRandom.current().nextInt(BenchData.CUSTOMERS));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TransactionModule.Sale recordSale() {
+        return TransactionModule.StoreDB.recordSale(pick(), customer(), "S1", 1);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TransactionModule.Sale recordSale8Threads() {
+        return TransactionModule.StoreDB.recordSale(pick(), customer(), "S1", 1);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public TransactionModule.CheckoutResult checkoutThreeLines() {
+        return TransactionModule.StoreDB.checkout(basket());
+    }
+
+    @Benchmark
+    @Threads(8)
+    public TransactionModule.CheckoutResult checkoutThreeLines8Threads() {
+        return TransactionModule.StoreDB.checkout(basket());
+    }
+
+    private List<TransactionModule.SaleRequest> basket() {
+        String c = customer();
+        return Arrays.asList(
+                new TransactionModule.SaleRequest(pick(), c, "S1", 1),
+                new TransactionModule.SaleRequest(pick(), c, "S1", 2),
+                new TransactionModule.SaleRequest(pick(), c, "S1", 1));
+    }
+}
@@ -0,0 +1,61 @@
+package store;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The searchProducts path: trigram search, category filter and autocomplete.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g"})
+public class SearchBenchmark {
+    @Param({"1000", "100000", "1000000"})
+    public int catalogSize;
+
+    // Common word, two-word substring, short (scan) query, no match
+    @Param({"rice", "mint tea", "oi", "xyz"})
+    public String query;
+
+    @Setup(Level.Trial)
+    public void load() {
+        BenchData.load(catalogSize, 0);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public List<String> search() {
+        return TransactionModule.StoreDB.searchIndex.search(query, null);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public List<String> search4Threads() {
+        return TransactionModule.StoreDB.searchIndex.search(query, null);
+    }
+
+    @Benchmark
+    public List<String> searchInCategory() {
+        return TransactionModule.StoreDB.searchIndex.search(query, "Dairy");
+    }
+
+    @Benchmark
+    public List<String> suggest() {
+        return TransactionModule.StoreDB.searchIndex.suggest(query, 20);
+    }
+}